@@ -122,6 +122,9 @@ public class CliOptions {
 	boolean version;
 	@Option(names = {"-p", "-portable"}, description = "Run jEveAssets portable%nSave all data in the jEveAssets program directory ")
 	boolean portable;
+	@Option(names = {"-b", "-binaryprofile"}, description = "Save profiles in a compact binary format (.bin.jeab)%n"
+			+ "    Profiles are loaded in either format, so saving once without this option converts them back to xml")
+	boolean binaryProfile;
 	@Option(names = {"-z", "-lazysave"}, description = "Only save to disk on update and exit%n"
 			+ "    Warning:%n"
 			+ "    This may cause you to lose data if jEveAssets exit unexpectedly" + END_GROUP)
@@ -355,6 +358,8 @@ public class CliOptions {
 		boolean forceUpdate;
 		@Option(names =  { "-jmemory" }, description = "Dev Command: Notify jEveAssets It's being run with jmemory.jar")
 		boolean jMemory;
+		@Option(names =  { "-xmldom" }, description = "Dev Command: Load xml files into memory (DOM) instead of streaming them")
+		boolean xmlDom;
 	}
 
 	private Map<ExportTool, List<ExportSettings>> settings = null;
@@ -554,6 +559,10 @@ public class CliOptions {
 		return lazySave;
 	}
 
+	public boolean isBinaryProfile() {
+		return binaryProfile;
+	}
+
 	public boolean isDebug() {
 		if (devOptions == null) {
 			return false;
@@ -600,6 +609,13 @@ public class CliOptions {
 		return devOptions.jMemory;
 	}
 
+	public boolean isXmlDom() {
+		if (devOptions == null) {
+			return false;
+		}
+		return devOptions.xmlDom;
+	}
+
 	public void setPortable(boolean portable) {
 		this.portable = portable;
 	}
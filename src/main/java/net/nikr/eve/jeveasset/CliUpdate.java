@@ -41,6 +41,7 @@ import net.nikr.eve.jeveasset.gui.tabs.values.DataSetCreator;
 import net.nikr.eve.jeveasset.io.local.ProfileReader;
 import net.nikr.eve.jeveasset.io.local.ProfileWriter;
 import net.nikr.eve.jeveasset.io.online.PriceDataGetter;
+import net.nikr.eve.jeveasset.io.shared.UpdatePipeline;
 
 
 public class CliUpdate {
@@ -61,12 +62,13 @@ public class CliUpdate {
 			ProfileReader.load(profileManager, profile.getFilename());
 			ProfileData profileData = new ProfileData(profileManager);
 			profileData.updateEventLists();
+			UpdatePipeline pipeline = new UpdatePipeline();
 			List<UpdateTask> updateTasks = new ArrayList<>();
-			updateTasks.add(new Step1Task(profileManager));
-			updateTasks.add(new Step2Task(profileManager, true, true, true, true, true, true, true, true, true, true));
-			updateTasks.add(new Step3Task(profileManager, true));
-			updateTasks.add(new Step4Task(profileManager, true));
-			updateTasks.add(new PriceDataTask(priceDataGetter, profileData, false));
+			updateTasks.add(new Step1Task(pipeline, profileManager));
+			updateTasks.add(new Step2Task(pipeline, profileManager, true, true, true, true, true, true, true, true, true, true));
+			updateTasks.add(new Step3Task(pipeline, profileManager, true));
+			updateTasks.add(new Step4Task(pipeline, profileManager, true));
+			updateTasks.add(new PriceDataTask(pipeline, priceDataGetter, profileData, false));
 			for (UpdateTask updateTask : updateTasks) {
 				updateTask.addPropertyChangeListener(new PropertyChangeListener() {
 					@Override
@@ -26,6 +26,7 @@ import java.net.URISyntaxException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JDialog;
+import net.nikr.eve.jeveasset.data.settings.AddedData;
 import net.nikr.eve.jeveasset.io.local.FileLock;
 import net.nikr.eve.jeveasset.io.online.Updater;
 import org.slf4j.bridge.SLF4JBridgeHandler;
@@ -160,6 +161,7 @@ public final class Main {
 			exitCode = cliExport.export();
 		}
 		if (CliOptions.get().isCLI()) {
+			AddedData.close(); //Save queued added/changed dates before exit (the save thread is a daemon)
 			System.exit(exitCode);
 		} else { //GUI
 			if(GraphicsEnvironment.isHeadless()) {
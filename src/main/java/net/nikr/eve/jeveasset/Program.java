@@ -716,6 +716,7 @@ public class Program implements ActionListener {
 			Settings.waitForEmptySaveQueue();
 		}
 		TrackerData.waitForEmptySaveQueue();
+		AddedData.close();
 	}
 
 	/**
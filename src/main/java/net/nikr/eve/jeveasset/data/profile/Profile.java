@@ -26,6 +26,7 @@ import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
 import net.nikr.eve.jeveasset.gui.tabs.stockpile.Stockpile;
+import net.nikr.eve.jeveasset.io.local.ProfileWriter;
 import net.nikr.eve.jeveasset.io.shared.FileUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,6 +93,15 @@ public class Profile implements Comparable<Profile> {
 		return new File(getFilenameNoExtension() + ".xml");
 	}
 
+	public File getBinaryFile() {
+		return new File(ProfileWriter.getBinaryFilename(getFilename()));
+	}
+
+	public File getBinaryBackupFile() {
+		String filename = ProfileWriter.getBinaryFilename(getFilename());
+		return new File(filename.substring(0, filename.lastIndexOf(".")) + ".bac");
+	}
+
 	private String getFilenameNoExtension() {
 		String filename = getName();
 		filename = filename.replace(" ", "_");
@@ -110,10 +120,13 @@ public class Profile implements Comparable<Profile> {
 		if (this.defaultProfile != defaultProfile) {
 			File from = getFile();
 			File backFrom = getBackupFile();
+			File binaryFrom = getBinaryFile();
+			File binaryBackFrom = getBinaryBackupFile();
 			this.defaultProfile = defaultProfile;
 			File to = getFile();
 			File backTo = getBackupFile();
 			if (!from.equals(to)
+							&& from.exists() //May only be saved in the binary format
 							&& !from.renameTo(to)) {
 				LOG.warn("Failed to rename profile: {}", this.getName());
 			}
@@ -121,12 +134,21 @@ public class Profile implements Comparable<Profile> {
 							&& !backFrom.renameTo(backTo)) {
 				LOG.warn("Failed to rename profile backup: {}", this.getName());
 			}
+			if (binaryFrom.exists()
+							&& !binaryFrom.renameTo(getBinaryFile())) {
+				LOG.warn("Failed to rename binary profile: {}", this.getName());
+			}
+			if (binaryBackFrom.exists()) {
+				binaryBackFrom.renameTo(getBinaryBackupFile());
+			}
 		}
 	}
 
 	public void setName(final String name) {
 		File from = getFile();
 		File backFrom = getBackupFile();
+		File binaryFrom = getBinaryFile();
+		File binaryBackFrom = getBinaryBackupFile();
 		this.name = name;
 		File to = getFile();
 		File backTo = getBackupFile();
@@ -136,6 +158,12 @@ public class Profile implements Comparable<Profile> {
 		if (!backFrom.equals(backTo)) {
 			backFrom.renameTo(backTo);
 		}
+		if (binaryFrom.exists()) {
+			binaryFrom.renameTo(getBinaryFile());
+		}
+		if (binaryBackFrom.exists()) {
+			binaryBackFrom.renameTo(getBinaryBackupFile());
+		}
 	}
 
 	@Override
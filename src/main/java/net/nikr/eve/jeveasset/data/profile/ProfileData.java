@@ -21,11 +21,13 @@
 package net.nikr.eve.jeveasset.data.profile;
 
 import ca.odell.glazedlists.EventList;
+import ca.odell.glazedlists.TransactionList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -76,14 +78,14 @@ public class ProfileData {
 
 	private final ProfileManager profileManager;
 
-	private final EventList<MyContractItem> contractItemEventList = EventListManager.create();
-	private final EventList<MyIndustryJob> industryJobsEventList = EventListManager.create();
-	private final EventList<MyMarketOrder> marketOrdersEventList = EventListManager.create();
-	private final EventList<MyJournal> journalEventList = EventListManager.create();
-	private final EventList<MyTransaction> transactionsEventList = EventListManager.create();
-	private final EventList<MyAsset> assetsEventList = EventListManager.create();
-	private final EventList<MyAccountBalance> accountBalanceEventList = EventListManager.create();
-	private final EventList<MyContract> contractEventList = EventListManager.create();
+	private final TransactionList<MyContractItem> contractItemEventList = EventListManager.createTransactionList();
+	private final TransactionList<MyIndustryJob> industryJobsEventList = EventListManager.createTransactionList();
+	private final TransactionList<MyMarketOrder> marketOrdersEventList = EventListManager.createTransactionList();
+	private final TransactionList<MyJournal> journalEventList = EventListManager.createTransactionList();
+	private final TransactionList<MyTransaction> transactionsEventList = EventListManager.createTransactionList();
+	private final TransactionList<MyAsset> assetsEventList = EventListManager.createTransactionList();
+	private final TransactionList<MyAccountBalance> accountBalanceEventList = EventListManager.createTransactionList();
+	private final TransactionList<MyContract> contractEventList = EventListManager.createTransactionList();
 	private final List<MyContractItem> contractItemList = new ArrayList<>();
 	private final List<MyIndustryJob> industryJobsList = new ArrayList<>();
 	private final List<MyMarketOrder> marketOrdersList = new ArrayList<>();
@@ -101,6 +103,8 @@ public class ProfileData {
 	private Map<Long, Double> marketOrdersBrokersFee; //OrderID : long
 	private final List<String> ownerNames = new ArrayList<>();
 	private final Map<Long, OwnerType> owners = new HashMap<>();
+	private Set<Integer> reprocessedTypeIDs = null; //TypeID : int
+	private int reprocessedItemsCount = 0;
 
 	public ProfileData(ProfileManager profileManager) {
 		this.profileManager = profileManager;
@@ -108,6 +112,11 @@ public class ProfileData {
 		SplashUpdater.setSubProgress(100);
 	}
 
+	/**
+	 * TypeIDs that need price data.
+	 * Ordered by priority: assets first.
+	 * @return
+	 */
 	public Set<Integer> getPriceTypeIDs() {
 		return createPriceTypeIDs(); //always needs to be fresh :)
 	}
@@ -197,12 +206,14 @@ public class ProfileData {
 	}
 
 	private Set<Integer> createPriceTypeIDs() {
-		Set<Integer> priceTypeIDs = new HashSet<>();
+		Set<Integer> priceTypeIDs = new LinkedHashSet<>(); //Keep priority order
+		//Add Assets to uniqueIds (first)
+		for (OwnerType owner : profileManager.getOwnerTypes()) {
+			deepAssets(owner.getAssets(), priceTypeIDs);
+		}
 		priceTypeIDs.add(40519); //Skill Extractor
 		priceTypeIDs.add(40520); //Large Skill Injector
 		for (OwnerType owner : profileManager.getOwnerTypes()) {
-			//Add Assets to uniqueIds
-			deepAssets(owner.getAssets(), priceTypeIDs);
 			//Add Market Orders to uniqueIds
 			for (MyMarketOrder marketOrder : owner.getMarketOrders()) {
 				Item item = marketOrder.getItem();
@@ -252,16 +263,31 @@ public class ProfileData {
 			}
 		}
 		//Add reprocessed items to price queue
-		for (Item item : StaticData.get().getItems().values()) {
-			for (ReprocessedMaterial reprocessedMaterial : item.getReprocessedMaterial()) {
-				int typeID = reprocessedMaterial.getTypeID();
-				Item reprocessedItem = ApiIdConverter.getItem(typeID);
-				if (reprocessedItem.isMarketGroup()) {
-					priceTypeIDs.add(typeID);
+		priceTypeIDs.addAll(getReprocessedTypeIDs());
+		return priceTypeIDs;
+	}
+
+	/**
+	 * Reprocessed materials only depend on the static data: only scanned when the number of items change
+	 * @return
+	 */
+	private Set<Integer> getReprocessedTypeIDs() {
+		Map<Integer, Item> items = StaticData.get().getItems();
+		if (reprocessedTypeIDs == null || reprocessedItemsCount != items.size()) {
+			Set<Integer> typeIDs = new HashSet<>();
+			for (Item item : items.values()) {
+				for (ReprocessedMaterial reprocessedMaterial : item.getReprocessedMaterial()) {
+					int typeID = reprocessedMaterial.getTypeID();
+					Item reprocessedItem = ApiIdConverter.getItem(typeID);
+					if (reprocessedItem.isMarketGroup()) {
+						typeIDs.add(typeID);
+					}
 				}
 			}
+			reprocessedTypeIDs = typeIDs;
+			reprocessedItemsCount = items.size();
 		}
-		return priceTypeIDs;
+		return reprocessedTypeIDs;
 	}
 
 	private void deepAssets(List<MyAsset> assets, Set<Integer> priceTypeIDs) {
@@ -320,13 +346,18 @@ public class ProfileData {
 
 	public synchronized void updateMarketOrders(OutbidProcesserOutput output) { //synchronized as owners are modified by updateEventLists
 		Date addedDate = new Date();
-		Map<Long, Date> marketOrdersAdded = AddedData.getMarketOrders().getAll();
+		final Set<MyMarketOrder> changed = new HashSet<>();
 		for (OwnerType ownerType : owners.values()) {
 			for (MyMarketOrder order : ownerType.getMarketOrders()) { // getMarketOrders() is thread safe
+				Double outbidPrice = order.getOutbidPrice();
+				Long outbidCount = order.getOutbidCount();
 				order.setOutbid(output.getOutbids().get(order.getOrderID()));
 				boolean updated = order.addChanges(output.getUpdates().get(order.getOrderID()));
 				if (updated) { //If Market Order have been updated
-					order.setChanged(AddedData.getMarketOrders().getPut(marketOrdersAdded, order.getOrderID(), addedDate));
+					order.setChanged(AddedData.getMarketOrders().getPut(order.getOrderID(), addedDate));
+				}
+				if (updated || !Objects.equals(outbidPrice, order.getOutbidPrice()) || !Objects.equals(outbidCount, order.getOutbidCount())) {
+					changed.add(order);
 				}
 			}
 		}
@@ -334,14 +365,7 @@ public class ProfileData {
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
-				try {
-					marketOrdersEventList.getReadWriteLock().writeLock().lock();
-					List<MyMarketOrder> cache = new ArrayList<>(marketOrdersEventList);
-					marketOrdersEventList.clear();
-					marketOrdersEventList.addAll(cache);
-				} finally {
-					marketOrdersEventList.getReadWriteLock().writeLock().unlock();
-				}
+				EventListManager.update(marketOrdersEventList, EventListManager.safeList(marketOrdersEventList), changed);
 			}
 		});
 	}
@@ -515,7 +539,6 @@ public class ProfileData {
 			transactions.add(transaction);
 		}
 		//Update MarketOrders dynamic values
-		Map<Long, Date> marketOrdersAdded = AddedData.getMarketOrders().getAll();
 		for (MyMarketOrder order : marketOrders) {
 			//Last Transaction
 			if (order.isBuyOrder()) { //Buy
@@ -529,15 +552,15 @@ public class ProfileData {
 			order.setPriceReprocessed(ApiIdConverter.getPriceReprocessed(order.getItem()));
 			//Changed date
 			if (order.isUpdateChanged()) { //Update!
-				order.setChanged(AddedData.getMarketOrders().getPut(marketOrdersAdded, order.getOrderID(), addedDate));
+				order.setChanged(AddedData.getMarketOrders().getPut(order.getOrderID(), addedDate));
 			} else {
 				Date changed;
-				if (!marketOrdersAdded.containsKey(order.getOrderID())) { //New (use issued as a best guess)
+				if (!AddedData.getMarketOrders().contains(order.getOrderID())) { //New (use issued as a best guess)
 					changed = order.getIssued();
 				} else { //Updating
 					changed = addedDate;
 				}
-				order.setChanged(AddedData.getMarketOrders().getAdd(marketOrdersAdded, order.getOrderID(), changed));
+				order.setChanged(AddedData.getMarketOrders().getAdd(order.getOrderID(), changed));
 			}
 		}
 		AddedData.getMarketOrders().commitQueue();
@@ -572,7 +595,6 @@ public class ProfileData {
 		}
 
 		//Update Transaction dynamic values
-		Map<Long, Date> transactionsAdded = AddedData.getTransactions().getAll();
 		for (MyTransaction transaction : transactions) {
 			//Client Name
 			transaction.setClientName(ApiIdConverter.getOwnerName(transaction.getClientID()));
@@ -593,17 +615,16 @@ public class ProfileData {
 				setLastTransaction(transaction, transaction.getTypeID(), transaction.isBuy(), transaction.getPrice(), tax);
 			}
 			//Date added
-			transaction.setAdded(AddedData.getTransactions().getAdd(transactionsAdded, transaction.getTransactionID(), addedDate));
+			transaction.setAdded(AddedData.getTransactions().getAdd(transaction.getTransactionID(), addedDate));
 		}
 		AddedData.getTransactions().commitQueue();
 		//Update Journal dynamic values
-		Map<Long, Date> journalsAdded = AddedData.getJournals().getAll();
 		for (MyJournal journal : journals) {
 			//Names
 			journal.setFirstPartyName(ApiIdConverter.getOwnerName(journal.getFirstPartyID()));
 			journal.setSecondPartyName(ApiIdConverter.getOwnerName(journal.getSecondPartyID()));
 			//Date added
-			journal.setAdded(AddedData.getJournals().getAdd(journalsAdded, journal.getRefID(), addedDate));
+			journal.setAdded(AddedData.getJournals().getAdd(journal.getRefID(), addedDate));
 		}
 		AddedData.getJournals().commitQueue();
 
@@ -612,22 +633,21 @@ public class ProfileData {
 			item.setPriceReprocessed(ApiIdConverter.getPriceReprocessed(item));
 		}
 
-		Map<Long, Date> assetAdded = AddedData.getAssets().getAll();
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
 				//Add Market Orders to Assets
-				addAssets(DataConverter.assetMarketOrder(marketOrders, Settings.get().isIncludeSellOrders(), Settings.get().isIncludeBuyOrders()), assets, blueprints, assetAdded, addedDate);
+				addAssets(DataConverter.assetMarketOrder(marketOrders, Settings.get().isIncludeSellOrders(), Settings.get().isIncludeBuyOrders()), assets, blueprints, addedDate);
 
 				//Add Industry Jobs to Assets
-				addAssets(DataConverter.assetIndustryJob(industryJobs, Settings.get().isIncludeManufacturing()), assets, blueprints, assetAdded, addedDate);
+				addAssets(DataConverter.assetIndustryJob(industryJobs, Settings.get().isIncludeManufacturing()), assets, blueprints, addedDate);
 
 				//Add Contract Items to Assets
-				addAssets(DataConverter.assetContracts(contractItems, uniqueOwners, Settings.get().isIncludeSellContracts(), Settings.get().isIncludeBuyContracts()), assets, blueprints, assetAdded, addedDate);
+				addAssets(DataConverter.assetContracts(contractItems, uniqueOwners, Settings.get().isIncludeSellContracts(), Settings.get().isIncludeBuyContracts()), assets, blueprints, addedDate);
 
 				//Add Assets to Assets
 				for (OwnerType owner : assetsMap.values()) {
-					addAssets(owner.getAssets(), assets, blueprints, assetAdded, addedDate);
+					addAssets(owner.getAssets(), assets, blueprints, addedDate);
 				}
 			}
 		});
@@ -671,97 +691,49 @@ public class ProfileData {
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
-				try {
-					assetsEventList.getReadWriteLock().writeLock().lock();
-					assetsEventList.clear();
-					assetsEventList.addAll(assets);
-				} finally {
-					assetsEventList.getReadWriteLock().writeLock().unlock();
-				}
+				EventListManager.update(assetsEventList, assets);
 			}
 		});
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
-				try {
-					marketOrdersEventList.getReadWriteLock().writeLock().lock();
-					marketOrdersEventList.clear();
-					marketOrdersEventList.addAll(marketOrders);
-				} finally {
-					marketOrdersEventList.getReadWriteLock().writeLock().unlock();
-				}
+				EventListManager.update(marketOrdersEventList, marketOrders);
 			}
 		});
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
-				try {
-					journalEventList.getReadWriteLock().writeLock().lock();
-					journalEventList.clear();
-					journalEventList.addAll(journals);
-				} finally {
-					journalEventList.getReadWriteLock().writeLock().unlock();
-				}
+				EventListManager.update(journalEventList, journals);
 			}
 		});
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
-				try {
-					transactionsEventList.getReadWriteLock().writeLock().lock();
-					transactionsEventList.clear();
-					transactionsEventList.addAll(transactions);
-				} finally {
-					transactionsEventList.getReadWriteLock().writeLock().unlock();
-				}
+				EventListManager.update(transactionsEventList, transactions);
 			}
 		});
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
-				try {
-					industryJobsEventList.getReadWriteLock().writeLock().lock();
-					industryJobsEventList.clear();
-					industryJobsEventList.addAll(industryJobs);
-				} finally {
-					industryJobsEventList.getReadWriteLock().writeLock().unlock();
-				}
+				EventListManager.update(industryJobsEventList, industryJobs);
 			}
 		});
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
-				try {
-					contractItemEventList.getReadWriteLock().writeLock().lock();
-					contractItemEventList.clear();
-					contractItemEventList.addAll(contractItems);
-				} finally {
-					contractItemEventList.getReadWriteLock().writeLock().unlock();
-				}
+				EventListManager.update(contractItemEventList, contractItems);
 			}
 		});
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
-				try {
-					contractEventList.getReadWriteLock().writeLock().lock();
-					contractEventList.clear();
-					contractEventList.addAll(contracts);
-				} finally {
-					contractEventList.getReadWriteLock().writeLock().unlock();
-				}
+				EventListManager.update(contractEventList, contracts);
 			}
 		});
 		Program.ensureEDT(new Runnable() {
 			@Override
 			public void run() {
-				try {
-					accountBalanceEventList.getReadWriteLock().writeLock().lock();
-					accountBalanceEventList.clear();
-					accountBalanceEventList.addAll(accountBalance);
-				} finally {
-					accountBalanceEventList.getReadWriteLock().writeLock().unlock();
-				}
+				EventListManager.update(accountBalanceEventList, accountBalance);
 			}
 		});
 		//Sort Owners
@@ -1156,7 +1128,7 @@ public class ProfileData {
 		}
 	}
 
-	private void addAssets(final List<MyAsset> assets, List<MyAsset> addTo, Map<Long, RawBlueprint> blueprints, Map<Long, Date> assetAdded, Date assetAddedDate) {
+	private void addAssets(final List<MyAsset> assets, List<MyAsset> addTo, Map<Long, RawBlueprint> blueprints, Date assetAddedDate) {
 		for (MyAsset asset : assets) {
 			//XXX Ignore 9e18 locations: https://github.com/ccpgames/esi-issues/issues/684
 			if (asset.getLocationID() > 9000000000000000000L) {
@@ -1175,7 +1147,7 @@ public class ProfileData {
 			Tags tags = Settings.get().getTags(asset.getTagID());
 			asset.setTags(tags);
 			//Date added
-			asset.setAdded(AddedData.getAssets().getAdd(assetAdded, asset.getItemID(), assetAddedDate));
+			asset.setAdded(AddedData.getAssets().getAdd(asset.getItemID(), assetAddedDate));
 			//Price
 			updatePrice(asset);
 			//Reprocessed price
@@ -1220,7 +1192,7 @@ public class ProfileData {
 				asset.setLocation(ApiIdConverter.getLocation(asset.getLocationID()));
 			}
 			//Add sub-assets
-			addAssets(asset.getAssets(), addTo, blueprints, assetAdded, assetAddedDate);
+			addAssets(asset.getAssets(), addTo, blueprints, assetAddedDate);
 		}
 	}
 
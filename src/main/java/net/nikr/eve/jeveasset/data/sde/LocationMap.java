@@ -0,0 +1,153 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.data.sde;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * LocationID to location map (open addressing).
+ * Reads are lock free and do not allocate.
+ * Writes are synchronized: slots are published in place and the table is copied (new snapshot) when it grows.
+ * A slot key is never changed after the slot is used, removed locations leave a tombstone that is reused if the same location is added again.
+ */
+class LocationMap {
+
+	private static final MyLocation REMOVED = MyLocation.create(Long.MIN_VALUE);
+
+	private volatile Table table = new Table(1024);
+
+	/**
+	 * @param locationID
+	 * @return location or null
+	 */
+	public MyLocation get(long locationID) {
+		MyLocation location = table.get(locationID);
+		if (location == REMOVED) {
+			return null;
+		}
+		return location;
+	}
+
+	public synchronized void put(MyLocation location) {
+		Table current = table;
+		if ((current.used + 1) * 2 > current.keys.length) { //Load factor 0.5
+			current = grow(current);
+		}
+		current.put(location.getLocationID(), location);
+	}
+
+	public synchronized void remove(long locationID) {
+		table.remove(locationID);
+	}
+
+	public List<MyLocation> values() {
+		Table current = table;
+		List<MyLocation> list = new ArrayList<>();
+		for (int i = 0; i < current.values.length(); i++) {
+			MyLocation location = current.values.get(i);
+			if (location != null && location != REMOVED) {
+				list.add(location);
+			}
+		}
+		return list;
+	}
+
+	private Table grow(Table current) {
+		int size = 0;
+		for (int i = 0; i < current.values.length(); i++) {
+			MyLocation location = current.values.get(i);
+			if (location != null && location != REMOVED) {
+				size++;
+			}
+		}
+		int capacity = current.keys.length;
+		while ((size + 1) * 4 > capacity) { //Tombstones are dropped, keep load factor at 0.25 after copy
+			capacity = capacity * 2;
+		}
+		Table copy = new Table(capacity);
+		for (int i = 0; i < current.values.length(); i++) {
+			MyLocation location = current.values.get(i);
+			if (location != null && location != REMOVED) {
+				copy.put(current.keys[i], location);
+			}
+		}
+		table = copy; //Publish
+		return copy;
+	}
+
+	private static int hash(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	private static class Table {
+		private final long[] keys;
+		private final AtomicReferenceArray<MyLocation> values; //null = free slot
+		private int used = 0;
+
+		public Table(int capacity) {
+			keys = new long[capacity];
+			values = new AtomicReferenceArray<>(capacity);
+		}
+
+		public MyLocation get(long key) {
+			int mask = keys.length - 1;
+			int index = hash(key) & mask;
+			MyLocation value;
+			while ((value = values.get(index)) != null) { //Volatile read: key is visible when the value is
+				if (keys[index] == key) {
+					return value;
+				}
+				index = (index + 1) & mask;
+			}
+			return null;
+		}
+
+		public void put(long key, MyLocation location) {
+			int mask = keys.length - 1;
+			int index = hash(key) & mask;
+			while (values.get(index) != null) {
+				if (keys[index] == key) {
+					values.set(index, location);
+					return;
+				}
+				index = (index + 1) & mask;
+			}
+			keys[index] = key;
+			values.set(index, location); //Publish the slot
+			used++;
+		}
+
+		public void remove(long key) {
+			int mask = keys.length - 1;
+			int index = hash(key) & mask;
+			while (values.get(index) != null) {
+				if (keys[index] == key) {
+					values.set(index, REMOVED);
+					return;
+				}
+				index = (index + 1) & mask;
+			}
+		}
+	}
+}
@@ -20,44 +20,113 @@
  */
 package net.nikr.eve.jeveasset.data.sde;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 import net.nikr.eve.jeveasset.SplashUpdater;
-import net.nikr.eve.jeveasset.gui.tabs.routing.SolarSystem;
-import uk.me.candle.eve.graph.DisconnectedGraphException;
-import uk.me.candle.eve.graph.Edge;
-import uk.me.candle.eve.graph.Graph;
-import uk.me.candle.eve.graph.distances.Jumps;
-
+import net.nikr.eve.jeveasset.io.shared.FileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Jumps between all solar systems.
+ *
+ * The table is calculated once (breadth first search from every system)
+ * and saved to jumps.dat, that is memory mapped on the next start.
+ * The table is recalculated when the jumps data changes.
+ * Lookups are O(1) and thread safe.
+ */
 public class RouteFinder {
 
+	private static final Logger LOG = LoggerFactory.getLogger(RouteFinder.class);
+
+	private static final int MAGIC = 0x4A454A54; //JEJT
+	private static final int FORMAT = 1;
+	/**
+	 * Stored as unsigned byte: 255 is unreachable
+	 */
+	private static final int UNREACHABLE = 0xFF;
+	private static final int MAX_JUMPS = UNREACHABLE - 1;
+
 	private static RouteFinder DISTANCE;
 
-	private final Graph<SolarSystem> graph;
-	private final Map<Long, SolarSystem> systemCache;
-	private final Map<Route, Integer> distance = new HashMap<>();
+	private final long[] systemIDs;
+	private final Map<Long, Integer> index = new HashMap<>();
+	private final ByteBuffer table;
 
 	private RouteFinder() {
-		// build the graph.
-		// filter the solarsystems based on the settings.
-		graph = new Graph<>(new Jumps<>());
-		int count = 0;
-		systemCache = new HashMap<>();
-		for (Jump jump : StaticData.get().getJumps()) { // this way we exclude the locations that are unreachable.
-			count++;
-			SplashUpdater.setSubProgress((int) (count * 100.0 / StaticData.get().getJumps().size()));
-
-			SolarSystem from = systemCache.get(jump.getFrom().getSystemID());
-			SolarSystem to = systemCache.get(jump.getTo().getSystemID());
-			if (from == null) {
-				from = SolarSystem.create(systemCache, jump.getFrom());
+		this(StaticData.get().getJumps(), FileUtil.getPathJumpsTable());
+	}
+
+	/**
+	 * @param jumps
+	 * @param filename jumps table file, or null to not save the table
+	 */
+	RouteFinder(List<Jump> jumps, String filename) {
+		//Dense system index
+		Set<Long> systems = new HashSet<>();
+		for (Jump jump : jumps) {
+			systems.add(jump.getFrom().getSystemID());
+			systems.add(jump.getTo().getSystemID());
+		}
+		systemIDs = new long[systems.size()];
+		int i = 0;
+		for (Long systemID : systems) {
+			systemIDs[i] = systemID;
+			i++;
+		}
+		Arrays.sort(systemIDs);
+		for (i = 0; i < systemIDs.length; i++) {
+			index.put(systemIDs[i], i);
+		}
+		//Version of the jumps data
+		CRC32 crc = new CRC32();
+		ByteBuffer bytes = ByteBuffer.allocate(16);
+		for (Jump jump : jumps) {
+			bytes.clear();
+			bytes.putLong(jump.getFrom().getSystemID());
+			bytes.putLong(jump.getTo().getSystemID());
+			crc.update(bytes.array());
+		}
+		long version = crc.getValue();
+		//Load or calculate
+		ByteBuffer loaded = null;
+		if (filename != null) {
+			loaded = load(filename, version);
+		}
+		if (loaded != null) {
+			table = loaded;
+		} else {
+			byte[] data = calculate(jumps);
+			ByteBuffer saved = null;
+			if (filename != null) {
+				saved = save(filename, version, data);
 			}
-			if (to == null) {
-				to = SolarSystem.create(systemCache, jump.getTo());
+			if (saved != null) {
+				table = saved;
+			} else {
+				table = ByteBuffer.wrap(data);
 			}
-			graph.addEdge(new Edge<>(from, to));
 		}
 	}
 
@@ -65,83 +134,209 @@ public class RouteFinder {
 		if (fromSystemID == null || toSystemID == null) {
 			return null;
 		}
-		if (Objects.equals(fromSystemID, toSystemID)) {
+		if (fromSystemID.equals(toSystemID)) {
 			return 0;
 		}
-		Route route = new Route(fromSystemID, toSystemID);
-		Integer jumps = distance.get(route);
-		if (jumps != null) {
-			return jumps; //Saved route
-		}
-		SolarSystem from = systemCache.get(fromSystemID);
-		SolarSystem to = systemCache.get(toSystemID);
+		Integer from = index.get(fromSystemID);
+		Integer to = index.get(toSystemID);
 		if (from == null || to == null) {
 			return null;
 		}
-		try {
-			jumps = graph.distanceBetween(from, to);
-			distance.put(route, jumps);
-			return jumps;
-		} catch (DisconnectedGraphException ex) {
-
+		int jumps = get(from, to);
+		if (jumps == UNREACHABLE) {
+			return null;
 		}
-		return null;
+		return jumps;
 	}
 
-	public static void load() {
-		get();
-	}
-
-	public static synchronized RouteFinder get() {
-		if (DISTANCE == null) {
-			DISTANCE = new RouteFinder();
+	/**
+	 * Jumps from one system to all systems within range.
+	 * Use this instead of distanceBetween() when many systems are checked against the same system.
+	 *
+	 * @param fromSystemID
+	 * @param maxJumps
+	 * @return systemID to jumps, including fromSystemID (empty if the system is unknown)
+	 */
+	public Map<Long, Integer> distancesFrom(Long fromSystemID, int maxJumps) {
+		Map<Long, Integer> distances = new HashMap<>();
+		if (fromSystemID == null) {
+			return distances;
 		}
-		return DISTANCE;
+		Integer from = index.get(fromSystemID);
+		if (from == null) {
+			return distances;
+		}
+		for (int to = 0; to < systemIDs.length; to++) {
+			int jumps = get(from, to);
+			if (jumps != UNREACHABLE && jumps <= maxJumps) {
+				distances.put(systemIDs[to], jumps);
+			}
+		}
+		return distances;
 	}
 
-	private static class Route {
-
-		private final Long lowSystemID;
-		private final Long highSystemID;
+	private int get(int from, int to) {
+		return table.get(from * systemIDs.length + to) & 0xFF; //Absolute get: thread safe
+	}
 
-		public Route(Long fromSystemID, Long toSystemID) {
-			if (fromSystemID < toSystemID) {
-				this.lowSystemID = fromSystemID;
-				this.highSystemID = toSystemID;
-			} else {
-				this.lowSystemID = toSystemID;
-				this.highSystemID = fromSystemID;
+	private byte[] calculate(List<Jump> jumps) {
+		final int size = systemIDs.length;
+		//Neighbours
+		List<Set<Integer>> sets = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			sets.add(new HashSet<Integer>());
+		}
+		for (Jump jump : jumps) {
+			int from = index.get(jump.getFrom().getSystemID());
+			int to = index.get(jump.getTo().getSystemID());
+			sets.get(from).add(to);
+			sets.get(to).add(from);
+		}
+		final int[][] neighbours = new int[size][];
+		for (int i = 0; i < size; i++) {
+			Set<Integer> set = sets.get(i);
+			neighbours[i] = new int[set.size()];
+			int j = 0;
+			for (Integer neighbour : set) {
+				neighbours[i][j] = neighbour;
+				j++;
 			}
 		}
-
-		@Override
-		public int hashCode() {
-			int hash = 5;
-			hash = 47 * hash + Objects.hashCode(this.lowSystemID);
-			hash = 47 * hash + Objects.hashCode(this.highSystemID);
-			return hash;
+		//BFS from every system (in parallel)
+		final byte[] data = new byte[size * size];
+		Arrays.fill(data, (byte) UNREACHABLE);
+		final AtomicInteger done = new AtomicInteger();
+		final AtomicInteger next = new AtomicInteger();
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						int[] queue = new int[size];
+						int from;
+						while ((from = next.getAndIncrement()) < size) {
+							bfs(neighbours, data, from, queue);
+							SplashUpdater.setSubProgress((int) (done.incrementAndGet() * 100.0 / size));
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (Exception ex) {
+			throw new RuntimeException(ex);
+		} finally {
+			executor.shutdown();
 		}
+		LOG.info("Jumps calculated for " + size + " systems");
+		return data;
+	}
 
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj) {
-				return true;
+	private static void bfs(int[][] neighbours, byte[] data, int from, int[] queue) {
+		int size = neighbours.length;
+		int offset = from * size;
+		data[offset + from] = 0;
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = from;
+		while (head < tail) {
+			int system = queue[head++];
+			int jumps = (data[offset + system] & 0xFF) + 1;
+			if (jumps > MAX_JUMPS) {
+				continue; //Can't be stored
 			}
-			if (obj == null) {
-				return false;
+			for (int neighbour : neighbours[system]) {
+				if ((data[offset + neighbour] & 0xFF) == UNREACHABLE) {
+					data[offset + neighbour] = (byte) jumps;
+					queue[tail++] = neighbour;
+				}
 			}
-			if (getClass() != obj.getClass()) {
-				return false;
+		}
+	}
+
+	private ByteBuffer load(String filename, long version) {
+		File file = new File(filename);
+		if (!file.exists()) {
+			return null;
+		}
+		long offset;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT || in.readLong() != version || in.readInt() != systemIDs.length) {
+				LOG.info("Jumps data changed: recalculating jumps");
+				return null;
 			}
-			final Route other = (Route) obj;
-			if (!Objects.equals(this.lowSystemID, other.lowSystemID)) {
-				return false;
+			for (long systemID : systemIDs) {
+				if (in.readLong() != systemID) {
+					LOG.info("Jumps data changed: recalculating jumps");
+					return null;
+				}
 			}
-			if (!Objects.equals(this.highSystemID, other.highSystemID)) {
-				return false;
+			offset = headerSize();
+		} catch (IOException ex) {
+			LOG.warn("Failed to read " + filename + ": " + ex.getMessage());
+			return null;
+		}
+		long length = (long) systemIDs.length * systemIDs.length;
+		if (file.length() != offset + length) {
+			LOG.warn(filename + " is corrupted: recalculating jumps");
+			return null;
+		}
+		return map(file, offset, length);
+	}
+
+	private ByteBuffer save(String filename, long version, byte[] data) {
+		File file = new File(filename);
+		File tempFile = new File(filename + ".new");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT);
+			out.writeLong(version);
+			out.writeInt(systemIDs.length);
+			for (long systemID : systemIDs) {
+				out.writeLong(systemID);
 			}
-			return true;
+			out.write(data);
+		} catch (IOException ex) {
+			LOG.warn("Failed to save " + filename + ": " + ex.getMessage());
+			return null;
+		}
+		if (file.exists() && !file.delete()) {
+			LOG.warn("Failed to delete " + filename);
+			return null;
 		}
+		if (!tempFile.renameTo(file)) {
+			LOG.warn("Failed to rename " + tempFile.getName() + " to " + file.getName());
+			return null;
+		}
+		return map(file, headerSize(), data.length);
+	}
 
+	private ByteBuffer map(File file, long offset, long length) {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+				FileChannel channel = randomAccessFile.getChannel()) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, offset, length); //Stays valid after the channel is closed
+		} catch (IOException ex) {
+			LOG.warn("Failed to map " + file.getName() + ": " + ex.getMessage());
+			return null;
+		}
+	}
+
+	private long headerSize() {
+		return 4 + 4 + 8 + 4 + (8L * systemIDs.length);
+	}
+
+	public static void load() {
+		get();
+	}
+
+	public static synchronized RouteFinder get() {
+		if (DISTANCE == null) {
+			DISTANCE = new RouteFinder();
+		}
+		return DISTANCE;
 	}
 }
@@ -25,7 +25,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import net.nikr.eve.jeveasset.SplashUpdater;
 import net.nikr.eve.jeveasset.io.local.FlagsReader;
 import net.nikr.eve.jeveasset.io.local.ItemsReader;
@@ -34,11 +33,11 @@ import net.nikr.eve.jeveasset.io.local.LocationsReader;
 
 
 public class StaticData {
-	private static final ReentrantReadWriteLock LOCATIONS_LOCK = new ReentrantReadWriteLock();
 	//Data
 	private final Map<Integer, Item> items = new HashMap<>(); //TypeID : int
 	private final Map<Integer, ItemFlag> flags = new HashMap<>(); //FlagID : int
-	private final Map<Long, MyLocation> locations = new HashMap<>(); //LocationID : long
+	private final LocationMap locations = new LocationMap(); //LocationID : long (static locations and citadels)
+	private final LocationMap placeholders = new LocationMap(); //LocationID : long (unknown locations)
 	private final List<Jump> jumps = new ArrayList<>(); //LocationID : long
 
 	private static StaticData staticData = null;
@@ -61,11 +60,10 @@ public class StaticData {
 		SplashUpdater.setProgress(5);
 		ItemsReader.load(items); //Items
 		SplashUpdater.setProgress(10);
-		try {
-			LOCATIONS_LOCK.writeLock().lock();
-			LocationsReader.load(locations); //Locations
-		} finally {
-			LOCATIONS_LOCK.writeLock().unlock();
+		Map<Long, MyLocation> map = new HashMap<>();
+		LocationsReader.load(map); //Locations
+		for (MyLocation location : map.values()) {
+			locations.put(location);
 		}
 		SplashUpdater.setProgress(15);
 		JumpsReader.load(jumps); //Jumps
@@ -87,38 +85,52 @@ public class StaticData {
 	}
 
 	public void addLocation(MyLocation location) {
-		try {
-			LOCATIONS_LOCK.writeLock().lock();
-			locations.put(location.getLocationID(), location);
-		} finally {
-			LOCATIONS_LOCK.writeLock().unlock();
-		}
+		locations.put(location);
 	}
 
 	public void removeLocation(long locationID) {
-		try {
-			LOCATIONS_LOCK.writeLock().lock();
-			locations.remove(locationID);
-		} finally {
-			LOCATIONS_LOCK.writeLock().unlock();
-		}
+		locations.remove(locationID);
 	}
 
+	/**
+	 * Lock free
+	 * @param locationID
+	 * @return location or null
+	 */
 	public MyLocation getLocation(long locationID) {
-		try {
-			LOCATIONS_LOCK.readLock().lock();
-			return locations.get(locationID);
-		} finally {
-			LOCATIONS_LOCK.readLock().unlock();
+		return locations.get(locationID);
+	}
+
+	/**
+	 * Lock free
+	 * @param locationID
+	 * @return cached empty location or null
+	 */
+	public MyLocation getPlaceholder(long locationID) {
+		return placeholders.get(locationID);
+	}
+
+	/**
+	 * Empty location for unknown locationIDs.
+	 * Cached: the same placeholder is returned for the same locationID
+	 * @param locationID
+	 * @return
+	 */
+	public MyLocation addPlaceholder(long locationID) {
+		MyLocation location = placeholders.get(locationID);
+		if (location == null) {
+			synchronized (placeholders) {
+				location = placeholders.get(locationID);
+				if (location == null) {
+					location = MyLocation.create(locationID);
+					placeholders.put(location);
+				}
+			}
 		}
+		return location;
 	}
 
 	public Collection<MyLocation> getLocations() {
-		try {
-			LOCATIONS_LOCK.readLock().lock();
-			return new ArrayList<>(locations.values()); //Copy
-		} finally {
-			LOCATIONS_LOCK.readLock().unlock();
-		}
+		return locations.values(); //Copy
 	}
 }
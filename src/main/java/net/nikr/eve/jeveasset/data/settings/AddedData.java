@@ -27,9 +27,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import net.nikr.eve.jeveasset.io.local.AssetAddedReader;
 import net.nikr.eve.jeveasset.io.shared.FileUtil;
 import org.slf4j.Logger;
@@ -101,8 +106,27 @@ public class AddedData {
 	}
 	
 	private static final String CONNECTION_URL = "jdbc:sqlite:" + FileUtil.getPathAssetAddedDatabase();
+	/**
+	 * All database access is done with the shared connection while holding the lock
+	 */
+	private static final Object DATABASE_LOCK = new Object();
+	/**
+	 * Queued changes are written in the background (in order)
+	 */
+	private static final ExecutorService SAVE_QUEUE = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "AddedData-Save");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	private static Connection connection;
 	private Map<Long, Date> insert = null;
 	private Map<Long, Date> update = null;
+	private LongLongMap cache = null; //Loaded on first use
+	private PreparedStatement insertStatement;
+	private PreparedStatement updateStatement;
 	private final DataSettings dataSettings;
 
 	private AddedData(DataSettings dataSettings) {
@@ -132,6 +156,36 @@ public class AddedData {
 		}
 	}
 
+	/**
+	 * Wait for the queued changes to be saved and close the connection
+	 */
+	public static void close() {
+		LOG.info("Waiting for added data save queue to finish...");
+		try {
+			SAVE_QUEUE.submit(new Runnable() {
+				@Override
+				public void run() { }
+			}).get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException ex) {
+			LOG.error(ex.getMessage(), ex);
+		}
+		synchronized (DATABASE_LOCK) {
+			for (DataSettings dataSettings : DataSettings.values()) {
+				dataSettings.getInstance().closeStatements();
+			}
+			if (connection != null) {
+				try {
+					connection.close();
+				} catch (SQLException ex) {
+					LOG.error(ex.getMessage(), ex);
+				}
+				connection = null;
+			}
+		}
+	}
+
 	private void init() {
 		if (!tableExist()) { //New database: Import from added.json
 			dataSettings.load();
@@ -151,77 +205,137 @@ public class AddedData {
 		}
 	}
 
+	/**
+	 * Must be called while holding DATABASE_LOCK
+	 * @return the shared connection
+	 * @throws SQLException
+	 */
+	private static Connection getConnection() throws SQLException {
+		if (connection == null || connection.isClosed()) {
+			connection = DriverManager.getConnection(CONNECTION_URL);
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("PRAGMA journal_mode=WAL");
+			}
+		}
+		return connection;
+	}
+
+	private void closeStatements() {
+		try {
+			if (insertStatement != null) {
+				insertStatement.close();
+			}
+			if (updateStatement != null) {
+				updateStatement.close();
+			}
+		} catch (SQLException ex) {
+			LOG.error(ex.getMessage(), ex);
+		}
+		insertStatement = null;
+		updateStatement = null;
+	}
+
 	/**
 	 * Update if date is before the current value.
-	 * @param data current data
 	 * @param id unique id
 	 * @param added
 	 * @return 
 	 */
-	public Date getAdd(Map<Long, Date> data, Long id, Date added) {
-		Date date = data.get(id);
-		if (date == null) { //Insert
-			date = added;
-			insertQueue(id, date);
+	public synchronized Date getAdd(long id, Date added) {
+		long date = getCache().get(id);
+		if (date == LongLongMap.EMPTY) { //Insert
+			insertQueue(id, added);
+			return added;
 		}
-		if (date.after(added)) { //Update
-			date = added;
-			updateQueue(id, date);
+		if (date > added.getTime()) { //Update
+			updateQueue(id, added);
+			return added;
 		}
-		return date;
+		return new Date(date);
 	}
 
 	/**
 	 * Update if date is after the current value.
-	 * @param data current data
 	 * @param id unique id
 	 * @param added
 	 * @return 
 	 */
-	public Date getPut(Map<Long, Date> data, Long id, Date added) {
-		Date date = data.get(id);
-		if (date == null) { //Insert
-			date = added;
-			insertQueue(id, date);
+	public synchronized Date getPut(long id, Date added) {
+		long date = getCache().get(id);
+		if (date == LongLongMap.EMPTY) { //Insert
+			insertQueue(id, added);
+			return added;
+		}
+		if (date < added.getTime()) { //Update
+			updateQueue(id, added);
+			return added;
 		}
-		if (date.before(added)) { //Update
-			date = added;
-			updateQueue(id, date);
+		return new Date(date);
+	}
+
+	public synchronized boolean contains(long id) {
+		return getCache().get(id) != LongLongMap.EMPTY;
+	}
+
+	private LongLongMap getCache() {
+		if (cache == null) {
+			cache = getAll();
 		}
-		return date;
+		return cache;
 	}
 
-	private void insertQueue(Long id, Date date) {
+	private void insertQueue(long id, Date date) {
 		if (insert == null) {
 			insert = new HashMap<>();
 		}
 		insert.put(id, date);
+		cache.put(id, date.getTime());
 	}
 
-	private void updateQueue(Long id, Date date) {
-		if (update == null) {
-			update = new HashMap<>();
+	private void updateQueue(long id, Date date) {
+		if (insert != null && insert.containsKey(id)) { //Not saved yet
+			insert.put(id, date);
+		} else {
+			if (update == null) {
+				update = new HashMap<>();
+			}
+			update.put(id, date);
 		}
-		update.put(id, date);
+		cache.put(id, date.getTime());
 	}
 
 	public void commitQueue() {
-		insert(insert);
-		update(update);
-		update = null;
-		insert = null;
+		final Map<Long, Date> insertData;
+		final Map<Long, Date> updateData;
+		synchronized (this) {
+			insertData = insert;
+			updateData = update;
+			insert = null;
+			update = null;
+		}
+		if (insertData == null && updateData == null) {
+			return;
+		}
+		SAVE_QUEUE.execute(new Runnable() {
+			@Override
+			public void run() {
+				insert(insertData);
+				update(updateData);
+			}
+		});
 	}
 
 	public boolean isEmpty() {
-		String sql = "SELECT * FROM " + dataSettings.getTableName();
-		try (Connection connection = DriverManager.getConnection(CONNECTION_URL);
-				PreparedStatement statement = connection.prepareStatement(sql);
-				ResultSet rs = statement.executeQuery()) {
-			while (rs.next()) {
-				return false;
+		String sql = "SELECT itemid FROM " + dataSettings.getTableName() + " LIMIT 1";
+		synchronized (DATABASE_LOCK) {
+			try (PreparedStatement statement = getConnection().prepareStatement(sql);
+					ResultSet rs = statement.executeQuery()) {
+				while (rs.next()) {
+					return false;
+				}
+			} catch (SQLException ex) {
+				LOG.error(ex.getMessage(), ex);
 			}
-		} catch (SQLException ex) {
-			LOG.error(ex.getMessage(), ex);
 		}
 		return true;
 	}
@@ -232,46 +346,51 @@ public class AddedData {
 		}
 		createTable();
 		insert(data);
+		synchronized (this) {
+			cache = null; //Reload
+		}
 	}
 
 	private void insert(Map<Long, Date> data) {
 		if (data == null || data.isEmpty()) {
 			return;
 		}
-		String sql = "INSERT INTO " + dataSettings.getTableName() + "(itemid,date) VALUES(?,?)";
-		try (Connection connection = DriverManager.getConnection(CONNECTION_URL);
-				PreparedStatement statement = connection.prepareStatement(sql)) {
-			int i = 0;
-			connection.setAutoCommit(false);
-			for (Map.Entry<Long, Date> entry : data.entrySet()) {
-				statement.setLong(1, entry.getKey());
-				statement.setLong(2, entry.getValue().getTime());
-
-				statement.addBatch();
-				i++;
-				if (i % 1000 == 0 || i == data.size()) {
-					statement.executeBatch(); // Execute every 1000 items.
+		synchronized (DATABASE_LOCK) {
+			try {
+				if (insertStatement == null) {
+					insertStatement = getConnection().prepareStatement("INSERT INTO " + dataSettings.getTableName() + "(itemid,date) VALUES(?,?)");
 				}
+				execute(insertStatement, data, 1, 2);
+			} catch (SQLException ex) {
+				LOG.error(ex.getMessage(), ex);
 			}
-			connection.commit();
-			connection.setAutoCommit(true);
-		} catch (SQLException ex) {
-			LOG.error(ex.getMessage(), ex);
 		}
 	}
 
-	public void update(Map<Long, Date> data) {
+	private void update(Map<Long, Date> data) {
 		if (data == null || data.isEmpty()) {
 			return;
 		}
-		String sql = "UPDATE " + dataSettings.getTableName() + " SET date = ? WHERE itemid = ?";
-		try (Connection connection = DriverManager.getConnection(CONNECTION_URL);
-				PreparedStatement statement = connection.prepareStatement(sql)) {
-			int i = 0;
-			connection.setAutoCommit(false);
+		synchronized (DATABASE_LOCK) {
+			try {
+				if (updateStatement == null) {
+					updateStatement = getConnection().prepareStatement("UPDATE " + dataSettings.getTableName() + " SET date = ? WHERE itemid = ?");
+				}
+				execute(updateStatement, data, 2, 1);
+			} catch (SQLException ex) {
+				LOG.error(ex.getMessage(), ex);
+			}
+		}
+	}
+
+	private static void execute(PreparedStatement statement, Map<Long, Date> data, int idIndex, int dateIndex) throws SQLException {
+		Connection connection = statement.getConnection();
+		int i = 0;
+		connection.setAutoCommit(false);
+		try {
 			for (Map.Entry<Long, Date> entry : data.entrySet()) {
-				statement.setLong(1, entry.getValue().getTime());
-				statement.setLong(2, entry.getKey());
+				statement.setLong(idIndex, entry.getKey());
+				statement.setLong(dateIndex, entry.getValue().getTime());
 
 				statement.addBatch();
 				i++;
@@ -280,23 +399,26 @@ public class AddedData {
 				}
 			}
 			connection.commit();
-			connection.setAutoCommit(true);
 		} catch (SQLException ex) {
-			LOG.error(ex.getMessage(), ex);
+			connection.rollback();
+			throw ex;
+		} finally {
+			connection.setAutoCommit(true);
 		}
 	}
 
-	public Map<Long, Date> getAll() {
-		Map<Long, Date> map = new HashMap<>();
-		String sql = "SELECT * FROM " + dataSettings.getTableName();
-		try (Connection connection = DriverManager.getConnection(CONNECTION_URL);
-				PreparedStatement statement = connection.prepareStatement(sql);
-				ResultSet rs = statement.executeQuery();) {
-			while (rs.next()) {
-				map.put(rs.getLong("itemid"), new Date(rs.getLong("date")));
+	private LongLongMap getAll() {
+		LongLongMap map = new LongLongMap();
+		String sql = "SELECT itemid, date FROM " + dataSettings.getTableName();
+		synchronized (DATABASE_LOCK) {
+			try (PreparedStatement statement = getConnection().prepareStatement(sql);
+					ResultSet rs = statement.executeQuery();) {
+				while (rs.next()) {
+					map.put(rs.getLong(1), rs.getLong(2));
+				}
+			} catch (SQLException ex) {
+				LOG.error(ex.getMessage(), ex);
 			}
-		} catch (SQLException ex) {
-			LOG.error(ex.getMessage(), ex);
 		}
 		return map; //can not return null
 	}
@@ -306,25 +428,103 @@ public class AddedData {
 				+ "	itemid integer PRIMARY KEY,\n"
 				+ "	date integer NOT NULL\n"
 				+ ");";
-		try (Connection connection = DriverManager.getConnection(CONNECTION_URL);
-				Statement statement = connection.createStatement()) {
-			statement.execute(sql);
-		} catch (SQLException ex) {
-			LOG.error(ex.getMessage(), ex);
+		synchronized (DATABASE_LOCK) {
+			try (Statement statement = getConnection().createStatement()) {
+				statement.execute(sql);
+			} catch (SQLException ex) {
+				LOG.error(ex.getMessage(), ex);
+			}
 		}
 	}
 
 	private boolean tableExist() {
 		String sql = "SELECT name FROM sqlite_master WHERE type='table' AND name='" + dataSettings.getTableName() + "'";
-		try (Connection connection = DriverManager.getConnection(CONNECTION_URL);
-				Statement statement = connection.createStatement();
-				ResultSet rs = statement.executeQuery(sql)) {
-			while (rs.next()) {
-				return true;
+		synchronized (DATABASE_LOCK) {
+			try (Statement statement = getConnection().createStatement();
+					ResultSet rs = statement.executeQuery(sql)) {
+				while (rs.next()) {
+					return true;
+				}
+			} catch (SQLException ex) {
+				LOG.error(ex.getMessage(), ex);
 			}
-		} catch (SQLException ex) {
-			LOG.error(ex.getMessage(), ex);
 		}
 		return false;
 	}
+
+	/**
+	 * Open addressing long to long map (no boxing)
+	 */
+	static class LongLongMap {
+		static final long EMPTY = Long.MIN_VALUE;
+
+		private long[] keys;
+		private long[] values;
+		private int size = 0;
+
+		public LongLongMap() {
+			init(1024);
+		}
+
+		private void init(int capacity) {
+			keys = new long[capacity];
+			values = new long[capacity];
+			Arrays.fill(values, EMPTY);
+		}
+
+		/**
+		 * @param key
+		 * @return value or EMPTY
+		 */
+		public long get(long key) {
+			int mask = keys.length - 1;
+			int index = hash(key) & mask;
+			while (values[index] != EMPTY) {
+				if (keys[index] == key) {
+					return values[index];
+				}
+				index = (index + 1) & mask;
+			}
+			return EMPTY;
+		}
+
+		public void put(long key, long value) {
+			if ((size + 1) * 4 > keys.length * 3) { //Load factor 0.75
+				grow();
+			}
+			int mask = keys.length - 1;
+			int index = hash(key) & mask;
+			while (values[index] != EMPTY) {
+				if (keys[index] == key) {
+					values[index] = value;
+					return;
+				}
+				index = (index + 1) & mask;
+			}
+			keys[index] = key;
+			values[index] = value;
+			size++;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			long[] oldValues = values;
+			init(keys.length * 2);
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldValues[i] != EMPTY) {
+					put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+
+		private static int hash(long key) {
+			long hash = key * 0x9E3779B97F4A7C15L;
+			return (int) (hash ^ (hash >>> 32));
+		}
+	}
 }
@@ -48,6 +48,7 @@ public class CitadelSettings {
 			ApiIdConverter.addLocation(citadel, locationID);
 		} else {
 			old.update(citadel);
+			ApiIdConverter.addLocation(old, locationID); //Location may have become valid
 		}
 	}
 
@@ -79,6 +79,25 @@ public class ContractPriceManager {
 		return contractPriceData.isFailed(contractPriceType);
 	}
 
+	/**
+	 * Cached price that have not expired yet (no need to update)
+	 * @param contractPriceItem
+	 * @return
+	 */
+	public boolean isFresh(ContractPriceItem contractPriceItem) {
+		if (contractPriceItem == null) {
+			return false;
+		}
+		return contractPriceData.isFresh(contractPriceItem) && haveContractPrice(contractPriceItem);
+	}
+
+	/**
+	 * All cached prices will be updated on the next update
+	 */
+	public void expire() {
+		contractPriceData.expire();
+	}
+
 	public boolean haveContractPrice(ContractPriceItem contractPriceItem) {
 		if (contractPriceItem == null) {
 			return false;
@@ -126,6 +145,7 @@ public class ContractPriceManager {
 		private Date date = Settings.getNow();
 		private final Map<ContractPriceItem, Prices> prices = new HashMap<>();
 		private final Map<ContractPriceItem, Date> failed = new HashMap<>();
+		private final Map<ContractPriceItem, Date> expires = new HashMap<>(); //Not in old files (empty)
 
 		public synchronized Date getDate() {
 			return date;
@@ -138,6 +158,7 @@ public class ContractPriceManager {
 				prices.put(returnData.getContractPriceType(), returnData.getPrices());
 				failed.remove(returnData.getContractPriceType());
 				Date expire = returnData.getExpire();
+				expires.put(returnData.getContractPriceType(), expire);
 				if (returnData.isAll() && expire.after(date)) {
 					date = expire;
 				}
@@ -148,6 +169,18 @@ public class ContractPriceManager {
 			return prices.get(contractPriceType);
 		}
 
+		public synchronized boolean isFresh(ContractPriceItem contractPriceType) {
+			Date expire = expires.get(contractPriceType);
+			if (expire == null) {
+				return false;
+			}
+			return expire.after(Settings.getNow());
+		}
+
+		public synchronized void expire() {
+			expires.clear();
+		}
+
 		public boolean isFailed(ContractPriceItem contractPriceType) {
 			Date expire = failed.get(contractPriceType);
 			if (expire == null) {
@@ -61,6 +61,7 @@ import net.nikr.eve.jeveasset.i18n.TabsOrders;
 import net.nikr.eve.jeveasset.i18n.TabsTransaction;
 import net.nikr.eve.jeveasset.io.local.SettingsReader;
 import net.nikr.eve.jeveasset.io.local.SettingsWriter;
+import net.nikr.eve.jeveasset.io.shared.ApiIdConverter;
 import net.nikr.eve.jeveasset.io.shared.FileUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -398,6 +399,7 @@ public class Settings {
 
 	public void setPriceDataSettings(final PriceDataSettings priceDataSettings) {
 		this.priceDataSettings = priceDataSettings;
+		ApiIdConverter.resetPrices();
 	}
 
 	public ContractPriceSettings getContractPriceSettings() {
@@ -410,6 +412,7 @@ public class Settings {
 
 	public void setUserPrices(final Map<Integer, UserItem<Integer, Double>> userPrices) {
 		this.userPrices = userPrices;
+		ApiIdConverter.resetPrices();
 	}
 
 	public Map<Long, UserItem<Long, String>> getUserItemNames() {
@@ -422,6 +425,7 @@ public class Settings {
 
 	public void setPriceData(final Map<Integer, PriceData> priceData) {
 		this.priceDatas = priceData;
+		ApiIdConverter.resetPrices();
 	}
 
 	public Map<Long, String> getEveNames() {
@@ -453,6 +457,7 @@ public class Settings {
 
 	public void setReprocessSettings(final ReprocessSettings reprocessSettings) {
 		this.reprocessSettings = reprocessSettings;
+		ApiIdConverter.resetPrices();
 	}
 
 	public RoutingSettings getRoutingSettings() {
@@ -599,12 +604,51 @@ public class Settings {
 		return tags;
 	}
 
+	/**
+	 * Rows without tags share Tags.EMPTY (not stored)
+	 * @param tagID
+	 * @return 
+	 */
 	public Tags getTags(TagID tagID) {
 		Tags set = tagIds.get(tagID);
 		if (set == null) {
+			return Tags.EMPTY;
+		}
+		return set;
+	}
+
+	/**
+	 * Add tag to the tags of the tagID
+	 * @param tagID
+	 * @param tag
+	 * @return the updated tags (set it on the row, if the row had no tags)
+	 */
+	public Tags addTag(TagID tagID, Tag tag) {
+		Tags set = getTags(tagID);
+		if (set == Tags.EMPTY) {
 			set = new Tags();
 			tagIds.put(tagID, set);
 		}
+		set.add(tag);
+		return set;
+	}
+
+	/**
+	 * Remove tag from the tags of the tagID
+	 * @param tagID
+	 * @param tag
+	 * @return the updated tags
+	 */
+	public Tags removeTag(TagID tagID, Tag tag) {
+		Tags set = getTags(tagID);
+		if (set == Tags.EMPTY) {
+			return set;
+		}
+		set.remove(tag);
+		if (set.isEmpty()) { //Do not keep empty tags
+			tagIds.remove(tagID);
+			return Tags.EMPTY;
+		}
 		return set;
 	}
 
@@ -781,6 +825,7 @@ public class Settings {
 
 	public void setBlueprintBasePriceTech1(final boolean blueprintsTech1) {
 		flags.put(SettingFlag.FLAG_BLUEPRINT_BASE_PRICE_TECH_1, blueprintsTech1);
+		ApiIdConverter.resetPrices();
 	}
 
 	public boolean isBlueprintBasePriceTech2() {
@@ -789,6 +834,7 @@ public class Settings {
 
 	public void setBlueprintBasePriceTech2(final boolean blueprintsTech2) {
 		flags.put(SettingFlag.FLAG_BLUEPRINT_BASE_PRICE_TECH_2, blueprintsTech2);
+		ApiIdConverter.resetPrices();
 	}
 
 	public boolean isTransactionHistory() {
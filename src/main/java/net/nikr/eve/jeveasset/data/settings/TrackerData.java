@@ -22,6 +22,9 @@ package net.nikr.eve.jeveasset.data.settings;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +32,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import net.nikr.eve.jeveasset.CliOptions;
 import net.nikr.eve.jeveasset.gui.tabs.values.Value;
 import net.nikr.eve.jeveasset.io.local.TrackerDataReader;
-import net.nikr.eve.jeveasset.io.local.TrackerDataWriter;
+import net.nikr.eve.jeveasset.io.local.TrackerDataStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +44,13 @@ public class TrackerData {
 	private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
 	private static final Object SAVE_QUEUE_SYNC = new Object();
 	private static Integer SAVE_QUEUE = 0;
+	private static long VERSION = 0;
+	private static final Comparator<Value> DATE_COMPARATOR = new Comparator<Value>() {
+		@Override
+		public int compare(Value o1, Value o2) {
+			return o1.getDate().compareTo(o2.getDate());
+		}
+	};
 	
 
 	public static void readLock() {
@@ -72,8 +82,26 @@ public class TrackerData {
 	}
 
 	public static void load() {
-		Map<String, List<Value>> trackerData = TrackerDataReader.load();
-		TrackerData.set(trackerData);
+		Map<String, List<Value>> trackerData = TrackerDataStore.get().load();
+		if (trackerData == null) { //Convert tracker.json to the tracker store on next save
+			trackerData = TrackerDataReader.load();
+		}
+		if (trackerData == null) {
+			return;
+		}
+		try {
+			LOCK.writeLock().lock();
+			VERSION++;
+			TRACKER_DATA.clear();
+			for (Map.Entry<String, List<Value>> entry : trackerData.entrySet()) {
+				if (sort(entry.getValue())) {
+					TrackerDataStore.get().setChanged(entry.getKey());
+				}
+				TRACKER_DATA.put(entry.getKey(), entry.getValue());
+			}
+		} finally {
+			LOCK.writeLock().unlock();
+		}
 	}
 
 	public static void save(String msg) {
@@ -103,15 +131,73 @@ public class TrackerData {
 		return TRACKER_DATA;
 	}
 
+	/**
+	 * Values are sorted by date, so, the range can be found without looking at every value.
+	 * Must be called with the tracker data read locked.
+	 * @param owner
+	 * @param from first date included, or null for no limit
+	 * @param to last date included, or null for no limit
+	 * @return values in the date range (view of the tracker data)
+	 */
+	public static List<Value> get(String owner, Date from, Date to) {
+		List<Value> values = get().get(owner);
+		if (values == null) {
+			return new ArrayList<>();
+		}
+		int start = 0;
+		if (from != null) {
+			start = indexOf(values, from, false);
+		}
+		int end = values.size();
+		if (to != null) {
+			end = indexOf(values, to, true);
+		}
+		if (start >= end) {
+			return new ArrayList<>();
+		}
+		return values.subList(start, end);
+	}
+
+	/**
+	 * Changed every time values are added or removed.
+	 * Must be called with the tracker data read locked.
+	 * @return
+	 */
+	public static long getVersion() {
+		return VERSION;
+	}
+
+	/**
+	 * Mark the values of the owner as edited.
+	 * Must be called when editing values directly (not needed for add/remove)
+	 * @param owner
+	 */
+	public static void changed(String owner) {
+		TrackerDataStore.get().setChanged(owner);
+	}
+
+	/**
+	 * Mark all values as edited.
+	 */
+	public static void changed() {
+		TrackerDataStore.get().setChanged();
+	}
+
 	public static void add(String owner, Value add) {
 		try {
 			LOCK.writeLock().lock();
+			VERSION++;
 			List<Value> list = TRACKER_DATA.get(owner);
 			if (list == null) {
 				list = new ArrayList<>();
 				TRACKER_DATA.put(owner, list);
 			}
-			list.add(add);
+			if (list.isEmpty() || DATE_COMPARATOR.compare(list.get(list.size() - 1), add) <= 0) {
+				list.add(add); //Append
+			} else {
+				list.add(indexOf(list, add.getDate(), true), add);
+				changed(owner);
+			}
 		} finally {
 			LOCK.writeLock().unlock();
 		}
@@ -120,7 +206,12 @@ public class TrackerData {
 	public static void addAll(Map<String, List<Value>> trackerData) {
 		try {
 			LOCK.writeLock().lock();
-			TRACKER_DATA.putAll(trackerData);
+			VERSION++;
+			for (Map.Entry<String, List<Value>> entry : trackerData.entrySet()) {
+				sort(entry.getValue());
+				TRACKER_DATA.put(entry.getKey(), entry.getValue());
+				changed(entry.getKey());
+			}
 		} finally {
 			LOCK.writeLock().unlock();
 		}
@@ -132,8 +223,13 @@ public class TrackerData {
 		}
 		try {
 			LOCK.writeLock().lock();
+			VERSION++;
 			TRACKER_DATA.clear();
-			TRACKER_DATA.putAll(trackerData);
+			for (Map.Entry<String, List<Value>> entry : trackerData.entrySet()) {
+				sort(entry.getValue());
+				TRACKER_DATA.put(entry.getKey(), entry.getValue());
+			}
+			changed();
 		} finally {
 			LOCK.writeLock().unlock();
 		}
@@ -142,9 +238,11 @@ public class TrackerData {
 	public static void remove(String owner, Value remove) {
 		try {
 			LOCK.writeLock().lock();
+			VERSION++;
 			List<Value> values = TRACKER_DATA.get(owner);
 			if (values != null) {
 				values.remove(remove);
+				changed(owner);
 				if (values.isEmpty()) { //Remove empty list
 					TRACKER_DATA.remove(owner);
 				}
@@ -157,9 +255,11 @@ public class TrackerData {
 	public static void removeAll(String owner, Collection<Value> remove) {
 		try {
 			LOCK.writeLock().lock();
+			VERSION++;
 			List<Value> values = TRACKER_DATA.get(owner);
 			if (values != null) {
 				values.removeAll(remove);
+				changed(owner);
 				if (values.isEmpty()) { //Remove empty list
 					TRACKER_DATA.remove(owner);
 				}
@@ -169,6 +269,43 @@ public class TrackerData {
 		}
 	}
 
+	/**
+	 *
+	 * @param values
+	 * @return true if the values was not already sorted
+	 */
+	private static boolean sort(List<Value> values) {
+		for (int i = 1; i < values.size(); i++) {
+			if (DATE_COMPARATOR.compare(values.get(i - 1), values.get(i)) > 0) {
+				Collections.sort(values, DATE_COMPARATOR);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Binary search in values sorted by date
+	 * @param values
+	 * @param date
+	 * @param after true: index after the last value with the date, false: index of the first value with the date
+	 * @return
+	 */
+	public static int indexOf(List<Value> values, Date date, boolean after) {
+		int low = 0;
+		int high = values.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			int compare = values.get(mid).getDate().compareTo(date);
+			if (compare < 0 || (after && compare == 0)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
 	private synchronized static boolean saveQueueIgnore() {
 		return SAVE_QUEUE > 1;
 	}
@@ -204,7 +341,7 @@ public class TrackerData {
 
 			LOG.info("Saving tracker data: " + msg);
 			TrackerData.readLock();
-			TrackerDataWriter.save();
+			TrackerDataStore.get().save(TrackerData.get());
 			TrackerData.readUnlock();
 			saveQueueRemove();
 			LOG.debug("Tracker data saved in: " + (System.currentTimeMillis() - before) + "ms");
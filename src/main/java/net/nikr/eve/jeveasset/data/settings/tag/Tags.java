@@ -21,31 +21,24 @@
 package net.nikr.eve.jeveasset.data.settings.tag;
 
 import ca.odell.glazedlists.GlazedLists;
-import java.awt.Font;
 import java.util.Collection;
 import java.util.Objects;
 import java.util.TreeSet;
-import javax.swing.BorderFactory;
-import javax.swing.Box;
-import javax.swing.BoxLayout;
-import javax.swing.JLabel;
-import javax.swing.JPanel;
-import net.nikr.eve.jeveasset.gui.shared.ColorUtil;
 import net.nikr.eve.jeveasset.i18n.General;
 
 
 public class Tags extends TreeSet<Tag> implements Comparable<Tags>{
 
+	/**
+	 * Shared by all rows without tags (never stored in the settings)
+	 */
+	public static final Tags EMPTY = new EmptyTags();
+
 	private String tags;
 	private String html;
-	private final JPanel jPanel;
 
 	public Tags() {
 		super(GlazedLists.comparableComparator());
-		jPanel = new JPanel();
-		BoxLayout layout = new BoxLayout(jPanel, BoxLayout.X_AXIS);
-		jPanel.setLayout(layout);
-
 		updateTags();
 	}
 
@@ -85,7 +78,6 @@ public class Tags extends TreeSet<Tag> implements Comparable<Tags>{
 
 	public final void updateTags() {
 		updateString();
-		updatePanel();
 		updateHTML();
 	}
 
@@ -107,35 +99,6 @@ public class Tags extends TreeSet<Tag> implements Comparable<Tags>{
 		}
 	}
 
-	private void updatePanel() {
-		jPanel.removeAll();
-		boolean first = true;
-		for (Tag tag : this) {
-			if (first) {
-				first = false;
-			} else {
-				jPanel.add(Box.createHorizontalStrut(3));
-			}
-			JLabel jLabel = new JLabel(tag.getName());
-			jLabel.setOpaque(true);
-			jLabel.setBackground(tag.getColor().getBackground());
-			jLabel.setForeground(tag.getColor().getForeground());
-			jLabel.setBorder(BorderFactory.createEmptyBorder(0, 3, 0, 2));
-			jPanel.add(jLabel);
-		}
-		if (isEmpty()) {
-			JLabel jLabel = new JLabel(General.get().none());
-			Font font = jLabel.getFont();
-			jLabel.setFont(new Font(font.getName(), Font.ITALIC, font.getSize()));
-			if (ColorUtil.isBrightColor(jLabel.getBackground())) { //Light background color
-				jLabel.setForeground(jLabel.getBackground().darker().darker().darker());
-			} else { //Dark background color
-				jLabel.setForeground(jLabel.getBackground().brighter().brighter());
-			}
-			jPanel.add(jLabel);
-		}
-	}
-
 	private void updateHTML() {
 		StringBuilder builder = new StringBuilder();
 		boolean first = true;
@@ -162,10 +125,6 @@ public class Tags extends TreeSet<Tag> implements Comparable<Tags>{
 		html = builder.toString();
 	}
 
-	public JPanel getPanel() {
-		return jPanel;
-	}
-
 	public String getHtml() {
 		return html;
 	}
@@ -203,7 +162,7 @@ public class Tags extends TreeSet<Tag> implements Comparable<Tags>{
 		if (obj == null) {
 			return false;
 		}
-		if (getClass() != obj.getClass()) {
+		if (!(obj instanceof Tags)) { //EmptyTags equals Tags
 			return false;
 		}
 		final Tags other = (Tags) obj;
@@ -213,4 +172,29 @@ public class Tags extends TreeSet<Tag> implements Comparable<Tags>{
 		return true;
 	}
 
-}
\ No newline at end of file
+	private static class EmptyTags extends Tags {
+
+		@Override
+		public boolean add(Tag e) {
+			throw new UnsupportedOperationException("Shared empty tags can not be changed");
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends Tag> c) {
+			throw new UnsupportedOperationException("Shared empty tags can not be changed");
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			throw new UnsupportedOperationException("Shared empty tags can not be changed");
+		}
+
+		@Override
+		public boolean removeAll(Collection<?> c) {
+			throw new UnsupportedOperationException("Shared empty tags can not be changed");
+		}
+
+		@Override
+		public void clear() { }
+	}
+}
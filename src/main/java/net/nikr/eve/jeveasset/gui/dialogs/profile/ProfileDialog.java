@@ -280,6 +280,8 @@ public class ProfileDialog extends JDialogCentered {
 						program.getProfileManager().getProfiles().remove(profile);
 						profile.getFile().delete();
 						profile.getBackupFile().delete();
+						profile.getBinaryFile().delete();
+						profile.getBinaryBackupFile().delete();
 						updateProfiles();
 						program.getMainWindow().updateTitle();
 						jProfiles.updateUI();
@@ -31,6 +31,7 @@ import javax.swing.JScrollPane;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import net.nikr.eve.jeveasset.Program;
+import net.nikr.eve.jeveasset.data.settings.ContractPriceManager;
 import net.nikr.eve.jeveasset.data.settings.ContractPriceManager.ContractPriceSettings;
 import net.nikr.eve.jeveasset.data.settings.ContractPriceManager.ContractPriceSettings.ContractPriceMode;
 import net.nikr.eve.jeveasset.data.settings.ContractPriceManager.ContractPriceSettings.ContractPriceSecurity;
@@ -121,6 +122,9 @@ public class ContractPriceSettingsPanel extends JSettingsPanel {
 		if (object instanceof ContractPriceMode) {
 			old.setContractPriceMode((ContractPriceMode) object);
 		}
+		if (old.isIncludePrivate() != includePrivate || !old.getContractPriceSecurity().equals(new HashSet<>(contractPriceSecurity))) {
+			ContractPriceManager.get().expire(); //Cached prices was made with the old settings
+		}
 		old.setContractPriceSecurity(new HashSet<>(contractPriceSecurity));
 		old.setIncludePrivate(includePrivate);
 		old.setDefaultBPC(defaultBPC);
@@ -276,8 +276,7 @@ public class TagsSettingsPanel extends JSettingsPanel {
 		@Override
 		public void runTask() {
 			for (TagID tagID : tag.getIDs()) { //Remove from all items
-				Tags tags = Settings.get().getTags(tagID);
-				tags.remove(tag);
+				Settings.get().removeTag(tagID, tag);
 			}
 			//Remove from settings
 			Settings.get().getTags().remove(tag.getName());
@@ -23,6 +23,8 @@ package net.nikr.eve.jeveasset.gui.dialogs.update;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -58,6 +60,7 @@ import net.nikr.eve.jeveasset.io.esi.EsiBookmarksGetter;
 import net.nikr.eve.jeveasset.io.esi.EsiContractItemsGetter;
 import net.nikr.eve.jeveasset.io.esi.EsiContractsGetter;
 import net.nikr.eve.jeveasset.io.esi.EsiDivisionsGetter;
+import net.nikr.eve.jeveasset.io.esi.EsiErrorLimiter;
 import net.nikr.eve.jeveasset.io.esi.EsiIndustryJobsGetter;
 import net.nikr.eve.jeveasset.io.esi.EsiJournalGetter;
 import net.nikr.eve.jeveasset.io.esi.EsiLocationsGetter;
@@ -73,7 +76,8 @@ import net.nikr.eve.jeveasset.gui.shared.Updatable;
 import net.nikr.eve.jeveasset.io.esi.EsiFactionWarfareGetter;
 import net.nikr.eve.jeveasset.io.esi.EsiSkillGetter;
 import net.nikr.eve.jeveasset.io.online.PriceDataGetter;
-import net.nikr.eve.jeveasset.io.shared.ThreadWoker;
+import net.nikr.eve.jeveasset.io.shared.UpdatePipeline;
+import net.nikr.eve.jeveasset.io.shared.UpdatePipeline.Node;
 
 
 public class UpdateDialog extends JDialogCentered {
@@ -82,6 +86,16 @@ public class UpdateDialog extends JDialogCentered {
 		CANCEL, UPDATE, CHANGED, CHECK_ALL
 	}
 
+	/**
+	 * Updaters that change the profile data used to find the types that need prices
+	 */
+	public static final List<Class<?>> PROFILE_DATA_GETTERS = Collections.unmodifiableList(Arrays.<Class<?>>asList(
+			EsiAssetsGetter.class,
+			EsiMarketOrdersGetter.class,
+			EsiIndustryJobsGetter.class,
+			EsiContractsGetter.class,
+			EsiContractItemsGetter.class));
+
 	private final JCheckBox jCheckAll;
 	private final JCheckBox jMarketOrders;
 	private final JLabel jMarketOrdersLeftFirst;
@@ -646,6 +660,7 @@ public class UpdateDialog extends JDialogCentered {
 			if (UpdateDialogAction.UPDATE.name().equals(e.getActionCommand())) {
 				setVisible(false);
 				List<UpdateTask> updateTasks = new ArrayList<>();
+				UpdatePipeline pipeline = new UpdatePipeline();
 				if (jMarketOrders.isSelected()
 						|| jJournal.isSelected()
 						|| jTransactions.isSelected()
@@ -657,8 +672,8 @@ public class UpdateDialog extends JDialogCentered {
 						|| jBookmarks.isSelected()
 						|| jSkills.isSelected()
 						) {
-					updateTasks.add(new Step1Task(program.getProfileManager()));
-					updateTasks.add(new Step2Task(program.getProfileManager(),
+					updateTasks.add(new Step1Task(pipeline, program.getProfileManager()));
+					updateTasks.add(new Step2Task(pipeline, program.getProfileManager(),
 							jAssets.isSelected(),
 							jAccountBalance.isSelected(),
 							jBlueprints.isSelected(),
@@ -669,17 +684,17 @@ public class UpdateDialog extends JDialogCentered {
 							jMarketOrders.isSelected(),
 							jTransactions.isSelected(),
 							jSkills.isSelected()));
-					updateTasks.add(new Step3Task(program.getProfileManager(),
+					updateTasks.add(new Step3Task(pipeline, program.getProfileManager(),
 							jAssets.isSelected()));
 				}
 				if (jContracts.isSelected()) {
-					updateTasks.add(new Step4Task(program.getProfileManager(), jContracts.isSelected()));
+					updateTasks.add(new Step4Task(pipeline, program.getProfileManager(), jContracts.isSelected()));
 				}
 				if (jContractPricesAll.isSelected() || jContractPricesNew.isSelected())  {
-					updateTasks.add(new ContractPricesTask(program.getProfileData(), jContractPricesAll.isSelected()));
+					updateTasks.add(new ContractPricesTask(pipeline, program.getProfileData(), jContractPricesAll.isSelected()));
 				}
 				if (jPriceDataAll.isSelected() || jPriceDataNew.isSelected()) {
-					updateTasks.add(new PriceDataTask(program.getPriceDataGetter(), program.getProfileData(), jPriceDataAll.isSelected()));
+					updateTasks.add(new PriceDataTask(pipeline, program.getPriceDataGetter(), program.getProfileData(), jPriceDataAll.isSelected()));
 				}
 				if (!updateTasks.isEmpty()) {
 					//Pause structure update
@@ -687,6 +702,8 @@ public class UpdateDialog extends JDialogCentered {
 					TaskDialog taskDialog = new TaskDialog(program, updateTasks, false, false, false, null, new TaskDialog.TasksCompleted() {
 						@Override
 						public void tasksCompleted(TaskDialog taskDialog) {
+							//Log ESI error limit stats
+							EsiErrorLimiter.get().logStats();
 							//Update tracker locations
 							AssetValue.updateData();
 							//Update eventlists
@@ -737,17 +754,56 @@ public class UpdateDialog extends JDialogCentered {
 		}
 	}
 
-	public static class Step1Task extends UpdateTask {
+	/**
+	 * Update task that run its updaters in a shared UpdatePipeline.
+	 * The updaters start as soon as their dependencies are done,
+	 * the task only wait for its own updaters to be done.
+	 */
+	public abstract static class PipelineTask extends UpdateTask {
+
+		private final UpdatePipeline pipeline;
+		private final List<Node> nodes = new ArrayList<>();
+		private final boolean updateProgress;
+
+		public PipelineTask(final String name, final UpdatePipeline pipeline, final boolean updateProgress) {
+			super(name);
+			this.pipeline = pipeline;
+			this.updateProgress = updateProgress;
+		}
+
+		protected final UpdatePipeline getPipeline() {
+			return pipeline;
+		}
+
+		protected final void add(Runnable runnable, Object owner) {
+			add(runnable, owner, Collections.<Node>emptyList());
+		}
+
+		protected final void add(Runnable runnable, Object owner, Collection<Node> dependencies) {
+			nodes.add(pipeline.add(runnable, owner, dependencies));
+		}
+
+		protected final void waitForPipeline() {
+			pipeline.waitFor(this, nodes, updateProgress);
+		}
+
+		@Override
+		public void cancelled() {
+			super.cancelled();
+			pipeline.cancel(); //Stop updaters that have already been started
+		}
+	}
+
+	public static class Step1Task extends PipelineTask {
 
-		private final List<Runnable> updates = new ArrayList<>();
 		private final ProfileManager profileManager;
 
-		public Step1Task(final ProfileManager profileManager) {
-			super(DialoguesUpdate.get().step1());
+		public Step1Task(final UpdatePipeline pipeline, final ProfileManager profileManager) {
+			super(DialoguesUpdate.get().step1(), pipeline, true);
 			this.profileManager = profileManager;
 			//Esi
 			for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-				updates.add(new EsiOwnerGetter(this, esiOwner));
+				add(new EsiOwnerGetter(this, esiOwner), esiOwner);
 			}
 		}
 
@@ -772,77 +828,49 @@ public class UpdateDialog extends JDialogCentered {
 					addError("Migrated EveKit accounts can safely be deleted", "Delete EveApi accounts in the account manager:\r\nOptions > Accounts... > Edit");
 				}
 			}
-			ThreadWoker.start(this, updates);
+			waitForPipeline();
 		}
 	}
 
-	public static class Step2Task extends UpdateTask {
-
-		private final List<Runnable> updates = new ArrayList<>();
+	public static class Step2Task extends PipelineTask {
 
-		public Step2Task(final ProfileManager profileManager, final boolean assets, final boolean balance, final boolean blueprints, final boolean bookmarks, final boolean contracts, final boolean industry, final boolean journal, final boolean orders, final boolean transactions, final boolean skills) {
-			super(DialoguesUpdate.get().step2());
-			if (balance) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiAccountBalanceGetter(this, esiOwner));
+		public Step2Task(final UpdatePipeline pipeline, final ProfileManager profileManager, final boolean assets, final boolean balance, final boolean blueprints, final boolean bookmarks, final boolean contracts, final boolean industry, final boolean journal, final boolean orders, final boolean transactions, final boolean skills) {
+			super(DialoguesUpdate.get().step2(), pipeline, true);
+			//Esi: each owner only wait for its own owner update
+			for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
+				List<Node> owner = pipeline.getNodes(EsiOwnerGetter.class, esiOwner);
+				if (balance) {
+					add(new EsiAccountBalanceGetter(this, esiOwner), esiOwner, owner);
 				}
-			}
-			if (assets) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiAssetsGetter(this, esiOwner));
+				if (assets) {
+					add(new EsiAssetsGetter(this, esiOwner), esiOwner, owner);
 					if (esiOwner.isCorporation()) {
-						updates.add(new EsiDivisionsGetter(this, esiOwner));
+						add(new EsiDivisionsGetter(this, esiOwner), esiOwner, owner);
 					}
 				}
-			}
-			if (industry) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiIndustryJobsGetter(this, esiOwner));
+				if (industry) {
+					add(new EsiIndustryJobsGetter(this, esiOwner), esiOwner, owner);
 				}
-			}
-			if (orders) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiMarketOrdersGetter(this, esiOwner, Settings.get().isMarketOrderHistory()));
+				if (orders) {
+					add(new EsiMarketOrdersGetter(this, esiOwner, Settings.get().isMarketOrderHistory()), esiOwner, owner);
 				}
-			}
-			if (journal) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiJournalGetter(this, esiOwner, Settings.get().isJournalHistory()));
+				if (journal) {
+					add(new EsiJournalGetter(this, esiOwner, Settings.get().isJournalHistory()), esiOwner, owner);
 				}
-			}
-			if (transactions) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiTransactionsGetter(this, esiOwner, Settings.get().isTransactionHistory()));
+				if (transactions) {
+					add(new EsiTransactionsGetter(this, esiOwner, Settings.get().isTransactionHistory()), esiOwner, owner);
 				}
-			}
-			if (contracts) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiContractsGetter(this, esiOwner, Settings.get().isContractHistory()));
+				if (contracts) {
+					add(new EsiContractsGetter(this, esiOwner, Settings.get().isContractHistory()), esiOwner, owner);
 				}
-			}
-			if (blueprints) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiBlueprintsGetter(this, esiOwner));
+				if (blueprints) {
+					add(new EsiBlueprintsGetter(this, esiOwner), esiOwner, owner);
 				}
-			}
-			if (bookmarks) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiBookmarksGetter(this, esiOwner));
+				if (bookmarks) {
+					add(new EsiBookmarksGetter(this, esiOwner), esiOwner, owner);
 				}
-			}
-			if (skills) {
-				//Esi
-				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiSkillGetter(this, esiOwner));
+				if (skills) {
+					add(new EsiSkillGetter(this, esiOwner), esiOwner, owner);
 				}
 			}
 		}
@@ -850,49 +878,49 @@ public class UpdateDialog extends JDialogCentered {
 		@Override
 		public void update() {
 			setIcon(null);
-			ThreadWoker.start(this, updates);
+			waitForPipeline();
 		}
 	}
 
-	public static class Step3Task extends UpdateTask {
-
-		private final List<Runnable> updates = new ArrayList<>();
+	public static class Step3Task extends PipelineTask {
 
-		public Step3Task(final ProfileManager profileManager, final boolean assets) {
-			super(DialoguesUpdate.get().step3());
+		public Step3Task(final UpdatePipeline pipeline, final ProfileManager profileManager, final boolean assets) {
+			super(DialoguesUpdate.get().step3(), pipeline, true);
+			//Names use data from all the owner updates
+			List<Node> all = pipeline.getNodes();
 			//Locations
 			if (assets) {
-				//Esi
+				//Esi: wait for the owner assets
 				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiLocationsGetter(this, esiOwner));
-					updates.add(new EsiShipGetter(this, esiOwner));
-					updates.add(new EsiPlanetaryInteractionGetter(this, esiOwner));
+					List<Node> ownerAssets = pipeline.getNodes(EsiAssetsGetter.class, esiOwner);
+					add(new EsiLocationsGetter(this, esiOwner), esiOwner, ownerAssets);
+					add(new EsiShipGetter(this, esiOwner), esiOwner, ownerAssets);
+					add(new EsiPlanetaryInteractionGetter(this, esiOwner), esiOwner, ownerAssets);
 				}
 			}
-			updates.add(new EsiFactionWarfareGetter(this));
+			add(new EsiFactionWarfareGetter(this), null);
 			//char/corp/alliance IDs to names (ESI)
-			updates.add(new EsiNameGetter(this, profileManager.getOwnerTypes()));
+			add(new EsiNameGetter(this, profileManager.getOwnerTypes()), null, all);
 		}
 
 		@Override
 		public void update() {
 			setIcon(null);
-			ThreadWoker.start(this, updates);
+			waitForPipeline();
 		}
 	}
 	
-	public static class Step4Task extends UpdateTask {
-
-		private final List<Runnable> updates = new ArrayList<>();
+	public static class Step4Task extends PipelineTask {
 
-		public Step4Task(final ProfileManager profileManager, final boolean contracts) {
-			super(DialoguesUpdate.get().step4());
+		public Step4Task(final UpdatePipeline pipeline, final ProfileManager profileManager, final boolean contracts) {
+			super(DialoguesUpdate.get().step4(), pipeline, false);
 			//Contract Items
 			if (contracts) {
-				//Esi
+				//Esi: contract items are shared between owners, wait for all contracts
 				EsiContractItemsGetter.reset();
+				List<Node> allContracts = pipeline.getNodes(EsiContractsGetter.class);
 				for (EsiOwner esiOwner : profileManager.getEsiOwners()) {
-					updates.add(new EsiContractItemsGetter(this, esiOwner, profileManager.getEsiOwners()));
+					add(new EsiContractItemsGetter(this, esiOwner, profileManager.getEsiOwners()), esiOwner, allContracts);
 				}
 			}
 		}
@@ -900,49 +928,46 @@ public class UpdateDialog extends JDialogCentered {
 		@Override
 		public void update() {
 			setIcon(null);
-			ThreadWoker.start(this, updates, false);
+			waitForPipeline();
 		}
 	}
 
-	public static class ContractPricesTask extends UpdateTask {
+	public static class ContractPricesTask extends PipelineTask {
 
-		private final ProfileData profileData;
-		private final boolean all;
-
-		public ContractPricesTask(ProfileData profileData, boolean all) {
-			super(DialoguesUpdate.get().contractPrices() + " (Contracts Appraisal)");
-			this.profileData = profileData;
-			this.all = all;
+		public ContractPricesTask(final UpdatePipeline pipeline, ProfileData profileData, boolean all) {
+			super(DialoguesUpdate.get().contractPrices() + " (Contracts Appraisal)", pipeline, false);
 			setIcon(Images.MISC_CONTRACTS_APPRAISAL.getIcon());
+			//Uses the profile data: wait for the updaters that change it
+			add(new ContractPriceGetter(this, profileData, all), null, pipeline.getNodes(PROFILE_DATA_GETTERS));
 		}
 
 		@Override
 		public void update() {
-			ThreadWoker.start(this, Collections.singletonList(new ContractPriceGetter(this, profileData, all)), false);
+			waitForPipeline();
 		}
 	}
 
-	public static class PriceDataTask extends UpdateTask {
-
-		private final PriceDataGetter priceDataGetter;
-		private final ProfileData profileData;
-		private final boolean update;
+	public static class PriceDataTask extends PipelineTask {
 
-		public PriceDataTask(final PriceDataGetter priceDataGetter, final ProfileData profileData, final boolean update) {
-			super(DialoguesUpdate.get().priceData() + " (" + (Settings.get().getPriceDataSettings().getSource().toString()) + ")");
-			this.priceDataGetter = priceDataGetter;
-			this.profileData = profileData;
-			this.update = update;
+		public PriceDataTask(final UpdatePipeline pipeline, final PriceDataGetter priceDataGetter, final ProfileData profileData, final boolean update) {
+			super(DialoguesUpdate.get().priceData() + " (" + (Settings.get().getPriceDataSettings().getSource().toString()) + ")", pipeline, false);
+			setIcon(Settings.get().getPriceDataSettings().getSource().getIcon());
+			//Uses the profile data: wait for the updaters that change it
+			add(new Runnable() {
+				@Override
+				public void run() {
+					if (update) {
+						priceDataGetter.updateAll(profileData, PriceDataTask.this);
+					} else {
+						priceDataGetter.updateNew(profileData, PriceDataTask.this);
+					}
+				}
+			}, null, pipeline.getNodes(PROFILE_DATA_GETTERS));
 		}
 
 		@Override
 		public void update() {
-			setIcon(Settings.get().getPriceDataSettings().getSource().getIcon());
-			if (update) {
-				priceDataGetter.updateAll(profileData, this);
-			} else {
-				priceDataGetter.updateNew(profileData, this);
-			}
+			waitForPipeline();
 		}
 	}
 }
@@ -51,7 +51,12 @@ public final class Formater {
 	private static final DecimalFormat INTEGER_FORMAT  = new DecimalFormat("0");
 	private static final DecimalFormat DECIMAL_FORMAT  = new DecimalFormat("#,##0.00");
 	private static final DecimalFormat FLOAT_FORMAT  = new DecimalFormat("#,##0.####");
-	private static final DecimalFormat COMPARE_FORMAT  = new DecimalFormat("0.####", new DecimalFormatSymbols(FilterMatcher.LOCALE));
+	private static final ThreadLocal<DecimalFormat> COMPARE_FORMAT  = new ThreadLocal<DecimalFormat>() { //Used by the filters (may run in parallel)
+		@Override
+		protected DecimalFormat initialValue() {
+			return new DecimalFormat("0.####", new DecimalFormatSymbols(FilterMatcher.LOCALE));
+		}
+	};
 	private static final DecimalFormat SECURITY_FORMAT  = new DecimalFormat("0.0", new DecimalFormatSymbols(Locale.ENGLISH));
 	private static final DecimalFormat COPY_FORMAT  = new DecimalFormat("0.##", new DecimalFormatSymbols(Locale.ENGLISH));
 	public static final DecimalFormat LONG_FORMAT  = new DecimalFormat("#,##0");
@@ -115,7 +120,7 @@ public final class Formater {
 		return DECIMAL_FORMAT.format(obj);
 	}
 	public static String compareFormat(final Object obj) {
-		return COMPARE_FORMAT.format(obj);
+		return COMPARE_FORMAT.get().format(obj);
 	}
 	public static String securityFormat(final Object obj) {
 		return SECURITY_FORMAT.format(obj);
@@ -20,10 +20,7 @@
  */
 package net.nikr.eve.jeveasset.gui.shared.filter;
 
-import java.util.Map;
-
 
 public interface ColumnCache<E> {
-	public Map<E, String> getCache();
-	public void addCache(E e, String haystack);
+	public FilterIndex<E> getFilterIndex();
 }
@@ -53,6 +53,7 @@ import net.nikr.eve.jeveasset.gui.shared.table.containers.Percent;
 import net.nikr.eve.jeveasset.gui.tabs.tree.TreeAsset;
 import net.nikr.eve.jeveasset.gui.tabs.tree.TreeTab;
 import net.nikr.eve.jeveasset.io.local.CsvWriter;
+import net.nikr.eve.jeveasset.io.local.ExportValues;
 import net.nikr.eve.jeveasset.io.local.HtmlWriter;
 import net.nikr.eve.jeveasset.io.local.SqlWriter;
 import org.slf4j.Logger;
@@ -253,63 +254,45 @@ public class ExportTableData {
 		} else if (!dir.exists()) { //If parent dir dosn't exsit, create it
 			dir.mkdirs();
 		}
+		final DecimalSeparator decimalSeparator = exportSettings.getDecimalSeparator();
 		if (exportSettings.isCsv()) {
 			//CSV
-			//Create data
-			List<String> headerStrings = new ArrayList<>(header.size());
-			List<String> headerKeys = new ArrayList<>(header.size());
-			for (EnumTableColumn<Q> column : header) {
-				headerStrings.add(column.getColumnName());
-				headerKeys.add(column.name());
-			}
-			List<Map<String, String>> rows = new ArrayList<>();
-			for (Q e : items) {
-				Map<String, String> row = new HashMap<>();
-				for (EnumTableColumn<Q> column : header) {
-					row.put(column.name(), format(tableFormat.getColumnValue(e, column.name()), exportSettings.getDecimalSeparator(), false));
-				}
-				rows.add(row);
-			}
-			//Save data
 			return CsvWriter.save(exportSettings.getFilename(),
-					rows,
-					headerStrings.toArray(new String[headerStrings.size()]),
-					headerKeys.toArray(new String[headerKeys.size()]),
+					items,
+					new ArrayList<>(header),
+					new ExportValues<Q, String>() {
+						@Override
+						public String getValue(Q e, EnumTableColumn<?> column) {
+							return format(tableFormat.getColumnValue(e, column.name()), decimalSeparator, false);
+						}
+					},
 					new CsvPreference.Builder('\"', exportSettings.getCsvFieldDelimiter().getValue(), exportSettings.getCsvLineDelimiter().getValue()).build());
 		} else if (exportSettings.isHtml()) {
 			//HTML
-			//Create data
-			List<Map<EnumTableColumn<?>, String>> rows = new ArrayList<>();
-			for (Q e : items) {
-				Map<EnumTableColumn<?>, String> row = new HashMap<>();
-				for (EnumTableColumn<Q> column : header) {
-					row.put(column, format(tableFormat.getColumnValue(e, column.name()), exportSettings.getDecimalSeparator(), true));
-				}
-				rows.add(row);
-			}
-			//Save data
 			return HtmlWriter.save(exportSettings.getFilename(),
-					rows,
+					items,
 					new ArrayList<>(header),
-					exportSettings.isHtmlIGB() ? new ArrayList<>(items) : null,
+					new ExportValues<Q, String>() {
+						@Override
+						public String getValue(Q e, EnumTableColumn<?> column) {
+							return format(tableFormat.getColumnValue(e, column.name()), decimalSeparator, true);
+						}
+					},
+					exportSettings.isHtmlIGB(),
 					exportSettings.isHtmlStyled(),
 					exportSettings.getHtmlRepeatHeader(),
 					toolName.equals(TreeTab.NAME));
 		} else if (exportSettings.isSql()) {
 			//SQL
-			//Create data
-			List<Map<EnumTableColumn<?>, Object>> rows = new ArrayList<>();
-			for (Q e : items) {
-				Map<EnumTableColumn<?>, Object> row = new HashMap<>();
-				for (EnumTableColumn<Q> column : header) {
-					row.put(column, tableFormat.getColumnValue(e, column.name()));
-				}
-				rows.add(row);
-			}
-			//Save data
 			return SqlWriter.save(exportSettings.getFilename(),
-					rows,
+					items,
 					new ArrayList<>(header),
+					new ExportValues<Q, Object>() {
+						@Override
+						public Object getValue(Q e, EnumTableColumn<?> column) {
+							return tableFormat.getColumnValue(e, column.name());
+						}
+					},
 					exportSettings.getSqlTableName(),
 					exportSettings.isSqlDropTable(),
 					exportSettings.isSqlCreateTable(),
@@ -55,7 +55,7 @@ public abstract class FilterControl<E> implements ColumnCache<E>, SimpleFilterCo
 	private final Map<String, List<Filter>> filters;
 	private final Map<String, List<Filter>> defaultFilters;
 	private final FilterGui<E> gui;
-	private final Map<E, String> cache;
+	private final FilterIndex<E> index;
 
 	/** Do not use this constructor - it's here only for test purposes. */
 	protected FilterControl() {
@@ -67,7 +67,7 @@ public abstract class FilterControl<E> implements ColumnCache<E>, SimpleFilterCo
 		filters = null;
 		defaultFilters = null;
 		gui = null;
-		cache = new HashMap<>();
+		index = new FilterIndex<>(null);
 	}
 
 	protected FilterControl(final JFrame jFrame, final String toolName, SimpleTableFormat<E> tableFormat, final EventList<E> eventList, final EventList<E> exportEventList, final FilterList<E> filterList) {
@@ -105,11 +105,11 @@ public abstract class FilterControl<E> implements ColumnCache<E>, SimpleFilterCo
 		ListenerClass listener = new ListenerClass();
 		filterList.addListEventListener(listener);
 		gui = new FilterGui<>(jFrame, this, tableFormat);
-		cache = new HashMap<>();
+		index = new FilterIndex<>(tableFormat);
 	}
 
 	public void clearCache() {
-		cache.clear();
+		index.clear();
 	}
 
 	public void createCache() {
@@ -121,13 +121,8 @@ public abstract class FilterControl<E> implements ColumnCache<E>, SimpleFilterCo
 	}
 
 	@Override
-	public Map<E, String> getCache() {
-		return cache;
-	}
-
-	@Override
-	public void addCache(E e, String haystack) {
-		cache.put(e, haystack);
+	public FilterIndex<E> getFilterIndex() {
+		return index;
 	}
 
 	private void cacheDelete(List<E> update) {
@@ -135,7 +130,7 @@ public abstract class FilterControl<E> implements ColumnCache<E>, SimpleFilterCo
 			return;
 		}
 		for (E e : update) {
-			cache.remove(e); //Remove deleted cache
+			index.remove(e); //Remove deleted cache
 		}
 	}
 
@@ -144,17 +139,16 @@ public abstract class FilterControl<E> implements ColumnCache<E>, SimpleFilterCo
 			return;
 		}
 		for (E e : update) {
-			cache.put(e, FilterMatcher.buildItemCache(tableFormat, e)); //Update outdated cache
+			index.update(e); //Update outdated cache
 		}
 	}
 
 	private void cacheRebuild() {
-		cache.clear();
+		index.clear();
 		try {
 			getEventList().getReadWriteLock().readLock().lock();
 			for (E e : getEventList()) {
-				String s = FilterMatcher.buildItemCache(tableFormat, e);
-				cache.put(e, s);
+				index.update(e);
 			}
 		} finally {
 			getEventList().getReadWriteLock().readLock().unlock();
@@ -21,6 +21,7 @@
 
 package net.nikr.eve.jeveasset.gui.shared.filter;
 
+import ca.odell.glazedlists.matchers.Matcher;
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -41,6 +42,7 @@ import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 import net.nikr.eve.jeveasset.data.settings.Settings;
 import net.nikr.eve.jeveasset.data.settings.SettingsUpdateListener;
+import net.nikr.eve.jeveasset.gui.shared.filter.FilterWorker.ResultMatcher;
 import net.nikr.eve.jeveasset.gui.images.Images;
 import net.nikr.eve.jeveasset.gui.shared.CaseInsensitiveComparator;
 import net.nikr.eve.jeveasset.gui.shared.components.JDropDownButton;
@@ -80,6 +82,7 @@ class FilterGui<E> {
 
 	private final ExportDialog<E> exportDialog;
 	private boolean multiUpdate = false;
+	private FilterWorker<E> filterWorker;
 
 	private final ListenerClass settingsUpdateListener = new ListenerClass();
 
@@ -473,7 +476,6 @@ class FilterGui<E> {
 	}
 
 	protected void refilter() {
-		filterControl.beforeFilter();
 		List<FilterMatcher<E>> matchers = getMatchers();
 		boolean empty = true;
 		for (FilterMatcher<E> matcher : matchers) {
@@ -482,12 +484,41 @@ class FilterGui<E> {
 				break;
 			}
 		}
+		if (filterWorker != null) { //Filter changed - cancel the running filter
+			filterWorker.cancel(false);
+			filterWorker = null;
+		}
 		if (empty) {
-			filterControl.getFilterList().setMatcher(null);
-		} else {
-			filterControl.getFilterList().setMatcher(new FilterLogicalMatcher<>(matchers));
+			setMatcher(null);
+		} else if (EventListManager.size(filterControl.getEventList()) < FilterWorker.THRESHOLD) {
+			setMatcher(new FilterLogicalMatcher<>(matchers));
+		} else { //Large list - filter in parallel
+			filterWorker = new FilterWorker<E>(filterControl.getEventList(), new FilterLogicalMatcher<>(matchers)) {
+				@Override
+				protected void filtered(ResultMatcher<E> matcher) {
+					if (filterWorker != this) { //Replaced by a newer filter
+						return;
+					}
+					filterWorker = null;
+					setMatcher(matcher);
+					matcher.clear(); //Only used for the initial filter
+				}
+
+				@Override
+				protected void progress(int progress) {
+					if (filterWorker == this) {
+						jShowing.setText(GuiShared.get().filterFiltering(progress));
+					}
+				}
+			};
+			jShowing.setText(GuiShared.get().filterFiltering(0));
+			filterWorker.execute();
 		}
+	}
 
+	private void setMatcher(Matcher<E> matcher) {
+		filterControl.beforeFilter();
+		filterControl.getFilterList().setMatcher(matcher);
 		filterControl.afterFilter();
 		updateShowing();
 		fireSettingsUpdate();
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.gui.shared.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the formatted column values used by the "All columns" filter.
+ *
+ * Each distinct value is stored once and each row only holds the ids of its values.
+ * Contains/Equals is answered by intersecting the trigram postings of the distinct values,
+ * instead of searching a string with all columns for every row.
+ * @param <E>
+ */
+public class FilterIndex<E> {
+
+	private static final int GRAM = 3;
+	private static final int COMPACT_MIN = 1024;
+
+	private final SimpleTableFormat<E> tableFormat;
+	private final Map<E, int[]> rows = new ConcurrentHashMap<>();
+	private final Map<String, Integer> ids = new HashMap<>();
+	private final List<String> values = new ArrayList<>();
+	private final Map<Long, Postings> postings = new HashMap<>();
+	private int[] counts = new int[64];
+	private int unused = 0;
+	/**
+	 * Value ids are only changed by compact() and clear()
+	 */
+	private volatile int version = 0;
+
+	public FilterIndex(SimpleTableFormat<E> tableFormat) {
+		this.tableFormat = tableFormat;
+	}
+
+	public void update(E e) {
+		List<String> columnValues = FilterMatcher.buildItemValues(tableFormat, e);
+		synchronized (this) {
+			put(e, columnValues);
+		}
+	}
+
+	public synchronized void remove(E e) {
+		int[] old = rows.remove(e);
+		if (old != null) {
+			release(old);
+		}
+	}
+
+	public synchronized void clear() {
+		rows.clear();
+		ids.clear();
+		values.clear();
+		postings.clear();
+		counts = new int[64];
+		unused = 0;
+		version++;
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	synchronized int getValueCount() {
+		return ids.size();
+	}
+
+	/**
+	 * Rows not in the index are added
+	 * @param e
+	 * @param query
+	 * @return true if any value of the row matches the query
+	 */
+	boolean matches(E e, Query query) {
+		while (true) {
+			int before = version;
+			int[] row = getRow(e);
+			Result result = query.getResult(this);
+			if (result.version != before || version != before) {
+				continue; //Compacted while reading - try again
+			}
+			for (int id : row) {
+				if (id < result.size) {
+					if (result.matches.get(id)) {
+						return true;
+					}
+				} else if (matchesValue(id, query)) { //Added after the search
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Rows not in the index are added
+	 * @param e
+	 * @return all column values as a single string (for regex)
+	 */
+	synchronized String getHaystack(E e) {
+		int[] row = rows.get(e);
+		if (row == null) {
+			row = put(e, FilterMatcher.buildItemValues(tableFormat, e));
+		}
+		StringBuilder builder = new StringBuilder();
+		for (int id : row) {
+			builder.append("\n");
+			builder.append(values.get(id));
+			builder.append("\r");
+		}
+		return builder.toString();
+	}
+
+	private int[] getRow(E e) {
+		int[] row = rows.get(e);
+		if (row == null) { //Will be build on update if any filter is set
+			List<String> columnValues = FilterMatcher.buildItemValues(tableFormat, e);
+			synchronized (this) {
+				row = put(e, columnValues);
+			}
+		}
+		return row;
+	}
+
+	private synchronized boolean matchesValue(int id, Query query) {
+		String value = values.get(id);
+		if (value == null) {
+			return false;
+		}
+		if (query.equals) {
+			return value.equals(query.text);
+		} else {
+			return value.contains(query.text);
+		}
+	}
+
+	private synchronized Result search(Query query) {
+		BitSet matches = new BitSet();
+		if (query.equals) {
+			Integer id = ids.get(query.text);
+			if (id != null) {
+				matches.set(id);
+			}
+		} else if (query.text.length() < GRAM) { //Too short for the index - check all values
+			for (int id = 0; id < values.size(); id++) {
+				String value = values.get(id);
+				if (value != null && value.contains(query.text)) {
+					matches.set(id);
+				}
+			}
+		} else {
+			List<Postings> lists = new ArrayList<>();
+			for (int i = 0; i + GRAM <= query.text.length(); i++) {
+				Postings list = postings.get(gram(query.text, i));
+				if (list == null) { //No value contains the trigram
+					return new Result(version, values.size(), matches);
+				}
+				lists.add(list);
+			}
+			Collections.sort(lists, new Comparator<Postings>() {
+				@Override
+				public int compare(Postings o1, Postings o2) {
+					return Integer.compare(o1.size, o2.size);
+				}
+			});
+			Postings smallest = lists.get(0);
+			for (int i = 0; i < smallest.size; i++) {
+				int id = smallest.ids[i];
+				boolean found = true;
+				for (int j = 1; j < lists.size() && found; j++) {
+					found = lists.get(j).contains(id);
+				}
+				if (found && values.get(id).contains(query.text)) { //Trigrams can match without the text matching
+					matches.set(id);
+				}
+			}
+		}
+		return new Result(version, values.size(), matches);
+	}
+
+	private int[] put(E e, List<String> columnValues) {
+		int[] row = new int[columnValues.size()];
+		for (int i = 0; i < row.length; i++) {
+			row[i] = add(columnValues.get(i));
+		}
+		int[] old = rows.put(e, row);
+		if (old != null) {
+			release(old);
+		}
+		return rows.get(e); //Compacted by release()
+	}
+
+	private int add(String value) {
+		Integer id = ids.get(value);
+		if (id == null) {
+			id = values.size();
+			values.add(value);
+			ids.put(value, id);
+			if (id >= counts.length) {
+				counts = Arrays.copyOf(counts, counts.length * 2);
+			}
+			for (int i = 0; i + GRAM <= value.length(); i++) {
+				long gram = gram(value, i);
+				Postings list = postings.get(gram);
+				if (list == null) {
+					list = new Postings();
+					postings.put(gram, list);
+				}
+				list.add(id);
+			}
+		}
+		counts[id]++;
+		return id;
+	}
+
+	private void release(int[] row) {
+		for (int id : row) {
+			counts[id]--;
+			if (counts[id] == 0) { //No longer used
+				String value = values.get(id);
+				values.set(id, null);
+				ids.remove(value);
+				for (int i = 0; i + GRAM <= value.length(); i++) {
+					long gram = gram(value, i);
+					Postings list = postings.get(gram);
+					if (list != null) {
+						list.remove(id);
+						if (list.size == 0) {
+							postings.remove(gram);
+						}
+					}
+				}
+				unused++;
+			}
+		}
+		if (unused > COMPACT_MIN && unused > ids.size()) {
+			compact();
+		}
+	}
+
+	/**
+	 * Remove unused value ids
+	 */
+	private void compact() {
+		int[] remap = new int[values.size()];
+		List<String> oldValues = new ArrayList<>(values);
+		int[] oldCounts = counts;
+		ids.clear();
+		values.clear();
+		postings.clear();
+		counts = new int[Math.max(64, oldValues.size() - unused)];
+		for (int id = 0; id < oldValues.size(); id++) {
+			String value = oldValues.get(id);
+			if (value != null) {
+				remap[id] = add(value);
+				counts[remap[id]] = oldCounts[id];
+			}
+		}
+		for (Map.Entry<E, int[]> entry : rows.entrySet()) {
+			int[] row = entry.getValue().clone();
+			for (int i = 0; i < row.length; i++) {
+				row[i] = remap[row[i]];
+			}
+			entry.setValue(row);
+		}
+		unused = 0;
+		version++;
+	}
+
+	private static long gram(String value, int index) {
+		return ((long) value.charAt(index) << 32) | ((long) value.charAt(index + 1) << 16) | value.charAt(index + 2);
+	}
+
+	/**
+	 * Contains or Equals query.
+	 * Caches the matching value ids (thread safe).
+	 */
+	static class Query {
+		private final String text;
+		private final boolean equals;
+		private volatile Result result;
+
+		public Query(String text, boolean equals) {
+			this.text = text;
+			this.equals = equals;
+		}
+
+		private Result getResult(FilterIndex<?> index) {
+			Result cached = result;
+			if (cached == null || cached.version != index.version) {
+				cached = index.search(this);
+				result = cached;
+			}
+			return cached;
+		}
+	}
+
+	private static class Result {
+		private final int version;
+		private final int size;
+		private final BitSet matches;
+
+		public Result(int version, int size, BitSet matches) {
+			this.version = version;
+			this.size = size;
+			this.matches = matches;
+		}
+	}
+
+	/**
+	 * Sorted value ids (ids are added in increasing order)
+	 */
+	private static class Postings {
+		private int[] ids = new int[2];
+		private int size = 0;
+
+		public void add(int id) {
+			if (size > 0 && ids[size - 1] == id) { //Same trigram more than once in the value
+				return;
+			}
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			ids[size++] = id;
+		}
+
+		public void remove(int id) {
+			int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index >= 0) {
+				System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+				size--;
+			}
+		}
+
+		public boolean contains(int id) {
+			return Arrays.binarySearch(ids, 0, size, id) >= 0;
+		}
+	}
+}
@@ -24,10 +24,10 @@ package net.nikr.eve.jeveasset.gui.shared.filter;
 import ca.odell.glazedlists.matchers.Matcher;
 import java.text.NumberFormat;
 import java.text.ParsePosition;
-import java.util.Calendar;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
-import java.util.TimeZone;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import net.nikr.eve.jeveasset.gui.shared.Formater;
@@ -40,19 +40,40 @@ import net.nikr.eve.jeveasset.gui.shared.table.containers.NumberValue;
 public class FilterMatcher<E> implements Matcher<E> {
 
 	public static final Locale LOCALE = Locale.ENGLISH; //Use english AKA US_EN
-	private static final NumberFormat NUMBER_FORMAT = NumberFormat.getInstance(LOCALE);
-	private static final NumberFormat PERCENT_FORMAT = NumberFormat.getPercentInstance(LOCALE);
-	private static final Calendar CALENDAR = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+	private static final ThreadLocal<NumberFormat> NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+		@Override
+		protected NumberFormat initialValue() {
+			return NumberFormat.getInstance(LOCALE);
+		}
+	};
+	private static final ThreadLocal<NumberFormat> PERCENT_FORMAT = new ThreadLocal<NumberFormat>() {
+		@Override
+		protected NumberFormat initialValue() {
+			return NumberFormat.getPercentInstance(LOCALE);
+		}
+	};
+	private static final long HOUR = 60L * 60L * 1000L;
+	private static final long DAY = 24L * HOUR; //Dates are compared in GMT (no DST)
+	private static final String FORMAT_CHARS = "„“”‘’`´–‐‑‒—";
 
 	private final SimpleTableFormat<E> tableFormat;
 	private final ColumnCache<E> columnCache;
 	private final int group;
 	private final boolean and;
-	private final EnumTableColumn<?> enumColumn;
+	private final boolean allColumns;
+	private final String columnName;
+	private final EnumTableColumn<E> column;
+	private final EnumTableColumn<E> compareColumn;
 	private final CompareType compare;
 	private final String text;
 	private final Pattern pattern;
 	private final boolean empty;
+	//User input parsed once (instead of for every row)
+	private final Double number;
+	private final Number amount;
+	private final Date date;
+	private final String allEquals;
+	private final FilterIndex.Query query;
 
 	FilterMatcher(final SimpleTableFormat<E> filterControl, ColumnCache<E> columnCache, final Filter filter) {
 		this(filterControl, columnCache, filter.getGroup(), filter.getLogic(), filter.getColumn(), filter.getCompareType(), filter.getText(), filter.isEnabled());
@@ -62,8 +83,15 @@ public class FilterMatcher<E> implements Matcher<E> {
 		this.tableFormat = tableFormat;
 		this.columnCache = columnCache;
 		this.group = group;
-		this.enumColumn = enumColumn;
 		this.compare = compare;
+		this.allColumns = enumColumn instanceof Filter.AllColumn;
+		if (allColumns) {
+			this.columnName = null;
+			this.column = null;
+		} else {
+			this.columnName = enumColumn.name();
+			this.column = resolve(tableFormat, columnName);
+		}
 		Pattern compiled;
 		if (text == null) {
 			this.pattern = null;
@@ -82,6 +110,47 @@ public class FilterMatcher<E> implements Matcher<E> {
 		}
 		empty = !enabled || text == null || text.isEmpty();
 		and = logic == Filter.LogicType.AND;
+		//Compile
+		if (CompareType.isColumnCompare(compare) && text != null) {
+			this.compareColumn = resolve(tableFormat, text);
+		} else {
+			this.compareColumn = null;
+		}
+		this.number = createDouble(this.text);
+		this.amount = createNumber(this.text);
+		this.date = getDate(this.text, true);
+		if (this.text != null) {
+			this.allEquals = "\n" + this.text + "\r";
+		} else {
+			this.allEquals = null;
+		}
+		if (allColumns && this.text != null && (compare == CompareType.CONTAINS || compare == CompareType.CONTAINS_NOT)) {
+			this.query = new FilterIndex.Query(this.text, false);
+		} else if (allColumns && this.text != null && (compare == CompareType.EQUALS || compare == CompareType.EQUALS_NOT)) {
+			this.query = new FilterIndex.Query(this.text, true);
+		} else {
+			this.query = null;
+		}
+	}
+
+	/**
+	 * Column lookup by name is done once, not for every row
+	 * @return the column or null, if the column should be looked up by name
+	 */
+	private static <E> EnumTableColumn<E> resolve(SimpleTableFormat<E> tableFormat, String name) {
+		try {
+			return tableFormat.valueOf(name);
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	private Object getColumnValue(final E item, final EnumTableColumn<E> enumColumn, final String name) {
+		if (enumColumn != null) {
+			return tableFormat.getColumnValue(item, enumColumn);
+		} else {
+			return tableFormat.getColumnValue(item, name);
+		}
 	}
 
 	public int getGroup() {
@@ -98,10 +167,10 @@ public class FilterMatcher<E> implements Matcher<E> {
 
 	@Override
 	public boolean matches(final E item) {
-		if (enumColumn instanceof Filter.AllColumn) {
+		if (allColumns) {
 			return matchesAll(item);
 		}
-		Object column = tableFormat.getColumnValue(item, enumColumn.name());
+		Object column = getColumnValue(item, this.column, columnName);
 		if (column == null) {
 			return false;
 		}
@@ -115,41 +184,41 @@ public class FilterMatcher<E> implements Matcher<E> {
 			case EQUALS:
 				return equals(column, text);
 			case EQUALS_DATE:
-				return equalsDate(column, text);
+				return equalsDate(column, date);
 			case EQUALS_NOT:
 				return !equals(column, text);
 			case REGEX:
 				return regex(column, pattern);
 			case EQUALS_NOT_DATE:
-				return !equalsDate(column, text);
+				return !equalsDate(column, date);
 			case GREATER_THAN:
-				return great(column, text);
+				return great(column, number);
 			case LESS_THAN:
-				return less(column, text);
+				return less(column, number);
 			case BEFORE:
-				return before(column, text);
+				return before(column, date);
 			case AFTER:
-				return after(column, text);
+				return after(column, date);
 			case GREATER_THAN_COLUMN:
-				return great(column, tableFormat.getColumnValue(item, text));
+				return great(column, getColumnValue(item, compareColumn, text));
 			case LESS_THAN_COLUMN:
-				return less(column, tableFormat.getColumnValue(item, text));
+				return less(column, getColumnValue(item, compareColumn, text));
 			case EQUALS_COLUMN:
-				return equals(column, format(tableFormat.getColumnValue(item, text), false));
+				return equals(column, format(getColumnValue(item, compareColumn, text), false));
 			case EQUALS_NOT_COLUMN:
-				return !equals(column, format(tableFormat.getColumnValue(item, text), false));
+				return !equals(column, format(getColumnValue(item, compareColumn, text), false));
 			case CONTAINS_COLUMN:
-				return contains(column, format(tableFormat.getColumnValue(item, text), false));
+				return contains(column, format(getColumnValue(item, compareColumn, text), false));
 			case CONTAINS_NOT_COLUMN:
-				return !contains(column, format(tableFormat.getColumnValue(item, text), false));
+				return !contains(column, format(getColumnValue(item, compareColumn, text), false));
 			case BEFORE_COLUMN:
-				return before(column, tableFormat.getColumnValue(item, text));
+				return before(column, getDate(getColumnValue(item, compareColumn, text), true));
 			case AFTER_COLUMN:
-				return after(column, tableFormat.getColumnValue(item, text));
+				return after(column, getDate(getColumnValue(item, compareColumn, text), true));
 			case LAST_DAYS:
-				return lastDays(column, text);
+				return lastDays(column, amount);
 			case LAST_HOURS:
-				return lastHours(column, text);
+				return lastHours(column, amount);
 			default:
 				//Fallback: show all...
 				return true;
@@ -158,39 +227,54 @@ public class FilterMatcher<E> implements Matcher<E> {
 
 	public static <E> String buildItemCache(SimpleTableFormat<E> filterControl, E e) {
 		StringBuilder builder = new StringBuilder();
+		for (String value : buildItemValues(filterControl, e)) {
+			builder.append("\n");
+			builder.append(value);
+			builder.append("\r");
+		}
+		return builder.toString();
+	}
+
+	public static <E> List<String> buildItemValues(SimpleTableFormat<E> filterControl, E e) {
+		List<String> values = new ArrayList<>();
 		for (EnumTableColumn<E> testColumn : filterControl.getAllColumns()) {
 			Object columnValue = filterControl.getColumnValue(e, testColumn.name());
 			if (columnValue != null) {
-				builder.append("\n");
-				builder.append(format(columnValue, false));
-				builder.append("\r");
+				values.add(format(columnValue, false));
 			}
 		}
-		return builder.toString();
+		return values;
 	}
 
 	private boolean matchesAll(final E item) {
-		String haystack;
+		if (compare == null || text == null) {
+			return true;
+		}
 		if (columnCache != null) {
-			haystack = columnCache.getCache().get(item);
-			if (haystack == null) { //Will be build on update if any filter is set
-				haystack = buildItemCache(tableFormat, item);
-				columnCache.addCache(item, haystack);
+			FilterIndex<E> index = columnCache.getFilterIndex();
+			switch (compare) {
+				case CONTAINS:
+				case EQUALS:
+					return index.matches(item, query);
+				case CONTAINS_NOT:
+				case EQUALS_NOT:
+					return !index.matches(item, query);
+				case REGEX:
+					return pattern.matcher(index.getHaystack(item)).find();
+				default:
+					return true;
 			}
-		} else {
-			haystack = buildItemCache(tableFormat, item);
 		}
-		if (compare == null || text == null) {
-			return true;
-		} else switch (compare) {
+		String haystack = buildItemCache(tableFormat, item);
+		switch (compare) {
 			case CONTAINS:
 				return haystack.contains(text);
 			case CONTAINS_NOT:
 				return !haystack.contains(text);
 			case EQUALS:
-				return haystack.contains("\n" + text + "\r");
+				return haystack.contains(allEquals);
 			case EQUALS_NOT:
-				return !haystack.contains("\n" + text + "\r");
+				return !haystack.contains(allEquals);
 			case REGEX:
 				return pattern.matcher(haystack).find();
 			default:
@@ -267,82 +351,50 @@ public class FilterMatcher<E> implements Matcher<E> {
 		return fallback; //Fallback
 	}
 
-	private boolean before(final Object object1, final Object object2) {
-		//Date
+	private boolean before(final Object object1, final Date date2) {
 		Date date1 = getDate(object1, false);
-		Date date2 = getDate(object2, true);
 		if (date1 != null && date2 != null) {
-			CALENDAR.setTime(date2);
-			CALENDAR.set(Calendar.HOUR_OF_DAY, 0);
-			CALENDAR.set(Calendar.MINUTE, 0);
-			CALENDAR.set(Calendar.SECOND, 0);
-			CALENDAR.set(Calendar.MILLISECOND, 0);
-			return date1.before(CALENDAR.getTime());
+			return date1.getTime() < startOfDay(date2.getTime());
 		}
 		return false; //Fallback
 	}
 
-	private boolean after(final Object object1, final Object object2) {
+	private boolean after(final Object object1, final Date date2) {
 		Date date1 = getDate(object1, false);
-		Date date2 = getDate(object2, true);
 		if (date1 != null && date2 != null) {
-			CALENDAR.setTime(date2);
-			CALENDAR.set(Calendar.HOUR_OF_DAY, 23);
-			CALENDAR.set(Calendar.MINUTE, 59);
-			CALENDAR.set(Calendar.SECOND, 59);
-			CALENDAR.set(Calendar.MILLISECOND, 999);
-			return date1.after(CALENDAR.getTime());
+			return date1.getTime() > startOfDay(date2.getTime()) + DAY - 1; //End of day
 		}
 		return false;
 	}
 
-	private boolean equalsDate(final Object object1, final Object object2) {
+	private boolean equalsDate(final Object object1, final Date date2) {
 		Date date1 = getDate(object1, false);
-		Date date2 = getDate(object2, true);
 		if (date1 != null && date2 != null) {
-			CALENDAR.setTime(date2);
-			CALENDAR.set(Calendar.HOUR_OF_DAY, 12);
-			CALENDAR.set(Calendar.MINUTE, 0);
-			CALENDAR.set(Calendar.SECOND, 0);
-			CALENDAR.set(Calendar.MILLISECOND, 0);
-			date2 = CALENDAR.getTime();
-			CALENDAR.setTime(date1);
-			CALENDAR.set(Calendar.HOUR_OF_DAY, 12);
-			CALENDAR.set(Calendar.MINUTE, 0);
-			CALENDAR.set(Calendar.SECOND, 0);
-			CALENDAR.set(Calendar.MILLISECOND, 0);
-			date1 = CALENDAR.getTime();
-			return date1.equals(date2);
+			return startOfDay(date1.getTime()) == startOfDay(date2.getTime());
 		}
 		return false;
 	}
 
-	private boolean lastDays(final Object object1, final Object object2) {
+	private boolean lastDays(final Object object1, final Number days) {
 		Date date = getDate(object1, false);
-		Number days = createNumber(object2);
 		if (date != null && days != null) {
-			CALENDAR.setTime(new Date());
-			CALENDAR.set(Calendar.HOUR_OF_DAY, 0);
-			CALENDAR.set(Calendar.MINUTE, 0);
-			CALENDAR.set(Calendar.SECOND, 0);
-			CALENDAR.set(Calendar.MILLISECOND, 0);
-			CALENDAR.add(Calendar.DAY_OF_MONTH, -days.intValue());  
-			return date.after(CALENDAR.getTime());
+			return date.getTime() > startOfDay(System.currentTimeMillis()) - days.intValue() * DAY;
 		}
 		return false;
 	}
 
-	private boolean lastHours(final Object object1, final Object object2) {
+	private boolean lastHours(final Object object1, final Number hours) {
 		Date date = getDate(object1, false);
-		Number hours = createNumber(object2);
 		if (date != null && hours != null) {
-			CALENDAR.setTime(new Date());
-			CALENDAR.add(Calendar.HOUR_OF_DAY, -hours.intValue());  
-			return date.after(CALENDAR.getTime());
+			return date.getTime() > System.currentTimeMillis() - hours.intValue() * HOUR;
 		}
 		return false;
 	}
 
+	private static long startOfDay(long time) {
+		return Math.floorDiv(time, DAY) * DAY;
+	}
+
 	private static Number getNumber(final Object obj, final boolean userInput) {
 		if (obj instanceof Number) {
 			return (Number) obj;
@@ -354,7 +406,7 @@ public class FilterMatcher<E> implements Matcher<E> {
 			return null;
 		}
 	}
-	private Double getDouble(final Object obj) {
+	private static Double getDouble(final Object obj) {
 		if (obj instanceof Double) {
 			return (Double) obj;
 		} else if (obj instanceof Float) {
@@ -365,7 +417,7 @@ public class FilterMatcher<E> implements Matcher<E> {
 			return createDouble(obj);
 		}
 	}
-	private Long getLong(final Object obj) {
+	private static Long getLong(final Object obj) {
 		if (obj instanceof Long) {
 			return (Long) obj;
 		} else if (obj instanceof Integer) {
@@ -378,7 +430,7 @@ public class FilterMatcher<E> implements Matcher<E> {
 	}
 
 	private static Double createDouble(final Object object) {
-		Number number = parse(object, NUMBER_FORMAT);
+		Number number = parse(object, NUMBER_FORMAT.get());
 		if (number != null) {
 			return number.doubleValue();
 		} else {
@@ -387,7 +439,7 @@ public class FilterMatcher<E> implements Matcher<E> {
 	}
 
 	private static Number createNumber(final Object object) {
-		Number number = parse(object, NUMBER_FORMAT);
+		Number number = parse(object, NUMBER_FORMAT.get());
 		if (number != null) {
 			return number;
 		} else {
@@ -396,7 +448,7 @@ public class FilterMatcher<E> implements Matcher<E> {
 	}
 
 	private static Double createPercent(final Object object) {
-		Number d = parse(object, PERCENT_FORMAT);
+		Number d = parse(object, PERCENT_FORMAT.get());
 		if (d != null) {
 			return d.doubleValue() * 100;
 		} else {
@@ -450,6 +502,9 @@ public class FilterMatcher<E> implements Matcher<E> {
 	}
 
 	private static String format(String string) {
+		if (!needFormat(string)) { //Most strings don't need to be formatted
+			return string;
+		}
 		return string
 				.replace("„", "\"") //Index
 				.replace("“", "\"") //Set transmit state
@@ -465,4 +520,14 @@ public class FilterMatcher<E> implements Matcher<E> {
 				.replace("—", "-") //Em dash
 				;
 	}
+
+	private static boolean needFormat(String string) {
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if ((c == '`' || c > 127) && FORMAT_CHARS.indexOf(c) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.gui.shared.filter;
+
+import ca.odell.glazedlists.EventList;
+import ca.odell.glazedlists.matchers.Matcher;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingWorker;
+import net.nikr.eve.jeveasset.gui.shared.table.EventListManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluate a matcher on a large list in parallel, outside the EDT.
+ * The results are published to the FilterList as a single matcher change.
+ * @param <E>
+ */
+abstract class FilterWorker<E> extends SwingWorker<Map<E, Boolean>, Integer> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FilterWorker.class);
+
+	/**
+	 * Lists smaller than this is filtered on the EDT
+	 */
+	static final int THRESHOLD = 50000;
+	private static final int CHUNK_SIZE = 4096;
+
+	private final List<E> items;
+	private final Matcher<E> matcher;
+	private final AtomicInteger done = new AtomicInteger();
+
+	/**
+	 * Must be created on the EDT
+	 * @param eventList list to filter (copied)
+	 * @param matcher must be thread safe
+	 */
+	public FilterWorker(final EventList<E> eventList, final Matcher<E> matcher) {
+		this.items = EventListManager.safeList(eventList);
+		this.matcher = matcher;
+	}
+
+	/**
+	 * Called on the EDT when the filter is done (not called if cancelled)
+	 * @param matcher matcher with the precomputed results
+	 */
+	protected abstract void filtered(ResultMatcher<E> matcher);
+
+	/**
+	 * Called on the EDT with the progress (0-100)
+	 * @param progress
+	 */
+	protected abstract void progress(int progress);
+
+	@Override
+	protected Map<E, Boolean> doInBackground() throws Exception {
+		boolean[] matches = new boolean[items.size()];
+		ForkJoinPool.commonPool().invoke(new MatchTask(matches, 0, items.size()));
+		if (isCancelled()) {
+			return null;
+		}
+		Map<E, Boolean> results = new IdentityHashMap<>(items.size());
+		for (int i = 0; i < matches.length; i++) {
+			results.put(items.get(i), matches[i]);
+		}
+		return results;
+	}
+
+	@Override
+	protected void process(List<Integer> chunks) {
+		if (isCancelled() || chunks.isEmpty()) {
+			return;
+		}
+		progress(chunks.get(chunks.size() - 1));
+	}
+
+	@Override
+	protected void done() {
+		if (isCancelled()) {
+			return;
+		}
+		Map<E, Boolean> results;
+		try {
+			results = get();
+		} catch (InterruptedException | ExecutionException ex) {
+			LOG.error("Parallel filter failed: " + ex.getMessage(), ex);
+			results = new IdentityHashMap<>(); //Filter on the EDT instead
+		}
+		filtered(new ResultMatcher<>(matcher, results));
+	}
+
+	private void chunkDone(int size) {
+		int value = done.addAndGet(size);
+		publish((int) (value * 100L / Math.max(items.size(), 1)));
+	}
+
+	private class MatchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final boolean[] matches;
+		private final int from;
+		private final int to;
+
+		public MatchTask(boolean[] matches, int from, int to) {
+			this.matches = matches;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (isCancelled()) { //Filter changed - stop working
+				return;
+			}
+			if (to - from > CHUNK_SIZE) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new MatchTask(matches, from, middle), new MatchTask(matches, middle, to));
+				return;
+			}
+			for (int i = from; i < to; i++) {
+				matches[i] = matcher.matches(items.get(i));
+			}
+			chunkDone(to - from);
+		}
+	}
+
+	/**
+	 * Return the precomputed results, falling back to the matcher for items added after the filter was started.
+	 * The results should be cleared after the FilterList has been updated.
+	 * @param <E>
+	 */
+	static class ResultMatcher<E> implements Matcher<E> {
+
+		private final Matcher<E> matcher;
+		private Map<E, Boolean> results;
+
+		public ResultMatcher(Matcher<E> matcher, Map<E, Boolean> results) {
+			this.matcher = matcher;
+			this.results = results;
+		}
+
+		@Override
+		public boolean matches(E item) {
+			Boolean match = results.get(item);
+			if (match != null) {
+				return match;
+			}
+			return matcher.matches(item);
+		}
+
+		public void clear() {
+			results = new IdentityHashMap<>();
+		}
+	}
+}
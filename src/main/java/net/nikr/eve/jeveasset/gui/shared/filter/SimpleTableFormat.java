@@ -26,6 +26,9 @@ import net.nikr.eve.jeveasset.gui.shared.table.EnumTableColumn;
 
 public interface SimpleTableFormat<E> {
 	public Object getColumnValue(E item, String column);
+	public default Object getColumnValue(E item, EnumTableColumn<E> column) {
+		return getColumnValue(item, column.name());
+	}
 	public List<EnumTableColumn<E>> getAllColumns();
 	public List<EnumTableColumn<E>> getShownColumns();
 	public EnumTableColumn<E> valueOf(String column) throws IllegalArgumentException;
@@ -0,0 +1,517 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.gui.shared.menu;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.nikr.eve.jeveasset.gui.shared.table.EnumTableColumn;
+
+/**
+ * Formula compiled to a tree of double operations.
+ *
+ * Supports the EvalEx operators (with the same precedence) and the most used functions.
+ * Formulas using anything else returns null from compile() and must be evaluated by EvalEx.
+ * Thread safe.
+ */
+public class CompiledFormula {
+
+	private static final double TRUE = 1;
+	private static final double FALSE = 0;
+
+	private final Node root;
+	private final List<String> variables;
+	private final Map<Class<?>, EnumTableColumn<?>[]> columns = new ConcurrentHashMap<>();
+
+	private CompiledFormula(Node root, List<String> variables) {
+		this.root = root;
+		this.variables = Collections.unmodifiableList(variables);
+	}
+
+	/**
+	 *
+	 * @param expression EvalEx expression
+	 * @return the compiled formula or null, if the expression is not supported
+	 */
+	public static CompiledFormula compile(String expression) {
+		try {
+			Parser parser = new Parser(expression);
+			return new CompiledFormula(parser.parse(), parser.variables);
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Variables in the order used by eval()
+	 * @return lower case variable names
+	 */
+	public List<String> getVariables() {
+		return variables;
+	}
+
+	/**
+	 * The columns used for each variable (resolved once per column enum)
+	 * @param <T>
+	 * @param <Q>
+	 * @param enumClass
+	 * @param enumColumns columns to bind to
+	 * @return the column for each variable or null, if a variable is not a column
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Enum<T> & EnumTableColumn<Q>, Q> EnumTableColumn<Q>[] getColumns(Class<?> enumClass, T[] enumColumns) {
+		EnumTableColumn<?>[] bound = columns.get(enumClass);
+		if (bound == null) {
+			bound = new EnumTableColumn<?>[variables.size()];
+			for (int i = 0; i < variables.size(); i++) {
+				for (T t : enumColumns) {
+					if (JFormulaDialog.getHardName(t).toLowerCase(Locale.ENGLISH).equals(variables.get(i))) {
+						bound[i] = t;
+						break;
+					}
+				}
+				if (bound[i] == null) { //Unknown variable
+					bound = new EnumTableColumn<?>[0];
+					break;
+				}
+			}
+			columns.put(enumClass, bound);
+		}
+		if (bound.length != variables.size()) {
+			return null;
+		}
+		return (EnumTableColumn<Q>[]) bound;
+	}
+
+	/**
+	 *
+	 * @param values variable values (same order as getVariables())
+	 * @return the result
+	 * @throws ArithmeticException if the result is not a number (division by zero, etc.)
+	 */
+	public double eval(double[] values) {
+		return root.eval(values);
+	}
+
+	private static double check(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new ArithmeticException("Not a number");
+		}
+		return value;
+	}
+
+	private static double bool(boolean value) {
+		return value ? TRUE : FALSE;
+	}
+
+	private interface Node {
+		public double eval(double[] values);
+	}
+
+	private static class Constant implements Node {
+		private final double value;
+
+		public Constant(double value) {
+			this.value = value;
+		}
+
+		@Override
+		public double eval(double[] values) {
+			return value;
+		}
+	}
+
+	private static class Variable implements Node {
+		private final int index;
+
+		public Variable(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public double eval(double[] values) {
+			return values[index];
+		}
+	}
+
+	private static class Negate implements Node {
+		private final Node node;
+
+		public Negate(Node node) {
+			this.node = node;
+		}
+
+		@Override
+		public double eval(double[] values) {
+			return -node.eval(values);
+		}
+	}
+
+	private static class Binary implements Node {
+		private final Operator operator;
+		private final Node left;
+		private final Node right;
+
+		public Binary(Operator operator, Node left, Node right) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public double eval(double[] values) {
+			switch (operator) {
+				case AND: //Lazy
+					return bool(left.eval(values) != 0 && right.eval(values) != 0);
+				case OR: //Lazy
+					return bool(left.eval(values) != 0 || right.eval(values) != 0);
+				default:
+					return operator.apply(left.eval(values), right.eval(values));
+			}
+		}
+	}
+
+	private static class Function implements Node {
+		private final FunctionType type;
+		private final Node[] args;
+
+		public Function(FunctionType type, Node[] args) {
+			this.type = type;
+			this.args = args;
+		}
+
+		@Override
+		public double eval(double[] values) {
+			if (type == FunctionType.IF) { //Lazy
+				return args[0].eval(values) != 0 ? args[1].eval(values) : args[2].eval(values);
+			}
+			double[] params = new double[args.length];
+			for (int i = 0; i < args.length; i++) {
+				params[i] = args[i].eval(values);
+			}
+			return check(type.apply(params));
+		}
+	}
+
+	private enum Operator {
+		OR("||", 2, true),
+		AND("&&", 4, true),
+		EQUALS("==", 7, true),
+		EQUALS_SINGLE("=", 7, true),
+		NOT_EQUALS("!=", 7, true),
+		NOT_EQUALS_SQL("<>", 7, true),
+		GREATER_EQUALS(">=", 10, true),
+		LESS_EQUALS("<=", 10, true),
+		GREATER(">", 10, true),
+		LESS("<", 10, true),
+		ADD("+", 20, true),
+		SUBTRACT("-", 20, true),
+		MULTIPLY("*", 30, true),
+		DIVIDE("/", 30, true),
+		MODULO("%", 30, true),
+		POWER("^", 40, false);
+
+		private final String symbol;
+		private final int precedence;
+		private final boolean leftAssoc;
+
+		private Operator(String symbol, int precedence, boolean leftAssoc) {
+			this.symbol = symbol;
+			this.precedence = precedence;
+			this.leftAssoc = leftAssoc;
+		}
+
+		public double apply(double v1, double v2) {
+			switch (this) {
+				case EQUALS:
+				case EQUALS_SINGLE:
+					return bool(v1 == v2);
+				case NOT_EQUALS:
+				case NOT_EQUALS_SQL:
+					return bool(v1 != v2);
+				case GREATER_EQUALS:
+					return bool(v1 >= v2);
+				case LESS_EQUALS:
+					return bool(v1 <= v2);
+				case GREATER:
+					return bool(v1 > v2);
+				case LESS:
+					return bool(v1 < v2);
+				case ADD:
+					return check(v1 + v2);
+				case SUBTRACT:
+					return check(v1 - v2);
+				case MULTIPLY:
+					return check(v1 * v2);
+				case DIVIDE:
+					if (v2 == 0) {
+						throw new ArithmeticException("Division by zero");
+					}
+					return check(v1 / v2);
+				case MODULO:
+					if (v2 == 0) {
+						throw new ArithmeticException("Division by zero");
+					}
+					return check(v1 % v2);
+				case POWER:
+					return check(Math.pow(v1, v2));
+				default:
+					throw new IllegalStateException("Not a binary operator: " + this);
+			}
+		}
+	}
+
+	private enum FunctionType {
+		IF(3, 3),
+		NOT(1, 1),
+		MAX(1, Integer.MAX_VALUE),
+		MIN(1, Integer.MAX_VALUE),
+		ABS(1, 1),
+		ROUND(2, 2),
+		FLOOR(1, 1),
+		CEILING(1, 1),
+		SQRT(1, 1),
+		LOG(1, 1),
+		LOG10(1, 1);
+
+		private final int min;
+		private final int max;
+
+		private FunctionType(int min, int max) {
+			this.min = min;
+			this.max = max;
+		}
+
+		public double apply(double[] params) {
+			switch (this) {
+				case NOT:
+					return bool(params[0] == 0);
+				case MAX:
+					double max = params[0];
+					for (double param : params) {
+						max = Math.max(max, param);
+					}
+					return max;
+				case MIN:
+					double min = params[0];
+					for (double param : params) {
+						min = Math.min(min, param);
+					}
+					return min;
+				case ABS:
+					return Math.abs(params[0]);
+				case ROUND: //Same rounding as EvalEx (DECIMAL64)
+					return BigDecimal.valueOf(params[0]).setScale((int) params[1], RoundingMode.HALF_EVEN).doubleValue();
+				case FLOOR:
+					return Math.floor(params[0]);
+				case CEILING:
+					return Math.ceil(params[0]);
+				case SQRT:
+					return Math.sqrt(params[0]);
+				case LOG:
+					return Math.log(params[0]);
+				case LOG10:
+					return Math.log10(params[0]);
+				default:
+					throw new IllegalStateException("Not a function: " + this);
+			}
+		}
+	}
+
+	/**
+	 * Precedence climbing parser
+	 * @throws IllegalArgumentException if the expression is not supported
+	 */
+	private static class Parser {
+		private static final int UNARY_PRECEDENCE = 60;
+
+		private final String expression;
+		private final List<String> variables = new ArrayList<>();
+		private int pos = 0;
+
+		public Parser(String expression) {
+			this.expression = expression;
+		}
+
+		public Node parse() {
+			Node node = parseBinary(0);
+			skipWhitespace();
+			if (pos < expression.length()) {
+				throw new IllegalArgumentException("Unexpected: " + expression.charAt(pos));
+			}
+			return node;
+		}
+
+		private Node parseBinary(int minPrecedence) {
+			Node left = parseUnary();
+			while (true) {
+				skipWhitespace();
+				Operator operator = peekOperator();
+				if (operator == null || operator.precedence < minPrecedence) {
+					return left;
+				}
+				pos += operator.symbol.length();
+				Node right = parseBinary(operator.leftAssoc ? operator.precedence + 1 : operator.precedence);
+				left = new Binary(operator, left, right);
+			}
+		}
+
+		private Node parseUnary() {
+			skipWhitespace();
+			if (pos >= expression.length()) {
+				throw new IllegalArgumentException("Unexpected end");
+			}
+			char c = expression.charAt(pos);
+			if (c == '-') {
+				pos++;
+				return new Negate(parseUnary()); //Unary minus has the highest precedence (-2^2 = 4)
+			} else if (c == '+') {
+				pos++;
+				return parseUnary();
+			} else if (c == '(') {
+				pos++;
+				Node node = parseBinary(0);
+				expect(')');
+				return node;
+			} else if (Character.isDigit(c) || c == '.') {
+				return parseNumber();
+			} else if (Character.isLetter(c) || c == '_') {
+				return parseName();
+			}
+			throw new IllegalArgumentException("Unexpected: " + c);
+		}
+
+		private Node parseNumber() {
+			int start = pos;
+			if (expression.startsWith("0x", pos) || expression.startsWith("0X", pos)) {
+				pos += 2;
+				while (pos < expression.length() && Character.digit(expression.charAt(pos), 16) >= 0) {
+					pos++;
+				}
+				return new Constant(new BigDecimal(new BigInteger(expression.substring(start + 2, pos), 16)).doubleValue());
+			}
+			while (pos < expression.length() && (Character.isDigit(expression.charAt(pos)) || expression.charAt(pos) == '.')) {
+				pos++;
+			}
+			if (pos < expression.length() && (expression.charAt(pos) == 'e' || expression.charAt(pos) == 'E')) {
+				pos++;
+				if (pos < expression.length() && (expression.charAt(pos) == '-' || expression.charAt(pos) == '+')) {
+					pos++;
+				}
+				while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+					pos++;
+				}
+			}
+			try {
+				return new Constant(new BigDecimal(expression.substring(start, pos)).doubleValue());
+			} catch (NumberFormatException ex) {
+				throw new IllegalArgumentException(ex);
+			}
+		}
+
+		private Node parseName() {
+			int start = pos;
+			while (pos < expression.length() && (Character.isLetterOrDigit(expression.charAt(pos)) || expression.charAt(pos) == '_')) {
+				pos++;
+			}
+			String name = expression.substring(start, pos).toLowerCase(Locale.ENGLISH);
+			skipWhitespace();
+			if (pos < expression.length() && expression.charAt(pos) == '(') { //Function
+				pos++;
+				FunctionType type;
+				try {
+					type = FunctionType.valueOf(name.toUpperCase(Locale.ENGLISH));
+				} catch (IllegalArgumentException ex) {
+					throw new IllegalArgumentException("Unsupported function: " + name);
+				}
+				List<Node> args = new ArrayList<>();
+				skipWhitespace();
+				if (pos < expression.length() && expression.charAt(pos) == ')') {
+					pos++;
+				} else {
+					while (true) {
+						args.add(parseBinary(0));
+						skipWhitespace();
+						if (pos < expression.length() && expression.charAt(pos) == ',') {
+							pos++;
+						} else {
+							expect(')');
+							break;
+						}
+					}
+				}
+				if (args.size() < type.min || args.size() > type.max) {
+					throw new IllegalArgumentException("Wrong number of arguments: " + name);
+				}
+				return new Function(type, args.toArray(new Node[args.size()]));
+			}
+			switch (name) {
+				case "e":
+					return new Constant(Math.E);
+				case "pi":
+					return new Constant(Math.PI);
+				case "true":
+					return new Constant(TRUE);
+				case "false":
+					return new Constant(FALSE);
+				case "null":
+					throw new IllegalArgumentException("Unsupported constant: " + name);
+			}
+			int index = variables.indexOf(name);
+			if (index < 0) {
+				index = variables.size();
+				variables.add(name);
+			}
+			return new Variable(index);
+		}
+
+		private Operator peekOperator() {
+			Operator found = null;
+			for (Operator operator : Operator.values()) {
+				if (expression.startsWith(operator.symbol, pos) && (found == null || operator.symbol.length() > found.symbol.length())) {
+					found = operator;
+				}
+			}
+			return found;
+		}
+
+		private void expect(char c) {
+			skipWhitespace();
+			if (pos >= expression.length() || expression.charAt(pos) != c) {
+				throw new IllegalArgumentException("Expected: " + c);
+			}
+			pos++;
+		}
+
+		private void skipWhitespace() {
+			while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+				pos++;
+			}
+		}
+	}
+}
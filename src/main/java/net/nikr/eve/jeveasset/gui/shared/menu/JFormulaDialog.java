@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.GroupLayout;
 import javax.swing.JButton;
 import javax.swing.JComponent;
@@ -392,7 +393,8 @@ public class JFormulaDialog<T extends Enum<T> & EnumTableColumn<Q>, Q> extends J
 	public static class Formula {
 		private final String columnName;
 		private final Expression expression;
-		private final Map<Object, Object> values = new HashMap<>();
+		private final CompiledFormula compiled;
+		private final Map<Object, Object> values = new ConcurrentHashMap<>();
 		private final Collection<String> usedVariables;
 		private final Collection<String> variableColumns = new ArrayList<>();
 		private final boolean isBoolean;
@@ -404,6 +406,7 @@ public class JFormulaDialog<T extends Enum<T> & EnumTableColumn<Q>, Q> extends J
 			this.index = index;
 			this.usedVariables = expression.getUsedVariables();
 			this.isBoolean = expression.isBoolean();
+			this.compiled = CompiledFormula.compile(expressionString);
 		}
 
 		public String getColumnName() {
@@ -418,6 +421,14 @@ public class JFormulaDialog<T extends Enum<T> & EnumTableColumn<Q>, Q> extends J
 			return expression;
 		}
 
+		/**
+		 *
+		 * @return the compiled formula or null, if the expression is not supported by CompiledFormula
+		 */
+		public CompiledFormula getCompiled() {
+			return compiled;
+		}
+
 		public boolean isBoolean() {
 			return isBoolean;
 		}
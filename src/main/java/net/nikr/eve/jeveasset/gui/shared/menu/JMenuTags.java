@@ -118,12 +118,10 @@ public class JMenuTags<T> extends JAutoMenu<T> {
 				Settings.get().getTags().put(tag.getName(), tag);
 			}
 			for (TagsType tagsType : tagsTypes) {
-				//Add tag to item
-				tagsType.getTags().add(tag);
 				//Add ID to tag
 				tag.getIDs().add(tagsType.getTagID());
-				//Update settings
-				Settings.get().getTags(tagsType.getTagID()).add(tag);
+				//Update settings and item
+				tagsType.setTags(Settings.get().addTag(tagsType.getTagID(), tag));
 			}
 			Settings.unlock("Tags (New)"); //Unlock for Tags (New)
 			program.updateTags();
@@ -135,12 +133,10 @@ public class JMenuTags<T> extends JAutoMenu<T> {
 		if (tag != null) {
 			Settings.lock("Tags (Delete)"); //Lock for Tags (Delete)
 			for (TagsType tagsType : tagsTypes) {
-				//Remove tag form item
-				tagsType.getTags().remove(tag);
 				//Remove ID from tag
 				tag.getIDs().remove(tagsType.getTagID());
-				//Update settings
-				Settings.get().getTags(tagsType.getTagID()).remove(tag);
+				//Update settings and item
+				tagsType.setTags(Settings.get().removeTag(tagsType.getTagID(), tag));
 			}
 			Settings.unlock("Tags (Delete)"); //Unlock for Tags (Delete)
 			program.updateTags();
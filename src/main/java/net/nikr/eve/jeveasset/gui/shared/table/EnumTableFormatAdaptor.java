@@ -27,11 +27,13 @@ import com.udojava.evalex.Expression;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import net.nikr.eve.jeveasset.gui.shared.menu.CompiledFormula;
 import net.nikr.eve.jeveasset.gui.shared.menu.JFormulaDialog;
 import net.nikr.eve.jeveasset.gui.shared.menu.JFormulaDialog.Formula;
 import net.nikr.eve.jeveasset.gui.shared.table.ColumnManager.IndexColumn;
@@ -377,7 +379,8 @@ public class EnumTableFormatAdaptor<T extends Enum<T> & EnumTableColumn<Q>, Q> i
 		return getColumnValue(e, column);
 	}
 
-	private Object getColumnValue(final Q e, final EnumTableColumn<Q> column) {
+	@Override
+	public Object getColumnValue(final Q e, final EnumTableColumn<Q> column) {
 		if (column == null) { //Better safe than sorry
 			return null;
 		}
@@ -402,6 +405,87 @@ public class EnumTableFormatAdaptor<T extends Enum<T> & EnumTableColumn<Q>, Q> i
 	}
 
 	private Object eval(Formula formula, Q e) {
+		CompiledFormula compiled = formula.getCompiled();
+		if (compiled == null) { //Not supported by the compiled formula
+			synchronized (formula) { //The expression is shared, the table may be filtered in parallel
+				return evalExpression(formula, e);
+			}
+		}
+		if (e instanceof StockpileTotal) {
+			if (formula.isBoolean()) {
+				return null;
+			}
+			EnumTableColumn<StockpileItem>[] columns = compiled.getColumns(StockpileTableFormat.class, StockpileTableFormat.values());
+			if (columns == null) {
+				return null;
+			}
+			double[] values = new double[columns.length];
+			double total = 0.0;
+			for (StockpileItem item : getTotalItems((StockpileTotal) e)) {
+				Double value = safeEval(compiled, columns, item, values);
+				if (value != null) {
+					total = total + value;
+				}
+			}
+			return total;
+		} else { //Default
+			EnumTableColumn<Q>[] columns = compiled.getColumns(enumClass, enumClass.getEnumConstants());
+			if (columns == null) {
+				return null;
+			}
+			Double value = safeEval(compiled, columns, e, new double[columns.length]);
+			if (value == null) {
+				return null;
+			} else if (formula.isBoolean()) {
+				return value > 0 ? "True" : "False";
+			} else {
+				return value;
+			}
+		}
+	}
+
+	private static <Q> Double safeEval(CompiledFormula compiled, EnumTableColumn<Q>[] columns, Q e, double[] values) {
+		for (int i = 0; i < columns.length; i++) {
+			Number number = getValue(columns[i], e);
+			if (number == null) { //Not a numeric column
+				return null;
+			}
+			values[i] = number.doubleValue();
+		}
+		try {
+			return compiled.eval(values);
+		} catch (ArithmeticException ex) {
+			return null;
+		}
+	}
+
+	private static Collection<StockpileItem> getTotalItems(StockpileTotal totalItem) {
+		Map<Integer, StockpileItem> map = new HashMap<>();
+		//Items
+		for (StockpileItem item : totalItem.getStockpile().getItems()) {
+			if (item.getTypeID() == 0) {
+				continue;
+			}
+			map.put(item.getItemTypeID(), item);
+		}
+		//SubpileItem (Overwrites StockpileItem items)
+		for (SubpileItem item : totalItem.getStockpile().getSubpileItems()) {
+			if (item instanceof SubpileStock) {
+				continue;
+			}
+			map.put(item.getItemTypeID(), item);
+		}
+		List<StockpileItem> items = new ArrayList<>();
+		for (StockpileItem item : map.values()) {
+			if (item.getItemTypeID() == 0) {
+				continue;
+			}
+			items.add(item);
+		}
+		return items;
+	}
+
+	private Object evalExpression(Formula formula, Q e) {
 		final Expression expression = formula.getExpression();
 		//Populate variableColumns
 		if (formula.getVariableColumns().isEmpty()) {
@@ -416,27 +500,8 @@ public class EnumTableFormatAdaptor<T extends Enum<T> & EnumTableColumn<Q>, Q> i
 			if (formula.isBoolean()) {
 				return null;
 			}
-			StockpileTotal totalItem = (StockpileTotal) e;
-			Map<Integer, StockpileItem> map = new HashMap<>();
-			//Items
-			for (StockpileItem item : totalItem.getStockpile().getItems()) {
-				if (item.getTypeID() == 0) {
-					continue;
-				}
-				map.put(item.getItemTypeID(), item);
-			}
-			//SubpileItem (Overwrites StockpileItem items)
-			for (SubpileItem item : totalItem.getStockpile().getSubpileItems()) {
-				if (item instanceof SubpileStock) {
-					continue;
-				}
-				map.put(item.getItemTypeID(), item);
-			}
 			double total = 0.0;
-			for (StockpileItem item : map.values()) {
-				if (item.getItemTypeID() == 0) {
-					continue;
-				}
+			for (StockpileItem item : getTotalItems((StockpileTotal) e)) {
 				setVariables(formula, StockpileTableFormat.values(), item);
 				BigDecimal value = safeEval(expression);
 				if (value != null) {
@@ -479,7 +544,7 @@ public class EnumTableFormatAdaptor<T extends Enum<T> & EnumTableColumn<Q>, Q> i
 		}
 	}
 
-	private static <T extends Enum<T> & EnumTableColumn<Q>, Q> Number getValue(T t, Q e) {
+	private static <Q> Number getValue(EnumTableColumn<Q> t, Q e) {
 		if (Number.class.isAssignableFrom(t.getType())) {
 			Number number = (Number) t.getColumnValue(e);
 			if (number == null) { //Handle null
@@ -23,14 +23,22 @@ package net.nikr.eve.jeveasset.gui.shared.table;
 import ca.odell.glazedlists.BasicEventList;
 import ca.odell.glazedlists.DebugList;
 import ca.odell.glazedlists.EventList;
+import ca.odell.glazedlists.TransactionList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import net.nikr.eve.jeveasset.CliOptions;
 
 
 public class EventListManager {
 
+	/**
+	 * If more than 1/X of the rows have been added or removed, it's cheaper to replace all rows
+	 */
+	public static final int DELTA_RATIO = 10;
+
 	private EventListManager() { }
 
 	public static <E> EventList<E> create() {
@@ -52,6 +60,82 @@ public class EventListManager {
 		}
 		return eventList;
 	}
+	public static <E> TransactionList<E> createTransactionList() {
+		return new TransactionList<>(create(), false);
+	}
+
+	/**
+	 * Update the EventList to contain the rows in data.
+	 * Rows are matched by equals (itemID, orderID, refID, etc.).
+	 * Removed rows are deleted, new rows are inserted and changed rows are updated in place.
+	 * All changes are published as one list event, so FilterList and SortedList
+	 * only have to re-evaluate the changed rows.
+	 * Falls back to clear/addAll on big changes or duplicate rows.
+	 * @param <E>
+	 * @param eventList
+	 * @param data
+	 * @param changed rows (same instance) with values changed in place, or null if all rows may have changed in place
+	 */
+	public static <E> void update(TransactionList<E> eventList, Collection<E> data, Collection<E> changed) {
+		try {
+			eventList.getReadWriteLock().writeLock().lock();
+			Map<E, E> updated = new HashMap<>(data.size() * 2);
+			boolean replace = eventList.isEmpty() || data.isEmpty();
+			if (!replace) {
+				for (E e : data) {
+					if (updated.put(e, e) != null) { //Duplicate, can not diff
+						replace = true;
+						break;
+					}
+				}
+			}
+			if (!replace) {
+				int removed = 0;
+				for (E e : eventList) {
+					if (!updated.containsKey(e)) {
+						removed++;
+					}
+				}
+				int added = data.size() - (eventList.size() - removed);
+				replace = (removed + added) * DELTA_RATIO > eventList.size();
+			}
+			if (replace) {
+				eventList.clear();
+				eventList.addAll(data);
+				return;
+			}
+			eventList.beginEvent(true);
+			try {
+				for (int i = eventList.size() - 1; i >= 0; i--) {
+					E current = eventList.get(i);
+					E e = updated.remove(current);
+					if (e == null) { //Removed
+						eventList.remove(i);
+					} else if (e != current || changed == null || changed.contains(e)) { //Changed
+						eventList.set(i, e);
+					} //Else: Unchanged, leave the row alone
+				}
+				eventList.addAll(updated.values()); //Added
+			} finally {
+				eventList.commitEvent();
+			}
+		} finally {
+			eventList.getReadWriteLock().writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Update the EventList to contain the rows in data.
+	 * All kept rows are updated, as the values may have changed in place (prices, tags, names, etc.)
+	 * @param <E>
+	 * @param eventList
+	 * @param data
+	 * @see #update(TransactionList, Collection, Collection)
+	 */
+	public static <E> void update(TransactionList<E> eventList, Collection<E> data) {
+		update(eventList, data, null);
+	}
+
 	public static <E> List<E> safeList(EventList<E> eventList) {
 		try {
 			eventList.getReadWriteLock().readLock().lock();
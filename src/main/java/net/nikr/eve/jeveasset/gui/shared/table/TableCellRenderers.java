@@ -22,17 +22,26 @@
 package net.nikr.eve.jeveasset.gui.shared.table;
 
 import java.awt.Component;
+import java.awt.Font;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import javax.swing.AbstractCellEditor;
+import javax.swing.BorderFactory;
+import javax.swing.Box;
+import javax.swing.BoxLayout;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTable;
 import javax.swing.SwingConstants;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellEditor;
+import net.nikr.eve.jeveasset.data.settings.tag.Tag;
 import net.nikr.eve.jeveasset.data.settings.tag.Tags;
+import net.nikr.eve.jeveasset.gui.shared.ColorUtil;
 import net.nikr.eve.jeveasset.gui.shared.Formater;
 import net.nikr.eve.jeveasset.gui.shared.components.JButtonComparable;
+import net.nikr.eve.jeveasset.i18n.General;
 
 
 public class TableCellRenderers {
@@ -140,11 +149,31 @@ public class TableCellRenderers {
 		}
 	}
 
+	/**
+	 * All tags are drawn by the same panel (the labels are reused)
+	 */
 	public static class TagsCellRenderer extends DefaultTableCellRenderer {
 
+		private final JPanel jPanel;
+		private final JLabel jNone;
+		private final List<JLabel> jLabels = new ArrayList<>();
+		private final List<Component> jSpaces = new ArrayList<>();
+
 		public TagsCellRenderer() {
 			this.setHorizontalTextPosition(SwingConstants.CENTER);
 			this.setHorizontalAlignment(SwingConstants.CENTER);
+
+			jPanel = new JPanel();
+			jPanel.setLayout(new BoxLayout(jPanel, BoxLayout.X_AXIS));
+
+			jNone = new JLabel(General.get().none());
+			Font font = jNone.getFont();
+			jNone.setFont(new Font(font.getName(), Font.ITALIC, font.getSize()));
+			if (ColorUtil.isBrightColor(jNone.getBackground())) { //Light background color
+				jNone.setForeground(jNone.getBackground().darker().darker().darker());
+			} else { //Dark background color
+				jNone.setForeground(jNone.getBackground().brighter().brighter());
+			}
 		}
 
 		@Override
@@ -152,7 +181,23 @@ public class TableCellRenderers {
 			JLabel jLabel = (JLabel) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column); //To change body of generated methods, choose Tools | Templates.
 			if (value instanceof Tags) {
 				Tags tags = (Tags) value;
-				JPanel jPanel = tags.getPanel();
+				jPanel.removeAll();
+				if (tags.isEmpty()) {
+					jPanel.add(jNone);
+				} else {
+					int index = 0;
+					for (Tag tag : tags) {
+						if (index > 0) {
+							jPanel.add(getSpace(index - 1));
+						}
+						JLabel jTag = getLabel(index);
+						jTag.setText(tag.getName());
+						jTag.setBackground(tag.getColor().getBackground());
+						jTag.setForeground(tag.getColor().getForeground());
+						jPanel.add(jTag);
+						index++;
+					}
+				}
 				jPanel.setBackground(jLabel.getBackground());
 				jPanel.setForeground(jLabel.getForeground());
 				jPanel.setBorder(jLabel.getBorder());
@@ -160,6 +205,23 @@ public class TableCellRenderers {
 			}
 			return jLabel;
 		}
+
+		private JLabel getLabel(int index) {
+			while (jLabels.size() <= index) {
+				JLabel jTag = new JLabel();
+				jTag.setOpaque(true);
+				jTag.setBorder(BorderFactory.createEmptyBorder(0, 3, 0, 2));
+				jLabels.add(jTag);
+			}
+			return jLabels.get(index);
+		}
+
+		private Component getSpace(int index) {
+			while (jSpaces.size() <= index) {
+				jSpaces.add(Box.createHorizontalStrut(3));
+			}
+			return jSpaces.get(index);
+		}
 	}
 
 	public static class ComponentRenderer extends DefaultTableCellRenderer {
@@ -22,6 +22,7 @@ package net.nikr.eve.jeveasset.gui.tabs.orders;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -51,8 +52,15 @@ public class OutbidProcesser {
 
 	private static final Logger LOG = LoggerFactory.getLogger(OutbidProcesser.class);
 
+	/**
+	 * Max range of two orders that are not region range
+	 */
+	private static final int MAX_JUMPS = getRange(MarketOrderRange._40) * 2;
+
 	private final OutbidProcesserInput input;
 	private final OutbidProcesserOutput output;
+	private final Map<Long, Map<Long, Integer>> jumps = new HashMap<>();
+	private final Map<Long, MyLocation> locations = new HashMap<>();
 
 	private OutbidProcesser(OutbidProcesserInput input, OutbidProcesserOutput output) {
 		this.input = input;
@@ -65,84 +73,115 @@ public class OutbidProcesser {
 	}
 	
 	private void process() {
+		//Index our orders
+		Map<Long, MyMarketOrder> ownOrders = new HashMap<>();
+		for (Set<MyMarketOrder> orders : input.getTypeIDs().values()) {
+			for (MyMarketOrder marketOrder : orders) {
+				ownOrders.put(marketOrder.getOrderID(), marketOrder);
+			}
+		}
+		List<RawPublicMarketOrder> marketOrders = input.getMarketOrders();
 		//Process order updates
-		for (RawPublicMarketOrder ordersResponse : input.getMarketOrders()) {
-			Set<MyMarketOrder> orders = input.getTypeIDs().get(ordersResponse.getTypeId());
-			if (orders != null) {
-				for (MyMarketOrder marketOrder : orders) {
-					if (isSameOrder(marketOrder, ordersResponse)) { //Orders to be updated
-						output.getUpdates().put(ordersResponse.getOrderID(), ordersResponse);
+		for (RawPublicMarketOrder ordersResponse : marketOrders) {
+			if (ownOrders.containsKey(ordersResponse.getOrderID())) { //Orders to be updated
+				output.getUpdates().put(ordersResponse.getOrderID(), ordersResponse);
+			}
+		}
+		//Regions with data
+		output.getRegionIDs().addAll(input.getMarketRegionIDs());
+		//Order books: by type, buy/sell and region
+		Map<OrderBookKey, List<RawPublicMarketOrder>> orderBooks = new HashMap<>();
+		int unknown = 0;
+		for (RawPublicMarketOrder ordersResponse : marketOrders) {
+			MyLocation location = getLocation(RawConverter.toLong(ordersResponse.getSystemID()));
+			if (location.isEmpty()) {
+				unknown++;
+				continue; //We can't work with unknown locations
+			}
+			OrderBookKey key = new OrderBookKey(ordersResponse.getTypeId(), ordersResponse.isBuyOrder(), location.getRegionID());
+			List<RawPublicMarketOrder> orderBook = orderBooks.get(key);
+			if (orderBook == null) {
+				orderBook = new ArrayList<>();
+				orderBooks.put(key, orderBook);
+			}
+			orderBook.add(ordersResponse);
+		}
+		if (unknown > 0) {
+			LOG.warn(unknown + " unknown market locations ignored");
+		}
+		//Best price first
+		for (Map.Entry<OrderBookKey, List<RawPublicMarketOrder>> entry : orderBooks.entrySet()) {
+			final boolean buy = entry.getKey().buy;
+			Collections.sort(entry.getValue(), new Comparator<RawPublicMarketOrder>() {
+				@Override
+				public int compare(RawPublicMarketOrder o1, RawPublicMarketOrder o2) {
+					if (buy) {
+						return Double.compare(o2.getPrice(), o1.getPrice());
+					} else {
+						return Double.compare(o1.getPrice(), o2.getPrice());
 					}
 				}
-			}
+			});
 		}
 		//Process outbid
-		for (RawPublicMarketOrder ordersResponse : input.getMarketOrders()) {
-			//Regions with data
-			MyLocation orderLocation = ApiIdConverter.getLocation(ordersResponse.getSystemID());
-			if (!orderLocation.isEmpty()) {
-				output.getRegionIDs().add(orderLocation.getRegionID());
+		for (MyMarketOrder marketOrder : ownOrders.values()) {
+			Long fromSystemID = getSystemID(marketOrder.getLocationID());
+			MyLocation fromSystemLocation = getLocation(fromSystemID);
+			if (fromSystemLocation.isEmpty()) {
+				LOG.warn("Unknown market location ignored");
+				continue; //We can't work with unknown locations
 			}
-			Set<MyMarketOrder> orders = input.getTypeIDs().get(ordersResponse.getTypeId());
-			if (orders != null) {
-				//Orders to match
-				for (MyMarketOrder marketOrder : orders) {
-					if (isSameOrder(marketOrder, ordersResponse)) { //Orders to be updated
-						continue;
-					}
-					if (!isSameType(marketOrder, ordersResponse)) { //Both buy or both sell
-						continue;
-					}
-					if (!isInRange(marketOrder, ordersResponse)) { //Order range overlap
-						continue;
-					}
-					Outbid outbid = output.getOutbids().get(marketOrder.getOrderID());
-					if (outbid == null) {
-						outbid = new Outbid(ordersResponse);
-						output.getOutbids().put(marketOrder.getOrderID(), outbid);
-					}
-					RawPublicMarketOrder rawPublicMarketOrder = output.getUpdates().get(marketOrder.getOrderID());
-					final double price;
-					final Date issued;
-					if (rawPublicMarketOrder != null) { //Updated price/issued
-						price = rawPublicMarketOrder.getPrice();
-						issued = rawPublicMarketOrder.getIssued();
-					} else { //Old price/issued (better than nothing)
-						price = marketOrder.getPrice();
-						issued = marketOrder.getIssued();
-					}
-					if (marketOrder.isBuyOrder()) { //Buy (outbid is higher)
-						outbid.setPrice(Math.max(outbid.getPrice(), ordersResponse.getPrice()));
-						if (ordersResponse.getPrice() > price || (ordersResponse.getPrice() == price && ordersResponse.getIssued().before(issued))) {
-							outbid.addCount(ordersResponse.getVolumeRemain());
-						}
-					} else { //Sell  (outbid is lower)
-						outbid.setPrice(Math.min(outbid.getPrice(), ordersResponse.getPrice()));
-						if (ordersResponse.getPrice() < price || (ordersResponse.getPrice() == price && ordersResponse.getIssued().before(issued))) {
-							outbid.addCount(ordersResponse.getVolumeRemain());
-						} else if (ordersResponse.getPrice() == price) {
-							
-						}
-					}
-
+			List<RawPublicMarketOrder> orderBook = orderBooks.get(new OrderBookKey(marketOrder.getTypeID(), marketOrder.isBuyOrder(), fromSystemLocation.getRegionID()));
+			if (orderBook == null) {
+				continue; //No orders to match
+			}
+			RawPublicMarketOrder rawPublicMarketOrder = output.getUpdates().get(marketOrder.getOrderID());
+			final double price;
+			final Date issued;
+			if (rawPublicMarketOrder != null) { //Updated price/issued
+				price = rawPublicMarketOrder.getPrice();
+				issued = rawPublicMarketOrder.getIssued();
+			} else { //Old price/issued (better than nothing)
+				price = marketOrder.getPrice();
+				issued = marketOrder.getIssued();
+			}
+			Outbid outbid = null;
+			for (RawPublicMarketOrder ordersResponse : orderBook) {
+				final boolean better;
+				final boolean worse;
+				if (marketOrder.isBuyOrder()) { //Buy (outbid is higher)
+					better = ordersResponse.getPrice() > price || (ordersResponse.getPrice() == price && ordersResponse.getIssued().before(issued));
+					worse = ordersResponse.getPrice() < price;
+				} else { //Sell (outbid is lower)
+					better = ordersResponse.getPrice() < price || (ordersResponse.getPrice() == price && ordersResponse.getIssued().before(issued));
+					worse = ordersResponse.getPrice() > price;
+				}
+				if (worse && outbid != null) {
+					break; //Sorted by price: the rest can't outbid us and the best price is already found
+				}
+				if (isSameOrder(marketOrder, ordersResponse)) { //Orders to be updated
+					continue;
+				}
+				if (!isInRange(marketOrder, fromSystemID, ordersResponse)) { //Order range overlap
+					continue;
+				}
+				if (outbid == null) { //First in range is the best price
+					outbid = new Outbid(ordersResponse);
+					output.getOutbids().put(marketOrder.getOrderID(), outbid);
+				}
+				if (better) {
+					outbid.addCount(ordersResponse.getVolumeRemain());
 				}
 			}
 		}
 		CitadelGetter.set(input.getCitadels().values());
 	}
 
-	private boolean isInRange(MyMarketOrder fromMarketOrder, RawPublicMarketOrder toMarketOrder) {
-		Long fromSystemID = getSystemID(fromMarketOrder.getLocationID());
+	/**
+	 * Both orders must be in the same region (same order book)
+	 */
+	private boolean isInRange(MyMarketOrder fromMarketOrder, Long fromSystemID, RawPublicMarketOrder toMarketOrder) {
 		Long toSystemID = RawConverter.toLong(toMarketOrder.getSystemID());
-		MyLocation fromSystemLocation = ApiIdConverter.getLocation(fromSystemID);
-		MyLocation toSystemLocation = ApiIdConverter.getLocation(toSystemID);
-		if (fromSystemLocation.isEmpty() || toSystemLocation.isEmpty()) {
-			LOG.warn("Unknown market location ignored");
-			return false; //We can't work with unknown locations
-		}
-		if (!Objects.equals(fromSystemLocation.getRegionID(), toSystemLocation.getRegionID())) {
-			return false; //Must be in same region
-		}
 		MarketOrderRange fromRange;
 		MarketOrderRange toRange;
 		if (fromMarketOrder.isBuyOrder()) {
@@ -159,7 +198,7 @@ public class OutbidProcesser {
 		} else {
 			int range = getRange(fromRange) + getRange(toRange); //Find overlapping area
 			//int range = Math.max(getRange(response), getRange(marketOrder)); //Use the order with the max range
-			Integer distance = RouteFinder.get().distanceBetween(fromSystemID, toSystemID);
+			Integer distance = getDistances(fromSystemID).get(toSystemID);
 			if (distance == null) {
 				return false;
 			}
@@ -167,7 +206,26 @@ public class OutbidProcesser {
 		}
 	}
 
+	/**
+	 * Jumps from the system to all systems within max range (calculated once per system)
+	 */
+	private Map<Long, Integer> getDistances(Long systemID) {
+		Map<Long, Integer> distances = jumps.get(systemID);
+		if (distances == null) {
+			distances = RouteFinder.get().distancesFrom(systemID, MAX_JUMPS);
+			jumps.put(systemID, distances);
+		}
+		return distances;
+	}
 
+	private MyLocation getLocation(Long systemID) {
+		MyLocation location = locations.get(systemID);
+		if (location == null) {
+			location = ApiIdConverter.getLocation(systemID);
+			locations.put(systemID, location);
+		}
+		return location;
+	}
 
 	public static int getRange(MarketOrderRange range) {
 		switch (range) {
@@ -187,10 +245,6 @@ public class OutbidProcesser {
 		return Integer.MAX_VALUE;
 	}
 
-	private boolean isSameType(MyMarketOrder marketOrder, RawPublicMarketOrder response) {
-		return Objects.equals(marketOrder.isBuyOrder(), response.isBuyOrder());
-	}
-
 	private boolean isSameOrder(MyMarketOrder marketOrder, RawPublicMarketOrder response) {
 		return Objects.equals(marketOrder.getOrderID(), response.getOrderID());
 	}
@@ -215,6 +269,7 @@ public class OutbidProcesser {
 	public static class OutbidProcesserInput {
 
 		private static final Map<Integer, DatedMarketOrders> MARKET_ORDERS = Collections.synchronizedMap(new HashMap<>());
+		private static final Set<Long> MARKET_REGION_IDS = Collections.synchronizedSet(new HashSet<>());
 		
 		private final Map<Long, Long> locationToSystem = new HashMap<>();
 		private final Map<Long, Citadel> citadels = new HashMap<>();
@@ -268,11 +323,50 @@ public class OutbidProcesser {
 			}
 		}
 
+		/**
+		 * Add the public market orders for the types in getTypeIDs().
+		 * Cached orders for types no longer in getTypeIDs() are removed.
+		 *
+		 * @param orders public market orders by typeID
+		 * @param regionIDs regions with market data (replaces the regions from the last update)
+		 * @param date last modified date of the data
+		 */
+		public void addOrders(Map<Integer, Set<RawPublicMarketOrder>> orders, Set<Long> regionIDs, Date date) {
+			if (date == null) {
+				return;
+			}
+			synchronized (MARKET_REGION_IDS) {
+				MARKET_REGION_IDS.clear();
+				MARKET_REGION_IDS.addAll(regionIDs);
+			}
+			putOrders(orders, date);
+		}
+
+		/**
+		 * Add the public market orders from a market log.
+		 * The regions of the orders are added to the regions with market data.
+		 *
+		 * @param orders public market orders by typeID
+		 * @param date last modified date of the data
+		 */
 		public void addOrders(Map<Integer, Set<RawPublicMarketOrder>> orders, Date date) {
 			if (date == null) {
 				return;
 			}
+			for (Set<RawPublicMarketOrder> set : orders.values()) {
+				for (RawPublicMarketOrder marketOrder : set) {
+					MyLocation location = ApiIdConverter.getLocation(RawConverter.toLong(marketOrder.getSystemID()));
+					if (!location.isEmpty()) {
+						MARKET_REGION_IDS.add(location.getRegionID());
+					}
+				}
+			}
+			putOrders(orders, date);
+		}
+
+		private void putOrders(Map<Integer, Set<RawPublicMarketOrder>> orders, Date date) {
 			synchronized (MARKET_ORDERS) {
+				MARKET_ORDERS.keySet().retainAll(typeIDs.keySet()); //Only cache orders we may be outbid by
 				for (Map.Entry<Integer, Set<RawPublicMarketOrder>> entry : orders.entrySet()) {
 					DatedMarketOrders datedMarketOrders = MARKET_ORDERS.get(entry.getKey());
 					if (datedMarketOrders != null && datedMarketOrders.getDate().after(date)) {
@@ -284,16 +378,28 @@ public class OutbidProcesser {
 			}
 		}
 
+		/**
+		 * @return cached public market orders for the types in getTypeIDs()
+		 */
 		public List<RawPublicMarketOrder> getMarketOrders() {
 			List<RawPublicMarketOrder> marketOrders = new ArrayList<>();
 			synchronized (MARKET_ORDERS) {
-				for (DatedMarketOrders datedMarketOrders : MARKET_ORDERS.values()) {
-					marketOrders.addAll(datedMarketOrders.getMarketOrders());
+				for (Integer typeID : typeIDs.keySet()) {
+					DatedMarketOrders datedMarketOrders = MARKET_ORDERS.get(typeID);
+					if (datedMarketOrders != null) {
+						marketOrders.addAll(datedMarketOrders.getMarketOrders());
+					}
 				}
 			}
 			return marketOrders;
 		}
 
+		public Set<Long> getMarketRegionIDs() {
+			synchronized (MARKET_REGION_IDS) {
+				return new HashSet<>(MARKET_REGION_IDS);
+			}
+		}
+
 		public Map<Long, Long> getLocationToSystem() {
 			return locationToSystem;
 		}
@@ -345,6 +451,49 @@ public class OutbidProcesser {
 		}
 	}
 
+	private static class OrderBookKey {
+
+		private final int typeID;
+		private final boolean buy;
+		private final long regionID;
+
+		public OrderBookKey(int typeID, boolean buy, long regionID) {
+			this.typeID = typeID;
+			this.buy = buy;
+			this.regionID = regionID;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = 7;
+			hash = 29 * hash + this.typeID;
+			hash = 29 * hash + (this.buy ? 1 : 0);
+			hash = 29 * hash + (int) (this.regionID ^ (this.regionID >>> 32));
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			final OrderBookKey other = (OrderBookKey) obj;
+			if (this.typeID != other.typeID) {
+				return false;
+			}
+			if (this.buy != other.buy) {
+				return false;
+			}
+			return this.regionID == other.regionID;
+		}
+	}
+
 	private static class DatedMarketOrders {
 
 		private final Date date;
@@ -72,6 +72,7 @@ public class Stockpile implements Comparable<Stockpile>, LocationsType, OwnersTy
 	private String locationName;
 	private String containerName;
 	private List<StockpileFilter> filters = new ArrayList<>();
+	private List<StockpileFilter> sortedFilters = new ArrayList<>();
 	private final Set<StockpileItem> items = new TreeSet<>();
 	private final StockpileTotal totalItem = new StockpileTotal(this);
 	private final Map<Stockpile, Double> subpiles = new HashMap<>();
@@ -129,6 +130,7 @@ public class Stockpile implements Comparable<Stockpile>, LocationsType, OwnersTy
 		createContainerName();
 		createLocationName();
 		createInclude();
+		createSortedFilters();
 	}
 
 	void updateTags() {
@@ -207,6 +209,34 @@ public class Stockpile implements Comparable<Stockpile>, LocationsType, OwnersTy
 		}
 	}
 
+	private void createSortedFilters() {
+		//Put exclude filters first
+		List<StockpileFilter> sorted = new ArrayList<>(filters);
+		Collections.sort(sorted, new Comparator<StockpileFilter>() {
+			@Override
+			public int compare(StockpileFilter o1, StockpileFilter o2) {
+				if (o1.isExclude() && o2.isExclude()) {
+					return 0;  //Equals
+				} else if (o1.isExclude()) {
+					return -1; //First
+				} else if (o2.isExclude()) {
+					return 1;  //Last
+				} else {
+					return 0;  //Equals
+				}
+			}
+		});
+		sortedFilters = sorted;
+	}
+
+	/**
+	 * Filters with the exclude filters first (sorted once, not for every match)
+	 * @return
+	 */
+	List<StockpileFilter> getSortedFilters() {
+		return sortedFilters;
+	}
+
 	private void createInclude() {
 		if (getFilters().isEmpty()) {
 			assets = true;
@@ -298,6 +328,10 @@ public class Stockpile implements Comparable<Stockpile>, LocationsType, OwnersTy
 		}
 	}
 
+	void reset(StockpileItem item) {
+		item.reset();
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -706,24 +740,8 @@ public class Stockpile implements Comparable<Stockpile>, LocationsType, OwnersTy
 			if (this.typeID != typeID) {
 				return null;
 			}
-			//Put exclude filters first
-			List<StockpileFilter> filters = new ArrayList<>(stockpile.getFilters());
-			Collections.sort(filters, new Comparator<StockpileFilter>() {
-				@Override
-				public int compare(StockpileFilter o1, StockpileFilter o2) {
-					if (o1.isExclude() && o2.isExclude()) {
-						return 0;  //Equals
-					} else if (o1.isExclude()) {
-						return -1; //First
-					} else if (o2.isExclude()) {
-						return 1;  //Last
-					} else {
-						return 0;  //Equals
-					}
-				}
-			});
-			//Try to match one of the filters
-			for (StockpileFilter filter : filters) {
+			//Try to match one of the filters (exclude filters first)
+			for (StockpileFilter filter : stockpile.getSortedFilters()) {
 				//Owner
 				if (contractItem != null) {
 					long issuer = contractItem.getContract().isForCorp() ? contractItem.getContract().getIssuerCorpID() : contractItem.getContract().getIssuerID();
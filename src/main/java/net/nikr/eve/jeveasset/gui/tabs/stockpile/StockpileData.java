@@ -22,11 +22,17 @@ package net.nikr.eve.jeveasset.gui.tabs.stockpile;
 
 import ca.odell.glazedlists.EventList;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import net.nikr.eve.jeveasset.Program;
 import net.nikr.eve.jeveasset.data.api.accounts.OwnerType;
 import net.nikr.eve.jeveasset.data.api.my.MyAsset;
@@ -48,11 +54,16 @@ import net.nikr.eve.jeveasset.io.shared.ApiIdConverter;
 public class StockpileData extends TableData {
 
 	private Map<Long, String> ownersName;
-	private final Map<Integer, Set<MyContractItem>> contractItems = new HashMap<>();
-	private final Map<Integer, Set<MyAsset>> assets = new HashMap<>();
-	private final Map<Integer, Set<MyMarketOrder>> marketOrders = new HashMap<>();
-	private final Map<Integer, Set<MyIndustryJob>> industryJobs = new HashMap<>();
-	private final Map<Integer, Set<MyTransaction>> transactions = new HashMap<>();
+	/**
+	 * Rebuilt on every full update (profile data changed).
+	 * Editing a stockpile reuses the index from the last full update
+	 */
+	private StockpileIndex index;
+	/**
+	 * Shown items by stockpile and typeID (BPC as negative).
+	 * Used to only update the items affected by price and location updates
+	 */
+	private final Map<Stockpile, Map<Integer, List<StockpileItem>>> typeItems = new IdentityHashMap<>();
 
 	public StockpileData(Program program) {
 		super(program);
@@ -74,17 +85,15 @@ public class StockpileData extends TableData {
 
 		updateOwners();
 
-		contractItems.clear();
-		assets.clear();
-		marketOrders.clear();
-		industryJobs.clear();
-		transactions.clear();
+		index = new StockpileIndex(profileData);
+		typeItems.clear();
 
-		for (Stockpile stockpile : StockpileTab.getShownStockpiles(profileManager)) {
+		List<Stockpile> stockpiles = StockpileTab.getShownStockpiles(profileManager);
+		for (Stockpile stockpile : stockpiles) {
 			stockpile.updateDynamicValues();
 			stockpileItems.addAll(stockpile.getItems());
-			updateStockpile(stockpile);
 		}
+		updateStockpiles(stockpiles);
 		//Update list
 		try {
 			eventList.getReadWriteLock().writeLock().lock();
@@ -108,195 +117,283 @@ public class StockpileData extends TableData {
 	}
 
 	public void updateStockpile(Stockpile stockpile) {
-		//Update owner name
-		Set<String> owners = new HashSet<>();
-		for (Stockpile.StockpileFilter filter : stockpile.getFilters()) {
-			for (Long ownerID : filter.getOwnerIDs()) {
-				String owner = ownersName.get(ownerID);
-				if (owner != null) {
-					owners.add(owner);
+		if (index == null) { //Stockpile updated before the data
+			index = new StockpileIndex(profileData);
+		}
+		updateStockpiles(Collections.singletonList(stockpile));
+	}
+
+	/**
+	 * The item counts of each stockpile is independent of the other stockpiles and is updated in parallel.
+	 * Values (prices, tags, etc.) are updated afterwards on the current thread.
+	 * @param stockpiles
+	 */
+	private void updateStockpiles(List<Stockpile> stockpiles) {
+		List<Callable<Void>> updaters = new ArrayList<>();
+		for (final Stockpile stockpile : stockpiles) {
+			updaters.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					updateCounts(stockpile);
+					return null;
 				}
-			}
+			});
 		}
-		stockpile.setOwnerName(new ArrayList<>(owners));
-		//Update Item flag name
-		Set<ItemFlag> flags = new HashSet<>();
-		for (Stockpile.StockpileFilter filter : stockpile.getFilters()) {
-			for (Integer flagID : filter.getFlagIDs()) {
-				ItemFlag flag = StaticData.get().getItemFlags().get(flagID);
-				if (flag != null) {
-					flags.add(flag);
+		if (updaters.size() == 1) {
+			updateCounts(stockpiles.get(0));
+		} else {
+			try {
+				for (Future<Void> future : ForkJoinPool.commonPool().invokeAll(updaters)) {
+					future.get();
 				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(ex);
+			} catch (ExecutionException ex) {
+				throw new RuntimeException(ex.getCause());
 			}
 		}
-	//Create lookup set of TypeIDs
-		Set<Integer> typeIDs = new HashSet<>();
-		for (Stockpile.StockpileItem item : stockpile.getItems()) {
-			typeIDs.add(item.getItemTypeID());
+		for (Stockpile stockpile : stockpiles) {
+			updateValues(stockpile);
+			updateTypeItems(stockpile);
 		}
-		addTypeIDs(typeIDs, stockpile);
-	//Create lookup maps of Items
-		//ContractItems
-		if (stockpile.isContracts()) {
-			for (MyContractItem contractItem : profileData.getContractItemList()) {
-				if (contractItem.getContract().isIgnoreContract()) {
-					continue;
-				}
-				int typeID = contractItem.isBPC() ? -contractItem.getTypeID() : contractItem.getTypeID(); //BPC has negative value
-				if (!typeIDs.contains(typeID)) {
-					continue; //Ignore wrong typeID
-				}
-				Set<MyContractItem> items = contractItems.get(typeID);
-				if (items == null) {
-					items = new HashSet<>();
-					contractItems.put(typeID, items);
-				}
-				items.add(contractItem);
+	}
+
+	/**
+	 * Update the values (prices) of the items with the typeIDs
+	 * @param typeIDs
+	 * @return Updated items (including the stockpile totals)
+	 */
+	public List<StockpileItem> updatePrices(Set<Integer> typeIDs) {
+		List<StockpileItem> found = new ArrayList<>();
+		if (typeIDs == null || typeIDs.isEmpty()) {
+			return found;
+		}
+		Set<Stockpile> updated = Collections.newSetFromMap(new IdentityHashMap<Stockpile, Boolean>());
+		for (Map.Entry<Stockpile, Map<Integer, List<StockpileItem>>> entry : typeItems.entrySet()) {
+			Stockpile stockpile = entry.getKey();
+			List<StockpileItem> items = getItems(entry.getValue(), typeIDs);
+			if (items.isEmpty()) {
+				continue;
+			}
+			for (StockpileItem item : items) {
+				updateItemValues(item);
 			}
+			stockpile.updateTotal();
+			found.addAll(items);
+			found.add(stockpile.getTotal());
+			updated.add(stockpile);
 		}
-		//Inventory AKA Assets
-		if (stockpile.isAssets()) {
-			for (MyAsset asset : profileData.getAssetsList()) {
-				if (asset.isGenerated()) { //Skip generated assets
-					continue;
+		addParentTotals(updated, found);
+		return found;
+	}
+
+	/**
+	 * Update the counts of the items that can be matched by the resolved locations.
+	 * Only stockpiles with location filters are affected.
+	 * @param locationIDs
+	 * @return Updated items (including the stockpile totals)
+	 */
+	public List<StockpileItem> updateLocations(Set<Long> locationIDs) {
+		List<StockpileItem> found = new ArrayList<>();
+		if (locationIDs == null || locationIDs.isEmpty() || index == null) {
+			return found;
+		}
+		Set<Stockpile> updated = Collections.newSetFromMap(new IdentityHashMap<Stockpile, Boolean>());
+		Set<Integer> typeIDs = index.getTypeIDs(locationIDs);
+		for (Map.Entry<Stockpile, Map<Integer, List<StockpileItem>>> entry : typeItems.entrySet()) {
+			Stockpile stockpile = entry.getKey();
+			boolean filterLocation = false; //The location of a filter was resolved
+			boolean anyLocation = false; //Any location filters
+			for (Stockpile.StockpileFilter filter : stockpile.getFilters()) {
+				if (locationIDs.contains(filter.getLocation().getLocationID())) {
+					filterLocation = true;
 				}
-				int typeID = asset.isBPC() ? -asset.getTypeID() : asset.getTypeID(); //BPC has negative value
-				if (!typeIDs.contains(typeID)) {
-					continue; //Ignore wrong typeID
+				if (!filter.getLocation().isEmpty()) {
+					anyLocation = true;
 				}
-				Set<MyAsset> items = assets.get(typeID);
-				if (items == null) {
-					items = new HashSet<>();
-					assets.put(typeID, items);
+			}
+			if (filterLocation) {
+				stockpile.updateDynamicValues(); //Update filter locations and location name
+			}
+			if (!anyLocation && !filterLocation) { //All locations: counts are not affected
+				continue;
+			}
+			List<StockpileItem> items;
+			if (filterLocation) { //All items
+				items = new ArrayList<>();
+				for (List<StockpileItem> list : entry.getValue().values()) {
+					items.addAll(list);
 				}
-				items.add(asset);
+			} else {
+				items = getItems(entry.getValue(), typeIDs);
 			}
+			if (items.isEmpty() && !filterLocation) {
+				continue;
+			}
+			Set<Long> ownerIDs = StockpileIndex.getOwnerIDs(stockpile);
+			for (StockpileItem item : items) {
+				stockpile.reset(item);
+				updateItemValues(item);
+				updateItemCounts(item, stockpile, ownerIDs);
+			}
+			stockpile.updateTotal();
+			found.addAll(items);
+			found.add(stockpile.getTotal());
+			updated.add(stockpile);
 		}
-		//Market Orders
-		if (stockpile.isBuyOrders() || stockpile.isSellOrders()) {
-			for (MyMarketOrder marketOrder : profileData.getMarketOrdersList()) {
-				int typeID = marketOrder.getItem().getTypeID();
-				if (!typeIDs.contains(typeID)) {
-					continue; //Ignore wrong typeID
+		addParentTotals(updated, found);
+		return found;
+	}
+
+	/**
+	 * Update the totals of the stockpiles that include the updated stockpiles as subpiles
+	 * @param updated Updated stockpiles
+	 * @param found Updated items (the parent totals are added)
+	 */
+	private void addParentTotals(Set<Stockpile> updated, List<StockpileItem> found) {
+		Set<Stockpile> done = Collections.newSetFromMap(new IdentityHashMap<Stockpile, Boolean>());
+		done.addAll(updated);
+		List<Stockpile> queue = new ArrayList<>(updated);
+		while (!queue.isEmpty()) {
+			Stockpile stockpile = queue.remove(queue.size() - 1);
+			for (Stockpile parent : stockpile.getSubpileLinks()) {
+				if (!done.add(parent)) {
+					continue; //Already updated
 				}
-				Set<MyMarketOrder> items = marketOrders.get(typeID);
-				if (items == null) {
-					items = new HashSet<>();
-					marketOrders.put(typeID, items);
+				queue.add(parent); //Update the parents of the parent
+				if (typeItems.containsKey(parent)) { //Shown
+					parent.updateTotal();
+					found.add(parent.getTotal());
 				}
-				items.add(marketOrder);
 			}
 		}
-		//Industry Job
-		if (stockpile.isJobs()) {
-			for (MyIndustryJob industryJob : profileData.getIndustryJobsList()) {
-				Integer productTypeID = industryJob.getProductTypeID();
-				if (productTypeID  != null && typeIDs.contains(productTypeID)) {
-					Set<MyIndustryJob> items = industryJobs.get(productTypeID);
-					if (items == null) {
-						items = new HashSet<>();
-						industryJobs.put(productTypeID, items);
-					}
-					items.add(industryJob);
-				}
-				int blueprintTypeID = -industryJob.getBlueprintTypeID(); //Negative - match blueprints copies
-				if (typeIDs.contains(blueprintTypeID)) {
-					Set<MyIndustryJob> items = industryJobs.get(blueprintTypeID);
-					if (items == null) {
-						items = new HashSet<>();
-						industryJobs.put(blueprintTypeID, items);
-					}
-					items.add(industryJob);
+	}
+
+	private List<StockpileItem> getItems(Map<Integer, List<StockpileItem>> map, Set<Integer> typeIDs) {
+		List<StockpileItem> items = new ArrayList<>();
+		for (Integer typeID : typeIDs) {
+			List<StockpileItem> list = map.get(typeID);
+			if (list != null) {
+				items.addAll(list);
+			}
+		}
+		return items;
+	}
+
+	private void updateTypeItems(Stockpile stockpile) {
+		if (!profileManager.getActiveProfile().getStockpileIDs().contains(stockpile.getId())) {
+			return; //Not shown
+		}
+		Map<Integer, List<StockpileItem>> map = new HashMap<>();
+		for (StockpileItem item : stockpile.getClaims()) {
+			if (item instanceof Stockpile.StockpileTotal || item instanceof Stockpile.SubpileStock) {
+				continue;
+			}
+			List<StockpileItem> list = map.get(item.getItemTypeID());
+			if (list == null) {
+				list = new ArrayList<>();
+				map.put(item.getItemTypeID(), list);
+			}
+			list.add(item);
+		}
+		typeItems.put(stockpile, map);
+	}
+
+	private void updateCounts(Stockpile stockpile) {
+		stockpile.reset();
+		if (!stockpile.isEmpty()) {
+			Set<Long> ownerIDs = StockpileIndex.getOwnerIDs(stockpile);
+			for (Stockpile.StockpileItem item : stockpile.getItems()) {
+				if (item instanceof Stockpile.StockpileTotal) {
+					continue;
 				}
+				updateItemCounts(item, stockpile, ownerIDs);
 			}
 		}
-		//Transactions
-		if (stockpile.isTransactions()) {
-			for (MyTransaction transaction : profileData.getTransactionsList()) {
-				int typeID = transaction.getItem().getTypeID();
-				if (!typeIDs.contains(typeID)) {
-					continue; //Ignore wrong typeID
+	}
+
+	private void updateValues(Stockpile stockpile) {
+		//Update owner name
+		Set<String> owners = new HashSet<>();
+		for (Stockpile.StockpileFilter filter : stockpile.getFilters()) {
+			for (Long ownerID : filter.getOwnerIDs()) {
+				String owner = ownersName.get(ownerID);
+				if (owner != null) {
+					owners.add(owner);
 				}
-				Set<MyTransaction> items = transactions.get(typeID);
-				if (items == null) {
-					items = new HashSet<>();
-					transactions.put(typeID, items);
+			}
+		}
+		stockpile.setOwnerName(new ArrayList<>(owners));
+		//Update Item flag name
+		Set<ItemFlag> flags = new HashSet<>();
+		for (Stockpile.StockpileFilter filter : stockpile.getFilters()) {
+			for (Integer flagID : filter.getFlagIDs()) {
+				ItemFlag flag = StaticData.get().getItemFlags().get(flagID);
+				if (flag != null) {
+					flags.add(flag);
 				}
-				items.add(transaction);
 			}
 		}
 		stockpile.setFlagName(flags);
-		stockpile.reset();
 		if (!stockpile.isEmpty()) {
 			for (Stockpile.StockpileItem item : stockpile.getItems()) {
 				if (item instanceof Stockpile.StockpileTotal) {
 					continue;
 				}
-				updateItem(item, stockpile);
+				updateItemValues(item);
 			}
 		}
 		stockpile.updateTotal();
 		stockpile.updateTags();
 	}
 
-	private void addTypeIDs(Set<Integer> typeIDs, Stockpile stockpile) {
-		for (Stockpile.StockpileItem item : stockpile.getItems()) {
-			typeIDs.add(item.getItemTypeID());
-		}
-		for (Stockpile subpile : stockpile.getSubpiles().keySet()) {
-			addTypeIDs(typeIDs, subpile);
+	private void updateItem(Stockpile.StockpileItem item, Stockpile stockpile) {
+		if (index == null) { //Subpile updated before the data
+			index = new StockpileIndex(profileData);
 		}
+		updateItemValues(item);
+		updateItemCounts(item, stockpile, StockpileIndex.getOwnerIDs(stockpile));
 	}
 
-	private void updateItem(Stockpile.StockpileItem item, Stockpile stockpile) {
+	private void updateItemValues(Stockpile.StockpileItem item) {
 		final int TYPE_ID = item.getItemTypeID();
 		double price = ApiIdConverter.getPrice(TYPE_ID, item.isBPC(), item);
 		float volume = ApiIdConverter.getVolume(item.getItem(), true);
 		Double transactionAveragePrice = profileData.getTransactionAveragePrice(TYPE_ID);
 		item.updateValues(price, volume, transactionAveragePrice);
+	}
+
+	private void updateItemCounts(Stockpile.StockpileItem item, Stockpile stockpile, Set<Long> ownerIDs) {
+		final int TYPE_ID = item.getItemTypeID();
 		//ContractItems
 		if (stockpile.isContracts()) {
-			Set<MyContractItem> items = contractItems.get(TYPE_ID);
-			if (items != null) {
-				for (MyContractItem contractItem : items) {
-					item.updateContract(contractItem);
-				}
+			for (MyContractItem contractItem : index.getContractItems(TYPE_ID)) {
+				item.updateContract(contractItem);
 			}
 		}
 		//Inventory AKA Assets
 		if (stockpile.isAssets()) {
-			Set<MyAsset> items = assets.get(TYPE_ID);
-			if (items != null) {
-				for (MyAsset asset : items) {
-					item.updateAsset(asset);
-				}
+			for (MyAsset asset : index.getAssets(TYPE_ID, ownerIDs)) {
+				item.updateAsset(asset);
 			}
 		}
 		//Market Orders
 		if (stockpile.isBuyOrders() || stockpile.isSellOrders()) {
-			Set<MyMarketOrder> items = marketOrders.get(TYPE_ID);
-			if (items != null) {
-				for (MyMarketOrder marketOrder : items) {
-					item.updateMarketOrder(marketOrder);
-				}
+			for (MyMarketOrder marketOrder : index.getMarketOrders(TYPE_ID, ownerIDs)) {
+				item.updateMarketOrder(marketOrder);
 			}
 		}
 		//Industry Job
 		if (stockpile.isJobs()) {
-			Set<MyIndustryJob> items = industryJobs.get(TYPE_ID);
-			if (items != null) {
-				for (MyIndustryJob industryJob : items) {
-					item.updateIndustryJob(industryJob);
-				}
+			for (MyIndustryJob industryJob : index.getIndustryJobs(TYPE_ID)) {
+				item.updateIndustryJob(industryJob);
 			}
 		}
 		//Transactions
 		if (stockpile.isTransactions()) {
-			Set<MyTransaction> items = transactions.get(TYPE_ID);
-			if (items != null) {
-				for (MyTransaction transaction : items) {
-					item.updateTransaction(transaction);
-				}
+			for (MyTransaction transaction : index.getTransactions(TYPE_ID, ownerIDs)) {
+				item.updateTransaction(transaction);
 			}
 		}
 	}
@@ -324,6 +421,7 @@ public class StockpileData extends TableData {
 			updateItem(subpileItem, subpileItem.getStockpile());
 		}
 		parent.updateTotal();
+		updateTypeItems(parent);
 		//Update list
 		try {
 			eventList.getReadWriteLock().writeLock().lock();
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.gui.tabs.stockpile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.nikr.eve.jeveasset.data.api.my.MyAsset;
+import net.nikr.eve.jeveasset.data.api.my.MyContractItem;
+import net.nikr.eve.jeveasset.data.api.my.MyIndustryJob;
+import net.nikr.eve.jeveasset.data.api.my.MyMarketOrder;
+import net.nikr.eve.jeveasset.data.api.my.MyTransaction;
+import net.nikr.eve.jeveasset.data.profile.ProfileData;
+import net.nikr.eve.jeveasset.data.sde.MyLocation;
+import net.nikr.eve.jeveasset.gui.tabs.stockpile.Stockpile.StockpileFilter;
+
+/**
+ * Profile data indexed by typeID (BPC as negative) and owner.
+ * Build once (one pass over each list) and shared by all stockpiles.
+ * Read only after creation (thread safe).
+ */
+class StockpileIndex {
+
+	private final Map<Integer, Rows<MyAsset>> assets = new HashMap<>();
+	private final Map<Integer, Rows<MyMarketOrder>> marketOrders = new HashMap<>();
+	private final Map<Integer, Rows<MyTransaction>> transactions = new HashMap<>();
+	private final Map<Integer, List<MyIndustryJob>> industryJobs = new HashMap<>();
+	private final Map<Integer, List<MyContractItem>> contractItems = new HashMap<>();
+	private final Map<Long, Set<Integer>> locationTypeIDs = new HashMap<>();
+
+	public StockpileIndex(ProfileData profileData) {
+		//ContractItems
+		for (MyContractItem contractItem : profileData.getContractItemList()) {
+			if (contractItem.getContract().isIgnoreContract()) {
+				continue;
+			}
+			int typeID = contractItem.isBPC() ? -contractItem.getTypeID() : contractItem.getTypeID(); //BPC has negative value
+			add(contractItems, typeID, contractItem);
+			for (MyLocation location : contractItem.getContract().getLocations()) {
+				addLocation(location.getLocationID(), typeID);
+			}
+		}
+		//Inventory AKA Assets
+		for (MyAsset asset : profileData.getAssetsList()) {
+			if (asset.isGenerated()) { //Skip generated assets
+				continue;
+			}
+			int typeID = asset.isBPC() ? -asset.getTypeID() : asset.getTypeID(); //BPC has negative value
+			add(assets, typeID, asset.getOwnerID(), asset);
+			addLocation(asset.getLocationID(), typeID);
+		}
+		//Market Orders
+		for (MyMarketOrder marketOrder : profileData.getMarketOrdersList()) {
+			add(marketOrders, marketOrder.getItem().getTypeID(), marketOrder.getOwnerID(), marketOrder);
+			addLocation(marketOrder.getLocationID(), marketOrder.getItem().getTypeID());
+		}
+		//Industry Job
+		for (MyIndustryJob industryJob : profileData.getIndustryJobsList()) {
+			Integer productTypeID = industryJob.getProductTypeID();
+			if (productTypeID != null) {
+				add(industryJobs, productTypeID, industryJob);
+				addLocation(industryJob.getLocationID(), productTypeID);
+			}
+			add(industryJobs, -industryJob.getBlueprintTypeID(), industryJob); //Negative - match blueprints copies
+			addLocation(industryJob.getLocationID(), -industryJob.getBlueprintTypeID());
+		}
+		//Transactions
+		for (MyTransaction transaction : profileData.getTransactionsList()) {
+			add(transactions, transaction.getItem().getTypeID(), transaction.getOwnerID(), transaction);
+			addLocation(transaction.getLocationID(), transaction.getItem().getTypeID());
+		}
+	}
+
+	/**
+	 * Owners that can be matched by the stockpile (exclude filters never add items)
+	 * @param stockpile
+	 * @return ownerIDs or null for all owners
+	 */
+	public static Set<Long> getOwnerIDs(Stockpile stockpile) {
+		Set<Long> ownerIDs = new HashSet<>();
+		for (StockpileFilter filter : stockpile.getFilters()) {
+			if (filter.isExclude()) {
+				continue;
+			}
+			if (filter.getOwnerIDs().isEmpty()) {
+				return null; //All
+			}
+			ownerIDs.addAll(filter.getOwnerIDs());
+		}
+		return ownerIDs;
+	}
+
+	/**
+	 * TypeIDs of the rows in the locations
+	 * @param locationIDs
+	 * @return
+	 */
+	public Set<Integer> getTypeIDs(Set<Long> locationIDs) {
+		Set<Integer> typeIDs = new HashSet<>();
+		for (Long locationID : locationIDs) {
+			Set<Integer> set = locationTypeIDs.get(locationID);
+			if (set != null) {
+				typeIDs.addAll(set);
+			}
+		}
+		return typeIDs;
+	}
+
+	public Collection<MyAsset> getAssets(int typeID, Set<Long> ownerIDs) {
+		return get(assets, typeID, ownerIDs);
+	}
+
+	public Collection<MyMarketOrder> getMarketOrders(int typeID, Set<Long> ownerIDs) {
+		return get(marketOrders, typeID, ownerIDs);
+	}
+
+	public Collection<MyTransaction> getTransactions(int typeID, Set<Long> ownerIDs) {
+		return get(transactions, typeID, ownerIDs);
+	}
+
+	/**
+	 * Jobs are matched by owner or installer
+	 * @param typeID
+	 * @return
+	 */
+	public Collection<MyIndustryJob> getIndustryJobs(int typeID) {
+		return get(industryJobs, typeID);
+	}
+
+	/**
+	 * Contracts are matched by issuer or acceptor
+	 * @param typeID
+	 * @return
+	 */
+	public Collection<MyContractItem> getContractItems(int typeID) {
+		return get(contractItems, typeID);
+	}
+
+	private void addLocation(long locationID, int typeID) {
+		Set<Integer> typeIDs = locationTypeIDs.get(locationID);
+		if (typeIDs == null) {
+			typeIDs = new HashSet<>();
+			locationTypeIDs.put(locationID, typeIDs);
+		}
+		typeIDs.add(typeID);
+	}
+
+	private static <E> void add(Map<Integer, Rows<E>> map, int typeID, long ownerID, E e) {
+		Rows<E> rows = map.get(typeID);
+		if (rows == null) {
+			rows = new Rows<>();
+			map.put(typeID, rows);
+		}
+		rows.add(ownerID, e);
+	}
+
+	private static <E> void add(Map<Integer, List<E>> map, int typeID, E e) {
+		List<E> rows = map.get(typeID);
+		if (rows == null) {
+			rows = new ArrayList<>();
+			map.put(typeID, rows);
+		}
+		rows.add(e);
+	}
+
+	private static <E> Collection<E> get(Map<Integer, Rows<E>> map, int typeID, Set<Long> ownerIDs) {
+		Rows<E> rows = map.get(typeID);
+		if (rows == null) {
+			return Collections.emptyList();
+		}
+		return rows.get(ownerIDs);
+	}
+
+	private static <E> Collection<E> get(Map<Integer, List<E>> map, int typeID) {
+		List<E> rows = map.get(typeID);
+		if (rows == null) {
+			return Collections.emptyList();
+		}
+		return rows;
+	}
+
+	private static class Rows<E> {
+		private final List<E> all = new ArrayList<>();
+		private final Map<Long, List<E>> owners = new HashMap<>();
+
+		public void add(long ownerID, E e) {
+			all.add(e);
+			List<E> list = owners.get(ownerID);
+			if (list == null) {
+				list = new ArrayList<>();
+				owners.put(ownerID, list);
+			}
+			list.add(e);
+		}
+
+		public Collection<E> get(Set<Long> ownerIDs) {
+			if (ownerIDs == null) {
+				return all;
+			}
+			if (ownerIDs.size() == 1) {
+				List<E> list = owners.get(ownerIDs.iterator().next());
+				if (list == null) {
+					return Collections.emptyList();
+				}
+				return list;
+			}
+			List<E> list = new ArrayList<>();
+			for (Long ownerID : ownerIDs) {
+				List<E> rows = owners.get(ownerID);
+				if (rows != null) {
+					list.addAll(rows);
+				}
+			}
+			return list;
+		}
+	}
+}
@@ -41,6 +41,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -367,6 +368,46 @@ public class StockpileTab extends JMainTabSecondary implements TagUpdate {
 		jTable.loadExpandedState();
 	}
 
+	@Override
+	public void updateLocations(Set<Long> locationIDs) {
+		updateItems(stockpileData.updateLocations(locationIDs));
+	}
+
+	@Override
+	public void updatePrices(Set<Integer> typeIDs) {
+		updateItems(stockpileData.updatePrices(typeIDs));
+	}
+
+	private void updateItems(List<StockpileItem> found) {
+		if (found.isEmpty()) {
+			return;
+		}
+		//Save separator expanded/collapsed state
+		jTable.saveExpandedState();
+		//Update list
+		try {
+			eventList.getReadWriteLock().writeLock().lock();
+			if (found.size() * EventListManager.DELTA_RATIO > eventList.size()) { //Big change: replace all rows
+				List<StockpileItem> cache = new ArrayList<>(eventList);
+				eventList.clear();
+				eventList.addAll(cache);
+			} else {
+				Set<StockpileItem> items = Collections.newSetFromMap(new IdentityHashMap<StockpileItem, Boolean>());
+				items.addAll(found);
+				for (int i = 0; i < eventList.size(); i++) {
+					StockpileItem item = eventList.get(i);
+					if (items.contains(item)) { //Only update shown items
+						eventList.set(i, item);
+					}
+				}
+			}
+		} finally {
+			eventList.getReadWriteLock().writeLock().unlock();
+		}
+		//Restore separator expanded/collapsed state
+		jTable.loadExpandedState();
+	}
+
 	private void updateOwners() {
 		//Update Owners
 		stockpileData.updateOwners();
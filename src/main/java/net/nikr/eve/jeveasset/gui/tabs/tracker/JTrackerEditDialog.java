@@ -84,6 +84,7 @@ public class JTrackerEditDialog extends JDialogCentered {
 	private final List<FilterUpdate> assetUpdates = new ArrayList<>();
 
 	//Data
+	private String owner;
 	private Value value;
 	private boolean update;
 
@@ -250,7 +251,8 @@ public class JTrackerEditDialog extends JDialogCentered {
 		);
 	}
 
-	public boolean showEdit(Value value) {
+	public boolean showEdit(String owner, Value value) {
+		this.owner = owner;
 		this.value = value;
 		update = false;
 		balanceUpdates.clear();
@@ -361,6 +363,7 @@ public class JTrackerEditDialog extends JDialogCentered {
 				value.setContractCollateral(contractCollateral);
 				value.setContractValue(contractValue);
 				value.setSkillPoints((long)skillPointValue);
+				TrackerData.changed(owner);
 			} finally {
 				TrackerData.writeUnlock();
 			}
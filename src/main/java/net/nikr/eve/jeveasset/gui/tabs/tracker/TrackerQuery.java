@@ -0,0 +1,235 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.gui.tabs.tracker;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import net.nikr.eve.jeveasset.data.settings.TrackerData;
+import net.nikr.eve.jeveasset.gui.tabs.values.Value;
+
+/**
+ * Date range queries with downsampling for the tracker chart.
+ *
+ * The values of each owner are grouped into hour, day, week and month buckets (rollups).
+ * The buckets are computed once and reused until values are added or removed.
+ * When a range has more values than the chart can show, only the last value in each bucket is returned.
+ */
+public class TrackerQuery {
+
+	private enum Resolution {
+		HOUR(Calendar.HOUR_OF_DAY, 60L * 60L * 1000L),
+		DAY(Calendar.DAY_OF_MONTH, 24L * 60L * 60L * 1000L),
+		WEEK(Calendar.WEEK_OF_YEAR, 7L * 24L * 60L * 60L * 1000L),
+		MONTH(Calendar.MONTH, 30L * 24L * 60L * 60L * 1000L);
+
+		private final int field;
+		private final long length;
+
+		private Resolution(int field, long length) {
+			this.field = field;
+			this.length = length;
+		}
+
+		long getBucket(Calendar calendar, Date date) {
+			calendar.setTime(date);
+			calendar.set(Calendar.MILLISECOND, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			if (field == Calendar.HOUR_OF_DAY) {
+				return calendar.getTimeInMillis();
+			}
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			if (field == Calendar.DAY_OF_MONTH) {
+				return calendar.getTimeInMillis();
+			}
+			if (field == Calendar.WEEK_OF_YEAR) {
+				calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
+				return calendar.getTimeInMillis();
+			}
+			calendar.set(Calendar.DAY_OF_MONTH, 1);
+			return calendar.getTimeInMillis();
+		}
+	}
+
+	private final Map<String, Rollup> rollups = new HashMap<>();
+	private long version = -1;
+
+	/**
+	 * Must be called with the tracker data read locked
+	 * @param owners
+	 * @param from first date included, or null for no limit
+	 * @param to last date included, or null for no limit
+	 * @param maxPoints the number of points the chart can show
+	 * @return owner values by date (null if the owner has no value for the date)
+	 */
+	public Map<Date, Map<String, Value>> getTrackerDataByDate(final List<String> owners, final Date from, final Date to, final int maxPoints) {
+		if (version != TrackerData.getVersion()) {
+			rollups.clear();
+			version = TrackerData.getVersion();
+		}
+		Map<String, Value> empty = new HashMap<>();
+		for (String owner : owners) {
+			empty.put(owner, null);
+		}
+		Resolution resolution = getResolution(owners, from, to, maxPoints);
+		Map<Date, Map<String, Value>> trackerDataByDate = new TreeMap<>();
+		if (resolution == null) { //All values
+			for (String owner : owners) {
+				for (Value data : TrackerData.get(owner, from, to)) {
+					put(trackerDataByDate, empty, data.getDate(), owner, data);
+				}
+			}
+			return trackerDataByDate;
+		}
+		Map<Long, Map<String, Value>> trackerDataByBucket = new TreeMap<>();
+		Map<Long, Date> bucketDates = new HashMap<>();
+		for (String owner : owners) {
+			List<Value> values = TrackerData.get().get(owner);
+			if (values == null || values.isEmpty()) {
+				continue;
+			}
+			Rollup rollup = getRollup(owner, values);
+			int start = from != null ? TrackerData.indexOf(values, from, false) : 0;
+			int end = to != null ? TrackerData.indexOf(values, to, true) : values.size();
+			if (start >= end) {
+				continue;
+			}
+			Buckets buckets = rollup.get(resolution);
+			int index = Arrays.binarySearch(buckets.starts, 0, buckets.count, start);
+			if (index < 0) {
+				index = -index - 2; //Bucket containing start
+			}
+			for (int i = Math.max(index, 0); i < buckets.count && buckets.starts[i] < end; i++) {
+				int bucketEnd = i + 1 < buckets.count ? buckets.starts[i + 1] : values.size();
+				Value data = values.get(Math.min(bucketEnd, end) - 1); //Last value in bucket (and range)
+				put(trackerDataByBucket, empty, buckets.keys[i], owner, data);
+				Date date = bucketDates.get(buckets.keys[i]);
+				if (date == null || date.before(data.getDate())) {
+					bucketDates.put(buckets.keys[i], data.getDate());
+				}
+			}
+		}
+		for (Map.Entry<Long, Map<String, Value>> entry : trackerDataByBucket.entrySet()) {
+			trackerDataByDate.put(bucketDates.get(entry.getKey()), entry.getValue());
+		}
+		return trackerDataByDate;
+	}
+
+	/**
+	 *
+	 * @return null, if all values can be shown
+	 */
+	private Resolution getResolution(final List<String> owners, final Date from, final Date to, final int maxPoints) {
+		int count = 0;
+		Date first = null;
+		Date last = null;
+		for (String owner : owners) {
+			List<Value> values = TrackerData.get(owner, from, to);
+			if (values.isEmpty()) {
+				continue;
+			}
+			count = count + values.size();
+			Date start = values.get(0).getDate();
+			Date end = values.get(values.size() - 1).getDate();
+			if (first == null || start.before(first)) {
+				first = start;
+			}
+			if (last == null || end.after(last)) {
+				last = end;
+			}
+		}
+		if (count <= maxPoints || first == null || last == null) {
+			return null;
+		}
+		long range = last.getTime() - first.getTime();
+		for (Resolution resolution : Resolution.values()) {
+			if (range / resolution.length <= maxPoints) {
+				return resolution;
+			}
+		}
+		return Resolution.MONTH;
+	}
+
+	private Rollup getRollup(String owner, List<Value> values) {
+		Rollup rollup = rollups.get(owner);
+		if (rollup == null) {
+			rollup = new Rollup(values);
+			rollups.put(owner, rollup);
+		}
+		return rollup;
+	}
+
+	private static <K> void put(Map<K, Map<String, Value>> map, Map<String, Value> empty, K key, String owner, Value data) {
+		Map<String, Value> values = map.get(key);
+		if (values == null) {
+			values = new HashMap<>(empty);
+			map.put(key, values);
+		}
+		values.put(owner, data);
+	}
+
+	private static class Rollup {
+		private final Map<Resolution, Buckets> buckets = new EnumMap<>(Resolution.class);
+		private final List<Value> values;
+
+		public Rollup(List<Value> values) {
+			this.values = values;
+		}
+
+		public Buckets get(Resolution resolution) {
+			Buckets bucket = buckets.get(resolution);
+			if (bucket == null) { //Computed on first use
+				bucket = new Buckets(values, resolution);
+				buckets.put(resolution, bucket);
+			}
+			return bucket;
+		}
+	}
+
+	private static class Buckets {
+		private final int[] starts; //Index of the first value in each bucket
+		private final long[] keys; //Start time of each bucket
+		private int count = 0;
+
+		public Buckets(List<Value> values, Resolution resolution) {
+			int[] tempStarts = new int[values.size()];
+			long[] tempKeys = new long[values.size()];
+			Calendar calendar = Calendar.getInstance();
+			for (int i = 0; i < values.size(); i++) {
+				long key = resolution.getBucket(calendar, values.get(i).getDate());
+				if (count == 0 || tempKeys[count - 1] != key) {
+					tempStarts[count] = i;
+					tempKeys[count] = key;
+					count++;
+				}
+			}
+			starts = Arrays.copyOf(tempStarts, count);
+			keys = Arrays.copyOf(tempKeys, count);
+		}
+	}
+}
@@ -32,6 +32,7 @@ import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
+import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.geom.Ellipse2D;
@@ -136,6 +137,8 @@ import org.jfree.data.xy.XYDataset;
 
 public class TrackerTab extends JMainTabSecondary {
 
+	private static final int MIN_POINTS = 500; //Minimum number of points shown in the chart
+
 	private enum TrackerAction {
 		QUICK_DATE,
 		UPDATE_DATA,
@@ -226,6 +229,7 @@ public class TrackerTab extends JMainTabSecondary {
 	private TimePeriodValues contractValue;
 	private TimePeriodValues skillPointsValue;
 	private Map<SimpleTimePeriod, Value> cache;
+	private final TrackerQuery trackerQuery = new TrackerQuery();
 	private final Map<String, CheckBoxNode> accountNodes = new TreeMap<>();
 	private final Map<String, CheckBoxNode> assetNodes = new TreeMap<>();
 	private Integer assetColumn = null;
@@ -934,7 +938,7 @@ public class TrackerTab extends JMainTabSecondary {
 		if (owners != null) { //No data set...
 			try {
 				TrackerData.readLock();
-				Map<Date, Map<String, Value>> trackerDataByDate = getTrackerDataByDate(owners);
+				Map<Date, Map<String, Value>> trackerDataByDate = trackerQuery.getTrackerDataByDate(owners, from, to, getMaxPoints());
 				Map<String, Value> lastMap = new HashMap<>();
 				for (Map.Entry<Date, Map<String, Value>> dateEntry : trackerDataByDate.entrySet()) {
 					final Date date = dateEntry.getKey();
@@ -1041,26 +1045,6 @@ public class TrackerTab extends JMainTabSecondary {
 		updateShown();
 	}
 
-	private Map<Date, Map<String, Value>> getTrackerDataByDate(final List<String> owners) {
-		Map<Date, Map<String, Value>> trackerDataByDate = new TreeMap<>();
-		Map<String, Value> empty = new HashMap<>();
-		for (String owner : owners) {
-			empty.put(owner, null);
-		}
-		for (String owner : owners) {
-			for (Value data : TrackerData.get().get(owner)) {
-				Date key = data.getDate();
-				Map<String, Value> map = trackerDataByDate.get(key);
-				if (map == null) {
-					map = new HashMap<>(empty);
-					trackerDataByDate.put(key, map);
-				}
-				map.put(owner, data);
-			}
-		}
-		return trackerDataByDate;
-	}
-
 	private void updateButtonIcons() {
 		boolean isAll;
 		boolean isSome;
@@ -1466,6 +1450,18 @@ public class TrackerTab extends JMainTabSecondary {
 		}
 	}
 
+	/**
+	 * One point for each pixel of the chart
+	 * @return
+	 */
+	private int getMaxPoints() {
+		int width = jChartPanel.getWidth();
+		if (width <= 0) { //Not shown yet
+			width = Toolkit.getDefaultToolkit().getScreenSize().width;
+		}
+		return Math.max(width, MIN_POINTS);
+	}
+
 	private Date getFromDate() {
 		LocalDate date = jFrom.getDate();
 		if (date == null) {
@@ -1620,7 +1616,7 @@ public class TrackerTab extends JMainTabSecondary {
 				if (value == null) {
 					return;
 				}
-				boolean update = jEditDialog.showEdit(value);
+				boolean update = jEditDialog.showEdit(owner, value);
 				if (update) {
 					createData();
 				}
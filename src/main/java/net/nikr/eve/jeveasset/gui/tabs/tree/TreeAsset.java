@@ -32,6 +32,7 @@ import net.nikr.eve.jeveasset.data.api.my.MyAsset;
 import net.nikr.eve.jeveasset.data.sde.Item;
 import net.nikr.eve.jeveasset.data.sde.MyLocation;
 import net.nikr.eve.jeveasset.data.settings.UserItem;
+import net.nikr.eve.jeveasset.data.settings.tag.Tags;
 import net.nikr.eve.jeveasset.gui.images.Images;
 import net.nikr.eve.jeveasset.gui.shared.table.containers.HierarchyColumn;
 import net.nikr.eve.jeveasset.gui.shared.table.containers.Percent;
@@ -51,6 +52,7 @@ public class TreeAsset extends MyAsset {
 	private static final Object NULL_PLACEHOLDER = new Object();
 	private static final Security EMPTY_SECURITY = Security.create("");
 	private static final Map<TreeTableFormat, AssetTableFormat> columns = new EnumMap<>(TreeTableFormat.class);
+	private final MyAsset asset; //null for location/category rows
 	private final List<TreeAsset> tree;
 	private final String compare;
 	private final String ownerName;
@@ -68,6 +70,7 @@ public class TreeAsset extends MyAsset {
 
 	public TreeAsset(final MyAsset asset, final TreeType treeType, final List<TreeAsset> tree, final String compare, final boolean parent) {
 		super(asset);
+		this.asset = asset;
 		this.treeName = createSpace(tree.size()) + asset.getName();
 		this.tree = new ArrayList<>(tree); //Copy
 		this.compare = compare + asset.getName() + " #" + asset.getItemID();
@@ -118,6 +121,7 @@ public class TreeAsset extends MyAsset {
 
 	public TreeAsset(final MyLocation location, final String treeName, final String compare, final Icon icon, List<TreeAsset> tree, final int depthOffset) {
 		super(location);
+		this.asset = null;
 		this.treeName = createSpace(tree.size()) + treeName;
 		this.tree = new ArrayList<>(tree); //Copy
 		this.compare = compare;
@@ -129,6 +133,27 @@ public class TreeAsset extends MyAsset {
 		this.hierarchyColumn = new HierarchyColumn(this.treeName, this.parent);
 	}
 
+	/**
+	 * Item rows use the tags of the asset, so tags set in the assets tab are shown here (and the other way around)
+	 * @return 
+	 */
+	@Override
+	public Tags getTags() {
+		if (asset != null) {
+			return asset.getTags();
+		}
+		return super.getTags();
+	}
+
+	@Override
+	public void setTags(Tags tags) {
+		if (asset != null) {
+			asset.setTags(tags);
+		} else {
+			super.setTags(tags);
+		}
+	}
+
 	private String createSpace(int size) {
 		String space = "";
 		for (int i = 0; i < size; i++) {
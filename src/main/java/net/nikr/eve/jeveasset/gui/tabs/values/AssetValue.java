@@ -21,8 +21,11 @@
 package net.nikr.eve.jeveasset.gui.tabs.values;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import net.nikr.eve.jeveasset.data.sde.MyLocation;
 import net.nikr.eve.jeveasset.data.sde.StaticData;
 import net.nikr.eve.jeveasset.data.settings.TrackerData;
@@ -52,8 +55,21 @@ public class AssetValue implements Comparable<AssetValue> {
 	public static void updateData() {
 		try {
 			TrackerData.writeLock();
+			Set<AssetValue> changed = new HashSet<>();
 			for (AssetValue assetValue : CACHE.values()) {
+				Long before = assetValue.locationID;
 				assetValue.update();
+				if (!Objects.equals(before, assetValue.locationID)) {
+					changed.add(assetValue);
+				}
+			}
+			//Location names are resolved again on load, only a new locationID needs to be saved
+			if (!changed.isEmpty()) {
+				for (Map.Entry<String, List<Value>> entry : TrackerData.get().entrySet()) {
+					if (contains(entry.getValue(), changed)) {
+						TrackerData.changed(entry.getKey());
+					}
+				}
 			}
 		} finally {
 			TrackerData.writeUnlock();
@@ -61,6 +77,17 @@ public class AssetValue implements Comparable<AssetValue> {
 		TrackerData.save("Asset values updated", true);
 	}
 
+	private static boolean contains(List<Value> values, Set<AssetValue> assetValues) {
+		for (Value value : values) {
+			for (AssetValue assetValue : value.getAssetsFilter().keySet()) {
+				if (assetValues.contains(assetValue)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	private static AssetValue get(final AssetValue add) {
 		AssetValue cached = CACHE.get(add.getKey());
 		if (cached != null) {
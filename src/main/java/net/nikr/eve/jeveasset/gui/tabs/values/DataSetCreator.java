@@ -64,8 +64,8 @@ public class DataSetCreator {
 			calendar.set(2019, 1, 1);
 			Date issues943fixed = calendar.getTime(); //Deleted PI structures: https://github.com/esi/esi-issues/issues/943
 			TrackerData.writeLock();
-			for (List<Value> values : TrackerData.get().values()) {
-				for (Value value : values) {
+			for (Map.Entry<String, List<Value>> entry : TrackerData.get().entrySet()) {
+				for (Value value : entry.getValue()) {
 					List<AssetValue> assetValues = new ArrayList<>(value.getAssetsFilter().keySet()); //Copy to allow modification of original during the loop
 				for (AssetValue assetValue : assetValues) {
 					Long locationID = assetValue.getLocationID();
@@ -74,6 +74,7 @@ public class DataSetCreator {
 								|| ((locationID > 40000000 && locationID < 50000000) && value.getDate().before(issues943fixed)) //Deleted PI structures: https://github.com/esi/esi-issues/issues/943
 								)) {
 							value.getAssetsFilter().remove(assetValue);
+							TrackerData.changed(entry.getKey());
 							Settings.get().getTrackerSettings().getFilters().remove(assetValue.getID());
 						}
 					}
@@ -310,6 +310,7 @@ public abstract class GuiShared extends Bundle {
 	public abstract String filterUntitled();
 	public abstract String filterEmpty();
 	public abstract String filterShowing(int rowCount, int size, String filterName);
+	public abstract String filterFiltering(int progress);
 	public abstract String popupMenuAddField();
 	public abstract String export();
 	public abstract String exportTableData();
@@ -33,7 +33,6 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import net.nikr.eve.jeveasset.data.api.accounts.EsiOwner;
 import net.nikr.eve.jeveasset.gui.dialogs.update.UpdateTask;
-import net.nikr.eve.jeveasset.gui.shared.Formater;
 import net.nikr.eve.jeveasset.io.shared.AbstractGetter;
 import net.nikr.eve.jeveasset.io.shared.ThreadWoker;
 import net.nikr.eve.jeveasset.io.shared.ThreadWoker.TaskCancelledException;
@@ -80,14 +79,6 @@ public abstract class AbstractEsiGetter extends AbstractGetter<EsiOwner> {
 	protected static final int UNIVERSE_BATCH_SIZE = 100;
 	protected static final int LOCATIONS_BATCH_SIZE = 100;
 	protected static final int DEFAULT_RETRIES = 3;
-	/**
-	 * Errors left in in this error limit time frame (can be null)
-	 */
-	private static Integer errorLimit = null;
-	/**
-	 * Date when the error limit will be reset (never null)
-	 */
-	private static Date errorReset = new Date();
 
 
 	public AbstractEsiGetter(UpdateTask updateTask, EsiOwner owner, boolean forceUpdate, Date nextUpdate, TaskType taskType) {
@@ -159,46 +150,59 @@ public abstract class AbstractEsiGetter extends AbstractGetter<EsiOwner> {
 	}
 
 	private <R> R updateApi(Updater<ApiResponse<R>, ApiException> updater) throws ApiException {
-		return updateApi(updater, 0);
-	}
-
-	private <R> R updateApi(Updater<ApiResponse<R>, ApiException> updater, int retries) throws ApiException {
-		checkErrors(); //Update timeframe as needed
-		checkCancelled();
-		try {
-			ApiResponse<R> apiResponse = updater.update();
-			if (apiResponse == null) {
-				return null;
-			}
-			handleHeaders(apiResponse);
-			logInfo(updater.getStatus(), "Updated");
-			if (owner != null) {
-				owner.setInvalid(false);
+		EsiErrorLimiter limiter = EsiErrorLimiter.get();
+		String endpoint = getTaskName();
+		if (owner != null) { //Throttle each owner separately (a failing owner should not slow down the others)
+			endpoint = endpoint + " (" + owner.getOwnerName() + ")";
+		}
+		int retries = 0;
+		while (true) {
+			try {
+				limiter.acquire(endpoint); //Wait for the error limit as needed
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new TaskCancelledException(); //Do not send the request
 			}
-			return apiResponse.getData();
-		} catch (ApiException ex) {
-			handleHeaders(ex);
-			logWarn(ex.getResponseBody(), ex.getMessage());
-			if (ex.getCode() == 401 && ex.getResponseBody().toLowerCase().contains("error") && ex.getResponseBody().toLowerCase().contains("authorization not provided")) {
+			checkCancelled();
+			try {
+				ApiResponse<R> apiResponse = updater.update();
+				if (apiResponse == null) {
+					return null;
+				}
+				handleHeaders(apiResponse);
+				limiter.success(endpoint);
+				logInfo(updater.getStatus(), "Updated");
 				if (owner != null) {
-					owner.setInvalid(true);
+					owner.setInvalid(false);
 				}
-				throw new InvalidAuthException();
-			} else if ((ex.getCode() >= 500 && ex.getCode() < 600 //CCP error, Lets try again in a sec
-					|| ex.getCode() == 0) //Other error, Lets try again in a sec
-					&& ex.getCode() != 503 //Don't retry when it may be downtime
-					&& (ex.getCode() != 502 || (ex.getResponseBody().toLowerCase().contains("no reply within 10 seconds") || ex.getResponseBody().toLowerCase().startsWith("<html>"))) //Don't retry when it may be downtime, unless it's "no reply within 10 seconds" or html body
-					&& retries < updater.getMaxRetries()) { //Retries
-				retries++;
-				try {
-					Thread.sleep(1000); //Wait a sec
-				} catch (InterruptedException ex1) {
-					//No problem
+				return apiResponse.getData();
+			} catch (ApiException ex) {
+				handleHeaders(ex);
+				logWarn(ex.getResponseBody(), ex.getMessage());
+				if (ex.getCode() == 401 && ex.getResponseBody().toLowerCase().contains("error") && ex.getResponseBody().toLowerCase().contains("authorization not provided")) {
+					limiter.error(endpoint, false);
+					if (owner != null) {
+						owner.setInvalid(true);
+					}
+					throw new InvalidAuthException();
+				} else if ((ex.getCode() >= 500 && ex.getCode() < 600 //CCP error, Lets try again
+						|| ex.getCode() == 0) //Other error, Lets try again
+						&& ex.getCode() != 503 //Don't retry when it may be downtime
+						&& (ex.getCode() != 502 || (ex.getResponseBody().toLowerCase().contains("no reply within 10 seconds") || ex.getResponseBody().toLowerCase().startsWith("<html>"))) //Don't retry when it may be downtime, unless it's "no reply within 10 seconds" or html body
+						&& retries < updater.getMaxRetries()) { //Retries
+					retries++;
+					long backoff = limiter.error(endpoint, true);
+					try {
+						Thread.sleep(backoff); //Jittered exponential backoff (only this thread waits)
+					} catch (InterruptedException ex1) {
+						Thread.currentThread().interrupt();
+						throw new TaskCancelledException(); //Do not retry
+					}
+					logInfo(updater.getStatus(), "Retrying "  + retries + " of " + updater.getMaxRetries() + ":");
+				} else {
+					limiter.error(endpoint, false);
+					throw ex;
 				}
-				logInfo(updater.getStatus(), "Retrying "  + retries + " of " + updater.getMaxRetries() + ":");
-				return updateApi(updater, retries);
-			} else {
-				throw ex;
 			}
 		}
 	}
@@ -217,44 +221,10 @@ public abstract class AbstractEsiGetter extends AbstractGetter<EsiOwner> {
 
 	private void setErrorLimit(Map<String, List<String>> responseHeaders) {
 		if (responseHeaders != null) {
-			setErrorLimit(getHeaderInteger(responseHeaders, "x-esi-error-limit-remain"));
-			setErrorReset(getHeaderInteger(responseHeaders, "x-esi-error-limit-reset"));
-		}
-	}
-
-	private synchronized static void setErrorLimit(Integer errorLimit) {
-		if (AbstractEsiGetter.errorLimit != null && errorLimit != null) {
-			AbstractEsiGetter.errorLimit = Math.min(AbstractEsiGetter.errorLimit, errorLimit);
-		} else {
-			AbstractEsiGetter.errorLimit = errorLimit;
-		}
-	}
-
-	private synchronized static void setErrorReset(Integer errorReset) {
-		if (errorReset != null) {
-			AbstractEsiGetter.errorReset = new Date(System.currentTimeMillis() + (errorReset * 1000L));
+			EsiErrorLimiter.get().update(getHeaderInteger(responseHeaders, "x-esi-error-limit-remain"), getHeaderInteger(responseHeaders, "x-esi-error-limit-reset"));
 		}
 	}
 
-	private synchronized static void checkErrors() {
-		if (errorLimit != null && errorLimit < 10) { //Error limit reached
-			try {
-				long wait = (errorReset.getTime() + 1000) - System.currentTimeMillis();
-				LOG.warn("Error limit reached waiting: " + Formater.milliseconds(wait, false, false));
-				if (wait > 0) { //Negative values throws an Exception
-					Thread.sleep(wait); //Wait until the error window is reset
-				}
-				//Reset
-				AbstractEsiGetter.errorReset = new Date(); //New timeframe
-				AbstractEsiGetter.errorLimit = null;  //No errors in this timeframe (yet)
-			} catch (InterruptedException ex) {
-				//No problem
-			}
-		} else if (errorLimit != null && errorLimit < 100) { //At least one error
-			LOG.warn("Error limit: " + errorLimit);
-		}
-	}
- 
 	public MarketApi getMarketApiAuth() {
 		return owner.getMarketApiAuth();
  	}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.io.esi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import net.nikr.eve.jeveasset.gui.shared.Formater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared ESI error budget (x-esi-error-limit-remain / x-esi-error-limit-reset).
+ *
+ * Requests are only blocked when the error budget is used up.
+ * When the budget is low, endpoints that are failing are throttled with a jittered exponential backoff,
+ * while endpoints that work keep going.
+ * Endpoints are keyed by the caller (task name and owner), so one failing owner does not throttle the same task for other owners.
+ * Waiting is done without holding the lock, so headers can still be updated by other threads.
+ */
+public final class EsiErrorLimiter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EsiErrorLimiter.class);
+
+	/**
+	 * Stop all requests when the remaining errors are below this value
+	 */
+	private static final int ERROR_LIMIT_MIN = 10;
+	/**
+	 * Throttle failing endpoints when the remaining errors are below this value
+	 */
+	private static final int ERROR_LIMIT_LOW = 50;
+	private static final int ERROR_LIMIT_MAX = 100;
+	private static final long BACKOFF_BASE = 1000;
+	private static final long BACKOFF_MAX = 30000;
+
+	private static EsiErrorLimiter limiter;
+
+	/**
+	 * Errors left in in this error limit time frame (null = unknown)
+	 */
+	private Integer errorLimit = null;
+	/**
+	 * Time when the error limit will be reset
+	 */
+	private long errorReset = System.currentTimeMillis();
+	private final Map<String, EndpointStats> endpoints = new HashMap<>();
+
+	private EsiErrorLimiter() { }
+
+	public static synchronized EsiErrorLimiter get() {
+		if (limiter == null) {
+			limiter = new EsiErrorLimiter();
+		}
+		return limiter;
+	}
+
+	/**
+	 * Update the error budget from the response headers
+	 * @param remain x-esi-error-limit-remain (can be null)
+	 * @param reset x-esi-error-limit-reset in seconds (can be null)
+	 */
+	public synchronized void update(Integer remain, Integer reset) {
+		if (errorLimit != null && remain != null && System.currentTimeMillis() < errorReset) {
+			errorLimit = Math.min(errorLimit, remain);
+		} else if (remain != null) {
+			errorLimit = remain;
+		}
+		if (reset != null) {
+			errorReset = System.currentTimeMillis() + (reset * 1000L);
+		}
+		if (errorLimit != null && errorLimit >= ERROR_LIMIT_MIN) {
+			notifyAll(); //Budget is back
+		}
+	}
+
+	/**
+	 * Wait until a request to the endpoint can be made
+	 * @param endpoint task name and owner
+	 * @throws InterruptedException
+	 */
+	public synchronized void acquire(String endpoint) throws InterruptedException {
+		EndpointStats stats = getStats(endpoint);
+		stats.requests++;
+		while (true) {
+			long now = System.currentTimeMillis();
+			long wait;
+			if (errorLimit != null && now >= errorReset + 1000) { //New timeframe
+				errorLimit = null; //No errors in this timeframe (yet)
+			}
+			if (errorLimit != null && errorLimit < ERROR_LIMIT_MIN) { //Error limit reached
+				wait = (errorReset + 1000) - now;
+			} else if (errorLimit != null && errorLimit < ERROR_LIMIT_LOW) { //Low: only throttle failing endpoints
+				wait = stats.backoffUntil - now;
+			} else {
+				wait = 0;
+			}
+			if (wait <= 0) {
+				if (errorLimit != null && errorLimit < ERROR_LIMIT_MAX) { //At least one error
+					LOG.warn("Error limit: " + errorLimit);
+				}
+				return;
+			}
+			LOG.warn(endpoint + " waiting " + Formater.milliseconds(wait, false, false) + " (error limit: " + errorLimit + ")");
+			stats.waits++;
+			stats.waitTime += wait;
+			wait(wait); //Release the lock while waiting
+		}
+	}
+
+	/**
+	 * Request completed without errors
+	 * @param endpoint
+	 */
+	public synchronized void success(String endpoint) {
+		EndpointStats stats = getStats(endpoint);
+		stats.failures = 0;
+		stats.backoffUntil = 0;
+	}
+
+	/**
+	 * Request failed
+	 * @param endpoint
+	 * @param retry true if the request will be retried
+	 * @return milliseconds to wait before retrying
+	 */
+	public synchronized long error(String endpoint, boolean retry) {
+		EndpointStats stats = getStats(endpoint);
+		stats.errors++;
+		stats.failures++;
+		if (retry) {
+			stats.retries++;
+		}
+		long backoff = backoff(stats.failures);
+		stats.backoffUntil = System.currentTimeMillis() + backoff;
+		return backoff;
+	}
+
+	public synchronized Integer getErrorLimit() {
+		return errorLimit;
+	}
+
+	public synchronized List<EndpointStats> getStats() {
+		List<EndpointStats> list = new ArrayList<>();
+		for (EndpointStats stats : endpoints.values()) {
+			list.add(new EndpointStats(stats));
+		}
+		return list;
+	}
+
+	/**
+	 * Log the stats since the last call and reset them
+	 */
+	public synchronized void logStats() {
+		for (EndpointStats stats : endpoints.values()) {
+			if (stats.errors > 0 || stats.waits > 0) {
+				LOG.info(stats.toString());
+			}
+		}
+		LOG.info("Error limit: " + errorLimit);
+		endpoints.clear();
+	}
+
+	private EndpointStats getStats(String endpoint) {
+		EndpointStats stats = endpoints.get(endpoint);
+		if (stats == null) {
+			stats = new EndpointStats(endpoint);
+			endpoints.put(endpoint, stats);
+		}
+		return stats;
+	}
+
+	/**
+	 * Exponential backoff with jitter: between half and full of base * 2^(failures-1)
+	 */
+	private static long backoff(int failures) {
+		long backoff = Math.min(BACKOFF_MAX, BACKOFF_BASE << Math.min(failures - 1, 16));
+		return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+	}
+
+	public static class EndpointStats {
+		private final String endpoint;
+		private int requests = 0;
+		private int errors = 0;
+		private int retries = 0;
+		private int waits = 0;
+		private long waitTime = 0;
+		private int failures = 0;
+		private long backoffUntil = 0;
+
+		private EndpointStats(String endpoint) {
+			this.endpoint = endpoint;
+		}
+
+		private EndpointStats(EndpointStats stats) {
+			this.endpoint = stats.endpoint;
+			this.requests = stats.requests;
+			this.errors = stats.errors;
+			this.retries = stats.retries;
+			this.waits = stats.waits;
+			this.waitTime = stats.waitTime;
+			this.failures = stats.failures;
+			this.backoffUntil = stats.backoffUntil;
+		}
+
+		public String getEndpoint() {
+			return endpoint;
+		}
+
+		public int getRequests() {
+			return requests;
+		}
+
+		public int getErrors() {
+			return errors;
+		}
+
+		public int getRetries() {
+			return retries;
+		}
+
+		public int getWaits() {
+			return waits;
+		}
+
+		public long getWaitTime() {
+			return waitTime;
+		}
+
+		@Override
+		public String toString() {
+			return endpoint + ": " + requests + " requests, " + errors + " errors, " + retries + " retries, " + waits + " waits (" + Formater.milliseconds(waitTime, false, false) + ")";
+		}
+	}
+}
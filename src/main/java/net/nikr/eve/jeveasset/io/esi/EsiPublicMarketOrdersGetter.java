@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import net.nikr.eve.jeveasset.data.api.raw.RawPublicMarketOrder;
 import net.nikr.eve.jeveasset.data.sde.MyLocation;
 import net.nikr.eve.jeveasset.data.settings.Citadel;
@@ -74,6 +75,7 @@ public class EsiPublicMarketOrdersGetter extends AbstractEsiGetter {
 	@Override
 	protected void update() throws ApiException {
 		AtomicInteger count = new AtomicInteger(0);
+		final Set<Long> marketRegionIDs = new HashSet<>();
 		//Update public market orders
 		publicMarketOrders = true;
 		List<MarketOrdersResponse> responses = updatePagedList(input.getRegionIDs(), new PagedListHandler<Integer, MarketOrdersResponse>() {
@@ -90,6 +92,7 @@ public class EsiPublicMarketOrdersGetter extends AbstractEsiGetter {
 									lastUpdate = Formater.parseExpireDate(header);
 								}
 							}
+							filterOrders(k, response.getData(), marketRegionIDs);
 							return response;
 						}
 					});
@@ -100,14 +103,6 @@ public class EsiPublicMarketOrdersGetter extends AbstractEsiGetter {
 		});
 		publicMarketOrders = false;
 		Map<Integer, Set<RawPublicMarketOrder>> orders = EsiConverter.toPublicMarketOrders(responses);
-		for (MarketOrdersResponse ordersResponse : responses) {
-			//Find leaking market structures
-			if (ordersResponse.getLocationId() > 100000000) {
-				input.getStructureIDs().add(ordersResponse.getLocationId());
-			}
-			//Map known locationID <=> systemID
-			input.getLocationToSystem().put(ordersResponse.getLocationId(), RawConverter.toLong(ordersResponse.getSystemId()));
-		}
 		//Get public structures
 		input.getStructureIDs().addAll(update(DEFAULT_RETRIES, new EsiHandler<List<Long>>() {
 			@Override
@@ -126,7 +121,9 @@ public class EsiPublicMarketOrdersGetter extends AbstractEsiGetter {
 						return updatePages(DEFAULT_RETRIES, new EsiPagesHandler<MarketStructuresResponse>() {
 							@Override
 							public ApiResponse<List<MarketStructuresResponse>> get(Integer page) throws ApiException {
-								return marketApi.getMarketsStructuresStructureIdWithHttpInfo(k, DATASOURCE, null, page, null);
+								ApiResponse<List<MarketStructuresResponse>> response = marketApi.getMarketsStructuresStructureIdWithHttpInfo(k, DATASOURCE, null, page, null);
+								filterStructureOrders(response.getData());
+								return response;
 							}
 						});
 					} catch (ApiException ex) {
@@ -143,6 +140,11 @@ public class EsiPublicMarketOrdersGetter extends AbstractEsiGetter {
 			});
 			for (MarketStructuresResponse response : structuresResponses) {
 				RawPublicMarketOrder marketOrder = new RawPublicMarketOrder(response, getSystemID(input, response.getLocationId()));
+				//Regions with data
+				MyLocation location = ApiIdConverter.getLocation(marketOrder.getSystemID());
+				if (!location.isEmpty()) {
+					marketRegionIDs.add(location.getRegionID());
+				}
 				Set<RawPublicMarketOrder> set =  orders.get(marketOrder.getTypeId());
 				if (set == null) {
 					set = new HashSet<>();
@@ -153,7 +155,7 @@ public class EsiPublicMarketOrdersGetter extends AbstractEsiGetter {
 		} else {
 			addError("NO ENOUGH ACCESS PRIVILEGES", "No character with market orders structure scope found\r\n(Add scope: [Options] > [Acounts...] > [Edit])");
 		}
-		input.addOrders(orders, lastUpdate);
+		input.addOrders(orders, marketRegionIDs, lastUpdate);
 		//Process data
 		OutbidProcesser.process(input, output);
 		if (lastUpdate != null) {
@@ -163,6 +165,48 @@ public class EsiPublicMarketOrdersGetter extends AbstractEsiGetter {
 		}
 	}
 
+	/**
+	 * Called for each page as it is received (from multiple threads).
+	 * Only orders for the types we have market orders for are kept,
+	 * so the whole region is never held in memory.
+	 */
+	private void filterOrders(Integer regionID, List<MarketOrdersResponse> responses, Set<Long> marketRegionIDs) {
+		if (responses == null) {
+			return;
+		}
+		synchronized (input) {
+			if (!responses.isEmpty()) {
+				marketRegionIDs.add(regionID.longValue());
+			}
+			for (MarketOrdersResponse ordersResponse : responses) {
+				//Find leaking market structures
+				if (ordersResponse.getLocationId() > 100000000) {
+					input.getStructureIDs().add(ordersResponse.getLocationId());
+				}
+				//Map known locationID <=> systemID
+				input.getLocationToSystem().put(ordersResponse.getLocationId(), RawConverter.toLong(ordersResponse.getSystemId()));
+			}
+		}
+		responses.removeIf(new Predicate<MarketOrdersResponse>() {
+			@Override
+			public boolean test(MarketOrdersResponse response) {
+				return !input.getTypeIDs().containsKey(response.getTypeId());
+			}
+		});
+	}
+
+	private void filterStructureOrders(List<MarketStructuresResponse> responses) {
+		if (responses == null) {
+			return;
+		}
+		responses.removeIf(new Predicate<MarketStructuresResponse>() {
+			@Override
+			public boolean test(MarketStructuresResponse response) {
+				return !input.getTypeIDs().containsKey(response.getTypeId());
+			}
+		});
+	}
+
 	private void setProgressAll(final float progressEnd, final float progressNow, final int minimum, final int maximum) {
 		if (updateTask != null) {
 			updateTask.setTaskProgress(progressEnd, progressNow, minimum, maximum);
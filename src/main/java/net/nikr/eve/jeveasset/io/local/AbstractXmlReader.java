@@ -48,8 +48,7 @@ public abstract class AbstractXmlReader<T> extends AbstractBackup {
 			return doNotExistValue();
 		}
 		try {
-			Element element = getDocumentElement(filename, xmlType);
-			T t = parse(element);
+			T t = parseFile(filename, xmlType);
 			LOG.info(name+ " loaded");
 			return t;
 		} catch (IOException ex) {
@@ -79,6 +78,18 @@ public abstract class AbstractXmlReader<T> extends AbstractBackup {
 	protected abstract T failValue();
 	protected abstract T doNotExistValue();
 
+	/**
+	 * Read and parse the file (DOM)
+	 * @param filename
+	 * @param xmlType
+	 * @return the parse result
+	 * @throws XmlException
+	 * @throws IOException 
+	 */
+	protected T parseFile(final String filename, final XmlType xmlType) throws XmlException, IOException {
+		return parse(getDocumentElement(filename, xmlType));
+	}
+
 	private void staticDataFix() {
 		Updater updater = new Updater();
 		updater.fixData();
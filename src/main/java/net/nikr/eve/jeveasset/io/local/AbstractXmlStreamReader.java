@@ -0,0 +1,153 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.io.local;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import net.nikr.eve.jeveasset.CliOptions;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+
+/**
+ * Reader that parse the file as it's read, without building the whole DOM in memory.
+ * The DOM parser is still used when jEveAssets is started with -xmldom
+ * @param <T> 
+ */
+public abstract class AbstractXmlStreamReader<T> extends AbstractXmlReader<T> {
+
+	private Document streamDocument;
+
+	/**
+	 * Parse the file as it's read
+	 * @param reader positioned at the start of the document
+	 * @return the parse result
+	 * @throws XmlException
+	 * @throws XMLStreamException 
+	 */
+	protected abstract T parse(XMLStreamReader reader) throws XmlException, XMLStreamException;
+
+	/**
+	 * Receives the elements of a file in document order.
+	 * Used to share the parsing between the xml and the binary format.
+	 */
+	protected interface ElementHandler {
+		public void startElement(String name, Element element) throws XmlException;
+		public void endElement(String name) throws XmlException;
+	}
+
+	@Override
+	protected T parseFile(final String filename, final XmlType xmlType) throws XmlException, IOException {
+		if (BinaryXmlReader.isBinary(filename)) {
+			if (!(this instanceof BinaryXmlParser)) {
+				throw new XmlException("Binary format not supported: " + filename);
+			}
+			return streamDocument(filename, xmlType);
+		} else if (CliOptions.get().isXmlDom()) {
+			return super.parseFile(filename, xmlType);
+		} else {
+			return streamDocument(filename, xmlType);
+		}
+	}
+
+	protected void stream(XMLStreamReader reader, ElementHandler handler) throws XmlException, XMLStreamException {
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				handler.startElement(reader.getLocalName(), getElement(reader));
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				handler.endElement(reader.getLocalName());
+			}
+		}
+	}
+
+	/**
+	 * Create a detached Element containing only the attributes of the current start element.
+	 * Used by the streaming readers to share the attribute parsing with the DOM readers.
+	 * @param reader positioned at a START_ELEMENT
+	 * @return Element with the attributes
+	 */
+	protected Element getElement(XMLStreamReader reader) {
+		Element element = streamDocument.createElement(reader.getLocalName());
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+		}
+		return element;
+	}
+
+	private T streamDocument(final String filename, final XmlType xmlType) throws XmlException, IOException {
+		FileInputStream is = null;
+		XMLStreamReader reader = null;
+		try {
+			if (xmlType == XmlType.DYNAMIC || xmlType == XmlType.DYNAMIC_BACKUP) {
+				lock(filename);
+			}
+			File file = new File(filename);
+			is = new FileInputStream(file);
+			BufferedInputStream bufferedInputStream = new BufferedInputStream(is);
+			streamDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+			T t;
+			if (BinaryXmlReader.isBinary(filename)) { //BinaryXmlParser (see parseFile)
+				@SuppressWarnings("unchecked")
+				BinaryXmlParser<T> parser = (BinaryXmlParser<T>) this;
+				t = parser.parse(new BinaryXmlReader(bufferedInputStream, streamDocument));
+			} else {
+				XMLInputFactory factory = XMLInputFactory.newInstance();
+				factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+				factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+				reader = factory.createXMLStreamReader(bufferedInputStream);
+				t = parse(reader);
+			}
+			if (xmlType == XmlType.DYNAMIC_BACKUP) {
+				backup(filename);
+			}
+			return t;
+		} catch (XMLStreamException ex) {
+			throw new XmlException(ex.getMessage(), ex);
+		} catch (ParserConfigurationException ex) {
+			throw new XmlException(ex.getMessage(), ex);
+		} finally {
+			streamDocument = null;
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException ex) {
+					//No problem
+				}
+			}
+			if (is != null) {
+				is.close();
+			}
+			if (xmlType == XmlType.DYNAMIC || xmlType == XmlType.DYNAMIC_BACKUP) {
+				unlock(filename); //Last thing to do
+			}
+		}
+	}
+}
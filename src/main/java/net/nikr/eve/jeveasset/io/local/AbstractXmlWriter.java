@@ -22,15 +22,19 @@
 package net.nikr.eve.jeveasset.io.local;
 
 import java.awt.Color;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Deque;
 import java.util.List;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -43,15 +47,33 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 
 
 public abstract class AbstractXmlWriter extends AbstractBackup {
 
+	private static final Logger LOG = LoggerFactory.getLogger(AbstractXmlWriter.class);
+
+	private static final String STREAM_ENCODING = "UTF-16";
+	private static final String STREAM_INDENT = "    ";
+
 	private static DocumentBuilderFactory factory = null;
 
+	private final Deque<String> streamElements = new ArrayDeque<>();
+	private Writer streamWriter;
+	private BinaryXmlWriter binaryWriter;
+	private boolean streamChildren;
+
+	protected interface XmlStreamContent {
+		public void write() throws XmlException;
+	}
+
 	protected Document getXmlDocument(final String rootname) throws XmlException {
 		try {
 			DocumentBuilder builder = getFactory().newDocumentBuilder();
@@ -135,6 +157,262 @@ public abstract class AbstractXmlWriter extends AbstractBackup {
 		}
 	}
 
+	/**
+	 * Write the xml file while the content is created, without keeping the whole document in memory.
+	 * Elements are still created by the Document, but must be written with writeStartElement/writeEndElement,
+	 * writeElement or writeElements instead of appended to the document.
+	 * Uses the same .new/.bac handling as writeXmlFile(...)
+	 * Filenames with the binary extension are written in the binary format (see BinaryXmlWriter)
+	 *
+	 * @param doc Document with the root element (root attributes are written, root children are written by the content)
+	 * @param filename
+	 * @param createBackup
+	 * @param content
+	 * @throws XmlException
+	 */
+	protected void writeXmlStream(final Document doc, final String filename, final boolean createBackup, final XmlStreamContent content) throws XmlException {
+		File file;
+		if (createBackup) {
+			file = getNewFile(filename); //Save to .new file
+		} else {
+			file = new File(filename);
+		}
+		boolean ok = false;
+		try {
+			lock(filename);
+			try {
+				//Save file
+				streamElements.clear();
+				streamChildren = false;
+				if (BinaryXmlReader.isBinary(filename)) {
+					binaryWriter = new BinaryXmlWriter(new FileOutputStream(file));
+				} else {
+					streamWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), STREAM_ENCODING));
+					streamWriter.write("<?xml version=\"1.0\" encoding=\"" + STREAM_ENCODING + "\" standalone=\"yes\"?>");
+				}
+				writeStartElement(doc.getDocumentElement());
+				content.write();
+				writeElements(doc);
+				writeEndElement();
+				if (streamWriter != null) {
+					streamWriter.write("\r\n");
+					streamWriter.close();
+					streamWriter = null;
+				}
+				if (binaryWriter != null) {
+					binaryWriter.close();
+					binaryWriter = null;
+				}
+				ok = true; //Only replace the old file, if everything was written
+			} finally {
+				closeStream(); //Only when failed (already closed when ok)
+			}
+		} catch (FileNotFoundException ex) {
+			throw new XmlException(ex.getMessage(), ex);
+		} catch (UnsupportedEncodingException ex) {
+			throw new XmlException(ex.getMessage(), ex);
+		} catch (IOException ex) {
+			throw new XmlException(ex.getMessage(), ex);
+		} finally {
+			if (createBackup) {
+				if (ok) { //Saving done - create backup and rename new file to target
+					backupFile(filename); //Rename .xml => .bac (.new is safe) and .new => .xml (.bac is safe). That way we always have at least one safe file
+				} else if (file.exists() && !file.delete()) { //Saving failed - keep the old file
+					LOG.warn("Failed to delete: " + file.getAbsolutePath());
+				}
+			}
+			unlock(filename); //Last thing to do
+		}
+	}
+
+	private void closeStream() {
+		if (streamWriter != null) {
+			try {
+				streamWriter.close();
+			} catch (IOException ex) {
+				//No problem
+			} finally {
+				streamWriter = null;
+			}
+		}
+		if (binaryWriter != null) {
+			try {
+				binaryWriter.close();
+			} catch (IOException ex) {
+				//No problem
+			} finally {
+				binaryWriter = null;
+			}
+		}
+	}
+
+	/**
+	 * Write the start tag of the element. The child elements must be written before calling writeEndElement()
+	 * @param element
+	 * @throws XmlException
+	 */
+	protected void writeStartElement(final Element element) throws XmlException {
+		writeTag(element, false);
+		streamElements.push(element.getTagName());
+		streamChildren = false;
+	}
+
+	protected void writeEndElement() throws XmlException {
+		String tagName = streamElements.pop();
+		try {
+			if (binaryWriter != null) {
+				binaryWriter.endElement();
+				return;
+			}
+			if (streamChildren) {
+				writeIndent();
+			}
+			streamWriter.write("</");
+			streamWriter.write(tagName);
+			streamWriter.write(">");
+		} catch (IOException ex) {
+			throw new XmlException(ex.getMessage(), ex);
+		}
+		streamChildren = true;
+	}
+
+	/**
+	 * Same as writeStartElement(...), but the binary format write the element as a separate section
+	 * @param element
+	 * @throws XmlException
+	 */
+	protected void writeStartSection(final Element element) throws XmlException {
+		if (binaryWriter != null) {
+			try {
+				binaryWriter.startSection();
+			} catch (IOException ex) {
+				throw new XmlException(ex.getMessage(), ex);
+			}
+		}
+		writeStartElement(element);
+	}
+
+	protected void writeEndSection() throws XmlException {
+		writeEndElement();
+		if (binaryWriter != null) {
+			try {
+				binaryWriter.endSection();
+			} catch (IOException ex) {
+				throw new XmlException(ex.getMessage(), ex);
+			}
+		}
+	}
+
+	/**
+	 * Write the element and all its child elements
+	 * @param element
+	 * @throws XmlException
+	 */
+	protected void writeElement(final Element element) throws XmlException {
+		if (!element.hasChildNodes()) {
+			writeTag(element, true);
+			streamChildren = true;
+			return;
+		}
+		writeStartElement(element);
+		Node node = element.getFirstChild();
+		while (node != null) {
+			if (node instanceof Element) {
+				writeElement((Element) node);
+			}
+			node = node.getNextSibling();
+		}
+		writeEndElement();
+	}
+
+	/**
+	 * Write the elements appended to the root element, and remove them from the document
+	 * @param doc
+	 * @throws XmlException
+	 */
+	protected void writeElements(final Document doc) throws XmlException {
+		Element root = doc.getDocumentElement();
+		Node node = root.getFirstChild();
+		while (node != null) {
+			if (node instanceof Element) {
+				writeElement((Element) node);
+			}
+			root.removeChild(node);
+			node = root.getFirstChild();
+		}
+	}
+
+	private void writeTag(final Element element, final boolean empty) throws XmlException {
+		try {
+			if (binaryWriter != null) {
+				binaryWriter.startElement(element);
+				if (empty) {
+					binaryWriter.endElement();
+				}
+				return;
+			}
+			if (!streamElements.isEmpty()) {
+				writeIndent();
+			}
+			streamWriter.write("<");
+			streamWriter.write(element.getTagName());
+			NamedNodeMap attributes = element.getAttributes();
+			for (int i = 0; i < attributes.getLength(); i++) {
+				Node attribute = attributes.item(i);
+				streamWriter.write(" ");
+				streamWriter.write(attribute.getNodeName());
+				streamWriter.write("=\"");
+				writeEscaped(attribute.getNodeValue());
+				streamWriter.write("\"");
+			}
+			if (empty) {
+				streamWriter.write("/>");
+			} else {
+				streamWriter.write(">");
+			}
+		} catch (IOException ex) {
+			throw new XmlException(ex.getMessage(), ex);
+		}
+	}
+
+	private void writeIndent() throws IOException {
+		streamWriter.write("\r\n");
+		for (int i = 0; i < streamElements.size(); i++) {
+			streamWriter.write(STREAM_INDENT);
+		}
+	}
+
+	private void writeEscaped(final String value) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '&':
+					streamWriter.write("&amp;");
+					break;
+				case '<':
+					streamWriter.write("&lt;");
+					break;
+				case '>':
+					streamWriter.write("&gt;");
+					break;
+				case '"':
+					streamWriter.write("&quot;");
+					break;
+				case '\n':
+					streamWriter.write("&#10;");
+					break;
+				case '\r':
+					streamWriter.write("&#13;");
+					break;
+				case '\t':
+					streamWriter.write("&#9;");
+					break;
+				default:
+					streamWriter.write(c);
+			}
+		}
+	}
+
 	protected void setAttribute(final Element node, final String qualifiedName, final Object value) {
 		node.setAttribute(qualifiedName, valueOf(value));
 	}
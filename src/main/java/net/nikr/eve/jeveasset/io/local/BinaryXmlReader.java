@@ -0,0 +1,245 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.io.local;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.nikr.eve.jeveasset.io.local.AbstractXmlStreamReader.ElementHandler;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+
+/**
+ * Reads the format written by BinaryXmlWriter.
+ * Sections are read from the stream (not buffered).
+ * The Element given to ElementHandler.startElement() is reused for the next element with the same name at the same depth,
+ * so it's only valid until the end of the element.
+ */
+final class BinaryXmlReader {
+
+	private final CountingInputStream counter;
+	private final DataInputStream in;
+	private final Document document;
+	private final List<String> elements = new ArrayList<>();
+	private final List<Map<String, Element>> elementCache = new ArrayList<>(); //Index is the depth
+
+	/**
+	 * 
+	 * @param filename
+	 * @return true if the file name use the binary extension
+	 */
+	public static boolean isBinary(String filename) {
+		return filename.endsWith(BinaryXmlWriter.EXTENSION);
+	}
+
+	/**
+	 *
+	 * @param inputStream must support mark/reset
+	 * @return true if the stream start with the binary header
+	 * @throws IOException
+	 */
+	public static boolean isBinary(InputStream inputStream) throws IOException {
+		inputStream.mark(4);
+		try {
+			return new DataInputStream(inputStream).readInt() == BinaryXmlWriter.MAGIC;
+		} catch (EOFException ex) {
+			return false;
+		} finally {
+			inputStream.reset();
+		}
+	}
+
+	public BinaryXmlReader(InputStream inputStream, Document document) {
+		this.counter = new CountingInputStream(inputStream);
+		this.in = new DataInputStream(counter);
+		this.document = document;
+	}
+
+	public void read(ElementHandler handler) throws XmlException, IOException {
+		try {
+			if (in.readInt() != BinaryXmlWriter.MAGIC) {
+				throw new XmlException("Not a binary file");
+			}
+			int version = in.readInt();
+			if (version > BinaryXmlWriter.VERSION) {
+				throw new XmlException("Unsupported binary version: " + version);
+			}
+			List<String> strings = new ArrayList<>();
+			while (true) {
+				int type = in.readByte();
+				if (type == BinaryXmlWriter.END_DOCUMENT) {
+					break;
+				} else if (type == BinaryXmlWriter.SECTION) {
+					int length = in.readInt();
+					if (length < 0) {
+						throw new XmlException("Invalid section length: " + length);
+					}
+					readSection(counter.getCount() + length, handler);
+				} else {
+					readRecord(type, strings, handler);
+				}
+			}
+			if (!elements.isEmpty()) {
+				throw new XmlException("Unexpected end of document");
+			}
+		} catch (EOFException ex) {
+			throw new XmlException("Unexpected end of file", ex);
+		}
+	}
+
+	private void readSection(long end, ElementHandler handler) throws XmlException, IOException {
+		List<String> strings = new ArrayList<>();
+		while (counter.getCount() < end) {
+			readRecord(in.readByte(), strings, handler);
+		}
+		if (counter.getCount() != end) {
+			throw new XmlException("Invalid section length");
+		}
+	}
+
+	private void readRecord(int type, List<String> strings, ElementHandler handler) throws XmlException, IOException {
+		if (type == BinaryXmlWriter.START_ELEMENT) {
+			String name = readString(strings);
+			Element element = getElement(name);
+			int count = readVarInt();
+			for (int i = 0; i < count; i++) {
+				String attribute = readString(strings);
+				element.setAttribute(attribute, readString(strings));
+			}
+			elements.add(name);
+			handler.startElement(name, element);
+		} else if (type == BinaryXmlWriter.END_ELEMENT) {
+			if (elements.isEmpty()) {
+				throw new XmlException("Unexpected end element");
+			}
+			handler.endElement(elements.remove(elements.size() - 1));
+		} else {
+			throw new XmlException("Unknown record type: " + type);
+		}
+	}
+
+	/**
+	 * Get an Element without attributes.
+	 * The element previously used at this depth has ended, so it can be reused.
+	 * @param name
+	 * @return 
+	 */
+	private Element getElement(String name) {
+		int depth = elements.size();
+		if (elementCache.size() <= depth) {
+			elementCache.add(new HashMap<>());
+		}
+		Map<String, Element> cache = elementCache.get(depth);
+		Element element = cache.get(name);
+		if (element == null) {
+			element = document.createElement(name);
+			cache.put(name, element);
+		} else {
+			NamedNodeMap attributes = element.getAttributes();
+			while (attributes.getLength() > 0) {
+				element.removeAttribute(attributes.item(0).getNodeName());
+			}
+		}
+		return element;
+	}
+
+	private String readString(List<String> strings) throws XmlException, IOException {
+		int index = readVarInt();
+		if (index == 0) {
+			byte[] bytes = new byte[readVarInt()];
+			in.readFully(bytes);
+			String value = new String(bytes, StandardCharsets.UTF_8);
+			strings.add(value);
+			return value;
+		}
+		if (index > strings.size()) {
+			throw new XmlException("Unknown string reference: " + index);
+		}
+		return strings.get(index - 1);
+	}
+
+	private int readVarInt() throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Count the bytes read, used to find the end of a section
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+
+		private long count = 0;
+
+		public CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				count = count + read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count = count + skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
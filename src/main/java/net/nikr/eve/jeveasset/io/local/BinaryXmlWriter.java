@@ -0,0 +1,153 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.io.local;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Compact binary version of the xml element tree.
+ * Saved with the EXTENSION file extension (never as .xml)
+ *
+ * Layout:
+ * header: int MAGIC, int VERSION
+ * records: START_ELEMENT, END_ELEMENT or SECTION, ended by END_DOCUMENT
+ * START_ELEMENT: name, attribute count, (name, value) for each attribute
+ * SECTION: int length, followed by length bytes of START_ELEMENT/END_ELEMENT records
+ * The section length is written when the section ends (the section is streamed to the file, not buffered)
+ *
+ * All strings are interned: a reference of 0 is followed by a new string (length + UTF-8 bytes),
+ * otherwise it's the index of a string already written. Each section has its own string table,
+ * so a section can be read (or skipped) without reading the rest of the file.
+ */
+final class BinaryXmlWriter {
+
+	static final String EXTENSION = ".jeab";
+	static final int MAGIC = 0x4A454142; //JEAB
+	static final int VERSION = 1;
+
+	static final int END_DOCUMENT = 0;
+	static final int START_ELEMENT = 1;
+	static final int END_ELEMENT = 2;
+	static final int SECTION = 3;
+
+	private final DataOutputStream out;
+	private final FileChannel channel;
+	private final Map<String, Integer> documentStrings = new HashMap<>();
+	private Map<String, Integer> strings;
+	private long sectionStart;
+	private int sectionDepth = 0;
+
+	public BinaryXmlWriter(FileOutputStream outputStream) throws IOException {
+		out = new DataOutputStream(new BufferedOutputStream(outputStream));
+		channel = outputStream.getChannel();
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		strings = documentStrings;
+	}
+
+	public void startElement(Element element) throws IOException {
+		out.writeByte(START_ELEMENT);
+		writeString(element.getTagName());
+		NamedNodeMap attributes = element.getAttributes();
+		writeVarInt(attributes.getLength());
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Node attribute = attributes.item(i);
+			writeString(attribute.getNodeName());
+			writeString(attribute.getNodeValue());
+		}
+	}
+
+	public void endElement() throws IOException {
+		out.writeByte(END_ELEMENT);
+	}
+
+	/**
+	 * Start a new length prefixed section.
+	 * Nested sections are part of the outer section.
+	 */
+	public void startSection() throws IOException {
+		sectionDepth++;
+		if (sectionDepth > 1) {
+			return;
+		}
+		out.writeByte(SECTION);
+		out.flush();
+		sectionStart = channel.position();
+		out.writeInt(0); //Length placeholder (set by endSection)
+		strings = new HashMap<>();
+	}
+
+	public void endSection() throws IOException {
+		sectionDepth--;
+		if (sectionDepth > 0) {
+			return;
+		}
+		out.flush();
+		long length = channel.position() - sectionStart - 4;
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Section too large: " + length);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(4);
+		buffer.putInt(0, (int) length);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, sectionStart + buffer.position()); //Does not move the channel position
+		}
+		strings = documentStrings;
+	}
+
+	public void close() throws IOException {
+		out.writeByte(END_DOCUMENT);
+		out.close();
+	}
+
+	private void writeString(String value) throws IOException {
+		Integer index = strings.get(value);
+		if (index != null) {
+			writeVarInt(index);
+			return;
+		}
+		strings.put(value, strings.size() + 1);
+		writeVarInt(0);
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+}
@@ -21,14 +21,15 @@
 
 package net.nikr.eve.jeveasset.io.local;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
+import net.nikr.eve.jeveasset.gui.shared.table.EnumTableColumn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.supercsv.io.CsvMapWriter;
-import org.supercsv.io.ICsvMapWriter;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.io.ICsvListWriter;
 import org.supercsv.prefs.CsvPreference;
 
 
@@ -38,18 +39,25 @@ public final class CsvWriter {
 
 	private CsvWriter() { }
 
-	public static boolean save(final String filename, final List<Map<String, String>> data, final String[] header, final String[] headerKeys, final CsvPreference csvPreference) {
+	public static <E> boolean save(final String filename, final List<E> items, final List<EnumTableColumn<?>> header, final ExportValues<E, String> values, final CsvPreference csvPreference) {
 		CsvWriter writer = new CsvWriter();
-		return writer.write(filename, data, header, headerKeys, csvPreference);
+		return writer.write(filename, items, header, values, csvPreference);
 	}
 
-	private boolean write(final String filename, final List<Map<String, String>> data, final String[] header, final String[] headerKeys, final CsvPreference csvPreference) {
-		ICsvMapWriter writer;
+	private <E> boolean write(final String filename, final List<E> items, final List<EnumTableColumn<?>> header, final ExportValues<E, String> values, final CsvPreference csvPreference) {
+		ICsvListWriter writer;
 		try {
-			writer = new CsvMapWriter(new FileWriter(filename), csvPreference);
-			writer.writeHeader(header);
-			for (Map<String, String> map : data) {
-				writer.write(map, headerKeys);
+			writer = new CsvListWriter(new BufferedWriter(new FileWriter(filename)), csvPreference);
+			String[] row = new String[header.size()];
+			for (int i = 0; i < row.length; i++) {
+				row[i] = header.get(i).getColumnName();
+			}
+			writer.writeHeader(row);
+			for (E e : items) { //Values are created while writing (one row at the time)
+				for (int i = 0; i < row.length; i++) {
+					row[i] = values.getValue(e, header.get(i));
+				}
+				writer.write(row);
 			}
 			writer.close();
 		} catch (IOException ex) {
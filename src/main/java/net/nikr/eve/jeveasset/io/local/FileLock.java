@@ -80,6 +80,8 @@ public class FileLock {
 		unlockFiles(folder.listFiles());
 		folder = new File(FileUtil.getPathDataDirectory());
 		unlockFiles(folder.listFiles());
+		folder = new File(FileUtil.getPathTrackerDirectory());
+		unlockFiles(folder.listFiles());
 	}
 
 	private static void unlockFiles(File[] files) {
@@ -25,7 +25,6 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import net.nikr.eve.jeveasset.Program;
 import net.nikr.eve.jeveasset.data.api.my.MyAsset;
@@ -48,12 +47,12 @@ public final class HtmlWriter {
 
 	private HtmlWriter() { }
 
-	public static boolean save(final String filename, final List<Map<EnumTableColumn<?>, String>> data, final List<EnumTableColumn<?>> header, final List<Object> items, final boolean htmlStyled, final int htmlRepeatHeader, final boolean treetable) {
+	public static <E> boolean save(final String filename, final List<E> items, final List<EnumTableColumn<?>> header, final ExportValues<E, String> values, final boolean igb, final boolean htmlStyled, final int htmlRepeatHeader, final boolean treetable) {
 		HtmlWriter writer = new HtmlWriter();
-		return writer.write(filename, data, header, items, htmlStyled, htmlRepeatHeader, treetable);
+		return writer.write(filename, items, header, values, igb, htmlStyled, htmlRepeatHeader, treetable);
 	}
 
-	private boolean write(final String filename, final List<Map<EnumTableColumn<?>, String>> data, final List<EnumTableColumn<?>> header, final List<Object> items, final boolean htmlStyled, final int htmlRepeatHeader, final boolean treetable) {
+	private <E> boolean write(final String filename, final List<E> items, final List<EnumTableColumn<?>> header, final ExportValues<E, String> values, final boolean igb, final boolean htmlStyled, final int htmlRepeatHeader, final boolean treetable) {
 		try {
 			BufferedWriter writer = new BufferedWriter(new FileWriter(filename));
 			if (htmlStyled) {
@@ -62,8 +61,8 @@ public final class HtmlWriter {
 				writeComment(writer);
 			}
 			writer.write("<table>\r\n");
-			writeTableHeader(writer, header, items != null);
-			writeTableRows(writer, data, header, items, htmlStyled, htmlRepeatHeader, treetable);
+			writeTableHeader(writer, header, igb);
+			writeTableRows(writer, items, header, values, igb, htmlStyled, htmlRepeatHeader, treetable);
 			writer.write("</table>\r\n");
 			if (htmlStyled) {
 				writeFooter(writer);
@@ -164,28 +163,32 @@ public final class HtmlWriter {
 		writer.write("</tr>\r\n");
 	}
 
-	private void writeTableRows(final BufferedWriter writer, final List<Map<EnumTableColumn<?>, String>> data, final List<EnumTableColumn<?>> header, final List<Object> items, final boolean htmlStyled, final int htmlRepeatHeader, final boolean treetable) throws IOException {
+	private <E> void writeTableRows(final BufferedWriter writer, final List<E> items, final List<EnumTableColumn<?>> header, final ExportValues<E, String> values, final boolean igb, final boolean htmlStyled, final int htmlRepeatHeader, final boolean treetable) throws IOException {
 		boolean even = false;
 		boolean wait = true;
 		int count = 0;
-		int index = 0;
-		for (Map<EnumTableColumn<?>, String> map : data) {
+		String[] row = new String[header.size()];
+		for (E object : items) {
+			//Values are created while writing (one row at the time)
+			for (int i = 0; i < row.length; i++) {
+				row[i] = values.getValue(object, header.get(i));
+			}
 			boolean level0 = false;
 			boolean level1 = false;
 			boolean level2 = false;
 			boolean level3 = false;
 			if (treetable && htmlStyled) {
-				for (EnumTableColumn<?> column : header) {
-					if (HierarchyColumn.class.isAssignableFrom(column.getType())) {
-						if (map.get(column).contains(TreeAsset.SPACE + TreeAsset.SPACE + TreeAsset.SPACE + "+") && treetable) { //Level 2
+				for (int i = 0; i < row.length; i++) {
+					if (HierarchyColumn.class.isAssignableFrom(header.get(i).getType())) {
+						if (row[i].contains(TreeAsset.SPACE + TreeAsset.SPACE + TreeAsset.SPACE + "+") && treetable) { //Level 2
 							level3 = true;
-						} else if (map.get(column).startsWith(TreeAsset.SPACE + TreeAsset.SPACE + "+") && treetable) { //Level 2
+						} else if (row[i].startsWith(TreeAsset.SPACE + TreeAsset.SPACE + "+") && treetable) { //Level 2
 							level2 = true;
 							break;
-						} else if (map.get(column).startsWith(TreeAsset.SPACE + "+") && treetable) { //Level 1
+						} else if (row[i].startsWith(TreeAsset.SPACE + "+") && treetable) { //Level 1
 							level1 = true;
 							break;
-						} else if (map.get(column).startsWith("+") && treetable) { //Level 0
+						} else if (row[i].startsWith("+") && treetable) { //Level 0
 							level0 = true;
 							break;
 						}
@@ -194,12 +197,12 @@ public final class HtmlWriter {
 			}
 			if (level0 || level1 || level2 || level3) { //Parent
 				if (!wait) {
-					writeTableHeader(writer, header, items != null);
+					writeTableHeader(writer, header, igb);
 					wait = true;
 					count = 0;
 				}
 			} else if (htmlRepeatHeader != 0 && htmlRepeatHeader == count && !wait) { //Repeat
-				writeTableHeader(writer, header, items != null);
+				writeTableHeader(writer, header, igb);
 				count = 0;
 			} else { //item row
 				wait = false;
@@ -217,19 +220,19 @@ public final class HtmlWriter {
 			} else {
 				writer.write("\t<tr>");
 			}
-			for (EnumTableColumn<?> column : header) {
+			for (int i = 0; i < row.length; i++) {
+				EnumTableColumn<?> column = header.get(i);
 				if ((Number.class.isAssignableFrom(column.getType())
 				 || NumberValue.class.isAssignableFrom(column.getType()))) {
 					writer.write("\t<td class=\"number\">");
 				} else {
 					writer.write("\t<td>");
 				}
-				writer.write(map.get(column).replace(" ", "&nbsp;").replace("+", "").replace("_", " ")); //.replace("-", "&#8209;")
+				writer.write(row[i].replace(" ", "&nbsp;").replace("+", "").replace("_", " ")); //.replace("-", "&#8209;")
 				writer.write("</td>\r\n");
 			}
-			if (items != null) {
+			if (igb) {
 				writer.write("\t<td>\r\n");
-				Object object = items.get(index);
 				if (object instanceof LocationType) {
 					LocationType locationType = (LocationType) object;
 					MyLocation location = locationType.getLocation();
@@ -298,7 +301,6 @@ public final class HtmlWriter {
 			if (!level0 && !level1 && !level2 && !level3) {
 				count++;
 			}
-			index++;
 		}
 	}
 }
@@ -23,6 +23,9 @@ package net.nikr.eve.jeveasset.io.local;
 
 import java.util.HashMap;
 import java.util.Map;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import net.nikr.eve.jeveasset.data.sde.IndustryMaterial;
 import net.nikr.eve.jeveasset.data.sde.Item;
 import net.nikr.eve.jeveasset.data.sde.ReprocessedMaterial;
@@ -32,7 +35,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 
-public final class ItemsReader extends AbstractXmlReader<Boolean> {
+public final class ItemsReader extends AbstractXmlStreamReader<Boolean> {
 
 	private final Map<Integer, Item> items;
 
@@ -52,6 +55,12 @@ public final class ItemsReader extends AbstractXmlReader<Boolean> {
 		return true;
 	}
 
+	@Override
+	protected Boolean parse(XMLStreamReader reader) throws XmlException, XMLStreamException {
+		streamItems(reader);
+		return true;
+	}
+
 	@Override
 	protected Boolean failValue() {
 		return false;
@@ -84,6 +93,38 @@ public final class ItemsReader extends AbstractXmlReader<Boolean> {
 		}
 	}
 
+	private void streamItems(final XMLStreamReader reader) throws XmlException, XMLStreamException {
+		Map<Integer, Integer> blueprints = new HashMap<>();
+		Item item = null;
+		while (reader.hasNext()) {
+			if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+			String name = reader.getLocalName();
+			if (name.equals("row")) {
+				item = parseItem(getElement(reader));
+				items.put(item.getTypeID(), item);
+				if (item.isBlueprint()) {
+					blueprints.put(item.getTypeID(), item.getProductTypeID());
+				}
+			} else if (item == null) {
+				continue;
+			} else if (name.equals("material")) {
+				parseMaterial(getElement(reader), item);
+			} else if (name.equals("mfg")) {
+				item.addManufacturingMaterial(parseIndustryMaterial(getElement(reader), item));
+			} else if (name.equals("rxn")) {
+				item.addReactionMaterial(parseIndustryMaterial(getElement(reader), item));
+			}
+		}
+		for (Map.Entry<Integer, Integer> entry : blueprints.entrySet()) {
+			Item product = items.get(entry.getValue());
+			if (product != null) {
+				product.setBlueprintID(entry.getKey());
+			}
+		}
+	}
+
 	private Item parseItem(final Node node) throws XmlException {
 		int id = getInt(node, "id");
 		String version = getStringOptional(node, "version");
@@ -22,6 +22,9 @@
 package net.nikr.eve.jeveasset.io.local;
 
 import java.util.List;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import net.nikr.eve.jeveasset.data.sde.Jump;
 import net.nikr.eve.jeveasset.data.sde.StaticData;
 import net.nikr.eve.jeveasset.io.shared.FileUtil;
@@ -30,7 +33,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 
-public final class JumpsReader extends AbstractXmlReader<Boolean> {
+public final class JumpsReader extends AbstractXmlStreamReader<Boolean> {
 
 	private final List<Jump> jumps;
 
@@ -49,6 +52,12 @@ public final class JumpsReader extends AbstractXmlReader<Boolean> {
 		return true;
 	}
 
+	@Override
+	protected Boolean parse(XMLStreamReader reader) throws XmlException, XMLStreamException {
+		streamJumps(reader);
+		return true;
+	}
+
 	@Override
 	protected Boolean failValue() {
 		return false;
@@ -68,6 +77,14 @@ public final class JumpsReader extends AbstractXmlReader<Boolean> {
 		}
 	}
 
+	private void streamJumps(final XMLStreamReader reader) throws XmlException, XMLStreamException {
+		while (reader.hasNext()) {
+			if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("row")) {
+				jumps.add(parseEdge(getElement(reader)));
+			}
+		}
+	}
+
 	private Jump parseEdge(final Node node) throws XmlException {
 		long from = getLong(node, "from");
 		long to = getLong(node, "to");
@@ -22,6 +22,9 @@
 package net.nikr.eve.jeveasset.io.local;
 
 import java.util.Map;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import net.nikr.eve.jeveasset.data.sde.MyLocation;
 import net.nikr.eve.jeveasset.io.shared.FileUtil;
 import org.w3c.dom.Element;
@@ -29,7 +32,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 
-public final class LocationsReader extends AbstractXmlReader<Boolean> {
+public final class LocationsReader extends AbstractXmlStreamReader<Boolean> {
 
 	private final Map<Long, MyLocation> locations;
 
@@ -48,6 +51,12 @@ public final class LocationsReader extends AbstractXmlReader<Boolean> {
 		return true;
 	}
 
+	@Override
+	protected Boolean parse(XMLStreamReader reader) throws XmlException, XMLStreamException {
+		streamLocations(reader);
+		return true;
+	}
+
 	@Override
 	protected Boolean failValue() {
 		return false;
@@ -67,6 +76,15 @@ public final class LocationsReader extends AbstractXmlReader<Boolean> {
 		}
 	}
 
+	private void streamLocations(final XMLStreamReader reader) throws XmlException, XMLStreamException {
+		while (reader.hasNext()) {
+			if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("row")) {
+				MyLocation location = parseLocation(getElement(reader));
+				locations.put(location.getLocationID(), location);
+			}
+		}
+	}
+
 	private MyLocation parseLocation(final Node node) throws XmlException {
 		long stationID = getLong(node, "si");
 		String station = getString(node, "s");
@@ -55,6 +55,9 @@ public final class ProfileFinder {
 			for (File file : files) {
 				String name = file.getName();
 				Profile profile = new Profile(formatName(name), defaultProfile(name), activeProfile(name));
+				if (profiles.contains(profile)) { //Saved in both the xml and the binary format
+					continue;
+				}
 				if (profile.isDefaultProfile() && !defaultProfileFound) {
 					LOG.info("Default profile found: {}", formatName(name));
 					defaultProfileFound = true;
@@ -120,7 +123,9 @@ public final class ProfileFinder {
 	}
 
 	private String formatName(String name) {
-		if (name.contains(".")) {
+		if (name.endsWith(ProfileWriter.BINARY_EXTENSION)) {
+			name = name.substring(0, name.length() - ProfileWriter.BINARY_EXTENSION.length());
+		} else if (name.contains(".")) {
 			int end = name.lastIndexOf(".");
 			name = name.substring(0, end);
 		}
@@ -139,7 +144,7 @@ public final class ProfileFinder {
 	private class XmlFileFilter implements FileFilter {
 		@Override
 		public boolean accept(final File file) {
-			return !file.isDirectory() && file.getName().endsWith(".xml");
+			return !file.isDirectory() && (file.getName().endsWith(".xml") || file.getName().endsWith(ProfileWriter.BINARY_EXTENSION));
 		}
 	}
 }
@@ -20,6 +20,8 @@
  */
 package net.nikr.eve.jeveasset.io.local;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.EnumSet;
@@ -28,6 +30,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import net.nikr.eve.jeveasset.data.api.accounts.EsiOwner;
 import net.nikr.eve.jeveasset.data.api.accounts.EveApiAccount;
 import net.nikr.eve.jeveasset.data.api.accounts.EveApiAccount.KeyType;
@@ -71,7 +75,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 
-public final class ProfileReader extends AbstractXmlReader<Boolean> {
+public final class ProfileReader extends AbstractXmlStreamReader<Boolean> implements BinaryXmlParser<Boolean> {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ProfileReader.class);
 
@@ -79,7 +83,7 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 
 	public static boolean load(ProfileManager profileManager, final String filename) {
 		ProfileReader reader = new ProfileReader(profileManager);
-		Boolean ok = reader.read(filename, filename, XmlType.DYNAMIC_BACKUP);
+		Boolean ok = reader.read(filename, reader.getProfileFilename(filename), XmlType.DYNAMIC_BACKUP);
 		if (!ok) {
 			profileManager.clear();
 		}
@@ -90,6 +94,25 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 		this.profileManager = profileManager;
 	}
 
+	/**
+	 * Use the binary profile, if it's newer than the xml profile (or only the binary profile can be restored)
+	 * @param filename xml profile filename
+	 * @return the filename of the profile to load
+	 */
+	private String getProfileFilename(final String filename) {
+		String binaryFilename = ProfileWriter.getBinaryFilename(filename);
+		File xmlFile = new File(filename);
+		File binaryFile = new File(binaryFilename);
+		if (binaryFile.exists()) {
+			if (!xmlFile.exists() || binaryFile.lastModified() >= xmlFile.lastModified()) {
+				return binaryFilename;
+			}
+		} else if (!exist(filename) && exist(binaryFilename)) { //.new or .bac
+			return binaryFilename;
+		}
+		return filename;
+	}
+
 	@Override
 	protected Boolean parse(Element element) throws XmlException {
 		profileManager.clear(); //Clear before load (may happen more than once)
@@ -97,6 +120,20 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 		return true;
 	}
 
+	@Override
+	protected Boolean parse(XMLStreamReader reader) throws XmlException, XMLStreamException {
+		profileManager.clear(); //Clear before load (may happen more than once)
+		stream(reader, new ProfileHandler());
+		return true;
+	}
+
+	@Override
+	public Boolean parse(BinaryXmlReader reader) throws XmlException, IOException {
+		profileManager.clear(); //Clear before load (may happen more than once)
+		reader.read(new ProfileHandler());
+		return true;
+	}
+
 	@Override
 	protected Boolean failValue() {
 		return false;
@@ -137,6 +174,65 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 		}
 	}
 
+	/**
+	 * Parse the profile one element at a time (used by both the xml and the binary format)
+	 */
+	private class ProfileHandler implements ElementHandler {
+
+		private boolean root = true;
+		private Set<Long> stockpileIDs = null;
+		private EveApiAccount account = null;
+		private OwnerStream ownerStream = null;
+
+		@Override
+		public void startElement(final String name, final Element element) throws XmlException {
+			if (root) {
+				if (!name.equals("assets")) {
+					throw new XmlException("Wrong root element name.");
+				}
+				root = false;
+			} else if (ownerStream != null) { //Owner data
+				ownerStream.start(name, element);
+			} else if (name.equals("stockpiles")) {
+				stockpileIDs = new HashSet<>();
+			} else if (name.equals("stockpile") && stockpileIDs != null) {
+				stockpileIDs.add(getLong(element, "id"));
+			} else if (name.equals("account")) { //Eve XML Api
+				account = parseAccount(element);
+				profileManager.getAccounts().add(account);
+			} else if (name.equals("human") && account != null) {
+				EveApiOwner owner = parseOwner(element, account);
+				parseOwnerTypeAttributes(element, owner);
+				account.getOwners().add(owner);
+				ownerStream = new OwnerStream(owner, name);
+			} else if (name.equals("evekitowner")) { //EveKit
+				EveKitOwner owner = parseEveKitOwner(element);
+				parseOwnerTypeAttributes(element, owner);
+				profileManager.getEveKitOwners().add(owner);
+				ownerStream = new OwnerStream(owner, name);
+			} else if (name.equals("esiowner")) { //Esi
+				EsiOwner owner = parseEsiOwner(element);
+				parseOwnerTypeAttributes(element, owner);
+				profileManager.getEsiOwners().add(owner);
+				ownerStream = new OwnerStream(owner, name);
+			}
+		}
+
+		@Override
+		public void endElement(final String name) throws XmlException {
+			if (ownerStream != null) {
+				if (ownerStream.end(name)) { //Owner done
+					ownerStream = null;
+				}
+			} else if (name.equals("stockpiles") && stockpileIDs != null) {
+				profileManager.getActiveProfile().setStockpileIDs(stockpileIDs);
+				stockpileIDs = null;
+			} else if (name.equals("account")) {
+				account = null;
+			}
+		}
+	}
+
 	private void parseStockpiles(final Element element, final Profile profile) throws XmlException {
 		NodeList stockpilesNodes = element.getElementsByTagName("stockpile");
 		Set<Long> stockpileIDs = new HashSet<>();
@@ -152,74 +248,83 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 		NodeList ownerNodes = element.getElementsByTagName("esiowner");
 		for (int i = 0; i < ownerNodes.getLength(); i++) {
 			Element currentNode = (Element) ownerNodes.item(i);
-			String accountName = getString(currentNode, "accountname");
-			String refreshToken = getString(currentNode, "refreshtoken");
-			String scopes = getString(currentNode, "scopes");
-			Date structuresNextUpdate = getDate(currentNode, "structuresnextupdate");
-			Date accountNextUpdate = getDate(currentNode, "accountnextupdate");
-			EsiCallbackURL callbackURL;
-			try {
-				callbackURL = EsiCallbackURL.valueOf(getString(currentNode, "callbackurl"));
-			} catch (IllegalArgumentException ex) {
-				throw new XmlException(ex);
-			}
-			Set<RolesEnum> roles = EnumSet.noneOf(RolesEnum.class);
-			if (haveAttribute(currentNode, "characterroles")) {
-				for (String role : getString(currentNode, "characterroles").split(",")) {
-					try {
-						roles.add(RolesEnum.valueOf(role));
-					} catch (IllegalArgumentException ex) {
-						
-					}
-				}
-			}
-			EsiOwner owner = new EsiOwner();
-			owner.setRoles(roles);
-			owner.setAccountName(accountName);
-			owner.setScopes(scopes);
-			owner.setStructuresNextUpdate(structuresNextUpdate);
-			owner.setAccountNextUpdate(accountNextUpdate);
-			owner.setAuth(callbackURL, refreshToken, null);
-
+			EsiOwner owner = parseEsiOwner(currentNode);
 			parseOwnerType(currentNode, owner);
 			esiOwners.add(owner);
 		}
 	}
 
+	private EsiOwner parseEsiOwner(final Element currentNode) throws XmlException {
+		String accountName = getString(currentNode, "accountname");
+		String refreshToken = getString(currentNode, "refreshtoken");
+		String scopes = getString(currentNode, "scopes");
+		Date structuresNextUpdate = getDate(currentNode, "structuresnextupdate");
+		Date accountNextUpdate = getDate(currentNode, "accountnextupdate");
+		EsiCallbackURL callbackURL;
+		try {
+			callbackURL = EsiCallbackURL.valueOf(getString(currentNode, "callbackurl"));
+		} catch (IllegalArgumentException ex) {
+			throw new XmlException(ex);
+		}
+		Set<RolesEnum> roles = EnumSet.noneOf(RolesEnum.class);
+		if (haveAttribute(currentNode, "characterroles")) {
+			for (String role : getString(currentNode, "characterroles").split(",")) {
+				try {
+					roles.add(RolesEnum.valueOf(role));
+				} catch (IllegalArgumentException ex) {
+					
+				}
+			}
+		}
+		EsiOwner owner = new EsiOwner();
+		owner.setRoles(roles);
+		owner.setAccountName(accountName);
+		owner.setScopes(scopes);
+		owner.setStructuresNextUpdate(structuresNextUpdate);
+		owner.setAccountNextUpdate(accountNextUpdate);
+		owner.setAuth(callbackURL, refreshToken, null);
+		return owner;
+	}
+
 	private void parseEveKitOwners(final Element element, final List<EveKitOwner> eveKitOwners) throws XmlException {
 		NodeList ownerNodes = element.getElementsByTagName("evekitowner");
 		for (int i = 0; i < ownerNodes.getLength(); i++) {
 			Element currentNode = (Element) ownerNodes.item(i);
-			int accessKey = getInt(currentNode, "accesskey");
-			String accessCred = getString(currentNode, "accesscred");
-			Date expire = getDateOptional(currentNode, "expire");
-			long accessmask = getLong(currentNode, "accessmask");
-			boolean corporation = getBoolean(currentNode, "corporation");
-			Date limit = getDateOptional(currentNode, "limit");
-			String accountName = getString(currentNode, "accountname");
-			//ContID
-			Long journalCID = getLongOptional(currentNode, "journalcid");
-			Long transactionsCID = getLongOptional(currentNode, "transactionscid");
-			Long contractsCID = getLongOptional(currentNode, "contractscid");
-			Long industryJobsCID = getLongOptional(currentNode, "industryjobscid");
-			Long marketOrdersCID = getLongOptional(currentNode, "marketorderscid");
-			Date accountNextUpdate = getDateOptional(currentNode, "accountnextupdate");
-			boolean migrated = false;
-			if (haveAttribute(currentNode, "migrated")) {
-				migrated = getBoolean(currentNode, "migrated");
-			}
-			EveKitOwner owner = new EveKitOwner(accessKey, accessCred, expire, accessmask, corporation, limit, accountName, migrated);
-			owner.setJournalCID(journalCID);
-			owner.setTransactionsCID(transactionsCID);
-			owner.setContractsCID(contractsCID);
-			owner.setIndustryJobsCID(industryJobsCID);
-			owner.setMarketOrdersCID(marketOrdersCID);
-			owner.setAccountNextUpdate(accountNextUpdate);
+			EveKitOwner owner = parseEveKitOwner(currentNode);
 			parseOwnerType(currentNode, owner);
 			eveKitOwners.add(owner);
 		}
 	}
 
+	private EveKitOwner parseEveKitOwner(final Element currentNode) throws XmlException {
+		int accessKey = getInt(currentNode, "accesskey");
+		String accessCred = getString(currentNode, "accesscred");
+		Date expire = getDateOptional(currentNode, "expire");
+		long accessmask = getLong(currentNode, "accessmask");
+		boolean corporation = getBoolean(currentNode, "corporation");
+		Date limit = getDateOptional(currentNode, "limit");
+		String accountName = getString(currentNode, "accountname");
+		//ContID
+		Long journalCID = getLongOptional(currentNode, "journalcid");
+		Long transactionsCID = getLongOptional(currentNode, "transactionscid");
+		Long contractsCID = getLongOptional(currentNode, "contractscid");
+		Long industryJobsCID = getLongOptional(currentNode, "industryjobscid");
+		Long marketOrdersCID = getLongOptional(currentNode, "marketorderscid");
+		Date accountNextUpdate = getDateOptional(currentNode, "accountnextupdate");
+		boolean migrated = false;
+		if (haveAttribute(currentNode, "migrated")) {
+			migrated = getBoolean(currentNode, "migrated");
+		}
+		EveKitOwner owner = new EveKitOwner(accessKey, accessCred, expire, accessmask, corporation, limit, accountName, migrated);
+		owner.setJournalCID(journalCID);
+		owner.setTransactionsCID(transactionsCID);
+		owner.setContractsCID(contractsCID);
+		owner.setIndustryJobsCID(industryJobsCID);
+		owner.setMarketOrdersCID(marketOrdersCID);
+		owner.setAccountNextUpdate(accountNextUpdate);
+		return owner;
+	}
+
 	private void parseAccounts(final Element element, final List<EveApiAccount> accounts) throws XmlException {
 		NodeList accountNodes = element.getElementsByTagName("account");
 		for (int i = 0; i < accountNodes.getLength(); i++) {
@@ -274,17 +379,41 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 		NodeList ownerNodes = element.getElementsByTagName("human");
 		for (int i = 0; i < ownerNodes.getLength(); i++) {
 			Element currentNode = (Element) ownerNodes.item(i);
-			boolean migrated = false;
-			if (haveAttribute(currentNode, "migrated")) {
-				migrated = getBoolean(currentNode, "migrated");
-			}
-			EveApiOwner owner = new EveApiOwner(account, migrated);
+			EveApiOwner owner = parseOwner(currentNode, account);
 			parseOwnerType(currentNode, owner);
 			account.getOwners().add(owner);
 		}
 	}
 
+	private EveApiOwner parseOwner(final Element currentNode, final EveApiAccount account) throws XmlException {
+		boolean migrated = false;
+		if (haveAttribute(currentNode, "migrated")) {
+			migrated = getBoolean(currentNode, "migrated");
+		}
+		return new EveApiOwner(account, migrated);
+	}
+
 	private void parseOwnerType(final Element node, OwnerType owner) throws XmlException {
+		parseOwnerTypeAttributes(node, owner);
+
+		NodeList assetNodes = node.getElementsByTagName("assets");
+		if (assetNodes.getLength() == 1) {
+			parseAssets(assetNodes.item(0), owner, owner.getAssets(), null);
+		}
+		parseActiveShip(node, owner);
+		parseContracts(node, owner);
+		parseBalances(node, owner);
+		parseMarketOrders(node, owner);
+		parseJournals(node, owner);
+		parseTransactions(node, owner);
+		parseIndustryJobs(node, owner);
+		parseBlueprints(node, owner);
+		parseAssetDivisions(node, owner);
+		parseWalletDivisions(node, owner);
+		parseSkills(node, owner);
+	}
+
+	private void parseOwnerTypeAttributes(final Element node, OwnerType owner) throws XmlException {
 		String ownerName = getString(node, "name");
 		String corporationName = getStringOptional(node, "corp");
 		long ownerID = getLong(node, "id");
@@ -327,37 +456,23 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 		owner.setBlueprintsNextUpdate(blueprintsNextUpdate);
 		owner.setBookmarksNextUpdate(bookmarksNextUpdate);
 		owner.setSkillsNextUpdate(skillsNextUpdate);
-
-		NodeList assetNodes = node.getElementsByTagName("assets");
-		if (assetNodes.getLength() == 1) {
-			parseAssets(assetNodes.item(0), owner, owner.getAssets(), null);
-		}
-		parseActiveShip(node, owner);
-		parseContracts(node, owner);
-		parseBalances(node, owner);
-		parseMarketOrders(node, owner);
-		parseJournals(node, owner);
-		parseTransactions(node, owner);
-		parseIndustryJobs(node, owner);
-		parseBlueprints(node, owner);
-		parseAssetDivisions(node, owner);
-		parseWalletDivisions(node, owner);
-		parseSkills(node, owner);
 	}
 
 	private void parseActiveShip(final Element element, final OwnerType owner) throws XmlException {
 		NodeList activeShipNodes = element.getElementsByTagName("activeship");
 		if(activeShipNodes.getLength() == 1) {
 			Element activeShipNode = (Element) activeShipNodes.item(0);
-			long itemId = getLong(activeShipNode, "itemid");
-			int typeId = getInt(activeShipNode, "typeid");
-			long locationId = getLong(activeShipNode, "locationid");
-
-			MyShip activeShip = new MyShip(itemId, typeId, locationId);
-			owner.setActiveShip(activeShip);
+			owner.setActiveShip(parseActiveShip(activeShipNode));
 		}
 	}
 
+	private MyShip parseActiveShip(final Element activeShipNode) throws XmlException {
+		long itemId = getLong(activeShipNode, "itemid");
+		int typeId = getInt(activeShipNode, "typeid");
+		long locationId = getLong(activeShipNode, "locationid");
+		return new MyShip(itemId, typeId, locationId);
+	}
+
 	private void parseContracts(final Element element, final OwnerType owner) throws XmlException {
 		NodeList contractsNodes = element.getElementsByTagName("contracts");
 		Map<MyContract, List<MyContractItem>> contracts = new HashMap<MyContract, List<MyContractItem>>();
@@ -491,7 +606,7 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 			NodeList marketOrderNodes = currentMarketOrdersNode.getElementsByTagName("markerorder");
 			for (int b = 0; b < marketOrderNodes.getLength(); b++) {
 				Element currentNode = (Element) marketOrderNodes.item(b);
-				RawMarketOrder rawMarketOrder = parseMarketOrder(currentNode, owner);
+				RawMarketOrder rawMarketOrder = parseMarketOrder(currentNode, owner, parseChanges(currentNode));
 				MyMarketOrder marketOrder = DataConverter.toMyMarketOrder(rawMarketOrder, owner);
 				marketOrders.add(marketOrder);
 			}
@@ -499,7 +614,24 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 		owner.setMarketOrders(marketOrders);
 	}
 
-	private RawMarketOrder parseMarketOrder(final Element element, final OwnerType owner) throws XmlException {
+	private Set<Change> parseChanges(final Element element) throws XmlException {
+		NodeList changeNodes = element.getElementsByTagName("change");
+		Set<Change> changes = new HashSet<>();
+		for (int a = 0; a < changeNodes.getLength(); a++) {
+			Element changeNode = (Element) changeNodes.item(a);
+			changes.add(parseChange(changeNode));
+		}
+		return changes;
+	}
+
+	private Change parseChange(final Element changeNode) throws XmlException {
+		Date date = getDate(changeNode, "date");
+		Double changePrice = getDoubleOptional(changeNode, "price");
+		Integer changeVolRemaining = getIntOptional(changeNode, "volremaining");
+		return new Change(date, changePrice, changeVolRemaining);
+	}
+
+	private RawMarketOrder parseMarketOrder(final Element element, final OwnerType owner, final Set<Change> changes) throws XmlException {
 		RawMarketOrder apiMarketOrder = RawMarketOrder.create();
 		long orderID = getLong(element, "orderid");
 		long locationID = getLong(element, "stationid");
@@ -526,15 +658,6 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 		if (haveAttribute(element, "corp")) {
 			corp = getBoolean(element, "corp");
 		}
-		NodeList changeNodes = element.getElementsByTagName("change");
-		Set<Change> changes = new HashSet<>();
-		for (int a = 0; a < changeNodes.getLength(); a++) {
-			Element changeNode = (Element) changeNodes.item(a);
-			Date date = getDate(changeNode, "date");
-			Double changePrice = getDoubleOptional(changeNode, "price");
-			Integer changeVolRemaining = getIntOptional(changeNode, "volremaining");
-			changes.add(new Change(date, changePrice, changeVolRemaining));
-		}
 		apiMarketOrder.setWalletDivision(accountID);
 		apiMarketOrder.setDuration(duration);
 		apiMarketOrder.setEscrow(escrow);
@@ -875,9 +998,7 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 			NodeList divisionNodes = currentDivisionsNode.getElementsByTagName("assetdivision");
 			for (int b = 0; b < divisionNodes.getLength(); b++) {
 				Element currentNode = (Element) divisionNodes.item(b);
-				int id = getInt(currentNode, "id");
-				String name = getStringOptional(currentNode, "name");
-				divisions.put(id, name);
+				parseDivision(currentNode, divisions);
 			}
 		}
 		owners.setAssetDivisions(divisions);
@@ -891,14 +1012,18 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 			NodeList divisionNodes = currentDivisionsNode.getElementsByTagName("walletdivision");
 			for (int b = 0; b < divisionNodes.getLength(); b++) {
 				Element currentNode = (Element) divisionNodes.item(b);
-				int id = getInt(currentNode, "id");
-				String name = getStringOptional(currentNode, "name");
-				divisions.put(id, name);
+				parseDivision(currentNode, divisions);
 			}
 		}
 		owners.setWalletDivisions(divisions);
 	}
 
+	private void parseDivision(final Element currentNode, final Map<Integer, String> divisions) throws XmlException {
+		int id = getInt(currentNode, "id");
+		String name = getStringOptional(currentNode, "name");
+		divisions.put(id, name);
+	}
+
 	private void parseSkills(final Element element, final OwnerType owners) throws XmlException {
 		NodeList skillsNodes = element.getElementsByTagName("skills");
 		for (int a = 0; a < skillsNodes.getLength(); a++) {
@@ -909,22 +1034,200 @@ public final class ProfileReader extends AbstractXmlReader<Boolean> {
 			NodeList skillNodes = currentSkillsNode.getElementsByTagName("skill");
 			for (int b = 0; b < skillNodes.getLength(); b++) {
 				Element currentNode = (Element) skillNodes.item(b);
-				
-				int typeID =  getInt(currentNode, "id");
-				long skillpoints = getLong(currentNode, "sp");
-				int activeSkillLevel = getInt(currentNode, "active");
-				int trainedSkillLevel = getInt(currentNode, "trained");
-				
-				RawSkill skill = RawSkill.create();
-				skill.setTypeID(typeID);
-				skill.setSkillpoints(skillpoints);
-				skill.setActiveSkillLevel(activeSkillLevel);
-				skill.setTrainedSkillLevel(trainedSkillLevel);
-				skills.add(skill);
+				skills.add(parseSkill(currentNode));
 			}
 			owners.setSkills(skills);
 			owners.setTotalSkillPoints(totalSkillPoints);
 			owners.setUnallocatedSkillPoints(unallocatedSkillPoints);
 		}
 	}
+
+	private RawSkill parseSkill(final Element currentNode) throws XmlException {
+		int typeID =  getInt(currentNode, "id");
+		long skillpoints = getLong(currentNode, "sp");
+		int activeSkillLevel = getInt(currentNode, "active");
+		int trainedSkillLevel = getInt(currentNode, "trained");
+
+		RawSkill skill = RawSkill.create();
+		skill.setTypeID(typeID);
+		skill.setSkillpoints(skillpoints);
+		skill.setActiveSkillLevel(activeSkillLevel);
+		skill.setTrainedSkillLevel(trainedSkillLevel);
+		return skill;
+	}
+
+	/**
+	 * Collects the data of one owner while streaming
+	 * and converts each row as soon as its element have been read.
+	 */
+	private class OwnerStream {
+
+		private final OwnerType owner;
+		private final String elementName;
+		private final Map<MyContract, List<MyContractItem>> contracts = new HashMap<>();
+		private final List<MyAccountBalance> accountBalances = new ArrayList<>();
+		private final Set<MyMarketOrder> marketOrders = new HashSet<>();
+		private final Set<MyJournal> journals = new HashSet<>();
+		private final Set<MyTransaction> transactions = new HashSet<>();
+		private final List<MyIndustryJob> industryJobs = new ArrayList<>();
+		private final Map<Long, RawBlueprint> blueprints = new HashMap<>();
+		private final Map<Integer, String> assetDivisions = new HashMap<>();
+		private final Map<Integer, String> walletDivisions = new HashMap<>();
+		private final List<MyAsset> parentAssets = new ArrayList<>();
+		private int skipAssets = 0;
+		private MyContract contract;
+		private List<MyContractItem> contractItems;
+		private Element marketOrderElement;
+		private Set<Change> changes;
+		private Element skillsElement;
+		private List<RawSkill> skills;
+
+		public OwnerStream(OwnerType owner, String elementName) {
+			this.owner = owner;
+			this.elementName = elementName;
+		}
+
+		public void start(final String name, final Element element) throws XmlException {
+			if (skipAssets > 0) { //Skipping invalid asset and its content
+				if (name.equals("asset")) {
+					skipAssets++;
+				}
+				return;
+			}
+			switch (name) {
+				case "asset":
+					startAsset(element);
+					break;
+				case "activeship":
+					owner.setActiveShip(parseActiveShip(element));
+					break;
+				case "contract":
+					contract = DataConverter.toMyContract(parseContract(element));
+					contractItems = new ArrayList<>();
+					break;
+				case "contractitem":
+					if (contract != null) {
+						contractItems.add(DataConverter.toMyContractItem(parseContractItem(element), contract));
+					}
+					break;
+				case "balance":
+					accountBalances.add(DataConverter.toMyAccountBalance(parseBalance(element), owner));
+					break;
+				case "markerorder":
+					marketOrderElement = element;
+					changes = new HashSet<>();
+					break;
+				case "change":
+					if (changes != null) {
+						changes.add(parseChange(element));
+					}
+					break;
+				case "journal":
+					journals.add(DataConverter.toMyJournal(parseJournal(element), owner));
+					break;
+				case "wallettransaction":
+					transactions.add(DataConverter.toMyTransaction(parseTransaction(element), owner));
+					break;
+				case "industryjob":
+					if (haveAttribute(element, "blueprintid")) {
+						industryJobs.add(DataConverter.toMyIndustryJob(parseIndustryJob(element), owner));
+					}
+					break;
+				case "blueprint":
+					RawBlueprint blueprint = parseBlueprint(element);
+					blueprints.put(blueprint.getItemID(), blueprint);
+					break;
+				case "assetdivision":
+					parseDivision(element, assetDivisions);
+					break;
+				case "walletdivision":
+					parseDivision(element, walletDivisions);
+					break;
+				case "skills":
+					skillsElement = element;
+					skills = new ArrayList<>();
+					break;
+				case "skill":
+					if (skills != null) {
+						skills.add(parseSkill(element));
+					}
+					break;
+			}
+		}
+
+		/**
+		 * 
+		 * @param name
+		 * @return true if the owner element ended
+		 * @throws XmlException 
+		 */
+		public boolean end(final String name) throws XmlException {
+			if (skipAssets > 0) {
+				if (name.equals("asset")) {
+					skipAssets--;
+				}
+				return false;
+			}
+			switch (name) {
+				case "asset":
+					parentAssets.remove(parentAssets.size() - 1);
+					break;
+				case "contract":
+					if (contract != null) {
+						contracts.put(contract, contractItems);
+					}
+					contract = null;
+					contractItems = null;
+					break;
+				case "markerorder":
+					RawMarketOrder rawMarketOrder = parseMarketOrder(marketOrderElement, owner, changes);
+					marketOrders.add(DataConverter.toMyMarketOrder(rawMarketOrder, owner));
+					marketOrderElement = null;
+					changes = null;
+					break;
+				case "skills":
+					owner.setSkills(skills);
+					owner.setTotalSkillPoints(getLongOptional(skillsElement, "total"));
+					owner.setUnallocatedSkillPoints(getIntOptional(skillsElement, "unallocated"));
+					skillsElement = null;
+					skills = null;
+					break;
+			}
+			if (name.equals(elementName)) {
+				owner.setContracts(contracts);
+				owner.setAccountBalances(accountBalances);
+				owner.setMarketOrders(marketOrders);
+				owner.setJournal(journals);
+				owner.setTransactions(transactions);
+				owner.setIndustryJobs(industryJobs);
+				owner.setBlueprints(blueprints);
+				owner.setAssetDivisions(assetDivisions);
+				owner.setWalletDivisions(walletDivisions);
+				return true;
+			}
+			return false;
+		}
+
+		private void startAsset(final Element element) throws XmlException {
+			MyAsset parentAsset = null;
+			List<MyAsset> parents = new ArrayList<>();
+			if (!parentAssets.isEmpty()) { //Child
+				parentAsset = parentAssets.get(parentAssets.size() - 1);
+				parents.addAll(parentAsset.getParents());
+				parents.add(parentAsset);
+			}
+			RawAsset rawAsset = parseAsset(element, parentAsset);
+			MyAsset asset = DataConverter.toMyAsset(rawAsset, owner, parents);
+			if (asset == null) {
+				skipAssets = 1;
+				return;
+			}
+			if (parentAsset == null) { //Root
+				owner.getAssets().add(asset);
+			} else { //Child
+				parentAsset.addAsset(asset);
+			}
+			parentAssets.add(asset);
+		}
+	}
 }
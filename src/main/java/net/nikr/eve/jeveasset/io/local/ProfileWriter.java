@@ -20,10 +20,12 @@
  */
 package net.nikr.eve.jeveasset.io.local;
 
+import java.io.File;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import net.nikr.eve.jeveasset.CliOptions;
 import net.nikr.eve.jeveasset.data.api.accounts.EsiOwner;
 import net.nikr.eve.jeveasset.data.api.accounts.EveApiAccount;
 import net.nikr.eve.jeveasset.data.api.accounts.EveApiOwner;
@@ -54,49 +56,87 @@ import org.w3c.dom.Element;
 public final class ProfileWriter extends AbstractXmlWriter {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ProfileWriter.class);
+	public static final String BINARY_EXTENSION = ".bin" + BinaryXmlWriter.EXTENSION;
 
 	private ProfileWriter() { }
 
 	public static boolean save(final ProfileManager profileManager, final String filename) {
+		return save(profileManager, filename, CliOptions.get().isBinaryProfile());
+	}
+
+	public static boolean save(final ProfileManager profileManager, final String filename, final boolean binary) {
 		ProfileWriter writer = new ProfileWriter();
-		return writer.write(profileManager, filename);
+		return writer.write(profileManager, filename, binary);
+	}
+
+	/**
+	 * The binary profile is saved next to the xml profile, but with its own extension (and .new/.bac files)
+	 * @param filename xml profile filename
+	 * @return binary profile filename
+	 */
+	public static String getBinaryFilename(final String filename) {
+		return filename.substring(0, filename.lastIndexOf(".")) + BINARY_EXTENSION;
+	}
+
+	/**
+	 * Convert a profile file between the xml and the binary format
+	 * @param filename xml profile filename
+	 * @param binary true to convert to binary, false to convert to xml
+	 * @return true if the profile was converted
+	 */
+	public static boolean convert(final String filename, final boolean binary) {
+		ProfileManager profileManager = new ProfileManager();
+		if (!ProfileReader.load(profileManager, filename)) {
+			return false;
+		}
+		return save(profileManager, filename, binary);
 	}
 
-	private boolean write(final ProfileManager profileManager, final String filename) {
-		Document xmldoc;
+	private boolean write(final ProfileManager profileManager, final String filename, final boolean binary) {
+		final Document xmldoc;
 		try {
 			xmldoc = getXmlDocument("assets");
 		} catch (XmlException ex) {
 			LOG.error("Profile not saved " + ex.getMessage(), ex);
 			return false;
 		}
-		writeStockpiles(xmldoc, profileManager.getActiveProfile());
-		writeAccounts(xmldoc, profileManager.getAccounts());
-		writeEveKitOwners(xmldoc, profileManager.getEveKitOwners());
-		writeEsiOwners(xmldoc, profileManager.getEsiOwners());
 		try {
-			writeXmlFile(xmldoc, filename, true);
+			writeXmlStream(xmldoc, binary ? getBinaryFilename(filename) : filename, true, new XmlStreamContent() {
+				@Override
+				public void write() throws XmlException {
+					writeStockpiles(xmldoc, profileManager.getActiveProfile());
+					writeAccounts(xmldoc, profileManager.getAccounts());
+					writeEveKitOwners(xmldoc, profileManager.getEveKitOwners());
+					writeEsiOwners(xmldoc, profileManager.getEsiOwners());
+				}
+			});
 		} catch (XmlException ex) {
 			LOG.error("Profile not saved " + ex.getMessage(), ex);
 			return false;
 		}
+		//Only keep the saved format
+		File file = new File(binary ? filename : getBinaryFilename(filename));
+		if (file.exists() && !file.delete()) {
+			LOG.warn("Failed to delete: " + file.getAbsolutePath());
+		}
 		LOG.info("Profile saved");
 		return true;
 	}
 
-	private void writeStockpiles(final Document xmldoc, final Profile profile) {
+	private void writeStockpiles(final Document xmldoc, final Profile profile) throws XmlException {
 		Element parentNode = xmldoc.createElement("stockpiles");
-		xmldoc.getDocumentElement().appendChild(parentNode);
+		writeStartElement(parentNode);
 		for (Long id : profile.getStockpileIDs()) {
 			Element node = xmldoc.createElement("stockpile");
 			setAttribute(node, "id", id);
-			parentNode.appendChild(node);
+			writeElement(node);
 		}
+		writeEndElement();
 	}
 
-	private void writeEsiOwners(final Document xmldoc, final List<EsiOwner> esiOwners) {
+	private void writeEsiOwners(final Document xmldoc, final List<EsiOwner> esiOwners) throws XmlException {
 		Element parentNode = xmldoc.createElement("esiowners");
-		xmldoc.getDocumentElement().appendChild(parentNode);
+		writeStartElement(parentNode);
 		for (EsiOwner owner : esiOwners) {
 			Element node = xmldoc.createElement("esiowner");
 			setAttribute(node, "accountname", owner.getAccountName());
@@ -111,13 +151,13 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			}
 			setAttribute(node, "characterroles", String.join(",", roles));
 			writeTypeOwner(xmldoc, node, owner);
-			parentNode.appendChild(node);
 		}
+		writeEndElement();
 	}
 
-	private void writeEveKitOwners(final Document xmldoc, final List<EveKitOwner> eveKitOwners) {
+	private void writeEveKitOwners(final Document xmldoc, final List<EveKitOwner> eveKitOwners) throws XmlException {
 		Element parentNode = xmldoc.createElement("evekitowners");
-		xmldoc.getDocumentElement().appendChild(parentNode);
+		writeStartElement(parentNode);
 		for (EveKitOwner owner : eveKitOwners) {
 			Element node = xmldoc.createElement("evekitowner");
 			setAttribute(node, "accesskey", owner.getAccessKey());
@@ -136,13 +176,13 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			setAttributeOptional(node, "marketorderscid", owner.getMarketOrdersCID());
 			setAttributeOptional(node, "accountnextupdate", owner.getAccountNextUpdate());
 			writeTypeOwner(xmldoc, node, owner);
-			parentNode.appendChild(node);
 		}
+		writeEndElement();
 	}
 
-	private void writeAccounts(final Document xmldoc, final List<EveApiAccount> accounts) {
+	private void writeAccounts(final Document xmldoc, final List<EveApiAccount> accounts) throws XmlException {
 		Element parentNode = xmldoc.createElement("accounts");
-		xmldoc.getDocumentElement().appendChild(parentNode);
+		writeStartElement(parentNode);
 
 		for (EveApiAccount account : accounts) {
 			Element node = xmldoc.createElement("account");
@@ -154,21 +194,22 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			setAttributeOptional(node, "type", account.getType());
 			setAttribute(node, "expires", account.getExpires() == null ? "0" : account.getExpires());
 			setAttribute(node, "invalid", account.isInvalid());
-			parentNode.appendChild(node);
-			writeOwners(xmldoc, node, account.getOwners());
+			writeStartElement(node);
+			writeOwners(xmldoc, account.getOwners());
+			writeEndElement();
 		}
+		writeEndElement();
 	}
 
-	private void writeOwners(final Document xmldoc, final Element parentNode, final List<EveApiOwner> owners) {
+	private void writeOwners(final Document xmldoc, final List<EveApiOwner> owners) throws XmlException {
 		for (EveApiOwner owner : owners) {
 			Element node = xmldoc.createElement("human");
 			setAttribute(node, "migrated", owner.isMigrated());
 			writeTypeOwner(xmldoc, node, owner);
-			parentNode.appendChild(node);
 		}
 	}
 
-	private void writeTypeOwner(final Document xmldoc, final Element node, final OwnerType owner) {
+	private void writeTypeOwner(final Document xmldoc, final Element node, final OwnerType owner) throws XmlException {
 		setAttribute(node, "id", owner.getOwnerID());
 		setAttribute(node, "name", owner.getOwnerName());
 		setAttributeOptional(node, "corp", owner.getCorporationName());
@@ -188,23 +229,26 @@ public final class ProfileWriter extends AbstractXmlWriter {
 		setAttribute(node, "bookmarksnextupdate", owner.getBookmarksNextUpdate());
 		setAttribute(node, "skillsnextupdate", owner.getSkillsNextUpdate());
 
+		writeStartElement(node);
 		Element childNode = xmldoc.createElement("assets");
-		node.appendChild(childNode);
-		writeAssets(xmldoc, childNode, owner.getAssets());
-		writeActiveShip(xmldoc, node, owner.getActiveShip());
-		writeContractItems(xmldoc, node, owner.getContracts());
-		writeAccountBalances(xmldoc, node, owner.getAccountBalances(), owner.isCorporation());
-		writeMarketOrders(xmldoc, node, owner.getMarketOrders(), owner.isCorporation());
-		writeJournals(xmldoc, node, owner.getJournal(), owner.isCorporation());
-		writeTransactions(xmldoc, node, owner.getTransactions(), owner.isCorporation());
-		writeIndustryJobs(xmldoc, node, owner.getIndustryJobs(), owner.isCorporation());
-		writeBlueprints(xmldoc, node, owner.getBlueprints(), owner.isCorporation());
-		writeAssetDivisions(xmldoc, node, owner.getAssetDivisions());
-		writeWalletDivisions(xmldoc, node, owner.getWalletDivisions());
-		writeSkills(xmldoc, node, owner.getSkills(), owner.getTotalSkillPoints(), owner.getUnallocatedSkillPoints());
+		writeStartSection(childNode);
+		writeAssets(xmldoc, owner.getAssets());
+		writeEndSection();
+		writeActiveShip(xmldoc, owner.getActiveShip());
+		writeContractItems(xmldoc, owner.getContracts());
+		writeAccountBalances(xmldoc, owner.getAccountBalances(), owner.isCorporation());
+		writeMarketOrders(xmldoc, owner.getMarketOrders(), owner.isCorporation());
+		writeJournals(xmldoc, owner.getJournal(), owner.isCorporation());
+		writeTransactions(xmldoc, owner.getTransactions(), owner.isCorporation());
+		writeIndustryJobs(xmldoc, owner.getIndustryJobs(), owner.isCorporation());
+		writeBlueprints(xmldoc, owner.getBlueprints(), owner.isCorporation());
+		writeAssetDivisions(xmldoc, owner.getAssetDivisions());
+		writeWalletDivisions(xmldoc, owner.getWalletDivisions());
+		writeSkills(xmldoc, owner.getSkills(), owner.getTotalSkillPoints(), owner.getUnallocatedSkillPoints());
+		writeEndElement();
 	}
 
-	private void writeAssets(final Document xmldoc, final Element parentNode, final List<MyAsset> assets) {
+	private void writeAssets(final Document xmldoc, final List<MyAsset> assets) throws XmlException {
 		for (MyAsset asset : assets) {
 			Element node = xmldoc.createElement("asset");
 			Integer quantity = asset.getQuantity();
@@ -225,24 +269,29 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			setAttribute(node, "locationid", asset.getLocationID());
 			setAttribute(node, "singleton", asset.isSingleton());
 			setAttributeOptional(node, "rawquantity", rawQuantity);
-			parentNode.appendChild(node);
-			writeAssets(xmldoc, node, asset.getAssets());
+			if (asset.getAssets().isEmpty()) {
+				writeElement(node);
+			} else {
+				writeStartElement(node);
+				writeAssets(xmldoc, asset.getAssets());
+				writeEndElement();
+			}
 		}
 	}
 
-	private void writeActiveShip(Document xmldoc, Element parentNode, MyShip activeShip) {
+	private void writeActiveShip(Document xmldoc, MyShip activeShip) throws XmlException {
 		if (activeShip != null) {
 			Element node = xmldoc.createElement("activeship");
 			setAttribute(node, "itemid", activeShip.getItemID());
 			setAttribute(node, "typeid", activeShip.getTypeID());
 			setAttribute(node, "locationid", activeShip.getLocationID());
-			parentNode.appendChild(node);
+			writeElement(node);
 		}
 	}
 
-	private void writeContractItems(Document xmldoc, Element parentNode, Map<MyContract, List<MyContractItem>> contractItems) {
+	private void writeContractItems(Document xmldoc, Map<MyContract, List<MyContractItem>> contractItems) throws XmlException {
 		Element contractsNode = xmldoc.createElement("contracts");
-		parentNode.appendChild(contractsNode);
+		writeStartSection(contractsNode);
 		for (Map.Entry<MyContract, List<MyContractItem>> entry : contractItems.entrySet()) {
 			MyContract contract = entry.getKey();
 			Element contractNode = xmldoc.createElement("contract");
@@ -271,7 +320,7 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			setAttributeOptional(contractNode, "type", contract.getType());
 			setAttributeOptional(contractNode, "volume", contract.getVolume());
 			setAttribute(contractNode, "forcorp", contract.isForCorp());
-			contractsNode.appendChild(contractNode);
+			writeStartElement(contractNode);
 			for (MyContractItem contractItem : entry.getValue()) {
 				Element itemNode = xmldoc.createElement("contractitem");
 				setAttribute(itemNode, "included", contractItem.isIncluded());
@@ -280,31 +329,36 @@ public final class ProfileWriter extends AbstractXmlWriter {
 				setAttribute(itemNode, "singleton", contractItem.isSingleton());
 				setAttribute(itemNode, "typeid", contractItem.getTypeID());
 				setAttributeOptional(itemNode, "rawquantity", contractItem.getRawQuantity());
-				contractNode.appendChild(itemNode);
+				writeElement(itemNode);
 			}
+			writeEndElement();
 		}
+		writeEndSection();
 	}
 
-	private void writeAccountBalances(final Document xmldoc, final Element parentNode, final List<MyAccountBalance> accountBalances, final boolean bCorp) {
-		Element node = xmldoc.createElement("balances");
-		if (!accountBalances.isEmpty()) {
-			setAttribute(node, "corp", bCorp);
-			parentNode.appendChild(node);
+	private void writeAccountBalances(final Document xmldoc, final List<MyAccountBalance> accountBalances, final boolean bCorp) throws XmlException {
+		if (accountBalances.isEmpty()) {
+			return;
 		}
+		Element node = xmldoc.createElement("balances");
+		setAttribute(node, "corp", bCorp);
+		writeStartSection(node);
 		for (MyAccountBalance accountBalance : accountBalances) {
 			Element childNode = xmldoc.createElement("balance");
 			setAttribute(childNode, "accountkey", accountBalance.getAccountKey());
 			setAttribute(childNode, "balance", accountBalance.getBalance());
-			node.appendChild(childNode);
+			writeElement(childNode);
 		}
+		writeEndSection();
 	}
 
-	private void writeMarketOrders(final Document xmldoc, final Element parentNode, final Set<MyMarketOrder> marketOrders, final boolean bCorp) {
-		Element node = xmldoc.createElement("markerorders");
-		if (!marketOrders.isEmpty()) {
-			setAttribute(node, "corp", bCorp);
-			parentNode.appendChild(node);
+	private void writeMarketOrders(final Document xmldoc, final Set<MyMarketOrder> marketOrders, final boolean bCorp) throws XmlException {
+		if (marketOrders.isEmpty()) {
+			return;
 		}
+		Element node = xmldoc.createElement("markerorders");
+		setAttribute(node, "corp", bCorp);
+		writeStartSection(node);
 		for (MyMarketOrder marketOrder : marketOrders) {
 			Element childNode = xmldoc.createElement("markerorder");
 			setAttribute(childNode, "orderid", marketOrder.getOrderID());
@@ -325,22 +379,24 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			setAttribute(childNode, "issued", marketOrder.getIssued());
 			setAttributeOptional(childNode, "issuedby", marketOrder.getIssuedBy());
 			setAttribute(childNode, "corp", marketOrder.isCorp());
-			node.appendChild(childNode);
 			for (Change change : marketOrder.getChanges()) {
 				Element changeNode = xmldoc.createElement("change");
 				setAttribute(changeNode, "date", change.getDate());
 				setAttributeOptional(changeNode, "price", change.getPrice());
 				setAttributeOptional(changeNode, "volremaining", change.getVolumeRemaining());
 			}
+			writeElement(childNode);
 		}
+		writeEndSection();
 	}
 
-	private void writeJournals(final Document xmldoc, final Element parentNode, final Set<MyJournal> journals, final boolean bCorp) {
-		Element node = xmldoc.createElement("journals");
-		if (!journals.isEmpty()) {
-			setAttribute(node, "corp", bCorp);
-			parentNode.appendChild(node);
+	private void writeJournals(final Document xmldoc, final Set<MyJournal> journals, final boolean bCorp) throws XmlException {
+		if (journals.isEmpty()) {
+			return;
 		}
+		Element node = xmldoc.createElement("journals");
+		setAttribute(node, "corp", bCorp);
+		writeStartSection(node);
 		for (MyJournal journal : journals) {
 			Element childNode = xmldoc.createElement("journal");
 			//Base
@@ -363,16 +419,18 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			setAttributeOptional(childNode, "taxreceiverid", journal.getTaxReceiverId());
 			//Extra
 			setAttribute(childNode, "accountkey", journal.getAccountKey());
-			node.appendChild(childNode);
+			writeElement(childNode);
 		}
+		writeEndSection();
 	}
 
-	private void writeTransactions(final Document xmldoc, final Element parentNode, final Set<MyTransaction> transactions, final boolean bCorp) {
-		Element node = xmldoc.createElement("wallettransactions");
-		if (!transactions.isEmpty()) {
-			setAttribute(node, "corp", bCorp);
-			parentNode.appendChild(node);
+	private void writeTransactions(final Document xmldoc, final Set<MyTransaction> transactions, final boolean bCorp) throws XmlException {
+		if (transactions.isEmpty()) {
+			return;
 		}
+		Element node = xmldoc.createElement("wallettransactions");
+		setAttribute(node, "corp", bCorp);
+		writeStartSection(node);
 		for (MyTransaction transaction : transactions) {
 			Element childNode = xmldoc.createElement("wallettransaction");
 			setAttribute(childNode, "transactiondatetime", transaction.getDate());
@@ -390,16 +448,18 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			setAttribute(childNode, "clienttypeid", transaction.getClientID());
 			//Extra
 			setAttribute(childNode, "accountkey", transaction.getAccountKey());
-			node.appendChild(childNode);
+			writeElement(childNode);
 		}
+		writeEndSection();
 	}
 
-	private void writeIndustryJobs(final Document xmldoc, final Element parentNode, final List<MyIndustryJob> industryJobs, final boolean bCorp) {
-		Element node = xmldoc.createElement("industryjobs");
-		if (!industryJobs.isEmpty()) {
-			setAttribute(node, "corp", bCorp);
-			parentNode.appendChild(node);
+	private void writeIndustryJobs(final Document xmldoc, final List<MyIndustryJob> industryJobs, final boolean bCorp) throws XmlException {
+		if (industryJobs.isEmpty()) {
+			return;
 		}
+		Element node = xmldoc.createElement("industryjobs");
+		setAttribute(node, "corp", bCorp);
+		writeStartSection(node);
 		for (MyIndustryJob industryJob : industryJobs) {
 			Element childNode = xmldoc.createElement("industryjob");
 			setAttribute(childNode, "jobid", industryJob.getJobID());
@@ -425,16 +485,18 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			setAttributeOptional(childNode, "completeddate", industryJob.getCompletedDate());
 			setAttributeOptional(childNode, "completedcharacterid", industryJob.getCompletedCharacterID());
 			setAttributeOptional(childNode, "successfulruns", industryJob.getSuccessfulRuns());
-			node.appendChild(childNode);
+			writeElement(childNode);
 		}
+		writeEndSection();
 	}
 
-	private void writeBlueprints(final Document xmldoc, final Element parentNode, final Map<Long, RawBlueprint> blueprints, final boolean bCorp) {
-		Element node = xmldoc.createElement("blueprints");
-		if (!blueprints.isEmpty()) {
-			setAttribute(node, "corp", bCorp);
-			parentNode.appendChild(node);
+	private void writeBlueprints(final Document xmldoc, final Map<Long, RawBlueprint> blueprints, final boolean bCorp) throws XmlException {
+		if (blueprints.isEmpty()) {
+			return;
 		}
+		Element node = xmldoc.createElement("blueprints");
+		setAttribute(node, "corp", bCorp);
+		writeStartSection(node);
 		for (RawBlueprint blueprint : blueprints.values()) {
 			Element childNode = xmldoc.createElement("blueprint");
 			setAttribute(childNode, "itemid", blueprint.getItemID());
@@ -446,48 +508,54 @@ public final class ProfileWriter extends AbstractXmlWriter {
 			setAttribute(childNode, "timeefficiency", blueprint.getTimeEfficiency());
 			setAttribute(childNode, "materialefficiency", blueprint.getMaterialEfficiency());
 			setAttribute(childNode, "runs", blueprint.getRuns());
-			node.appendChild(childNode);
+			writeElement(childNode);
 		}
+		writeEndSection();
 	}
 
-	private void writeAssetDivisions(final Document xmldoc, final Element parentNode, final Map<Integer, String> divisions) {
-		Element node = xmldoc.createElement("assetdivisions");
-		if (!divisions.isEmpty()) {
-			parentNode.appendChild(node);
+	private void writeAssetDivisions(final Document xmldoc, final Map<Integer, String> divisions) throws XmlException {
+		if (divisions.isEmpty()) {
+			return;
 		}
+		Element node = xmldoc.createElement("assetdivisions");
+		writeStartElement(node);
 		for (Map.Entry<Integer, String> entry : divisions.entrySet()) {
 			Element childNode = xmldoc.createElement("assetdivision");
 			setAttribute(childNode, "id", entry.getKey());
 			setAttribute(childNode, "name", entry.getValue());
-			node.appendChild(childNode);
+			writeElement(childNode);
 		}
+		writeEndElement();
 	}
 
-	private void writeWalletDivisions(final Document xmldoc, final Element parentNode, final Map<Integer, String> divisions) {
-		Element node = xmldoc.createElement("walletdivisions");
-		if (!divisions.isEmpty()) {
-			parentNode.appendChild(node);
+	private void writeWalletDivisions(final Document xmldoc, final Map<Integer, String> divisions) throws XmlException {
+		if (divisions.isEmpty()) {
+			return;
 		}
+		Element node = xmldoc.createElement("walletdivisions");
+		writeStartElement(node);
 		for (Map.Entry<Integer, String> entry : divisions.entrySet()) {
 			Element childNode = xmldoc.createElement("walletdivision");
 			setAttribute(childNode, "id", entry.getKey());
 			setAttributeOptional(childNode, "name", entry.getValue());
-			node.appendChild(childNode);
+			writeElement(childNode);
 		}
+		writeEndElement();
 	}
 
-	private void writeSkills(final Document xmldoc, final Element parentNode, final List<RawSkill> skills, Long totalSkillPoints, Integer unallocatedSkillPoints) {
+	private void writeSkills(final Document xmldoc, final List<RawSkill> skills, Long totalSkillPoints, Integer unallocatedSkillPoints) throws XmlException {
 		Element node = xmldoc.createElement("skills");
-		parentNode.appendChild(node);
 		setAttributeOptional(node, "total", totalSkillPoints);
 		setAttributeOptional(node, "unallocated", unallocatedSkillPoints);
+		writeStartSection(node);
 		for (RawSkill skill : skills) {
 			Element childNode = xmldoc.createElement("skill");
 			setAttribute(childNode, "id", skill.getTypeID());
 			setAttribute(childNode, "sp", skill.getSkillpoints());
 			setAttribute(childNode, "active", skill.getActiveSkillLevel());
 			setAttribute(childNode, "trained", skill.getTrainedSkillLevel());
-			node.appendChild(childNode);
+			writeElement(childNode);
 		}
+		writeEndSection();
 	}
 }
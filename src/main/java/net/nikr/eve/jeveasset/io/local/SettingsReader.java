@@ -1101,7 +1101,7 @@ public final class SettingsReader extends AbstractXmlReader<Boolean> {
 
 				TagID tagID = new TagID(tool, id);
 				tag.getIDs().add(tagID);
-				settings.getTags(tagID).add(tag);
+				settings.addTag(tagID, tag);
 			}
 		}
 	}
@@ -134,7 +134,7 @@ public class SettingsWriter extends AbstractXmlWriter {
 	}
 
 	private boolean write(final Settings settings, final String filename) {
-		Document xmldoc;
+		final Document xmldoc;
 		try {
 			xmldoc = getXmlDocument("settings");
 		} catch (XmlException ex) {
@@ -144,42 +144,81 @@ public class SettingsWriter extends AbstractXmlWriter {
 		//Add version number
 		setAttribute(xmldoc.getDocumentElement(), "version", SettingsReader.SETTINGS_VERSION);
 
-		writeAssetSettings(xmldoc, settings);
-		writeStockpileGroups(xmldoc, settings);
-		writeStockpiles(xmldoc, settings.getStockpiles(), false);
-		writeOverviewGroups(xmldoc, settings.getOverviewGroups());
-		writeReprocessSettings(xmldoc, settings.getReprocessSettings());
-		writeWindow(xmldoc, settings);
-		writeProxy(xmldoc, settings.getProxyData());
-		writePriceDataSettings(xmldoc, settings.getPriceDataSettings());
-		writeContractPriceSettings(xmldoc, settings.getContractPriceSettings());
-		writeFlags(xmldoc, settings.getFlags());
-		writeUserPrices(xmldoc, settings.getUserPrices());
-		writeUserItemNames(xmldoc, settings.getUserItemNames());
-		writeEveNames(xmldoc, settings.getEveNames());
-		writeTableFilters(xmldoc, settings.getTableFilters());
-		writeCurrentTableFilters(xmldoc, settings.getCurrentTableFilters(), settings.getCurrentTableFiltersShown());
-		writeTableColumns(xmldoc, settings.getTableColumns());
-		writeTableColumnsWidth(xmldoc, settings.getTableColumnsWidth());
-		writeTableResize(xmldoc, settings.getTableResize());
-		writeTableViews(xmldoc, settings.getTableViews());
-		writeTableJumps(xmldoc, settings.getTableJumps());
-		writeTableFormulas(xmldoc, settings.getTableFormulas());
-		writeTableChanges(xmldoc, settings.getTableChanged());
-		writeExportSettings(xmldoc, settings.getExportSettings(), settings.getCopySettings());
-		writeTrackerNotes(xmldoc, settings.getTrackerSettings().getNotes());
-		writeTrackerFilters(xmldoc, settings.getTrackerSettings().getFilters(), settings.getTrackerSettings().isSelectNew(), settings.getTrackerSettings().getSkillPointFilters());
-		writeTrackerSettings(xmldoc, settings);
-		writeOwners(xmldoc, settings.getOwners(), settings.getOwnersNextUpdate());
-		writeTags(xmldoc, settings.getTags());
-		writeRoutingSettings(xmldoc, settings.getRoutingSettings());
-		writeMarketOrderOutbid(xmldoc, settings.getPublicMarketOrdersNextUpdate(), settings.getPublicMarketOrdersLastUpdate(), settings.getOutbidOrderRange(), settings.getMarketOrdersOutbid());
-		writeMarketOrdersSettings(xmldoc, settings.getMarketOrdersSettings());
-		writeShowTool(xmldoc, settings.getShowTools(), settings.isSaveToolsOnExit());
-		writeColorSettings(xmldoc, settings.getColorSettings());
-		writeFactionWarfareSystemOwners(xmldoc, settings);
 		try {
-			writeXmlFile(xmldoc, filename, true);
+			writeXmlStream(xmldoc, filename, true, new XmlStreamContent() {
+				@Override
+				public void write() throws XmlException {
+					//Each section is written and removed from the document before the next is created
+					writeAssetSettings(xmldoc, settings);
+					writeElements(xmldoc);
+					writeStockpileGroups(xmldoc, settings);
+					writeElements(xmldoc);
+					writeStockpiles(xmldoc, settings.getStockpiles(), false);
+					writeElements(xmldoc);
+					writeOverviewGroups(xmldoc, settings.getOverviewGroups());
+					writeElements(xmldoc);
+					writeReprocessSettings(xmldoc, settings.getReprocessSettings());
+					writeElements(xmldoc);
+					writeWindow(xmldoc, settings);
+					writeElements(xmldoc);
+					writeProxy(xmldoc, settings.getProxyData());
+					writeElements(xmldoc);
+					writePriceDataSettings(xmldoc, settings.getPriceDataSettings());
+					writeElements(xmldoc);
+					writeContractPriceSettings(xmldoc, settings.getContractPriceSettings());
+					writeElements(xmldoc);
+					writeFlags(xmldoc, settings.getFlags());
+					writeElements(xmldoc);
+					writeUserPrices(xmldoc, settings.getUserPrices());
+					writeElements(xmldoc);
+					writeUserItemNames(xmldoc, settings.getUserItemNames());
+					writeElements(xmldoc);
+					writeEveNames(xmldoc, settings.getEveNames());
+					writeElements(xmldoc);
+					writeTableFilters(xmldoc, settings.getTableFilters());
+					writeElements(xmldoc);
+					writeCurrentTableFilters(xmldoc, settings.getCurrentTableFilters(), settings.getCurrentTableFiltersShown());
+					writeElements(xmldoc);
+					writeTableColumns(xmldoc, settings.getTableColumns());
+					writeElements(xmldoc);
+					writeTableColumnsWidth(xmldoc, settings.getTableColumnsWidth());
+					writeElements(xmldoc);
+					writeTableResize(xmldoc, settings.getTableResize());
+					writeElements(xmldoc);
+					writeTableViews(xmldoc, settings.getTableViews());
+					writeElements(xmldoc);
+					writeTableJumps(xmldoc, settings.getTableJumps());
+					writeElements(xmldoc);
+					writeTableFormulas(xmldoc, settings.getTableFormulas());
+					writeElements(xmldoc);
+					writeTableChanges(xmldoc, settings.getTableChanged());
+					writeElements(xmldoc);
+					writeExportSettings(xmldoc, settings.getExportSettings(), settings.getCopySettings());
+					writeElements(xmldoc);
+					writeTrackerNotes(xmldoc, settings.getTrackerSettings().getNotes());
+					writeElements(xmldoc);
+					writeTrackerFilters(xmldoc, settings.getTrackerSettings().getFilters(), settings.getTrackerSettings().isSelectNew(), settings.getTrackerSettings().getSkillPointFilters());
+					writeElements(xmldoc);
+					writeTrackerSettings(xmldoc, settings);
+					writeElements(xmldoc);
+					writeOwners(xmldoc, settings.getOwners(), settings.getOwnersNextUpdate());
+					writeElements(xmldoc);
+					writeTags(xmldoc, settings.getTags());
+					writeElements(xmldoc);
+					writeRoutingSettings(xmldoc, settings.getRoutingSettings());
+					writeElements(xmldoc);
+					writeMarketOrderOutbid(xmldoc, settings.getPublicMarketOrdersNextUpdate(), settings.getPublicMarketOrdersLastUpdate(), settings.getOutbidOrderRange(), settings.getMarketOrdersOutbid());
+					writeElements(xmldoc);
+					writeMarketOrdersSettings(xmldoc, settings.getMarketOrdersSettings());
+					writeElements(xmldoc);
+					writeShowTool(xmldoc, settings.getShowTools(), settings.isSaveToolsOnExit());
+					writeElements(xmldoc);
+					writeColorSettings(xmldoc, settings.getColorSettings());
+					writeElements(xmldoc);
+					writeFactionWarfareSystemOwners(xmldoc, settings);
+					writeElements(xmldoc);
+				}
+			});
 		} catch (XmlException ex) {
 			LOG.error("Settings not saved " + ex.getMessage(), ex);
 			return false;
@@ -31,7 +31,6 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import net.nikr.eve.jeveasset.Program;
 import net.nikr.eve.jeveasset.gui.shared.table.EnumTableColumn;
 import net.nikr.eve.jeveasset.gui.shared.table.containers.HierarchyColumn;
@@ -51,17 +50,17 @@ public final class SqlWriter {
 
 	private SqlWriter() { }
 
-	public static boolean save(final String filename, final List<Map<EnumTableColumn<?>, Object>> rows, final List<EnumTableColumn<?>> header, final String tableName, final boolean dropTable, final boolean createTable, final boolean extendedInserts) {
+	public static <E> boolean save(final String filename, final List<E> items, final List<EnumTableColumn<?>> header, final ExportValues<E, Object> values, final String tableName, final boolean dropTable, final boolean createTable, final boolean extendedInserts) {
 		SqlWriter writer = new SqlWriter();
-		return writer.write(filename, rows, header, tableName, dropTable, createTable, extendedInserts);
+		return writer.write(filename, items, header, values, tableName, dropTable, createTable, extendedInserts);
 	}
 
-	private boolean write(final String filename, final List<Map<EnumTableColumn<?>, Object>> rows, final List<EnumTableColumn<?>> header, final String tableName, final boolean dropTable, final boolean createTable, final boolean extendedInserts) {
+	private <E> boolean write(final String filename, final List<E> items, final List<EnumTableColumn<?>> header, final ExportValues<E, Object> values, final String tableName, final boolean dropTable, final boolean createTable, final boolean extendedInserts) {
 		try {
 			BufferedWriter writer = new BufferedWriter(new FileWriter(filename));
 			writeComment(writer);
-			writeTable(writer, rows, header, tableName, dropTable, createTable);
-			writeRows(writer, rows, header, tableName, extendedInserts);
+			writeTable(writer, items, header, values, tableName, dropTable, createTable);
+			writeRows(writer, items, header, values, tableName, extendedInserts);
 			writer.close();
 		} catch (IOException ex) {
 			LOG.warn("SQL file not saved");
@@ -94,11 +93,11 @@ public final class SqlWriter {
 			return "text";
 		}
 	}
-	private void writeTable(final BufferedWriter writer, final List<Map<EnumTableColumn<?>, Object>> rows, final List<EnumTableColumn<?>> header, final String tableName, final boolean dropTable, final boolean createTable) throws IOException {
+	private <E> void writeTable(final BufferedWriter writer, final List<E> items, final List<EnumTableColumn<?>> header, final ExportValues<E, Object> values, final String tableName, final boolean dropTable, final boolean createTable) throws IOException {
 		if (dropTable) {
 			writer.write("DROP TABLE IF EXISTS `" + tableName + "`;\r\n");
 		}
-		if (createTable && !rows.isEmpty()) {
+		if (createTable && !items.isEmpty()) {
 			writer.write("CREATE TABLE IF NOT EXISTS `" + tableName + "` (\r\n");
 			boolean first = true;
 			for (EnumTableColumn<?> column : header) {
@@ -107,15 +106,15 @@ public final class SqlWriter {
 				} else {
 					writer.write(",\r\n");
 				}
-				writer.write("`" + column.name() + "` " + getType(rows.get(0).get(column)));
+				writer.write("`" + column.name() + "` " + getType(values.getValue(items.get(0), column)));
 			}
 			writer.write("\r\n");
 			writer.write(") ENGINE=MyISAM  DEFAULT CHARSET=utf8 ;\r\n");
 		}
 	}
 
-	private void writeRows(final BufferedWriter writer, final List<Map<EnumTableColumn<?>, Object>> rows, final List<EnumTableColumn<?>> header, final String tableName, final boolean extendedInserts) throws IOException {
-		if (!rows.isEmpty()) {
+	private <E> void writeRows(final BufferedWriter writer, final List<E> items, final List<EnumTableColumn<?>> header, final ExportValues<E, Object> values, final String tableName, final boolean extendedInserts) throws IOException {
+		if (!items.isEmpty()) {
 			//Create INSERT statement
 			String insert = "INSERT INTO `" + tableName + "` (";
 			boolean firstInsert = true;
@@ -134,10 +133,10 @@ public final class SqlWriter {
 			boolean firstRow = true;
 			boolean firstCell;
 			//Add values
-			String values;
+			StringBuilder row = new StringBuilder();
 			int length = insert.getBytes("UTF-8").length;
-			for (Map<EnumTableColumn<?>, Object> map : rows) {
-				values = "";
+			for (E e : items) { //Values are created while writing (one row at the time)
+				row.setLength(0);
 				if (extendedInserts && length > MAX_LENGTH) {
 					length = insert.getBytes("UTF-8").length;
 					firstRow = true;
@@ -148,26 +147,27 @@ public final class SqlWriter {
 				if (firstRow) {
 					firstRow = false;
 				} else if (extendedInserts) {
-					values = values + ",\r\n";
+					row.append(",\r\n");
 				}
 				//Values
-				values = values + "	(";
+				row.append("	(");
 				firstCell = true;
 				for (EnumTableColumn<?> column : header) {
 					if (firstCell) {
 						firstCell = false;
 					} else {
-						values = values + ", ";
+						row.append(", ");
 					}
-					values = values + format(map.get(column));
+					row.append(format(values.getValue(e, column)));
 				}
-				values = values + ")";
+				row.append(")");
 				if (!extendedInserts) {
-					values = values + ";\r\n";
+					row.append(";\r\n");
 					writer.write(insert);
 				}
-				length = length + values.getBytes("UTF-8").length; //Bytes
-				writer.write(values);
+				String string = row.toString();
+				length = length + string.getBytes("UTF-8").length; //Bytes
+				writer.write(string);
 			}
 			writer.write(";\r\n");
 		}
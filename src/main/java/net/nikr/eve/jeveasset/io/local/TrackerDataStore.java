@@ -0,0 +1,491 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.io.local;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.nikr.eve.jeveasset.gui.tabs.values.AssetValue;
+import net.nikr.eve.jeveasset.gui.tabs.values.Value;
+import net.nikr.eve.jeveasset.io.shared.FileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append only tracker data store.
+ *
+ * Each owner has it's own segment file:
+ * header: int MAGIC, int VERSION, owner
+ * records: STRING or VALUE
+ * STRING: a location, flag or division used by the following values (referenced by index, 0 is null)
+ * VALUE: int length, long date, value data (length bytes)
+ *
+ * New data points are appended to the end of the segment.
+ * A segment is only rewritten (compacted) when values have been removed or edited,
+ * or if the end of the segment is broken.
+ */
+public class TrackerDataStore extends AbstractBackup {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TrackerDataStore.class);
+
+	static final int MAGIC = 0x4A454154; //JEAT
+	static final int VERSION = 1;
+
+	private static final int STRING = 1;
+	private static final int VALUE = 2;
+	private static final String EXTENSION = ".dat";
+
+	private static TrackerDataStore store;
+
+	private final File directory;
+	private final Map<String, Segment> segments = new HashMap<>();
+	private final Map<String, File> failed = new HashMap<>(); //Owner => segment file that failed to load
+	private final Set<String> changed = new HashSet<>();
+	private boolean changedAll = false;
+
+	TrackerDataStore(File directory) {
+		this.directory = directory;
+	}
+
+	public static synchronized TrackerDataStore get() {
+		if (store == null) {
+			store = new TrackerDataStore(new File(FileUtil.getPathTrackerDirectory()));
+		}
+		return store;
+	}
+
+	/**
+	 * Values of the owner have been edited or removed.
+	 * The segment will be rewritten on next save.
+	 * @param owner
+	 */
+	public synchronized void setChanged(String owner) {
+		changed.add(owner);
+	}
+
+	/**
+	 * All segments will be rewritten on next save.
+	 */
+	public synchronized void setChanged() {
+		changedAll = true;
+	}
+
+	/**
+	 *
+	 * @return null, if the store does not exist yet
+	 */
+	public synchronized Map<String, List<Value>> load() {
+		if (!directory.exists()) {
+			return null;
+		}
+		segments.clear();
+		failed.clear();
+		changed.clear();
+		changedAll = false;
+		Map<String, List<Value>> trackerData = new HashMap<>();
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return trackerData;
+		}
+		for (File file : files) {
+			if (!file.getName().endsWith(EXTENSION)) {
+				continue;
+			}
+			String filename = file.getAbsolutePath();
+			Segment segment = new Segment(file);
+			try {
+				lock(filename);
+				List<Value> values = read(segment);
+				if (segments.containsKey(segment.owner)) {
+					LOG.warn("Duplicate tracker segment for " + segment.owner + ": " + file.getName());
+					continue;
+				}
+				segments.put(segment.owner, segment);
+				trackerData.put(segment.owner, values);
+			} catch (IOException ex) {
+				LOG.error("Failed to load tracker segment: " + file.getName(), ex);
+				restoreFailed(filename);
+				if (segment.owner != null) { //Rewrite the owner into the same segment file on next save
+					failed.put(segment.owner, file);
+				}
+			} finally {
+				unlock(filename);
+			}
+		}
+		LOG.info("Tracker data loaded");
+		return trackerData;
+	}
+
+	/**
+	 * Must be called with the tracker data read locked
+	 * @param trackerData
+	 */
+	public synchronized void save(Map<String, List<Value>> trackerData) {
+		if (!directory.exists() && !directory.mkdirs()) {
+			LOG.error("Failed to create tracker directory: " + directory.getAbsolutePath());
+			return;
+		}
+		int appended = 0;
+		int rewritten = 0;
+		//Removed owners
+		for (Iterator<Map.Entry<String, Segment>> iterator = segments.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, Segment> entry = iterator.next();
+			if (!trackerData.containsKey(entry.getKey())) {
+				File file = entry.getValue().file;
+				if (file.exists() && !file.delete()) {
+					LOG.warn("Failed to delete tracker segment: " + file.getName());
+				}
+				iterator.remove();
+			}
+		}
+		for (Map.Entry<String, List<Value>> entry : trackerData.entrySet()) {
+			String owner = entry.getKey();
+			List<Value> values = entry.getValue();
+			Segment segment = segments.get(owner);
+			if (segment == null || segment.broken || changedAll || changed.contains(owner) || segment.count > values.size()) {
+				rewrite(owner, values, segment);
+				rewritten++;
+			} else if (segment.count < values.size()) {
+				append(segment, values.subList(segment.count, values.size()));
+				appended++;
+			}
+		}
+		changed.clear();
+		changedAll = false;
+		LOG.info("Tracker data saved (" + appended + " appended, " + rewritten + " rewritten)");
+	}
+
+	private void append(Segment segment, List<Value> values) {
+		String filename = segment.file.getAbsolutePath();
+		DataOutputStream out = null;
+		try {
+			lock(filename);
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(segment.file, true)));
+			for (Value value : values) {
+				writeValue(out, segment, value);
+				segment.count++;
+			}
+		} catch (IOException ex) {
+			segment.broken = true; //Rewrite on next save
+			LOG.error("Failed to append to tracker segment: " + segment.file.getName(), ex);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException ex) {
+					segment.broken = true;
+				}
+			}
+			unlock(filename);
+		}
+	}
+
+	private void rewrite(String owner, List<Value> values, Segment old) {
+		File file;
+		if (old != null) {
+			file = old.file;
+		} else if (failed.containsKey(owner)) { //Failed to load: replace the segment
+			file = failed.get(owner);
+		} else {
+			file = newFile();
+		}
+		String filename = file.getAbsolutePath();
+		Segment segment = new Segment(file, owner);
+		DataOutputStream out = null;
+		boolean ok = false;
+		try {
+			lock(filename);
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getNewFile(filename)))); //Save to .new file
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(owner);
+			for (Value value : values) {
+				writeValue(out, segment, value);
+				segment.count++;
+			}
+			out.close();
+			out = null;
+			ok = true;
+		} catch (IOException ex) {
+			LOG.error("Failed to save tracker segment: " + file.getName(), ex);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException ex) {
+					//No problem
+				}
+			}
+			if (ok) {
+				backupFile(filename); //Rename .dat => .bac (.new is safe) and .new => .dat (.bac is safe)
+				segments.put(owner, segment);
+				failed.remove(owner);
+			} else if (old != null) {
+				old.broken = true; //Try again on next save
+			}
+			unlock(filename);
+		}
+	}
+
+	private File newFile() {
+		Set<String> used = new HashSet<>();
+		for (Segment segment : segments.values()) {
+			used.add(segment.file.getName());
+		}
+		for (File file : failed.values()) {
+			used.add(file.getName());
+		}
+		int i = 0;
+		while (true) {
+			File file = new File(directory, i + EXTENSION);
+			if (!used.contains(file.getName()) && !file.exists()) {
+				return file;
+			}
+			i++;
+		}
+	}
+
+	private List<Value> read(Segment segment) throws IOException {
+		List<Value> values = new ArrayList<>();
+		List<String> strings = new ArrayList<>();
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file)));
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a tracker segment");
+			}
+			int version = in.readInt();
+			if (version > VERSION) {
+				throw new IOException("Unsupported tracker segment version: " + version);
+			}
+			segment.owner = in.readUTF();
+			while (true) {
+				int type = in.read();
+				if (type < 0) {
+					break; //End of file
+				}
+				try {
+					if (type == STRING) {
+						String string = in.readUTF();
+						strings.add(string);
+						segment.strings.put(string, strings.size());
+					} else if (type == VALUE) {
+						int length = in.readInt();
+						Date date = new Date(in.readLong());
+						byte[] data = new byte[length];
+						in.readFully(data);
+						values.add(readValue(new DataInputStream(new ByteArrayInputStream(data)), date, strings));
+						segment.count++;
+					} else {
+						LOG.warn("Unknown tracker record (" + type + ") in " + segment.file.getName());
+						segment.broken = true;
+						break;
+					}
+				} catch (EOFException ex) {
+					LOG.warn("Tracker segment ended unexpectedly: " + segment.file.getName());
+					segment.broken = true; //Incomplete append: rewrite on next save
+					break;
+				}
+			}
+			return values;
+		} catch (EOFException ex) {
+			throw new IOException("Tracker segment header incomplete", ex);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException ex) {
+					//No problem
+				}
+			}
+		}
+	}
+
+	private void writeValue(DataOutputStream out, Segment segment, Value value) throws IOException {
+		//Strings first
+		for (String id : value.getBalanceFilter().keySet()) {
+			writeString(out, segment, id);
+		}
+		for (AssetValue assetValue : value.getAssetsFilter().keySet()) {
+			writeString(out, segment, assetValue.getLocation());
+			writeString(out, segment, assetValue.getFlag());
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(buffer);
+		data.writeDouble(value.getAssetsTotal());
+		data.writeDouble(value.getEscrows());
+		data.writeDouble(value.getEscrowsToCover());
+		data.writeDouble(value.getSellOrders());
+		data.writeDouble(value.getBalanceTotal());
+		data.writeDouble(value.getManufacturing());
+		data.writeDouble(value.getContractCollateral());
+		data.writeDouble(value.getContractValue());
+		data.writeLong(value.getSkillPoints());
+		writeVarInt(data, value.getBalanceFilter().size());
+		for (Map.Entry<String, Double> entry : value.getBalanceFilter().entrySet()) {
+			writeVarInt(data, segment.strings.get(entry.getKey()));
+			data.writeDouble(entry.getValue());
+		}
+		writeVarInt(data, value.getAssetsFilter().size());
+		for (Map.Entry<AssetValue, Double> entry : value.getAssetsFilter().entrySet()) {
+			AssetValue assetValue = entry.getKey();
+			writeVarInt(data, segment.strings.get(assetValue.getLocation()));
+			writeVarInt(data, getIndex(segment, assetValue.getFlag()));
+			if (assetValue.getLocationID() != null) {
+				data.writeBoolean(true);
+				data.writeLong(assetValue.getLocationID());
+			} else {
+				data.writeBoolean(false);
+			}
+			data.writeDouble(entry.getValue());
+		}
+		data.flush();
+		out.writeByte(VALUE);
+		out.writeInt(buffer.size());
+		out.writeLong(value.getDate().getTime());
+		buffer.writeTo(out);
+	}
+
+	private Value readValue(DataInputStream data, Date date, List<String> strings) throws IOException {
+		double assetsTotal = data.readDouble();
+		double escrows = data.readDouble();
+		double escrowsToCover = data.readDouble();
+		double sellOrders = data.readDouble();
+		double balanceTotal = data.readDouble();
+		double manufacturing = data.readDouble();
+		double contractCollateral = data.readDouble();
+		double contractValue = data.readDouble();
+		long skillPoints = data.readLong();
+		Value value = new Value(date);
+		//Balance
+		int balanceCount = readVarInt(data);
+		if (balanceCount > 0) {
+			for (int i = 0; i < balanceCount; i++) {
+				String id = getString(strings, readVarInt(data));
+				value.addBalance(id, data.readDouble());
+			}
+		} else {
+			value.setBalanceTotal(balanceTotal);
+		}
+		//Assets
+		int assetCount = readVarInt(data);
+		if (assetCount > 0) {
+			for (int i = 0; i < assetCount; i++) {
+				String location = getString(strings, readVarInt(data));
+				String flag = getString(strings, readVarInt(data));
+				Long locationID = null;
+				if (data.readBoolean()) {
+					locationID = data.readLong();
+				}
+				value.addAssets(AssetValue.create(location, flag, locationID), data.readDouble());
+			}
+		} else {
+			value.setAssetsTotal(assetsTotal);
+		}
+		value.setEscrows(escrows);
+		value.setEscrowsToCover(escrowsToCover);
+		value.setSellOrders(sellOrders);
+		value.setManufacturing(manufacturing);
+		value.setContractCollateral(contractCollateral);
+		value.setContractValue(contractValue);
+		value.setSkillPoints(skillPoints);
+		return value;
+	}
+
+	private void writeString(DataOutputStream out, Segment segment, String value) throws IOException {
+		if (value == null || segment.strings.containsKey(value)) {
+			return;
+		}
+		out.writeByte(STRING);
+		out.writeUTF(value);
+		segment.strings.put(value, segment.strings.size() + 1);
+	}
+
+	private int getIndex(Segment segment, String value) {
+		if (value == null) {
+			return 0;
+		}
+		return segment.strings.get(value);
+	}
+
+	private String getString(List<String> strings, int index) throws IOException {
+		if (index == 0) {
+			return null;
+		}
+		if (index > strings.size()) {
+			throw new IOException("Unknown string reference: " + index);
+		}
+		return strings.get(index - 1);
+	}
+
+	private void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	private static class Segment {
+		private final File file;
+		private final Map<String, Integer> strings = new HashMap<>();
+		private String owner;
+		private int count = 0;
+		private boolean broken = false;
+
+		public Segment(File file) {
+			this.file = file;
+		}
+
+		public Segment(File file, String owner) {
+			this.file = file;
+			this.owner = owner;
+		}
+	}
+}
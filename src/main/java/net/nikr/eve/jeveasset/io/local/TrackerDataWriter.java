@@ -34,10 +34,8 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
-import net.nikr.eve.jeveasset.data.settings.TrackerData;
 import net.nikr.eve.jeveasset.gui.tabs.values.AssetValue;
 import net.nikr.eve.jeveasset.gui.tabs.values.Value;
-import net.nikr.eve.jeveasset.io.shared.FileUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,10 +44,6 @@ public class TrackerDataWriter extends AbstractBackup {
 
 	private static final Logger LOG = LoggerFactory.getLogger(TrackerDataWriter.class);
 
-	public static void save() {
-		save(FileUtil.getPathTrackerData(), TrackerData.get(), true);
-	}
-
 	protected static void save(String filename, Map<String, List<Value>> trackerData, boolean createBackup) {
 		TrackerDataWriter writer = new TrackerDataWriter();
 		writer.write(filename, trackerData, createBackup);
@@ -28,7 +28,9 @@ import eve.nikr.net.client.model.Prices;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -80,23 +82,40 @@ public class ContractPriceGetter extends AbstractGetter<EsiOwner> {
 	}
 
 	public void update(Set<Integer> exclude) {
-		List<Update> updates = new ArrayList<>();
 		final ContractPriceSettings contractPriceSettings = Settings.get().getContractPriceSettings();
 		final ContractPriceManager priceManager = ContractPriceManager.get();
+		//Items with the same request parameters are updated by one request
+		Map<String, List<ContractPriceItem>> requests = new LinkedHashMap<>();
+		int fresh = 0;
 		for (ContractPriceItem contractPriceType : profileData.getContractPricesTypes()) {
-			if (!priceManager.isFailed(contractPriceType) && (all || !priceManager.haveContractPrice(contractPriceType))) {
-				updates.add(new Update(contractPriceSettings, contractPriceType, all));
+			if (priceManager.isFailed(contractPriceType)) {
+				continue;
+			}
+			if (all ? priceManager.isFresh(contractPriceType) : priceManager.haveContractPrice(contractPriceType)) {
+				fresh++;
+				continue;
+			}
+			String key = contractPriceType.getTypeID() + ":" + contractPriceType.isBpc() + ":" + contractPriceType.getMe() + ":" + contractPriceType.getTe();
+			List<ContractPriceItem> list = requests.get(key);
+			if (list == null) {
+				list = new ArrayList<>();
+				requests.put(key, list);
 			}
+			list.add(contractPriceType);
+		}
+		List<Update> updates = new ArrayList<>();
+		for (List<ContractPriceItem> contractPriceTypes : requests.values()) {
+			updates.add(new Update(contractPriceSettings, contractPriceTypes, all));
 		}
+		LOG.info(updates.size() + " contract price requests (" + fresh + " cached)");
 		try {
-			List<Future<ReturnData>> futures = startSubThreads(updates, true);
+			List<Future<List<ReturnData>>> futures = startSubThreads(updates, true);
 			int done = 0;
 			int failed = 0;
-			for (Future<ReturnData> future : futures) {
+			for (Future<List<ReturnData>> future : futures) {
 				if (future.isDone()) {
 					try {
-						ReturnData returnValue = future.get(); //Get data
-						if (returnValue != null) {
+						for (ReturnData returnValue : future.get()) { //Get data
 							priceManager.addPrices(returnValue);
 							if (returnValue.isEmpty()) {
 								done++;
@@ -123,36 +142,43 @@ public class ContractPriceGetter extends AbstractGetter<EsiOwner> {
 		}
 	}
 
-	private static class Update implements Callable<ReturnData> {
+	private static class Update implements Callable<List<ReturnData>> {
 
 		private final ContractPriceSettings contractPriceSettings;
+		private final List<ContractPriceItem> contractPriceTypes;
 		private final ContractPriceItem contractPriceType;
 		private final boolean all;
 		private int retry = 0;
 
-		public Update(ContractPriceSettings contractPriceSettings, ContractPriceItem contractPriceType, boolean all) {
+		public Update(ContractPriceSettings contractPriceSettings, List<ContractPriceItem> contractPriceTypes, boolean all) {
 			this.contractPriceSettings = contractPriceSettings;
-			this.contractPriceType = contractPriceType;
+			this.contractPriceTypes = contractPriceTypes;
+			this.contractPriceType = contractPriceTypes.get(0); //Request parameters are the same for all items
 			this.all = all;
 		}
 
 		@Override
-		public ReturnData call() throws Exception {
+		public List<ReturnData> call() throws Exception {
 			return update();
 		}
 
-		private ReturnData update() throws ApiException {
+		private List<ReturnData> update() throws ApiException {
 			try {
 				ApiResponse<Prices> apiResponse = API.getPricesWithHttpInfo(contractPriceType.getTypeID(), contractPriceSettings.isIncludePrivate(), contractPriceType.isBpc(), contractPriceSettings.getSecurityValues(), contractPriceType.getMe(), contractPriceType.getTe());
 				if (apiResponse.getStatusCode() == 204) {
-					return new ReturnData(contractPriceType, getHeaderExpires(apiResponse.getHeaders()));
+					return createEmpty(getHeaderExpires(apiResponse.getHeaders()));
 				} else {
-					return new ReturnData(contractPriceType, getHeaderExpires(apiResponse.getHeaders()), apiResponse.getData(), all);
+					List<ReturnData> returnData = new ArrayList<>();
+					Date expire = getHeaderExpires(apiResponse.getHeaders());
+					for (ContractPriceItem item : contractPriceTypes) {
+						returnData.add(new ReturnData(item, expire, apiResponse.getData(), all));
+					}
+					return returnData;
 				}
 			} catch (ApiException ex) {
 				if (ex.getCode() == 404) {
 					LOG.info(contractPriceType.getTypeID() + " not found", ex);
-					return new ReturnData(contractPriceType, getHeaderExpires(ex.getResponseHeaders()));
+					return createEmpty(getHeaderExpires(ex.getResponseHeaders()));
 				} else {
 					retry++;
 					if (retry < RETRIES) {
@@ -165,5 +191,13 @@ public class ContractPriceGetter extends AbstractGetter<EsiOwner> {
 				}
 			}
 		}
+
+		private List<ReturnData> createEmpty(Date expire) {
+			List<ReturnData> returnData = new ArrayList<>();
+			for (ContractPriceItem item : contractPriceTypes) {
+				returnData.add(new ReturnData(item, expire));
+			}
+			return returnData;
+		}
 	}
 }
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Proxy;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -35,6 +36,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import net.nikr.eve.jeveasset.SplashUpdater;
 import net.nikr.eve.jeveasset.data.profile.ProfileData;
 import net.nikr.eve.jeveasset.data.sde.Item;
@@ -66,6 +68,7 @@ public class PriceDataGetter implements PricingListener {
 	private static final int ZERO_PRICES_WARNING_LIMIT = 10;
 	private static final int FAILED_PERCENT_CANCEL_LIMIT = 5;
 	private static final int ZERO_PERCENT_CANCEL_LIMIT = 25;
+	private static final int BATCH_SIZE = 500;
 
 	private UpdateTask updateTask;
 	private boolean update;
@@ -74,7 +77,10 @@ public class PriceDataGetter implements PricingListener {
 	private Set<Integer> okay;
 	private Set<Integer> zero;
 	private Set<Integer> queue;
+	private CountDownLatch done;
 	private final Map<Integer, PriceData> priceDataList = Collections.synchronizedMap(new HashMap<>());
+	private final Map<Integer, Long> lastFetched = Collections.synchronizedMap(new HashMap<>()); //TypeID : int
+	private String lastFetchedOptions = null;
 	
 	private long nextUpdate = 0;
 
@@ -110,7 +116,9 @@ public class PriceDataGetter implements PricingListener {
 	 * @return available price data
 	 */
 	private Map<Integer, PriceData> processLoad() {
-		Pricing pricing = PricingFactory.getPricing(new DefaultPricingOptions());
+		DefaultPricingOptions pricingOptions = new DefaultPricingOptions();
+		Pricing pricing = PricingFactory.getPricing(pricingOptions);
+		updateOptions(pricingOptions);
 		LOG.info("Price data loading");
 		for (Item item : StaticData.get().getItems().values()) { //For each typeID
 			if (!item.isMarketGroup()) {
@@ -142,6 +150,9 @@ public class PriceDataGetter implements PricingListener {
 			if (nextUpdateTemp >= 0 && nextUpdateTemp > getNextUpdateTime()) {
 				setUpdateNext(nextUpdateTemp);
 			}
+			if (ok && nextUpdateTemp >= 0) {
+				lastFetched.put(typeID, Math.min(nextUpdateTemp, System.currentTimeMillis()));
+			}
 		}
 		if (!priceDataList.isEmpty()) {
 			LOG.info("	Price data loaded");
@@ -187,6 +198,7 @@ public class PriceDataGetter implements PricingListener {
 		this.zero = Collections.synchronizedSet(new HashSet<>());
 		this.okay = Collections.synchronizedSet(new HashSet<>());
 		this.queue = Collections.synchronizedSet(new HashSet<>(typeIDs));
+		this.done = new CountDownLatch(1);
 
 		if (updateAll) {
 			LOG.info("Price data update all (" + priceSource + "):");
@@ -195,33 +207,43 @@ public class PriceDataGetter implements PricingListener {
 		}
 
 		Pricing pricing = PricingFactory.getPricing(pricingOptions);
+		updateOptions(pricingOptions);
 
 		pricing.addPricingListener(this);
 
-		if (updateAll) { //Update all
-			pricing.updatePrices(typeIDs);
+		if (updateAll) { //Update stale and new
+			List<Integer> stale = new ArrayList<>();
+			for (int id : typeIDs) {
+				if (isFresh(id)) {
+					createPriceData(id, pricing); //Load price from cache
+				} else {
+					stale.add(id);
+				}
+			}
+			LOG.info("	Updating " + stale.size() + " of " + typeIDs.size() + " (" + (typeIDs.size() - stale.size()) + " still fresh)");
+			//Batches in priority order (assets first)
+			for (int i = 0; i < stale.size(); i = i + BATCH_SIZE) {
+				pricing.updatePrices(new HashSet<>(stale.subList(i, Math.min(i + BATCH_SIZE, stale.size()))));
+			}
 		} else { //Update new
 			for (int id : typeIDs) {
 				createPriceData(id, pricing);
 			}
 		}
+		checkDone();
 
-		while (!queue.isEmpty()) {
-			try {
-				synchronized (this) {
-					wait(1000);
-				}
-			} catch (InterruptedException ex) {
-				LOG.info("Failed to update price");
-				pricing.cancelAll();
-				if (updateTask != null) {
-					updateTask.addWarning("Price data", "Cancelled");
-					updateTask.setTaskProgress(100, 100, 0, 100);
-					updateTask = null;
-				}
-				clear(pricing);
-				return null;
+		try {
+			done.await(); //Released by the pricing listener when the queue is empty
+		} catch (InterruptedException ex) {
+			LOG.info("Failed to update price");
+			pricing.cancelAll();
+			if (updateTask != null) {
+				updateTask.addWarning("Price data", "Cancelled");
+				updateTask.setTaskProgress(100, 100, 0, 100);
+				updateTask = null;
 			}
+			clear(pricing);
+			return null;
 		}
 		boolean updated = (!okay.isEmpty() && (typeIDs.size() * FAILED_PERCENT_CANCEL_LIMIT / 100) > failed.size() && (typeIDs.size() * ZERO_PERCENT_CANCEL_LIMIT / 100) > zero.size());
 		if (updated && !failed.isEmpty()) {
@@ -315,22 +337,48 @@ public class PriceDataGetter implements PricingListener {
 		pricing.removePricingListener(this);
 	}
 
+	/**
+	 * Prices are fresh until the price cache timer runs out
+	 * @param typeID
+	 * @return
+	 */
+	private boolean isFresh(int typeID) {
+		Long fetched = lastFetched.get(typeID);
+		return fetched != null && fetched + PRICE_CACHE_TIMER > System.currentTimeMillis() && priceDataList.containsKey(typeID);
+	}
+
+	/**
+	 * Fetch times are only valid for the same source and location
+	 * @param pricingOptions
+	 */
+	private synchronized void updateOptions(PricingOptions pricingOptions) {
+		String options = pricingOptions.getPricingFetchImplementation() + ":" + pricingOptions.getLocationType() + ":" + pricingOptions.getLocations();
+		if (!options.equals(lastFetchedOptions)) {
+			lastFetched.clear();
+			lastFetchedOptions = options;
+		}
+	}
+
+	private void checkDone() {
+		if (queue.isEmpty()) {
+			done.countDown();
+		}
+	}
+
 	@Override
 	public void priceUpdated(final int typeID, final Pricing pricing) {
+		lastFetched.put(typeID, System.currentTimeMillis());
 		createPriceData(typeID, pricing);
 		queue.remove(typeID);
-		synchronized (this) {
-			notify();
-		}
+		checkDone();
 	}
 
 	@Override
 	public void priceUpdateFailed(final int typeID, final Pricing pricing) {
+		lastFetched.remove(typeID);
 		failed.add(typeID);
 		queue.remove(typeID);
-		synchronized (this) {
-			notify();
-		}
+		checkDone();
 	}
 
 	private void createPriceData(final int typeID, final Pricing pricing) {
@@ -184,11 +184,11 @@ public abstract class AbstractGetter<O extends OwnerType> implements Runnable {
 	}
 
 	protected final <K> List<Future<K>> startSubThreads(Collection<? extends Callable<K>> updaters) throws InterruptedException {
-		return ThreadWoker.startReturn(updateTask, updaters);
+		return startSubThreads(updaters, false);
 	}
 
 	protected final <K> List<Future<K>> startSubThreads(Collection<? extends Callable<K>> updaters, boolean updateProgress) throws InterruptedException {
-		return ThreadWoker.startReturn(updateTask, updaters, updateProgress);
+		return ThreadWoker.startReturn(updateTask, updaters, updateProgress, 0, 100, apiName);
 	}
 
 	protected final void checkCancelled() {
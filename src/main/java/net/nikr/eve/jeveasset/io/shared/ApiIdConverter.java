@@ -22,6 +22,7 @@ package net.nikr.eve.jeveasset.io.shared;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.nikr.eve.jeveasset.data.api.accounts.OwnerType;
 import net.nikr.eve.jeveasset.data.api.my.MyAsset;
 import net.nikr.eve.jeveasset.data.sde.Item;
@@ -52,6 +53,10 @@ import net.troja.eve.esi.model.StructureResponse;
 
 public final class ApiIdConverter {
 
+	private static final Object PRICE_TABLE_LOCK = new Object();
+	private static final AtomicInteger PRICE_TABLE_VERSION = new AtomicInteger();
+	private static volatile PriceTable priceTable = null;
+
 	private ApiIdConverter() { }
 
 	private static final String EMPTY_STRING = "";
@@ -163,14 +168,61 @@ public final class ApiIdConverter {
 		}
 	}
 
-	private static double getPriceReprocessed(final Integer typeID, final boolean isBlueprintCopy) {
-		return getPriceType(typeID, isBlueprintCopy, null, true);
+	/**
+	 * Prices must be resolved again (price data, user prices or price settings changed)
+	 */
+	public static void resetPrices() {
+		PRICE_TABLE_VERSION.incrementAndGet();
+		priceTable = null;
+	}
+
+	private static PriceTable getPriceTable() {
+		PriceTable table = priceTable;
+		if (table != null) {
+			return table;
+		}
+		synchronized (PRICE_TABLE_LOCK) {
+			table = priceTable;
+			if (table != null) {
+				return table;
+			}
+			int version = PRICE_TABLE_VERSION.get();
+			table = PriceTable.create();
+			priceTable = table;
+			if (version != PRICE_TABLE_VERSION.get()) { //Reset while creating
+				priceTable = null;
+			}
+			return table;
+		}
 	}
 
 	private static double getPriceType(final Integer typeID, final boolean isBlueprintCopy, ContractPriceItem contractPriceItem, boolean reprocessed) {
 		if (typeID == null) {
 			return 0;
 		}
+		PriceTable table = getPriceTable();
+		double price;
+		if (isBlueprintCopy) {
+			price = table.getPriceBlueprintCopy(typeID);
+			if (Double.isNaN(price) && !Double.isNaN(table.getPrice(typeID))) { //In table without user price
+				if (contractPriceItem != null && Settings.get().getContractPriceSettings().isDefaultBPC()) {
+					return ContractPriceManager.get().getContractPrice(contractPriceItem);
+				} else {
+					return 0;
+				}
+			}
+		} else if (reprocessed) {
+			price = table.getPriceReprocessed(typeID);
+		} else {
+			price = table.getPrice(typeID);
+		}
+		if (!Double.isNaN(price)) {
+			return price;
+		}
+		return calcPriceType(typeID, isBlueprintCopy, contractPriceItem, reprocessed);
+	}
+
+	static double calcPriceType(final int typeID, final boolean isBlueprintCopy, ContractPriceItem contractPriceItem, boolean reprocessed) {
 		UserItem<Integer, Double> userPrice;
 		if (isBlueprintCopy) { //Blueprint Copy
 			userPrice = Settings.get().getUserPrices().get(-typeID);
@@ -216,12 +268,24 @@ public final class ApiIdConverter {
 	}
 
 	public static double getPriceReprocessed(Item item) {
+		PriceTable table = getPriceTable();
+		double price = table.getPriceItemReprocessed(item.getTypeID());
+		if (!Double.isNaN(price)) {
+			return price;
+		}
+		return calcPriceReprocessed(item, table);
+	}
+
+	static double calcPriceReprocessed(Item item, PriceTable table) {
 		double priceReprocessed = 0;
 		int portionSize = 0;
 		for (ReprocessedMaterial material : item.getReprocessedMaterial()) {
 			//Calculate reprocessed price
 			portionSize = material.getPortionSize();
-			double price = ApiIdConverter.getPriceReprocessed(material.getTypeID(), false);
+			double price = table.getPriceReprocessed(material.getTypeID());
+			if (Double.isNaN(price)) {
+				price = calcPriceType(material.getTypeID(), false, null, true);
+			}
 			priceReprocessed = priceReprocessed + (price * Settings.get().getReprocessSettings().getLeft(material.getQuantity(), item.isOre()));
 		}
 		if (priceReprocessed > 0 && portionSize > 0) {
@@ -274,6 +338,7 @@ public final class ApiIdConverter {
 			}
 			StaticData.get().getItems().put(typeID, item);
 			ItemsWriter.save();
+			resetPrices(); //Item changed
 		}
 		return item;
 	}
@@ -320,9 +385,9 @@ public final class ApiIdConverter {
 
 	public static MyLocation getLocation(Integer locationID) {
 		if (locationID == null) {
-			return MyLocation.create(0);
+			return StaticData.get().addPlaceholder(0);
 		} else {
-			return getLocation(Long.valueOf(locationID), null);
+			return getLocation(locationID.longValue(), null);
 		}
 	}
 
@@ -330,11 +395,20 @@ public final class ApiIdConverter {
 		return getLocation(locationID, null);
 	}
 
+	public static MyLocation getLocation(long locationID) {
+		return getLocation(locationID, null);
+	}
+
 	public static MyLocation getLocation(final Long locationID, final MyAsset parentAsset) {
 		if (locationID == null) {
-			return MyLocation.create(0);
+			return StaticData.get().addPlaceholder(0);
 		}
-		MyLocation location = StaticData.get().getLocation(locationID);
+		return getLocation(locationID.longValue(), parentAsset);
+	}
+
+	public static MyLocation getLocation(final long locationID, final MyAsset parentAsset) {
+		StaticData staticData = StaticData.get();
+		MyLocation location = staticData.getLocation(locationID); //Static locations and citadels
 		if (location != null) {
 			return location;
 		}
@@ -344,11 +418,16 @@ public final class ApiIdConverter {
 				return location;
 			}
 		}
+		location = staticData.getPlaceholder(locationID); //Cached unknown location
+		if (location != null) {
+			return location;
+		}
+		//Valid citadels are added to StaticData by CitadelSettings, only checked once per unknown location
 		location = CitadelGetter.get(locationID).toLocation();
 		if (location != null) {
 			return location;
 		}
-		return MyLocation.create(locationID);
+		return staticData.addPlaceholder(locationID);
 	}
 
 	public static void addLocation(final Citadel citadel, long locationID) {
@@ -43,11 +43,13 @@ public class FileUtil extends FileUtilSimple {
 	private static final String PATH_ASSET_ADDED = "data" + File.separator + "added.json";
 	private static final String PATH_ASSET_ADDED_DATABASE = "data" + File.separator + "addedsql.db";
 	private static final String PATH_TRACKER_DATA = "data" + File.separator + "tracker.json";
+	private static final String PATH_TRACKER_DIRECTORY = "data" + File.separator + "tracker";
 	private static final String PATH_CONTRACT_PRICES = "data" + File.separator + "contract_prices.json";
 	private static final String PATH_SETTINGS = "data" + File.separator + "settings.xml";
 	private static final String PATH_ITEMS = "data" + File.separator + "items.xml";
 	private static final String PATH_ITEMS_UPDATES = "data" + File.separator + "items_updates.xml";
 	private static final String PATH_JUMPS = "data" + File.separator + "jumps.xml";
+	private static final String PATH_JUMPS_TABLE = "data" + File.separator + "jumps.dat";
 	private static final String PATH_LOCATIONS = "data" + File.separator + "locations.xml";
 	private static final String PATH_FLAGS = "data" + File.separator + "flags.xml";
 	private static final String PATH_PRICE_DATA = "data" + File.separator + "pricedata.dat";
@@ -270,6 +272,10 @@ public class FileUtil extends FileUtilSimple {
 		return getLocalFile(PATH_TRACKER_DATA, !CliOptions.get().isPortable());
 	}
 
+	public static String getPathTrackerDirectory() {
+		return getLocalFile(PATH_TRACKER_DIRECTORY, !CliOptions.get().isPortable());
+	}
+
 	public static String getPathContractPrices() {
 		return getLocalFile(PATH_CONTRACT_PRICES, !CliOptions.get().isPortable());
 	}
@@ -294,6 +300,10 @@ public class FileUtil extends FileUtilSimple {
 		return getLocalFile(PATH_JUMPS, false);
 	}
 
+	public static String getPathJumpsTable() {
+		return getLocalFile(PATH_JUMPS_TABLE, !CliOptions.get().isPortable());
+	}
+
 	public static String getPathFlags() {
 		return getLocalFile(PATH_FLAGS, false);
 	}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.io.shared;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import net.nikr.eve.jeveasset.data.sde.Item;
+import net.nikr.eve.jeveasset.data.sde.StaticData;
+import net.nikr.eve.jeveasset.data.settings.Settings;
+import net.nikr.eve.jeveasset.data.settings.UserItem;
+
+/**
+ * Resolved prices indexed by typeID.
+ * NaN = not in the table (calculate the price)
+ * Read only after creation (thread safe).
+ */
+final class PriceTable {
+
+	private static final int MAX_TYPE_ID = 1000000; //Larger typeIDs are calculated
+	private static final int CHUNK_SIZE = 2048;
+
+	private final double[] prices;
+	private final double[] pricesReprocessed;
+	private final double[] pricesBlueprintCopy; //User price only
+	private final double[] pricesItemReprocessed;
+
+	private PriceTable(int size) {
+		prices = createArray(size);
+		pricesReprocessed = createArray(size);
+		pricesBlueprintCopy = createArray(size);
+		pricesItemReprocessed = createArray(size);
+	}
+
+	/**
+	 * Create the table in two parallel passes.
+	 * First the price of each type, then the reprocessed value of each item (using the prices from the first pass)
+	 * @return
+	 */
+	public static PriceTable create() {
+		final List<Item> items = new ArrayList<>();
+		int max = 0;
+		for (Map.Entry<Integer, Item> entry : StaticData.get().getItems().entrySet()) {
+			int typeID = entry.getKey();
+			if (typeID < 0 || typeID > MAX_TYPE_ID || entry.getValue().getTypeID() != typeID) {
+				continue;
+			}
+			items.add(entry.getValue());
+			max = Math.max(max, typeID);
+		}
+		final PriceTable table = new PriceTable(max + 1);
+		invoke(items, new Updater() {
+			@Override
+			public void update(Item item) {
+				table.updatePrice(item.getTypeID());
+			}
+		});
+		invoke(items, new Updater() {
+			@Override
+			public void update(Item item) {
+				table.pricesItemReprocessed[item.getTypeID()] = ApiIdConverter.calcPriceReprocessed(item, table);
+			}
+		});
+		return table;
+	}
+
+	/**
+	 * @param typeID
+	 * @return price or NaN
+	 */
+	public double getPrice(int typeID) {
+		return get(prices, typeID);
+	}
+
+	/**
+	 * @param typeID
+	 * @return price or NaN
+	 */
+	public double getPriceReprocessed(int typeID) {
+		return get(pricesReprocessed, typeID);
+	}
+
+	/**
+	 * @param typeID
+	 * @return user price or NaN
+	 */
+	public double getPriceBlueprintCopy(int typeID) {
+		return get(pricesBlueprintCopy, typeID);
+	}
+
+	/**
+	 * @param typeID
+	 * @return reprocessed value of the item or NaN
+	 */
+	public double getPriceItemReprocessed(int typeID) {
+		return get(pricesItemReprocessed, typeID);
+	}
+
+	private void updatePrice(int typeID) {
+		prices[typeID] = ApiIdConverter.calcPriceType(typeID, false, null, false);
+		pricesReprocessed[typeID] = ApiIdConverter.calcPriceType(typeID, false, null, true);
+		UserItem<Integer, Double> userPrice = Settings.get().getUserPrices().get(-typeID);
+		if (userPrice != null) {
+			pricesBlueprintCopy[typeID] = userPrice.getValue();
+		}
+	}
+
+	private static double get(double[] array, int typeID) {
+		if (typeID < 0 || typeID >= array.length) {
+			return Double.NaN;
+		}
+		return array[typeID];
+	}
+
+	private static double[] createArray(int size) {
+		double[] array = new double[size];
+		Arrays.fill(array, Double.NaN);
+		return array;
+	}
+
+	private static void invoke(final List<Item> items, final Updater updater) {
+		List<Callable<Void>> updaters = new ArrayList<>();
+		for (int i = 0; i < items.size(); i = i + CHUNK_SIZE) {
+			final List<Item> chunk = items.subList(i, Math.min(i + CHUNK_SIZE, items.size()));
+			updaters.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (Item item : chunk) {
+						updater.update(item);
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Void> future : ForkJoinPool.commonPool().invokeAll(updaters)) {
+				future.get();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ex);
+		} catch (ExecutionException ex) {
+			throw new RuntimeException(ex.getCause());
+		}
+	}
+
+	private static interface Updater {
+		public void update(Item item);
+	}
+}
@@ -22,13 +22,21 @@ package net.nikr.eve.jeveasset.io.shared;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.nikr.eve.jeveasset.gui.dialogs.update.UpdateTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,9 +44,18 @@ import org.slf4j.LoggerFactory;
 
 public class ThreadWoker {
 
-	private static final int MAIN_THREADS = 100;
-	private static final int SUB_THREADS = 100;
-	private static final ExecutorService RETURN_THREAD_POOL = Executors.newFixedThreadPool(SUB_THREADS);
+	private static final int MAIN_THREADS = 20;
+	private static final int SUB_THREADS = 10;
+	private static final Map<String, Integer> HOST_THREADS = new HashMap<>();
+	static {
+		HOST_THREADS.put("ESI", 20);
+	}
+	private static final String DEFAULT_HOST = "default";
+	private static final String MAIN_POOL = "main";
+	private static final long CANCEL_CHECK_MILLIS = 250;
+	private static final ThreadLocal<String> CURRENT_POOL = new ThreadLocal<>();
+	private static final ExecutorService MAIN_THREAD_POOL = createThreadPool(MAIN_POOL, MAIN_THREADS);
+	private static final Map<String, ExecutorService> SUB_THREAD_POOLS = new HashMap<>();
 
 	private static final Logger LOG = LoggerFactory.getLogger(ThreadWoker.class);
 
@@ -55,40 +72,43 @@ public class ThreadWoker {
 	}
 
 	public static void start(UpdateTask updateTask, Collection<? extends Runnable> updaters, boolean updateProgress, int start, int end) {
-		ExecutorService threadPool = Executors.newFixedThreadPool(MAIN_THREADS);
-		try {
-			LOG.info("Starting " + updaters.size() + " main threads");
-			List<Future<?>> futures = new ArrayList<Future<?>>();
+		if (MAIN_POOL.equals(CURRENT_POOL.get())) { //Already in a main thread: waiting on the main pool could deadlock
 			for (Runnable runnable : updaters) {
-				futures.add(threadPool.submit(runnable));
+				runnable.run();
 			}
-			threadPool.shutdown();
-			while (!threadPool.awaitTermination(500, TimeUnit.MICROSECONDS)) {
-				if (updateTask != null) {
-					if (updateTask.isCancelled()) {
-						threadPool.shutdownNow();
-					} else if (updateProgress) {
-						int progress = 0;
-						for (Future<?> future : futures) {
-							if (future.isDone()) {
-								progress++;
-							}
-						}
-						updateTask.setTaskProgress(updaters.size(), progress, start, end);
-					}
-				}
+			return;
+		}
+		LOG.info("Starting " + updaters.size() + " main threads");
+		CompletionService<Object> completionService = new ExecutorCompletionService<>(MAIN_THREAD_POOL);
+		List<Future<Object>> futures = new ArrayList<>();
+		for (Runnable runnable : updaters) {
+			futures.add(completionService.submit(runnable, null));
+		}
+		try {
+			if (!waitFor(updateTask, completionService, futures, updateProgress, start, end)) {
+				return; //Cancelled
 			}
 			//Get errors (if any)
 			for (Future<?> future : futures) {
 				future.get();
 			}
 		} catch (InterruptedException ex) {
-			//No problem
+			cancel(futures);
+			Thread.currentThread().interrupt(); //Restore the interrupt flag for the caller
 		} catch (ExecutionException ex) {
 			throwExecutionException(ex);
 		}
 	}
 
+	/**
+	 * Run a single task in the main thread pool
+	 * @param runnable
+	 * @return
+	 */
+	static Future<?> submit(Runnable runnable) {
+		return MAIN_THREAD_POOL.submit(runnable);
+	}
+
 	public static <K> List<Future<K>> startReturn(UpdateTask updateTask, Collection<? extends Callable<K>> updaters) throws InterruptedException {
 		return startReturn(updateTask, updaters, false);
 	}
@@ -98,35 +118,110 @@ public class ThreadWoker {
 	}
 
 	public static <K> List<Future<K>> startReturn(UpdateTask updateTask, Collection<? extends Callable<K>> updaters, boolean updateProgress, int start, int end) throws InterruptedException {
+		return startReturn(updateTask, updaters, updateProgress, start, end, DEFAULT_HOST);
+	}
+
+	/**
+	 * Run the sub threads in the shared pool of the host.
+	 * The size of the pool limit the number of concurrent requests against the host.
+	 *
+	 * @param <K>
+	 * @param updateTask
+	 * @param updaters
+	 * @param updateProgress
+	 * @param start
+	 * @param end
+	 * @param host pool name (ex. ESI)
+	 * @return Futures in the same order as updaters
+	 * @throws InterruptedException
+	 */
+	public static <K> List<Future<K>> startReturn(UpdateTask updateTask, Collection<? extends Callable<K>> updaters, boolean updateProgress, int start, int end, String host) throws InterruptedException {
 		if (updateTask != null && updateTask.isCancelled()) {
 			throw new TaskCancelledException();
 		}
-		LOG.info("Starting " + updaters.size() + " sub threads");
-		List<Future<K>> futures = new ArrayList<Future<K>>();
+		List<Future<K>> futures = new ArrayList<>();
+		if (host.equals(CURRENT_POOL.get())) { //Already in a sub thread of this host: waiting on the pool could deadlock
+			for (Callable<K> callable : updaters) {
+				FutureTask<K> futureTask = new FutureTask<>(callable);
+				futureTask.run();
+				futures.add(futureTask);
+			}
+			return futures;
+		}
+		LOG.info("Starting " + updaters.size() + " " + host + " sub threads");
+		CompletionService<K> completionService = new ExecutorCompletionService<>(getSubThreadPool(host));
 		for (Callable<K> callable : updaters) {
-			futures.add(RETURN_THREAD_POOL.submit(callable));
+			futures.add(completionService.submit(callable));
 		}
+		if (!waitFor(updateTask, completionService, futures, updateProgress, start, end)) {
+			throw new TaskCancelledException(); //Stop parent Task
+		}
+		return futures;
+	}
+
+	/**
+	 * Wait for all futures to complete.
+	 * Progress is updated as each task is completed.
+	 *
+	 * @return false if the update task was cancelled
+	 */
+	private static <K> boolean waitFor(UpdateTask updateTask, CompletionService<K> completionService, List<Future<K>> futures, boolean updateProgress, int start, int end) throws InterruptedException {
 		int done = 0;
 		while (done < futures.size()) {
-			done = 0;
-			for (Future<?> future : futures) {
-				if (future.isDone()) {
-					done++;
-				}
+			if (updateTask != null && updateTask.isCancelled()) { //If task is cancelled
+				cancel(futures); //cancel all threads
+				return false;
 			}
-			if (updateTask != null) {
-				if (updateTask.isCancelled()) { //If task is cancelled
-					for (Future<?> future : futures) { //cancel all threads
-						future.cancel(true);
-					}
-					throw new TaskCancelledException(); //Stop parent Task
-				} else if (updateProgress) {
-					updateTask.setTaskProgress(updaters.size(), done, start, end);
-				}
+			//Timeout is only used to check if the task have been cancelled
+			Future<K> future = completionService.poll(CANCEL_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+			if (future == null) {
+				continue;
+			}
+			done++;
+			if (updateTask != null && updateProgress) {
+				updateTask.setTaskProgress(futures.size(), done, start, end);
 			}
-			Thread.sleep(500);
 		}
-		return futures;
+		return true;
+	}
+
+	private static void cancel(List<? extends Future<?>> futures) {
+		for (Future<?> future : futures) {
+			future.cancel(true);
+		}
+	}
+
+	private static synchronized ExecutorService getSubThreadPool(String host) {
+		ExecutorService threadPool = SUB_THREAD_POOLS.get(host);
+		if (threadPool == null) {
+			Integer threads = HOST_THREADS.get(host);
+			if (threads == null) {
+				threads = SUB_THREADS;
+			}
+			threadPool = createThreadPool(host, threads);
+			SUB_THREAD_POOLS.put(host, threadPool);
+		}
+		return threadPool;
+	}
+
+	private static ExecutorService createThreadPool(final String name, final int threads) {
+		final AtomicInteger count = new AtomicInteger();
+		ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						CURRENT_POOL.set(name);
+						runnable.run();
+					}
+				}, "ThreadWoker-" + name + "-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		threadPool.allowCoreThreadTimeOut(true); //Release idle threads between updates
+		return threadPool;
 	}
 
 	public static class TaskCancelledException extends RuntimeException {
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.io.shared;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Future;
+import net.nikr.eve.jeveasset.gui.dialogs.update.UpdateTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dependency graph of updaters.
+ * Each node is started in the main thread pool as soon as all of its dependencies are done,
+ * instead of waiting for all the updaters of the previous step.
+ */
+public class UpdatePipeline {
+
+	private static final Logger LOG = LoggerFactory.getLogger(UpdatePipeline.class);
+
+	private static final long CANCEL_CHECK_MILLIS = 250;
+
+	private final List<Node> nodes = new ArrayList<>();
+	private boolean started = false;
+	private boolean cancelled = false;
+
+	public Node add(Runnable runnable, Object owner, Node... dependencies) {
+		return add(runnable, owner, Arrays.asList(dependencies));
+	}
+
+	/**
+	 * Add updater to the pipeline
+	 * @param runnable the updater
+	 * @param owner used to find the node again (can be null)
+	 * @param dependencies nodes that must be done before this node is started
+	 * @return the new node
+	 */
+	public synchronized Node add(Runnable runnable, Object owner, Collection<Node> dependencies) {
+		Node node = new Node(runnable, owner);
+		for (Node dependency : new LinkedHashSet<>(dependencies)) {
+			if (!dependency.done) {
+				dependency.dependents.add(node);
+				node.waiting++;
+			}
+		}
+		nodes.add(node);
+		if (started && !cancelled && node.waiting == 0) {
+			submit(node);
+		}
+		return node;
+	}
+
+	public synchronized List<Node> getNodes() {
+		return new ArrayList<>(nodes);
+	}
+
+	public synchronized List<Node> getNodes(Class<?> clazz) {
+		List<Node> list = new ArrayList<>();
+		for (Node node : nodes) {
+			if (clazz.isInstance(node.runnable)) {
+				list.add(node);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Nodes of all the updater classes
+	 * @param classes
+	 * @return
+	 */
+	public synchronized List<Node> getNodes(Collection<Class<?>> classes) {
+		List<Node> list = new ArrayList<>();
+		for (Node node : nodes) {
+			for (Class<?> clazz : classes) {
+				if (clazz.isInstance(node.runnable)) {
+					list.add(node);
+					break;
+				}
+			}
+		}
+		return list;
+	}
+
+	public synchronized List<Node> getNodes(Class<?> clazz, Object owner) {
+		List<Node> list = new ArrayList<>();
+		for (Node node : nodes) {
+			if (clazz.isInstance(node.runnable) && owner.equals(node.owner)) {
+				list.add(node);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Start all nodes without dependencies.
+	 * Does nothing if the pipeline have already been started.
+	 */
+	public synchronized void start() {
+		if (started) {
+			return;
+		}
+		started = true;
+		LOG.info("Starting update pipeline (" + nodes.size() + " updaters)");
+		for (Node node : nodes) {
+			if (node.waiting == 0) {
+				submit(node);
+			}
+		}
+	}
+
+	public synchronized void cancel() {
+		if (cancelled) {
+			return;
+		}
+		cancelled = true;
+		for (Node node : nodes) {
+			if (node.future != null) {
+				node.future.cancel(true);
+			}
+		}
+		notifyAll();
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Start the pipeline (if needed) and wait for the nodes to be done.
+	 * Progress is updated as each node is done.
+	 * If the update task is cancelled, the whole pipeline is cancelled.
+	 *
+	 * @param updateTask
+	 * @param waitFor nodes to wait for
+	 * @param updateProgress
+	 */
+	public void waitFor(UpdateTask updateTask, Collection<Node> waitFor, boolean updateProgress) {
+		start();
+		synchronized (this) {
+			int done = -1;
+			while (true) {
+				if (cancelled || (updateTask != null && updateTask.isCancelled())) {
+					cancel();
+					return;
+				}
+				int count = 0;
+				for (Node node : waitFor) {
+					if (node.done) {
+						count++;
+					}
+				}
+				if (count != done) {
+					done = count;
+					if (updateTask != null && updateProgress) {
+						updateTask.setTaskProgress(waitFor.size(), done, 0, 100);
+					}
+				}
+				if (done >= waitFor.size()) {
+					break;
+				}
+				try {
+					wait(CANCEL_CHECK_MILLIS); //Woken up when a node is done (timeout to check if the task is cancelled)
+				} catch (InterruptedException ex) {
+					cancel();
+					return;
+				}
+			}
+		}
+		//Throw errors (if any)
+		for (Node node : waitFor) {
+			if (node.error instanceof Error) {
+				throw (Error) node.error;
+			} else if (node.error instanceof RuntimeException) {
+				throw (RuntimeException) node.error;
+			}
+		}
+	}
+
+	private void submit(final Node node) {
+		node.future = ThreadWoker.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (!isCancelled()) {
+						node.runnable.run();
+					}
+				} catch (RuntimeException | Error ex) {
+					node.error = ex;
+				} finally {
+					done(node);
+				}
+			}
+		});
+	}
+
+	private synchronized void done(Node node) {
+		node.done = true;
+		for (Node dependent : node.dependents) {
+			dependent.waiting--;
+			if (dependent.waiting == 0 && !cancelled) {
+				submit(dependent);
+			}
+		}
+		notifyAll();
+	}
+
+	public static class Node {
+		private final Runnable runnable;
+		private final Object owner;
+		private final List<Node> dependents = new ArrayList<>();
+		private int waiting = 0;
+		private boolean done = false;
+		private volatile Throwable error;
+		private Future<?> future;
+
+		private Node(Runnable runnable, Object owner) {
+			this.runnable = runnable;
+			this.owner = owner;
+		}
+	}
+}
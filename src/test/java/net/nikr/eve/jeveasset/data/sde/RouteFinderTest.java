@@ -0,0 +1,238 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.data.sde;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import net.nikr.eve.jeveasset.TestUtil;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class RouteFinderTest extends TestUtil {
+
+	private static final long SYSTEM_ID = 30000000L;
+
+	private final Map<Long, MyLocation> systems = new HashMap<>();
+	private File directory;
+	private String filename;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("jumps").toFile();
+		filename = new File(directory, "jumps.dat").getAbsolutePath();
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testSmallGraph() {
+		List<Jump> jumps = new ArrayList<>();
+		//Chain 1-2-3-4 with a loop 2-5-6-3
+		jumps.add(jump(1, 2));
+		jumps.add(jump(2, 3));
+		jumps.add(jump(3, 4));
+		jumps.add(jump(2, 5));
+		jumps.add(jump(5, 6));
+		jumps.add(jump(6, 3));
+		//Not connected
+		jumps.add(jump(7, 8));
+		RouteFinder routeFinder = new RouteFinder(jumps, null);
+		assertThat(routeFinder.distanceBetween(id(1), id(1)), equalTo(0));
+		assertThat(routeFinder.distanceBetween(id(1), id(4)), equalTo(3));
+		assertThat(routeFinder.distanceBetween(id(4), id(1)), equalTo(3));
+		assertThat(routeFinder.distanceBetween(id(1), id(6)), equalTo(3));
+		assertThat(routeFinder.distanceBetween(id(4), id(5)), equalTo(3));
+		assertThat(routeFinder.distanceBetween(id(7), id(8)), equalTo(1));
+		assertThat(routeFinder.distanceBetween(id(1), id(7)), nullValue()); //Unreachable
+		assertThat(routeFinder.distanceBetween(id(1), id(9)), nullValue()); //Unknown
+		assertThat(routeFinder.distanceBetween(null, id(1)), nullValue());
+		Map<Long, Integer> distances = routeFinder.distancesFrom(id(1), 2);
+		assertThat(distances.size(), equalTo(4)); //1, 2, 3, 5
+		assertThat(distances.get(id(3)), equalTo(2));
+		assertThat(distances.get(id(4)), nullValue());
+		test(routeFinder, jumps);
+	}
+
+	@Test
+	public void testRandomGraph() {
+		List<Jump> jumps = randomJumps(new Random(42), 60, 80);
+		test(new RouteFinder(jumps, null), jumps);
+	}
+
+	@Test
+	public void testSaveLoad() throws IOException {
+		List<Jump> jumps = randomJumps(new Random(1), 30, 40);
+		test(new RouteFinder(jumps, filename), jumps);
+		File file = new File(filename);
+		assertThat(file.exists(), equalTo(true));
+		int size = systems(jumps).size();
+		assertThat(file.length(), equalTo(headerSize(size) + (long) size * size));
+		//Loaded from the file
+		test(new RouteFinder(jumps, filename), jumps);
+		List<Long> systemIDs = new ArrayList<>(systems(jumps));
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.seek(headerSize(size) + 1); //From the first to the second system
+			randomAccessFile.writeByte(42);
+		}
+		assertThat(new RouteFinder(jumps, filename).distanceBetween(systemIDs.get(0), systemIDs.get(1)), equalTo(42));
+	}
+
+	@Test
+	public void testStaleFile() {
+		List<Jump> jumps = randomJumps(new Random(1), 30, 40);
+		new RouteFinder(jumps, filename);
+		//Same systems, different jumps
+		List<Jump> changed = new ArrayList<>(jumps);
+		changed.remove(changed.size() - 1);
+		changed.add(jump(0, 29));
+		assertThat(systems(changed), equalTo(systems(jumps)));
+		test(new RouteFinder(changed, filename), changed);
+		test(new RouteFinder(changed, filename), changed); //Saved again
+		//Different systems
+		List<Jump> other = randomJumps(new Random(2), 20, 30);
+		test(new RouteFinder(other, filename), other);
+	}
+
+	@Test
+	public void testCorruptedFile() throws IOException {
+		List<Jump> jumps = randomJumps(new Random(1), 30, 40);
+		new RouteFinder(jumps, filename);
+		File file = new File(filename);
+		long length = file.length();
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength(length - 1);
+		}
+		test(new RouteFinder(jumps, filename), jumps);
+		assertThat(file.length(), equalTo(length)); //Saved again
+	}
+
+	/**
+	 * Compare all pairs with a plain breadth first search
+	 */
+	private void test(RouteFinder routeFinder, List<Jump> jumps) {
+		Map<Long, Set<Long>> neighbours = new HashMap<>();
+		for (Jump jump : jumps) {
+			add(neighbours, jump.getFrom().getSystemID(), jump.getTo().getSystemID());
+			add(neighbours, jump.getTo().getSystemID(), jump.getFrom().getSystemID());
+		}
+		for (Long from : neighbours.keySet()) {
+			Map<Long, Integer> expected = bfs(neighbours, from);
+			for (Long to : neighbours.keySet()) {
+				assertThat(routeFinder.distanceBetween(from, to), equalTo(expected.get(to)));
+			}
+			assertThat(routeFinder.distancesFrom(from, Integer.MAX_VALUE), equalTo(expected));
+		}
+	}
+
+	private Map<Long, Integer> bfs(Map<Long, Set<Long>> neighbours, Long from) {
+		Map<Long, Integer> distances = new HashMap<>();
+		Queue<Long> queue = new ArrayDeque<>();
+		distances.put(from, 0);
+		queue.add(from);
+		while (!queue.isEmpty()) {
+			Long system = queue.poll();
+			for (Long neighbour : neighbours.get(system)) {
+				if (!distances.containsKey(neighbour)) {
+					distances.put(neighbour, distances.get(system) + 1);
+					queue.add(neighbour);
+				}
+			}
+		}
+		return distances;
+	}
+
+	private void add(Map<Long, Set<Long>> neighbours, Long from, Long to) {
+		Set<Long> set = neighbours.get(from);
+		if (set == null) {
+			set = new HashSet<>();
+			neighbours.put(from, set);
+		}
+		set.add(to);
+	}
+
+	private List<Jump> randomJumps(Random random, int size, int count) {
+		List<Jump> jumps = new ArrayList<>();
+		for (int i = 1; i < size; i++) { //All systems are used
+			jumps.add(jump(random.nextInt(i), i));
+		}
+		for (int i = size - 1; i < count; i++) {
+			jumps.add(jump(random.nextInt(size), random.nextInt(size)));
+		}
+		return jumps;
+	}
+
+	private Set<Long> systems(List<Jump> jumps) {
+		Set<Long> systemIDs = new TreeSet<>();
+		for (Jump jump : jumps) {
+			systemIDs.add(jump.getFrom().getSystemID());
+			systemIDs.add(jump.getTo().getSystemID());
+		}
+		return systemIDs;
+	}
+
+	private long headerSize(int size) {
+		return 4 + 4 + 8 + 4 + (8L * size);
+	}
+
+	private Jump jump(int from, int to) {
+		return new Jump(system(from), system(to));
+	}
+
+	private MyLocation system(int i) {
+		long systemID = id(i);
+		MyLocation system = systems.get(systemID);
+		if (system == null) {
+			system = new MyLocation(systemID, "System " + i, systemID, "System " + i, 20000000L, "Constellation", 10000000L, "Region", "0.5");
+			systems.put(systemID, system);
+		}
+		return system;
+	}
+
+	private long id(int i) {
+		return SYSTEM_ID + i;
+	}
+}
@@ -25,6 +25,10 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import javax.swing.SwingWorker;
 import net.nikr.eve.jeveasset.TestUtil;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 
@@ -48,6 +52,39 @@ public class StaticDataTest extends TestUtil {
 		}
 	}
 
+	@Test
+	public void testPlaceholder() {
+		StaticData.load();
+		long locationID = 9000000000000L;
+		assertNull(StaticData.get().getLocation(locationID));
+		assertNull(StaticData.get().getPlaceholder(locationID));
+		MyLocation placeholder = StaticData.get().addPlaceholder(locationID);
+		assertTrue(placeholder.isEmpty());
+		assertSame(placeholder, StaticData.get().addPlaceholder(locationID));
+		assertSame(placeholder, StaticData.get().getPlaceholder(locationID));
+		assertNull(StaticData.get().getLocation(locationID));
+	}
+
+	@Test
+	public void testLocationMap() {
+		LocationMap map = new LocationMap();
+		for (long i = 0; i < 10000; i++) {
+			map.put(MyLocation.create(9100000000000L + i * 1000003L));
+		}
+		assertEquals(10000, map.values().size());
+		for (long i = 0; i < 10000; i++) {
+			long locationID = 9100000000000L + i * 1000003L;
+			assertSame(MyLocation.create(locationID), map.get(locationID));
+		}
+		map.remove(9100000000000L);
+		assertNull(map.get(9100000000000L));
+		assertEquals(9999, map.values().size());
+		map.put(MyLocation.create(9100000000000L));
+		assertSame(MyLocation.create(9100000000000L), map.get(9100000000000L));
+		assertEquals(10000, map.values().size());
+		assertNull(map.get(-1));
+	}
+
 	private static class ReadThread extends SwingWorker<Void, Void> {
 
 		@Override
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.data.settings;
+
+import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.data.settings.AddedData.LongLongMap;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+
+public class AddedDataTest extends TestUtil {
+
+	@Test
+	public void testLongLongMap() {
+		LongLongMap map = new LongLongMap();
+		for (long i = 0; i < 10000; i++) {
+			map.put(i * 1000003L, i);
+		}
+		assertEquals(10000, map.size());
+		for (long i = 0; i < 10000; i++) {
+			assertEquals(i, map.get(i * 1000003L));
+		}
+		assertEquals(LongLongMap.EMPTY, map.get(-1));
+		map.put(0, 42);
+		assertEquals(42, map.get(0));
+		assertEquals(10000, map.size());
+	}
+}
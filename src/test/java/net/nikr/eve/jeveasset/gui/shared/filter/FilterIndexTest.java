@@ -0,0 +1,164 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.gui.shared.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.gui.shared.filter.FilterIndex.Query;
+import net.nikr.eve.jeveasset.gui.shared.table.EnumTableColumn;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class FilterIndexTest extends TestUtil {
+
+	@Test
+	public void testMatches() {
+		FilterIndex<Row> index = new FilterIndex<>(new RowTableFormat());
+		Row tritanium = new Row("Tritanium", "Jita");
+		Row pyerite = new Row("Pyerite", "Amarr");
+		index.update(tritanium);
+		index.update(pyerite);
+		assertEquals(4, index.getValueCount());
+		assertTrue(index.matches(tritanium, new Query("tani", false)));
+		assertFalse(index.matches(pyerite, new Query("tani", false)));
+		assertTrue(index.matches(pyerite, new Query("ar", false))); //Shorter than a trigram
+		assertTrue(index.matches(pyerite, new Query("amarr", true)));
+		assertFalse(index.matches(pyerite, new Query("amar", true)));
+		assertFalse(index.matches(tritanium, new Query("itaj", false))); //Not across columns
+		assertEquals("\ntritanium\r\njita\r", index.getHaystack(tritanium));
+	}
+
+	@Test
+	public void testUpdate() {
+		FilterIndex<Row> index = new FilterIndex<>(new RowTableFormat());
+		Row row = new Row("Tritanium", "Jita");
+		Query query = new Query("pyer", false);
+		assertFalse(index.matches(row, query)); //Added on first use
+		assertEquals(1, index.size());
+		row.values[0] = "Pyerite";
+		index.update(row);
+		assertTrue(index.matches(row, query)); //Value added after the search
+		assertEquals(2, index.getValueCount());
+		index.remove(row);
+		assertEquals(0, index.size());
+		assertEquals(0, index.getValueCount());
+	}
+
+	@Test
+	public void testCompact() {
+		FilterIndex<Row> index = new FilterIndex<>(new RowTableFormat());
+		List<Row> rows = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			Row row = new Row("Item " + i, "Location " + (i % 10));
+			rows.add(row);
+			index.update(row);
+		}
+		Query query = new Query("item 4999", true);
+		assertTrue(index.matches(rows.get(4999), query));
+		for (int i = 0; i < 4000; i++) {
+			index.remove(rows.get(i));
+		}
+		assertEquals(1010, index.getValueCount());
+		assertTrue(index.matches(rows.get(4999), query));
+		assertFalse(index.matches(rows.get(4998), query));
+		assertTrue(index.matches(rows.get(4321), new Query("location 1", true)));
+	}
+
+	public static class Row {
+		private final String[] values;
+
+		public Row(String... values) {
+			this.values = values;
+		}
+	}
+
+	public enum RowColumn implements EnumTableColumn<Row> {
+		NAME, LOCATION;
+
+		@Override
+		public Class<?> getType() {
+			return String.class;
+		}
+
+		@Override
+		public Comparator<?> getComparator() {
+			return null;
+		}
+
+		@Override
+		public String getColumnName() {
+			return name();
+		}
+
+		@Override
+		public Object getColumnValue(Row from) {
+			return from.values[ordinal()];
+		}
+
+		@Override
+		public boolean isColumnEditable(Object baseObject) {
+			return false;
+		}
+
+		@Override
+		public boolean isShowDefault() {
+			return true;
+		}
+
+		@Override
+		public boolean setColumnValue(Object baseObject, Object editedValue) {
+			return false;
+		}
+	}
+
+	public static class RowTableFormat implements SimpleTableFormat<Row> {
+
+		@Override
+		public Object getColumnValue(Row item, String column) {
+			return valueOf(column).getColumnValue(item);
+		}
+
+		@Override
+		public List<EnumTableColumn<Row>> getAllColumns() {
+			return new ArrayList<>(Arrays.asList(RowColumn.values()));
+		}
+
+		@Override
+		public List<EnumTableColumn<Row>> getShownColumns() {
+			return getAllColumns();
+		}
+
+		@Override
+		public EnumTableColumn<Row> valueOf(String column) {
+			return RowColumn.valueOf(column);
+		}
+
+		@Override
+		public void addColumn(EnumTableColumn<Row> column) { }
+	}
+}
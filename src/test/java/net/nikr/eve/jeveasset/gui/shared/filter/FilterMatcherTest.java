@@ -266,6 +266,14 @@ public class FilterMatcherTest extends TestUtil {
 		assertEquals("Matcher: value:" + text + " [" + compare + "]" + enumColumn.getColumnValue(item) + "(" + enumColumn.name() +  ")", expected, filterMatcher.matches(item));
 		filterMatcher = new FilterMatcher<>(filterControl, null, new Filter(1, Filter.LogicType.AND, enumColumn, compare, text, true));
 		assertEquals("Filter: " + enumColumn.name() + "  value:" + text, expected, filterMatcher.matches(item));
+		final FilterIndex<Item> index = new FilterIndex<>(filterControl);
+		filterMatcher = new FilterMatcher<>(filterControl, new ColumnCache<Item>() {
+			@Override
+			public FilterIndex<Item> getFilterIndex() {
+				return index;
+			}
+		}, new Filter(1, Filter.LogicType.AND, enumColumn, compare, text, true));
+		assertEquals("Index: " + enumColumn.name() + "  value:" + text, expected, filterMatcher.matches(item));
 	}
 
 	private void matches(final Object expected, String text1, String text2, String text3, String text4, String text5) {
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.gui.shared.filter;
+
+import ca.odell.glazedlists.EventList;
+import ca.odell.glazedlists.matchers.Matcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.gui.shared.filter.FilterWorker.ResultMatcher;
+import net.nikr.eve.jeveasset.gui.shared.table.EventListManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class FilterWorkerTest extends TestUtil {
+
+	private static final Matcher<Integer> EVEN = new Matcher<Integer>() {
+		@Override
+		public boolean matches(Integer item) {
+			return item % 2 == 0;
+		}
+	};
+
+	@Test
+	public void testFilter() throws Exception {
+		List<Integer> data = new ArrayList<>();
+		for (int i = 0; i < FilterWorker.THRESHOLD * 2; i++) {
+			data.add(i);
+		}
+		EventList<Integer> eventList = EventListManager.create(data);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final List<ResultMatcher<Integer>> filtered = new ArrayList<>();
+		FilterWorker<Integer> worker = new FilterWorker<Integer>(eventList, EVEN) {
+			@Override
+			protected void filtered(ResultMatcher<Integer> matcher) {
+				filtered.add(matcher);
+				latch.countDown();
+			}
+
+			@Override
+			protected void progress(int progress) { }
+		};
+		worker.execute();
+		Map<Integer, Boolean> results = worker.get();
+		assertEquals(data.size(), results.size());
+		for (Integer i : data) {
+			assertEquals(i % 2 == 0, results.get(i));
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		ResultMatcher<Integer> matcher = filtered.get(0);
+		assertTrue(matcher.matches(data.get(0)));
+		matcher.clear();
+		assertTrue(matcher.matches(data.size())); //Not in results - use matcher
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.gui.shared.menu;
+
+import com.udojava.evalex.Expression;
+import java.math.BigDecimal;
+import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.gui.shared.table.EnumTableFormatAdaptor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+
+public class CompiledFormulaTest extends TestUtil {
+
+	@Test
+	public void testSameAsEvalEx() {
+		same("1 + 2 * 3");
+		same("(1 + 2) * 3");
+		same("10 - 4 - 3");
+		same("2 ^ 3 * 2");
+		same("7 % 3");
+		same("-7 % 3");
+		same("PRICE * COUNT");
+		same("price * 2 > count");
+		same("PRICE = 5 || COUNT <> 3");
+		same("PRICE >= 5 && COUNT <= 3");
+		same("IF(PRICE > COUNT, PRICE, COUNT)");
+		same("MAX(1, PRICE, COUNT) + MIN(PRICE, COUNT)");
+		same("ABS(COUNT - PRICE) + SQRT(16) + FLOOR(2.5) + CEILING(2.5)");
+		same("NOT(PRICE > COUNT)");
+		same("ROUND(PRICE / COUNT, 2)");
+	}
+
+	@Test
+	public void testInvalid() {
+		assertNull(CompiledFormula.compile(""));
+		assertNull(CompiledFormula.compile("1 +"));
+		assertNull(CompiledFormula.compile("(1 + 2"));
+		assertNull(CompiledFormula.compile("1.0."));
+		assertNull(CompiledFormula.compile("SIN(1)")); //Not supported - use EvalEx
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testDivisionByZero() {
+		CompiledFormula compiled = CompiledFormula.compile("PRICE / (COUNT - 3)");
+		assertNotNull(compiled);
+		compiled.eval(new double[] {5, 3});
+	}
+
+	private void same(String formula) {
+		CompiledFormula compiled = CompiledFormula.compile(formula);
+		assertNotNull(formula, compiled);
+		double[] values = new double[compiled.getVariables().size()];
+		Expression expression = new Expression(formula, JFormulaDialog.FORMULA_PRECISION);
+		for (int i = 0; i < values.length; i++) {
+			String variable = compiled.getVariables().get(i);
+			values[i] = variable.equals("price") ? 5 : 3;
+			expression.setVariable(variable, new BigDecimal(values[i]));
+		}
+		BigDecimal expected = EnumTableFormatAdaptor.safeEval(expression);
+		assertNotNull(formula, expected);
+		assertEquals(formula, expected.doubleValue(), compiled.eval(values), 0.0000001);
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.gui.shared.table;
+
+import ca.odell.glazedlists.SortedList;
+import ca.odell.glazedlists.TransactionList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import net.nikr.eve.jeveasset.TestUtil;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+
+public class EventListManagerTest extends TestUtil {
+
+	private static final int SIZE = 20;
+
+	@Test
+	public void testUpdateInPlace() {
+		List<Row> rows = rows();
+		TransactionList<Row> eventList = EventListManager.createTransactionList();
+		SortedList<Row> sortedList = createSortedList(eventList);
+		EventListManager.update(eventList, rows);
+		assertThat(first(sortedList), equalTo(0));
+		//Change a kept row in place
+		rows.get(SIZE - 1).value = -1;
+		EventListManager.update(eventList, rows);
+		assertThat(first(sortedList), equalTo(SIZE - 1));
+	}
+
+	@Test
+	public void testUpdateChanged() {
+		List<Row> rows = rows();
+		TransactionList<Row> eventList = EventListManager.createTransactionList();
+		SortedList<Row> sortedList = createSortedList(eventList);
+		EventListManager.update(eventList, rows);
+		//Only the rows listed as changed are updated
+		rows.get(SIZE - 1).value = -1;
+		rows.get(SIZE - 2).value = -2;
+		EventListManager.update(eventList, rows, Collections.singleton(rows.get(SIZE - 1)));
+		assertThat(first(sortedList), equalTo(SIZE - 1));
+		EventListManager.update(eventList, rows, Collections.singleton(rows.get(SIZE - 2)));
+		assertThat(first(sortedList), equalTo(SIZE - 2));
+	}
+
+	@Test
+	public void testUpdateAddRemove() {
+		List<Row> rows = rows();
+		TransactionList<Row> eventList = EventListManager.createTransactionList();
+		SortedList<Row> sortedList = createSortedList(eventList);
+		EventListManager.update(eventList, rows);
+		rows.remove(0);
+		rows.add(new Row(SIZE, -1));
+		EventListManager.update(eventList, rows);
+		assertThat(EventListManager.size(sortedList), equalTo(SIZE));
+		assertThat(first(sortedList), equalTo(SIZE));
+		assertThat(EventListManager.contains(eventList, new Row(0, 0)), equalTo(false));
+	}
+
+	private List<Row> rows() {
+		List<Row> rows = new ArrayList<>();
+		for (int i = 0; i < SIZE; i++) {
+			rows.add(new Row(i, i));
+		}
+		return rows;
+	}
+
+	private SortedList<Row> createSortedList(TransactionList<Row> eventList) {
+		try {
+			eventList.getReadWriteLock().readLock().lock();
+			return new SortedList<>(eventList, new Comparator<Row>() {
+				@Override
+				public int compare(Row o1, Row o2) {
+					return Integer.compare(o1.value, o2.value);
+				}
+			});
+		} finally {
+			eventList.getReadWriteLock().readLock().unlock();
+		}
+	}
+
+	private int first(SortedList<Row> sortedList) {
+		return EventListManager.get(sortedList, 0).id;
+	}
+
+	private static class Row {
+		private final int id;
+		private int value;
+
+		public Row(int id, int value) {
+			this.id = id;
+			this.value = value;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			return id == ((Row) obj).id;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.gui.tabs.tracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.data.settings.TrackerData;
+import net.nikr.eve.jeveasset.gui.tabs.values.Value;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TrackerQueryTest extends TestUtil {
+
+	private static final String OWNER_1 = "Owner 1";
+	private static final String OWNER_2 = "Owner 2";
+	private static final int DAYS = 3;
+
+	private final List<String> owners = Arrays.asList(OWNER_1, OWNER_2);
+	private List<Value> values1;
+	private List<Value> values2;
+
+	@Before
+	public void setUp() {
+		//Owner 1: one value every hour for three days
+		values1 = new ArrayList<>();
+		for (int day = 0; day < DAYS; day++) {
+			for (int hour = 0; hour < 24; hour++) {
+				values1.add(new Value(date(day, hour, 30)));
+			}
+		}
+		//Owner 2: only the first day (first and last minute)
+		values2 = new ArrayList<>();
+		values2.add(new Value(date(0, 0, 0)));
+		values2.add(new Value(date(0, 23, 59)));
+		Map<String, List<Value>> trackerData = new HashMap<>();
+		trackerData.put(OWNER_1, values1);
+		trackerData.put(OWNER_2, values2);
+		TrackerData.set(trackerData);
+	}
+
+	@After
+	public void tearDown() {
+		TrackerData.set(new HashMap<String, List<Value>>());
+	}
+
+	@Test
+	public void testAllValues() {
+		Map<Date, Map<String, Value>> data = query(null, null, values1.size() + values2.size());
+		assertThat(data.size(), equalTo(values1.size() + values2.size()));
+	}
+
+	@Test
+	public void testLastValuePerBucket() {
+		List<Map.Entry<Date, Map<String, Value>>> data = new ArrayList<>(query(null, null, 10).entrySet()); //Day buckets
+		assertThat(data.size(), equalTo(DAYS));
+		for (int day = 0; day < DAYS; day++) {
+			Map.Entry<Date, Map<String, Value>> entry = data.get(day);
+			Value last = values1.get(day * 24 + 23);
+			assertThat(entry.getValue().get(OWNER_1), sameInstance(last));
+			if (day == 0) {
+				assertThat(entry.getValue().get(OWNER_2), sameInstance(values2.get(1)));
+				assertThat(entry.getKey(), equalTo(values2.get(1).getDate())); //Latest date in the bucket
+			} else {
+				assertThat(entry.getValue().get(OWNER_2), nullValue());
+				assertThat(entry.getKey(), equalTo(last.getDate()));
+			}
+		}
+	}
+
+	@Test
+	public void testBucketEdges() {
+		//From the middle of the first day to the first hours of the second day
+		Date from = date(0, 12, 0);
+		Date to = date(1, 5, 30);
+		List<Map.Entry<Date, Map<String, Value>>> data = new ArrayList<>(query(from, to, 5).entrySet()); //Day buckets
+		assertThat(data.size(), equalTo(2));
+		//Bucket ends at midnight
+		assertThat(data.get(0).getValue().get(OWNER_1), sameInstance(values1.get(23)));
+		//Last bucket is limited by the range
+		assertThat(data.get(1).getValue().get(OWNER_1), sameInstance(values1.get(24 + 5)));
+		assertThat(data.get(1).getKey(), equalTo(to));
+		//Range inside a single bucket
+		data = new ArrayList<>(query(date(0, 12, 0), date(0, 23, 59), 5).entrySet());
+		assertThat(data.size(), equalTo(1));
+		assertThat(data.get(0).getValue().get(OWNER_1), sameInstance(values1.get(23)));
+		assertThat(data.get(0).getValue().get(OWNER_2), sameInstance(values2.get(1)));
+	}
+
+	private Map<Date, Map<String, Value>> query(Date from, Date to, int maxPoints) {
+		try {
+			TrackerData.readLock();
+			return new TrackerQuery().getTrackerDataByDate(owners, from, to, maxPoints);
+		} finally {
+			TrackerData.readUnlock();
+		}
+	}
+
+	private Date date(int day, int hour, int minute) {
+		Calendar calendar = Calendar.getInstance(); //Buckets use the local time zone
+		calendar.clear();
+		calendar.set(2019, Calendar.MARCH, 11 + day, hour, minute);
+		return calendar.getTime();
+	}
+}
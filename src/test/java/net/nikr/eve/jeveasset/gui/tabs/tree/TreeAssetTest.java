@@ -20,9 +20,19 @@
  */
 package net.nikr.eve.jeveasset.gui.tabs.tree;
 
+import java.awt.Color;
+import java.util.ArrayList;
 import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.data.api.my.MyAsset;
 import net.nikr.eve.jeveasset.data.sde.Item;
 import net.nikr.eve.jeveasset.data.sde.StaticData;
+import net.nikr.eve.jeveasset.data.settings.Settings;
+import net.nikr.eve.jeveasset.data.settings.tag.Tag;
+import net.nikr.eve.jeveasset.data.settings.tag.TagColor;
+import net.nikr.eve.jeveasset.data.settings.tag.Tags;
+import net.nikr.eve.jeveasset.io.shared.ConverterTestOptions;
+import net.nikr.eve.jeveasset.io.shared.ConverterTestOptionsGetter;
+import net.nikr.eve.jeveasset.io.shared.ConverterTestUtil;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -102,5 +112,28 @@ public class TreeAssetTest extends TestUtil {
 		//Ship
 		assertTrue("no category: Ship", categoryShip);
 	}
+
+	@Test
+	public void testTags() {
+		ConverterTestOptions options = ConverterTestOptionsGetter.getConverterOptions().get(0);
+		MyAsset asset = ConverterTestUtil.getMyAsset(ConverterTestUtil.getEsiOwner(options), false, true, options);
+		asset.setTags(Settings.get().getTags(asset.getTagID()));
+		TreeAsset treeAsset = new TreeAsset(asset, TreeAsset.TreeType.CATEGORY, new ArrayList<>(), "", false);
+		Tag tag = new Tag("TreeAssetTest", new TagColor(Color.WHITE, Color.BLACK));
+		try {
+			//Tag in the assets tab
+			asset.setTags(Settings.get().addTag(asset.getTagID(), tag));
+			assertTrue(treeAsset.getTags().contains(tag));
+			//Untag in the tree tab
+			treeAsset.setTags(Settings.get().removeTag(treeAsset.getTagID(), tag));
+			assertSame(Tags.EMPTY, asset.getTags());
+			assertSame(Tags.EMPTY, treeAsset.getTags());
+			//Tag in the tree tab
+			treeAsset.setTags(Settings.get().addTag(treeAsset.getTagID(), tag));
+			assertTrue(asset.getTags().contains(tag));
+		} finally {
+			Settings.get().removeTag(asset.getTagID(), tag);
+		}
+	}
 	
 }
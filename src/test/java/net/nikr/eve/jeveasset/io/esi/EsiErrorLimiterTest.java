@@ -0,0 +1,72 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.io.esi;
+
+import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.io.esi.EsiErrorLimiter.EndpointStats;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Test;
+
+
+public class EsiErrorLimiterTest extends TestUtil {
+
+	@After
+	public void tearDown() throws InterruptedException {
+		EsiErrorLimiter.get().update(null, 0); //End timeframe
+		Thread.sleep(5);
+		EsiErrorLimiter.get().update(100, null);
+		EsiErrorLimiter.get().logStats();
+	}
+
+	@Test
+	public void testBackoff() {
+		EsiErrorLimiter limiter = EsiErrorLimiter.get();
+		long backoff = limiter.error("Backoff", true);
+		assertTrue(backoff >= 500 && backoff <= 1000);
+		backoff = limiter.error("Backoff", true);
+		assertTrue(backoff >= 1000 && backoff <= 2000);
+		for (int i = 0; i < 40; i++) {
+			backoff = limiter.error("Backoff", true);
+		}
+		assertTrue(backoff >= 15000 && backoff <= 30000);
+		limiter.success("Backoff");
+		backoff = limiter.error("Backoff", false);
+		assertTrue(backoff >= 500 && backoff <= 1000);
+		for (EndpointStats stats : limiter.getStats()) {
+			if (stats.getEndpoint().equals("Backoff")) {
+				assertEquals(43, stats.getErrors());
+				assertEquals(42, stats.getRetries());
+			}
+		}
+	}
+
+	@Test
+	public void testHealthyEndpoint() throws InterruptedException {
+		EsiErrorLimiter limiter = EsiErrorLimiter.get();
+		limiter.update(30, 60); //Low error budget
+		limiter.error("Failing", true);
+		long start = System.currentTimeMillis();
+		limiter.acquire("Healthy");
+		assertTrue(System.currentTimeMillis() - start < 250);
+		assertEquals(Integer.valueOf(30), limiter.getErrorLimit());
+	}
+}
@@ -20,7 +20,10 @@
  */
 package net.nikr.eve.jeveasset.io.local;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import net.nikr.eve.jeveasset.Program;
 import net.nikr.eve.jeveasset.TestUtil;
 import net.nikr.eve.jeveasset.data.api.accounts.EsiOwner;
@@ -34,6 +37,7 @@ import net.nikr.eve.jeveasset.io.shared.ConverterTestOptions;
 import net.nikr.eve.jeveasset.io.shared.ConverterTestOptionsGetter;
 import net.nikr.eve.jeveasset.io.shared.ConverterTestUtil;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -44,15 +48,25 @@ public class ProfileReadWriteTest extends TestUtil {
 
 	@Test
 	public void testNotNull() {
-		test(false);
+		test(false, false);
 	}
 
 	@Test
 	public void testNull() {
-		test(true);
+		test(true, false);
 	}
 
-	private void test(boolean setNull) {
+	@Test
+	public void testBinaryNotNull() {
+		test(false, true);
+	}
+
+	@Test
+	public void testBinaryNull() {
+		test(true, true);
+	}
+
+	private void test(boolean setNull, boolean binary) {
 		AddedData.load();
 		for (ConverterTestOptions options : ConverterTestOptionsGetter.getConverterOptions()) {
 			ProfileManager saveManager = new ProfileManager();
@@ -66,7 +80,8 @@ public class ProfileReadWriteTest extends TestUtil {
 			saveManager.getEveKitOwners().add(ConverterTestUtil.getEveKitOwner(true, setNull, false, options));
 
 			//Write
-			ProfileWriter.save(saveManager, FILENAME);
+			ProfileWriter.save(saveManager, FILENAME, binary);
+			assertEquals(binary, isBinary());
 
 			//Read
 			ProfileManager loadManager = new ProfileManager();
@@ -92,12 +107,50 @@ public class ProfileReadWriteTest extends TestUtil {
 			EveKitOwner eveKitOwner = loadManager.getEveKitOwners().get(0);
 			ConverterTestUtil.testOwner(eveKitOwner, setNull, options);
 
+			//Convert
+			assertTrue(ProfileWriter.convert(FILENAME, !binary));
+			assertEquals(!binary, isBinary());
+
 			//Clean up
-			File file = new File(FILENAME);
+			File file = new File(getFilename(!binary));
 			assertTrue(file.delete());
+			assertFalse(new File(getFilename(binary)).exists());
+
+			for (String filename : new String[] {FILENAME, ProfileWriter.getBinaryFilename(FILENAME)}) {
+				File backupFile = new File(filename.substring(0, filename.lastIndexOf(".")) + "_" + Program.PROGRAM_VERSION.replace(" ", "_") + "_backup.zip");
+				if (backupFile.exists()) { //Only created when loaded
+					assertTrue(backupFile.delete());
+				}
+				File bacFile = new File(filename.substring(0, filename.lastIndexOf(".")) + ".bac");
+				if (bacFile.exists()) {
+					assertTrue(bacFile.delete());
+				}
+			}
+		}
+	}
+
+	private String getFilename(boolean binary) {
+		if (binary) {
+			return ProfileWriter.getBinaryFilename(FILENAME);
+		} else {
+			return FILENAME;
+		}
+	}
 
-			File backupFile = new File(FILENAME.substring(0, FILENAME.lastIndexOf(".")) + "_" + Program.PROGRAM_VERSION.replace(" ", "_") + "_backup.zip");
-			assertTrue(backupFile.delete());
+	/**
+	 * Only one format is saved, the binary file use the binary extension and the binary header
+	 * @return true if the profile is saved in the binary format
+	 */
+	private boolean isBinary() {
+		File xmlFile = new File(FILENAME);
+		File binaryFile = new File(ProfileWriter.getBinaryFilename(FILENAME));
+		assertTrue(xmlFile.exists() != binaryFile.exists());
+		try (BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(binaryFile.exists() ? binaryFile : xmlFile))) {
+			boolean binary = BinaryXmlReader.isBinary(inputStream);
+			assertEquals(binaryFile.exists(), binary);
+			return binary;
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
 		}
 	}
 
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package net.nikr.eve.jeveasset.io.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.gui.tabs.values.AssetValue;
+import net.nikr.eve.jeveasset.gui.tabs.values.Value;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TrackerDataStoreTest extends TestUtil {
+
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("tracker").toFile();
+		assertThat(directory.delete(), equalTo(true)); //The store is created on first save
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testNotCreated() {
+		assertThat(new TrackerDataStore(directory).load(), nullValue());
+	}
+
+	@Test
+	public void testSaveLoad() {
+		Map<String, List<Value>> out = new HashMap<>();
+		out.put("Owner 1", values(0, 1, 2));
+		List<Value> filters = new ArrayList<>();
+		Value value = new Value(new Date(1552492124589L));
+		value.setContractCollateral(3);
+		value.setContractValue(4);
+		value.setEscrows(5);
+		value.setEscrowsToCover(6);
+		value.setManufacturing(7);
+		value.setSellOrders(8);
+		value.addAssets(AssetValue.create("location", "flag", 1000L), 9.0);
+		value.addAssets(AssetValue.create("location", null, null), 10.0);
+		value.addBalance("balance-id", 11);
+		value.setSkillPoints(12);
+		filters.add(value);
+		out.put("Owner 2", filters);
+
+		TrackerDataStore store = new TrackerDataStore(directory);
+		store.save(out);
+		assertEquals(out, new TrackerDataStore(directory).load());
+	}
+
+	@Test
+	public void testAppend() {
+		Map<String, List<Value>> out = new HashMap<>();
+		List<Value> values = values(0, 1);
+		out.put("Owner", values);
+		TrackerDataStore store = new TrackerDataStore(directory);
+		store.save(out);
+		File file = directory.listFiles()[0];
+		long size = file.length();
+		values.add(value(2));
+		store.save(out);
+		//Only the new value is written
+		assertThat(file.length() - size, equalTo((file.length() - headerSize()) / 3));
+		assertEquals(out, new TrackerDataStore(directory).load());
+	}
+
+	@Test
+	public void testAppendOnlyChangedOwner() {
+		Map<String, List<Value>> out = new HashMap<>();
+		List<Value> values = values(0, 1);
+		out.put("Owner 1", values);
+		out.put("Owner 2", values(2, 3));
+		TrackerDataStore store = new TrackerDataStore(directory);
+		store.save(out);
+		Map<String, Long> sizes = new HashMap<>();
+		for (File file : directory.listFiles()) {
+			sizes.put(file.getName(), file.length());
+		}
+		values.add(value(4));
+		store.save(out);
+		//One segment appended, the other left alone (no rewrite, no backup)
+		int appended = 0;
+		for (File file : directory.listFiles()) {
+			assertThat(file.getName().endsWith(".dat"), equalTo(true));
+			if (file.length() != sizes.get(file.getName())) {
+				appended++;
+			}
+		}
+		assertThat(directory.listFiles().length, equalTo(2));
+		assertThat(appended, equalTo(1));
+		//Editing one owner only rewrites that owner
+		store.setChanged("Owner 2");
+		store.save(out);
+		assertThat(directory.listFiles().length, equalTo(3)); //Two segments and one backup
+		assertEquals(out, new TrackerDataStore(directory).load());
+	}
+
+	@Test
+	public void testCompaction() {
+		Map<String, List<Value>> out = new HashMap<>();
+		List<Value> values = values(0, 1, 2);
+		out.put("Owner 1", values);
+		out.put("Owner 2", values(3));
+		TrackerDataStore store = new TrackerDataStore(directory);
+		store.save(out);
+		values.remove(1);
+		store.setChanged("Owner 1");
+		out.remove("Owner 2");
+		store.save(out);
+		assertThat(directory.listFiles().length, equalTo(2)); //Segment and backup
+		assertEquals(out, new TrackerDataStore(directory).load());
+	}
+
+	@Test
+	public void testBrokenAppend() throws IOException {
+		Map<String, List<Value>> out = new HashMap<>();
+		List<Value> values = values(0, 1, 2);
+		out.put("Owner", values);
+		TrackerDataStore store = new TrackerDataStore(directory);
+		store.save(out);
+		File file = directory.listFiles()[0];
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength(file.length() - 4);
+		}
+		values.remove(2);
+		store = new TrackerDataStore(directory);
+		assertEquals(out, store.load());
+		//Broken segment is rewritten on next save
+		values.add(value(3));
+		store.save(out);
+		assertEquals(out, new TrackerDataStore(directory).load());
+	}
+
+	@Test
+	public void testFailedSegment() throws IOException {
+		Map<String, List<Value>> out = new HashMap<>();
+		out.put("Owner", values(0, 1));
+		TrackerDataStore store = new TrackerDataStore(directory);
+		store.save(out);
+		File file = directory.listFiles()[0];
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.seek(file.length());
+			randomAccessFile.writeByte(1); //String record
+			randomAccessFile.writeShort(2);
+			randomAccessFile.writeShort(0xFFFF); //Invalid modified UTF-8
+		}
+		store = new TrackerDataStore(directory);
+		assertThat(store.load().isEmpty(), equalTo(true));
+		//Failed segment is rewritten into the same file on next save
+		store.save(out);
+		int segments = 0;
+		for (File f : directory.listFiles()) {
+			if (f.getName().endsWith(".dat")) {
+				segments++;
+			}
+		}
+		assertThat(segments, equalTo(1));
+		assertThat(file.exists(), equalTo(true));
+		assertEquals(out, new TrackerDataStore(directory).load());
+	}
+
+	private long headerSize() {
+		return 4 + 4 + 2 + "Owner".length();
+	}
+
+	private List<Value> values(int... days) {
+		List<Value> values = new ArrayList<>();
+		for (int day : days) {
+			values.add(value(day));
+		}
+		return values;
+	}
+
+	private Value value(int day) {
+		Value value = new Value(new Date(1552492124589L + day * 24L * 60L * 60L * 1000L));
+		value.setAssetsTotal(day + 1);
+		value.setBalanceTotal(day + 2);
+		value.setSkillPoints(day + 3);
+		return value;
+	}
+
+	private void assertEquals(Map<String, List<Value>> out, Map<String, List<Value>> in) {
+		assertThat(in.keySet(), equalTo(out.keySet()));
+		for (String key : in.keySet()) {
+			List<Value> outValues = out.get(key);
+			List<Value> inValues = in.get(key);
+			assertThat(inValues.size(), equalTo(outValues.size()));
+			for (int i = 0; i < inValues.size(); i++) {
+				Value outValue = outValues.get(i);
+				Value inValue = inValues.get(i);
+				assertThat(inValue.getDate(), equalTo(outValue.getDate()));
+				assertThat(inValue.getAssetsFilter(), equalTo(outValue.getAssetsFilter()));
+				assertThat(inValue.getAssetsTotal(), equalTo(outValue.getAssetsTotal()));
+				assertThat(inValue.getBalanceFilter(), equalTo(outValue.getBalanceFilter()));
+				assertThat(inValue.getBalanceTotal(), equalTo(outValue.getBalanceTotal()));
+				assertThat(inValue.getContractCollateral(), equalTo(outValue.getContractCollateral()));
+				assertThat(inValue.getContractValue(), equalTo(outValue.getContractValue()));
+				assertThat(inValue.getEscrows(), equalTo(outValue.getEscrows()));
+				assertThat(inValue.getEscrowsToCover(), equalTo(outValue.getEscrowsToCover()));
+				assertThat(inValue.getManufacturing(), equalTo(outValue.getManufacturing()));
+				assertThat(inValue.getSellOrders(), equalTo(outValue.getSellOrders()));
+				assertThat(inValue.getSkillPoints(), equalTo(outValue.getSkillPoints()));
+			}
+		}
+	}
+}
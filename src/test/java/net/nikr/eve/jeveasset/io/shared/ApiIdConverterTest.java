@@ -21,11 +21,17 @@
 
 package net.nikr.eve.jeveasset.io.shared;
 
+import java.util.HashMap;
+import java.util.Map;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.data.sde.Item;
 import net.nikr.eve.jeveasset.data.sde.MyLocation;
 import net.nikr.eve.jeveasset.data.sde.StaticData;
+import net.nikr.eve.jeveasset.data.settings.Settings;
+import net.nikr.eve.jeveasset.data.settings.UserItem;
+import net.nikr.eve.jeveasset.gui.dialogs.settings.UserPriceSettingsPanel.UserPrice;
 import org.junit.Test;
 
 
@@ -128,4 +134,24 @@ public class ApiIdConverterTest extends TestUtil {
 			}
 		}
 	}
+
+	@Test
+	public void testPriceTable() {
+		for (Item item : StaticData.get().getItems().values()) {
+			int typeID = item.getTypeID();
+			assertEquals(ApiIdConverter.calcPriceType(typeID, false, null, false), ApiIdConverter.getPriceSimple(typeID, false), 0);
+			assertEquals(ApiIdConverter.calcPriceType(typeID, true, null, false), ApiIdConverter.getPriceSimple(typeID, true), 0);
+		}
+		Map<Integer, UserItem<Integer, Double>> userPrices = Settings.get().getUserPrices();
+		try {
+			Map<Integer, UserItem<Integer, Double>> prices = new HashMap<>(userPrices);
+			prices.put(34, new UserPrice(123.0, 34, "Tritanium"));
+			prices.put(-691, new UserPrice(456.0, -691, "Rifter Blueprint"));
+			Settings.get().setUserPrices(prices);
+			assertEquals(123.0, ApiIdConverter.getPriceSimple(34, false), 0);
+			assertEquals(456.0, ApiIdConverter.getPriceSimple(691, true), 0);
+		} finally {
+			Settings.get().setUserPrices(userPrices);
+		}
+	}
 }
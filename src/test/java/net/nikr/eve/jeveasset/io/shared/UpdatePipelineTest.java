@@ -0,0 +1,142 @@
+/*
+ * Copyright 2009-2022 Contributors (see credits.txt)
+ *
+ * This file is part of jEveAssets.
+ *
+ * jEveAssets is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * jEveAssets is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with jEveAssets; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package net.nikr.eve.jeveasset.io.shared;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.nikr.eve.jeveasset.TestUtil;
+import net.nikr.eve.jeveasset.io.shared.UpdatePipeline.Node;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class UpdatePipelineTest extends TestUtil {
+
+	@Test
+	public void testDependencies() {
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		UpdatePipeline pipeline = new UpdatePipeline();
+		Node a = pipeline.add(new Add(order, "a"), null);
+		Node b = pipeline.add(new Add(order, "b"), null, a);
+		Node c = pipeline.add(new Add(order, "c"), null, a, b);
+		pipeline.waitFor(null, Arrays.asList(a, b, c), false);
+		assertEquals(Arrays.asList("a", "b", "c"), order);
+	}
+
+	@Test
+	public void testIndependent() throws InterruptedException {
+		final CountDownLatch slow = new CountDownLatch(1);
+		final CountDownLatch fast = new CountDownLatch(1);
+		UpdatePipeline pipeline = new UpdatePipeline();
+		Node slowNode = pipeline.add(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					slow.await();
+				} catch (InterruptedException ex) {
+					//No problem
+				}
+			}
+		}, null);
+		Node fastNode = pipeline.add(new Runnable() {
+			@Override
+			public void run() {
+				fast.countDown();
+			}
+		}, null);
+		pipeline.start();
+		//The fast node must not wait for the slow node
+		assertTrue(fast.await(10, TimeUnit.SECONDS));
+		slow.countDown();
+		pipeline.waitFor(null, Arrays.asList(slowNode, fastNode), false);
+	}
+
+	@Test
+	public void testGetNodes() {
+		UpdatePipeline pipeline = new UpdatePipeline();
+		pipeline.add(new Add(new ArrayList<String>(), "a"), "owner1");
+		pipeline.add(new Add(new ArrayList<String>(), "b"), "owner2");
+		pipeline.add(new Runnable() {
+			@Override
+			public void run() { }
+		}, "owner1");
+		assertEquals(3, pipeline.getNodes().size());
+		assertEquals(2, pipeline.getNodes(Add.class).size());
+		assertEquals(1, pipeline.getNodes(Add.class, "owner1").size());
+		pipeline.cancel();
+	}
+
+	@Test
+	public void testProfileDataOrdering() {
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		UpdatePipeline pipeline = new UpdatePipeline();
+		pipeline.add(new Slow(order, "assets"), "owner1");
+		pipeline.add(new Add(order, "journal"), "owner1");
+		pipeline.add(new Slow(order, "contracts"), "owner2");
+		//Prices use the profile data: must wait for the updaters that change it
+		List<Node> profileData = pipeline.getNodes(Arrays.<Class<?>>asList(Slow.class));
+		assertEquals(2, profileData.size());
+		pipeline.add(new Add(order, "prices"), null, profileData);
+		pipeline.waitFor(null, pipeline.getNodes(), false);
+		assertEquals(4, order.size());
+		assertTrue(order.indexOf("prices") > order.indexOf("assets"));
+		assertTrue(order.indexOf("prices") > order.indexOf("contracts"));
+	}
+
+	private static class Slow extends Add {
+
+		public Slow(List<String> list, String value) {
+			super(list, value);
+		}
+
+		@Override
+		public void run() {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException ex) {
+				//No problem
+			}
+			super.run();
+		}
+	}
+
+	private static class Add implements Runnable {
+
+		private final List<String> list;
+		private final String value;
+
+		public Add(List<String> list, String value) {
+			this.list = list;
+			this.value = value;
+		}
+
+		@Override
+		public void run() {
+			list.add(value);
+		}
+	}
+}